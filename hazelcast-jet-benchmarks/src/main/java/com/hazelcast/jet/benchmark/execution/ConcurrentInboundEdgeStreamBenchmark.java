@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.internal.util.concurrent.QueuedPipe;
+import com.hazelcast.jet.impl.execution.ConcurrentInboundEdgeStream;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
+
+/**
+ * Measures {@link ConcurrentInboundEdgeStream#drainTo} of a stream fed by
+ * several producer queues. Each invocation first refills the queues from
+ * the benchmark thread, so the result includes the cost of the queue
+ * offers, but not of any cross-thread contention.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentInboundEdgeStreamBenchmark {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int ITEMS_PER_INVOCATION = 4096;
+    private static final Object DONE_ITEM = new Object();
+
+    @Param({"1", "4"})
+    public int queueCount;
+
+    private QueuedPipe<Object>[] queues;
+    private ConcurrentInboundEdgeStream stream;
+    private final Object item = "item";
+    private final Predicate<Object> dest = item -> true;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        queues = new QueuedPipe[queueCount];
+        for (int i = 0; i < queueCount; i++) {
+            queues[i] = new OneToOneConcurrentArrayQueue<>(QUEUE_CAPACITY);
+        }
+        ConcurrentConveyor<Object> conveyor = concurrentConveyor(DONE_ITEM, queues);
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, -1, "benchmark");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_INVOCATION)
+    public ProgressState drainTo() {
+        ProgressState result = null;
+        for (int remaining = ITEMS_PER_INVOCATION; remaining > 0; ) {
+            for (QueuedPipe<Object> q : queues) {
+                for (int i = 0; i < QUEUE_CAPACITY / queueCount && remaining > 0; i++, remaining--) {
+                    q.offer(item);
+                }
+            }
+            result = stream.drainTo(dest);
+        }
+        return result;
+    }
+}
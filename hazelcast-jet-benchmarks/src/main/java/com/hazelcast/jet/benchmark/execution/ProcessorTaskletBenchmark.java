@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.execution;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.impl.execution.OutboundEdgeStream;
+import com.hazelcast.jet.impl.execution.ProcessorTasklet;
+import com.hazelcast.jet.impl.execution.SnapshotContext;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures {@link ProcessorTasklet#call()} of a tasklet running a
+ * pass-through {@code mapP} processor. The tasklet takes a full batch of
+ * items from its input in every call and its output accepts everything,
+ * so the result is the per-item overhead of the tasklet itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessorTaskletBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private ProcessorTasklet tasklet;
+
+    @Setup
+    public void setup() {
+        Object[] batch = new Object[BATCH_SIZE];
+        Arrays.fill(batch, "item");
+        Processor processor = mapP(x -> x).get();
+        SnapshotContext ssContext = new SnapshotContext(Logger.getLogger(ProcessorTaskletBenchmark.class),
+                0, "benchmark", 0, ProcessingGuarantee.NONE);
+        tasklet = new ProcessorTasklet(new TestProcessorContext(), new DefaultSerializationServiceBuilder().build(),
+                processor, singletonList(new RepeatingInboundStream(batch)),
+                singletonList(new OutboundEdgeStream(0, item -> DONE)),
+                ssContext, item -> DONE, -1, null);
+        tasklet.init();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ProgressState call() {
+        return tasklet.call();
+    }
+}
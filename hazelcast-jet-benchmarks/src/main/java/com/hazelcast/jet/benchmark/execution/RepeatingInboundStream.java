@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.execution;
+
+import com.hazelcast.jet.impl.execution.InboundEdgeStream;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.util.function.Predicate;
+
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+
+/**
+ * An inbound edge stream that never completes and offers the same batch
+ * of items on every {@link #drainTo} call.
+ */
+class RepeatingInboundStream implements InboundEdgeStream {
+
+    private final Object[] batch;
+
+    RepeatingInboundStream(Object[] batch) {
+        this.batch = batch;
+    }
+
+    @Override
+    public int ordinal() {
+        return 0;
+    }
+
+    @Override
+    public int priority() {
+        return 0;
+    }
+
+    @Override
+    public ProgressState drainTo(Predicate<Object> dest) {
+        for (Object item : batch) {
+            if (!dest.test(item)) {
+                break;
+            }
+        }
+        return MADE_PROGRESS;
+    }
+
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
+    @Override
+    public int capacities() {
+        return batch.length;
+    }
+
+    @Override
+    public int sizes() {
+        return batch.length;
+    }
+}
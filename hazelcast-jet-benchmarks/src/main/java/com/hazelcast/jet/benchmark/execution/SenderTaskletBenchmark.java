@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.execution;
+
+import com.hazelcast.internal.networking.OutboundFrame;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
+import com.hazelcast.jet.impl.execution.SenderTasklet;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.nio.ConnectionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * Measures how fast a {@link SenderTasklet} serializes (optionally in
+ * columnar batches) and compresses entries into packets, like those sent
+ * between the stages of a grouping aggregation. The member connection
+ * discards the packets, so the result doesn't include any networking.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SenderTaskletBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int DISTINCT_KEYS = 64;
+
+    @Param({"16384", "65536"})
+    public int packetSizeLimit;
+
+    @Param({"false", "true"})
+    public boolean packetCompression;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private SenderTasklet tasklet;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        Object[] batch = new Object[BATCH_SIZE];
+        Arrays.setAll(batch, i -> entry("key-" + i % DISTINCT_KEYS, (long) i));
+        tasklet = new SenderTasklet(new RepeatingInboundStream(batch), new DefaultSerializationServiceBuilder().build(),
+                new DiscardingConnection(new Address("localhost", 5701)), 1, 1, packetSizeLimit,
+                packetCompression ? new DeflaterPacketCodec() : null, false, columnar, 0);
+        // the receiver never acknowledges anything in this benchmark, so we
+        // open the send window wide enough to never be exhausted
+        tasklet.setSendSeqLimitCompressed(Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ProgressState call() {
+        // the first call fills the inbox, the subsequent ones send it
+        ProgressState result;
+        do {
+            result = tasklet.call();
+        } while (tasklet.getItemsOutCounter().get() % BATCH_SIZE != 0);
+        return result;
+    }
+
+    /**
+     * A connection that discards the written packets.
+     */
+    private static final class DiscardingConnection implements Connection {
+        private final Address endPoint;
+
+        DiscardingConnection(Address endPoint) {
+            this.endPoint = endPoint;
+        }
+
+        @Override
+        public boolean write(OutboundFrame frame) {
+            return true;
+        }
+
+        @Override
+        public Address getEndPoint() {
+            return endPoint;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return true;
+        }
+
+        @Override
+        public long lastReadTimeMillis() {
+            return 0;
+        }
+
+        @Override
+        public long lastWriteTimeMillis() {
+            return 0;
+        }
+
+        @Override
+        public ConnectionType getType() {
+            return ConnectionType.MEMBER;
+        }
+
+        @Override
+        public void setType(ConnectionType type) {
+        }
+
+        @Override
+        public boolean isClient() {
+            return false;
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteSocketAddress() {
+            return null;
+        }
+
+        @Override
+        public int getPort() {
+            return endPoint.getPort();
+        }
+
+        @Override
+        public void close(String reason, Throwable cause) {
+        }
+
+        @Override
+        public String getCloseReason() {
+            return null;
+        }
+
+        @Override
+        public Throwable getCloseCause() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.execution;
+
+import com.hazelcast.jet.impl.execution.WatermarkCoalescer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link WatermarkCoalescer} the way a processor tasklet
+ * uses it: an event and a watermark observed from each input queue in
+ * turn, followed by a check of the watermark history.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WatermarkCoalescerBenchmark {
+
+    private static final int WMS_PER_INVOCATION = 1024;
+
+    @Param({"1", "4", "16"})
+    public int queueCount;
+
+    @Param({"-1", "100"})
+    public int maxWatermarkRetainMillis;
+
+    private WatermarkCoalescer coalescer;
+    private long wm;
+
+    @Setup
+    public void setup() {
+        coalescer = WatermarkCoalescer.create(maxWatermarkRetainMillis, queueCount);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WMS_PER_INVOCATION)
+    public long observeWm() {
+        long result = 0;
+        for (int i = 0; i < WMS_PER_INVOCATION; i++) {
+            int queueIndex = i % queueCount;
+            long now = System.nanoTime();
+            coalescer.observeEvent(queueIndex);
+            result += coalescer.observeWm(now, queueIndex, ++wm);
+            result += coalescer.checkWmHistory(now);
+        }
+        return result;
+    }
+}
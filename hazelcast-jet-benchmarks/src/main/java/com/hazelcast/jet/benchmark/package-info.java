@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * JMH microbenchmarks of Hazelcast Jet. The benchmarks run in the
+ * throughput mode and are meant to be compared between versions and
+ * configurations of Jet, not read as absolute numbers.
+ * <p>
+ * Build the self-contained {@code benchmarks.jar} with {@code mvn package}
+ * in this module and run it with {@code java -jar target/benchmarks.jar};
+ * see {@link com.hazelcast.jet.benchmark.BenchmarkMain}.
+ */
+package com.hazelcast.jet.benchmark;
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.function.DistributedFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures the accumulation of items into the per-key state of the
+ * {@code GroupP} processor created by {@code aggregateByKeyP}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupPBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    @Param({"16", "65536"})
+    public int keyCount;
+
+    private Processor processor;
+    private TestInbox inbox;
+    private long seq;
+
+    @Setup
+    public void setup() throws Exception {
+        DistributedFunction<Long, Long> keyFn = x -> x % keyCount;
+        processor = aggregateByKeyP(singletonList(keyFn), counting(), (k, r) -> r).get();
+        processor.init(new TestOutbox(1), new TestProcessorContext());
+        inbox = new TestInbox();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void process() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inbox.add(seq++);
+        }
+        processor.process(0, inbox);
+    }
+}
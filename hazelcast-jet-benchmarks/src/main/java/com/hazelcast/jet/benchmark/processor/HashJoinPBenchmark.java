@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.processor;
+
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.jet.impl.processor.HashJoinP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures the probe side of {@link HashJoinP}: looking up each item of
+ * the primary stream in a lookup table that was received on the build
+ * side edge, and emitting the joined tuple.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashJoinPBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    @Param({"1024", "1048576"})
+    public int tableSize;
+
+    private HashJoinP<Long> processor;
+    private TestInbox inbox;
+    private TestOutbox outbox;
+    private long seq;
+
+    @Setup
+    public void setup() throws Exception {
+        Function<Long, Object> keyFn = x -> x % tableSize;
+        processor = new HashJoinP<>(singletonList(keyFn), emptyList(), Tuple2::tuple2, null);
+        outbox = new TestOutbox(BATCH_SIZE);
+        processor.init(outbox, new TestProcessorContext());
+        inbox = new TestInbox();
+
+        Map<Long, String> table = new HashMap<>();
+        for (long i = 0; i < tableSize; i++) {
+            table.put(i, "value-" + i);
+        }
+        inbox.add(table);
+        processor.process(1, inbox);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void process() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inbox.add(seq++);
+        }
+        processor.process(0, inbox);
+        outbox.queue(0).clear();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSessionWindowP;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures the {@code SessionWindowP} processor created by {@code
+ * aggregateToSessionWindowP}. The events come in bursts of {@value
+ * #BURST_LENGTH} consecutive timestamps separated by gaps longer than
+ * the session timeout, so each burst results in one session per key,
+ * which the watermark after the next burst closes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionWindowPBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int BURST_LENGTH = 256;
+    private static final long SESSION_TIMEOUT = 64;
+
+    @Param({"16", "64"})
+    public int keyCount;
+
+    private Processor processor;
+    private TestInbox inbox;
+    private TestOutbox outbox;
+    private long seq;
+
+    @Setup
+    public void setup() throws Exception {
+        DistributedFunction<Long, Long> keyFn = x -> x % keyCount;
+        DistributedToLongFunction<Long> timestampFn = x -> x;
+        processor = aggregateToSessionWindowP(SESSION_TIMEOUT, singletonList(timestampFn), singletonList(keyFn),
+                counting(), TimestampedEntry::fromWindowResult).get();
+        outbox = new TestOutbox(BATCH_SIZE);
+        processor.init(outbox, new TestProcessorContext());
+        inbox = new TestInbox();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void processAndEmit() {
+        long timestamp = 0;
+        for (int i = 0; i < BATCH_SIZE; i++, seq++) {
+            // every burst is followed by a gap of the same length
+            timestamp = seq + seq / BURST_LENGTH * BURST_LENGTH;
+            inbox.add(timestamp);
+        }
+        processor.process(0, inbox);
+        Watermark wm = new Watermark(timestamp - BURST_LENGTH);
+        while (!processor.tryProcessWatermark(wm)) {
+            outbox.queue(0).clear();
+        }
+        outbox.queue(0).clear();
+    }
+}
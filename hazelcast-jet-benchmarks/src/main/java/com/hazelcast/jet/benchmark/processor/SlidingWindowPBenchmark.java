@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.TimestampKind;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static com.hazelcast.jet.core.processor.Processors.accumulateByFrameP;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static java.util.Collections.singletonList;
+
+/**
+ * Measures the {@code SlidingWindowP} processor created by {@code
+ * aggregateToSlidingWindowP} or, if {@code firstStage} is set, by {@code
+ * accumulateByFrameP}: accumulating a batch of events into frames
+ * and then emitting the windows closed by a watermark that lags behind
+ * the events by one window. {@link #watermarkPerEvent} follows each event
+ * with a watermark, so that with small frame sizes the processing of the
+ * watermarks dominates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlidingWindowPBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+    private static final long WINDOW_SIZE = 1000;
+
+    @Param({"16", "1024"})
+    public int keyCount;
+
+    @Param({"1", "10", "1000"})
+    public long slideBy;
+
+    @Param({"false", "true"})
+    public boolean firstStage;
+
+    private Processor processor;
+    private TestInbox inbox;
+    private TestOutbox outbox;
+    private long seq;
+
+    @Setup
+    public void setup() throws Exception {
+        DistributedFunction<Long, Long> keyFn = x -> x % keyCount;
+        DistributedToLongFunction<Long> timestampFn = x -> x;
+        SlidingWindowPolicy winPolicy = slidingWinPolicy(WINDOW_SIZE, slideBy);
+        processor = firstStage
+                ? accumulateByFrameP(singletonList(keyFn), singletonList(timestampFn), TimestampKind.EVENT,
+                        winPolicy, counting()).get()
+                : aggregateToSlidingWindowP(singletonList(keyFn), singletonList(timestampFn), TimestampKind.EVENT,
+                        winPolicy, counting(), TimestampedEntry::fromWindowResult).get();
+        outbox = new TestOutbox(BATCH_SIZE);
+        processor.init(outbox, new TestProcessorContext());
+        inbox = new TestInbox();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void processAndEmit() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inbox.add(seq++);
+        }
+        processor.process(0, inbox);
+        Watermark wm = new Watermark(seq - WINDOW_SIZE);
+        while (!processor.tryProcessWatermark(wm)) {
+            outbox.queue(0).clear();
+        }
+        outbox.queue(0).clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void watermarkPerEvent() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inbox.add(seq++);
+            processor.process(0, inbox);
+            Watermark wm = new Watermark(seq - WINDOW_SIZE);
+            while (!processor.tryProcessWatermark(wm)) {
+                outbox.queue(0).clear();
+            }
+        }
+        outbox.queue(0).clear();
+    }
+}
@@ -56,4 +56,7 @@ public interface JetCodecTemplate {
 
     @Request(id = 11, retryable = true, response = ResponseMessageConst.DATA)
     Object getJobSummaryList();
+
+    @Request(id = 12, retryable = false, response = ResponseMessageConst.VOID)
+    void exportSnapshot(long jobId, String name);
 }
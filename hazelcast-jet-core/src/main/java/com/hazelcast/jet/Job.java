@@ -140,6 +140,25 @@ public interface Job {
      */
     void resume();
 
+    /**
+     * Exports the last successful snapshot of the job under the given name,
+     * replacing a snapshot previously exported under the same name. The
+     * job can be running or {@linkplain #suspend() suspended}, the exported
+     * snapshot is kept after the job completes. A new job started with
+     * {@link JobConfig#setInitialSnapshotName(String)} restores its state
+     * from it, so that it doesn't have to reprocess the history of its
+     * sources to rebuild the state, for example after an upgrade of the job.
+     * <p>
+     * The snapshot data is copied in the binary form it's stored in, into
+     * the same kind of storage as the job's snapshots: an IMap or the
+     * {@linkplain com.hazelcast.jet.config.InstanceConfig#setSnapshotDirectory
+     * snapshot directory} on the members. Snapshots aren't taken while the
+     * data is copied. The call blocks until the export is complete.
+     *
+     * @throws IllegalStateException if the job has no successful snapshot
+     */
+    void exportSnapshot(@Nonnull String name);
+
     /**
      * Makes a request to cancel this job and returns. The job will complete
      * after its execution has stopped on all the nodes. If the job is
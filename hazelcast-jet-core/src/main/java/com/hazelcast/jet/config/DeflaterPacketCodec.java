@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.config;
+
+import com.hazelcast.jet.JetException;
+
+import javax.annotation.Nonnull;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link PacketCodec} using the JDK's {@link Deflater} and {@link
+ * Inflater}. It is the default codec of an {@link EdgeConfig} with {@link
+ * EdgeConfig#setPacketCompressionEnabled(boolean) packet compression}
+ * enabled.
+ */
+public class DeflaterPacketCodec implements PacketCodec {
+
+    private final Deflater deflater;
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * Creates a codec with the {@link Deflater#BEST_SPEED} compression level.
+     */
+    public DeflaterPacketCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Creates a codec with the given compression level, a value from 0 to 9
+     * as accepted by {@link Deflater#setLevel(int)}.
+     */
+    public DeflaterPacketCodec(int level) {
+        this.deflater = new Deflater(level);
+    }
+
+    @Override
+    public int compress(@Nonnull byte[] src, int srcOffset, int length,
+                        @Nonnull byte[] dest, int destOffset, int maxLength) {
+        deflater.reset();
+        deflater.setInput(src, srcOffset, length);
+        deflater.finish();
+        int compressedLength = deflater.deflate(dest, destOffset, maxLength);
+        // if the deflater isn't finished, the compressed data is longer than maxLength
+        return deflater.finished() ? compressedLength : -1;
+    }
+
+    @Override
+    public void decompress(
+            @Nonnull byte[] src, int srcOffset, int length, @Nonnull byte[] dest, int uncompressedLength
+    ) {
+        inflater.reset();
+        inflater.setInput(src, srcOffset, length);
+        try {
+            int inflatedLength = inflater.inflate(dest, 0, uncompressedLength);
+            if (inflatedLength != uncompressedLength || !inflater.finished()) {
+                throw new JetException("Corrupted packet: expected " + uncompressedLength
+                        + " bytes after decompression, but got " + inflatedLength);
+            }
+        } catch (DataFormatException e) {
+            throw new JetException("Corrupted packet: " + e, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        inflater.end();
+    }
+}
@@ -17,9 +17,13 @@
 package com.hazelcast.jet.config;
 
 import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.function.DistributedSupplier;
 
+import javax.annotation.Nonnull;
 import java.io.Serializable;
 
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.Preconditions.checkPositive;
 
 /**
@@ -44,9 +48,33 @@ public class EdgeConfig implements Serializable {
      */
     public static final int DEFAULT_PACKET_SIZE_LIMIT = 1 << 14;
 
+    /**
+     * The default {@link #setPacketLingerTimeMicros(long) packet linger time},
+     * it means packets are sent without delay.
+     */
+    public static final long DEFAULT_PACKET_LINGER_TIME_MICROS = 0;
+
+    /**
+     * The default {@link #setPriorityDrainingThreshold(long) priority
+     * draining threshold}.
+     */
+    public static final long DEFAULT_PRIORITY_DRAINING_THRESHOLD = 0;
+
+    /**
+     * The default {@link #setMaxWatermarkSkew(long) maximum watermark skew},
+     * it means there is no limit.
+     */
+    public static final long DEFAULT_MAX_WATERMARK_SKEW = Long.MAX_VALUE;
+
     private int queueSize = DEFAULT_QUEUE_SIZE;
     private int receiveWindowMultiplier = DEFAULT_RECEIVE_WINDOW_MULTIPLIER;
     private int packetSizeLimit = DEFAULT_PACKET_SIZE_LIMIT;
+    private long packetLingerTimeMicros = DEFAULT_PACKET_LINGER_TIME_MICROS;
+    private boolean skewReductionEnabled;
+    private long priorityDrainingThreshold = DEFAULT_PRIORITY_DRAINING_THRESHOLD;
+    private long maxWatermarkSkew = DEFAULT_MAX_WATERMARK_SKEW;
+    private boolean packetCompressionEnabled;
+    private DistributedSupplier<? extends PacketCodec> packetCodecSupplier = DeflaterPacketCodec::new;
 
     /**
      * Sets the capacity of processor-to-processor concurrent queues. The value
@@ -146,4 +174,182 @@ public class EdgeConfig implements Serializable {
     public int getPacketSizeLimit() {
         return packetSizeLimit;
     }
+
+    /**
+     * Sets the maximum time, in microseconds, for which a distributed edge
+     * may delay sending a packet in order to collect enough items to fill
+     * it up to the {@link #setPacketSizeLimit(int) packet size limit}.
+     * <p>
+     * By default the sender sends a packet as soon as it has any items,
+     * which gives the lowest latency but under light or bursty traffic
+     * produces many small packets. With a linger time, the sender waits
+     * until it has items for a full packet, but no longer than the linger
+     * time after the first unsent item arrived. This trades latency for
+     * throughput and lower per-packet overhead. To coalesce items into
+     * packets smaller than the packet size limit, lower the limit as well.
+     * <p>
+     * Watermarks and snapshot barriers travel in the same packets as the
+     * items, so they can also be delayed by up to the linger time. The
+     * actual delay can additionally be prolonged by the time an idle
+     * cooperative worker thread parks between calls.
+     * <p>
+     * The default value is {@value #DEFAULT_PACKET_LINGER_TIME_MICROS}. This
+     * setting has no effect on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setPacketLingerTimeMicros(long packetLingerTimeMicros) {
+        checkNotNegative(packetLingerTimeMicros, "packetLingerTimeMicros must not be negative");
+        this.packetLingerTimeMicros = packetLingerTimeMicros;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setPacketLingerTimeMicros(long) packet linger time}
+     * in microseconds.
+     */
+    public long getPacketLingerTimeMicros() {
+        return packetLingerTimeMicros;
+    }
+
+    /**
+     * Sets whether the receiving processors should reduce the watermark
+     * skew between the queues of this edge.
+     * <p>
+     * Each processor receives the edge's data over several queues, one for
+     * each upstream processor. If the watermark in one of the queues runs
+     * far ahead of the others, windowing processors must keep the state of
+     * all the frames between the slowest and the fastest watermark. With
+     * skew reduction enabled, the processor drains the queues with the
+     * lagging watermark first and drains the queues whose watermark is
+     * more than the {@link #setPriorityDrainingThreshold(long) priority
+     * draining threshold} ahead only when the lagging queues had no data.
+     * It also stops draining the queues that are more than the {@link
+     * #setMaxWatermarkSkew(long) maximum watermark skew} ahead, applying
+     * backpressure to their producers.
+     * <p>
+     * The skew reduction is disabled by default. It has no effect on edges
+     * that don't carry watermarks.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setSkewReductionEnabled(boolean skewReductionEnabled) {
+        this.skewReductionEnabled = skewReductionEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setSkewReductionEnabled(boolean) watermark
+     * skew reduction} is enabled.
+     */
+    public boolean isSkewReductionEnabled() {
+        return skewReductionEnabled;
+    }
+
+    /**
+     * Sets the skew, in the units of the watermark (typically milliseconds),
+     * beyond which a queue of this edge is drained only if no queue with a
+     * lower watermark had any data. The skew of a queue is the difference
+     * between its watermark and the lowest watermark among all the queues.
+     * <p>
+     * The default value is {@value #DEFAULT_PRIORITY_DRAINING_THRESHOLD}. It
+     * must not be greater than the {@link #setMaxWatermarkSkew(long) maximum
+     * watermark skew}. This setting has effect only if the {@link
+     * #setSkewReductionEnabled(boolean) skew reduction} is enabled.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setPriorityDrainingThreshold(long priorityDrainingThreshold) {
+        checkNotNegative(priorityDrainingThreshold, "priorityDrainingThreshold must not be negative");
+        this.priorityDrainingThreshold = priorityDrainingThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setPriorityDrainingThreshold(long) priority draining
+     * threshold}.
+     */
+    public long getPriorityDrainingThreshold() {
+        return priorityDrainingThreshold;
+    }
+
+    /**
+     * Sets the skew, in the units of the watermark (typically milliseconds),
+     * beyond which a queue of this edge isn't drained at all until the
+     * watermark of the lagging queues catches up. This bounds the state of
+     * the windowing processors under skew, but may stall the job if the
+     * producers of the lagging queues themselves wait for the queues that
+     * aren't being drained.
+     * <p>
+     * The default value of {@code Long.MAX_VALUE} means there is no limit.
+     * This setting has effect only if the {@link
+     * #setSkewReductionEnabled(boolean) skew reduction} is enabled.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setMaxWatermarkSkew(long maxWatermarkSkew) {
+        checkNotNegative(maxWatermarkSkew, "maxWatermarkSkew must not be negative");
+        this.maxWatermarkSkew = maxWatermarkSkew;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setMaxWatermarkSkew(long) maximum watermark skew}.
+     */
+    public long getMaxWatermarkSkew() {
+        return maxWatermarkSkew;
+    }
+
+    /**
+     * Sets whether the bodies of the network packets of this edge should be
+     * compressed. Compression trades CPU time on both the sending and the
+     * receiving member for network bandwidth, it pays off when the network
+     * is the bottleneck and the items compress well.
+     * <p>
+     * The packets are compressed using the codec created by the {@link
+     * #setPacketCodecSupplier packet codec supplier}. A packet whose body
+     * doesn't get shorter is sent uncompressed. The flow control still
+     * accounts for the uncompressed size of the items.
+     * <p>
+     * The packet compression is disabled by default. This setting has no
+     * effect on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setPacketCompressionEnabled(boolean packetCompressionEnabled) {
+        this.packetCompressionEnabled = packetCompressionEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setPacketCompressionEnabled(boolean) packet
+     * compression} is enabled.
+     */
+    public boolean isPacketCompressionEnabled() {
+        return packetCompressionEnabled;
+    }
+
+    /**
+     * Sets the supplier of the codecs used to compress and decompress the
+     * network packets of this edge, if the {@link
+     * #setPacketCompressionEnabled(boolean) packet compression} is enabled.
+     * Jet creates a codec for each sending and receiving tasklet.
+     * <p>
+     * The default supplies {@link DeflaterPacketCodec} instances.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setPacketCodecSupplier(@Nonnull DistributedSupplier<? extends PacketCodec> packetCodecSupplier) {
+        checkNotNull(packetCodecSupplier, "packetCodecSupplier must not be null");
+        this.packetCodecSupplier = packetCodecSupplier;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setPacketCodecSupplier packet codec supplier}.
+     */
+    @Nonnull
+    public DistributedSupplier<? extends PacketCodec> getPacketCodecSupplier() {
+        return packetCodecSupplier;
+    }
 }
@@ -19,6 +19,7 @@ package com.hazelcast.jet.config;
 import com.hazelcast.config.MapConfig;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static com.hazelcast.util.Preconditions.checkBackupCount;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
@@ -46,6 +47,9 @@ public class InstanceConfig {
     private int flowControlPeriodMs = DEFAULT_FLOW_CONTROL_PERIOD_MS;
     private int backupCount = DEFAULT_BACKUP_COUNT;
     private long scaleUpDelayMillis = SCALE_UP_DELAY_MILLIS_DEFAULT;
+    private boolean workStealingEnabled;
+    private boolean eventDrivenWakeupEnabled;
+    private String snapshotDirectory;
 
     /**
      * Sets the number of threads each cluster member will use to execute Jet
@@ -136,4 +140,95 @@ public class InstanceConfig {
     public long getScaleUpDelayMillis() {
         return scaleUpDelayMillis;
     }
+
+    /**
+     * Sets whether the cooperative worker threads should rebalance their
+     * tasklets at runtime. Tasklets are initially assigned to the threads
+     * round-robin and, by default, never move. With work stealing enabled
+     * each thread measures how much time it spends calling its tasklets
+     * and an underloaded thread takes over a tasklet from an
+     * overloaded one. This helps when the tasklets have very uneven load,
+     * for example due to a skewed vertex, at the cost of measuring the
+     * duration of each tasklet call. It's disabled by default.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setWorkStealingEnabled(boolean workStealingEnabled) {
+        this.workStealingEnabled = workStealingEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether {@linkplain #setWorkStealingEnabled(boolean) work
+     * stealing} among the cooperative worker threads is enabled.
+     */
+    public boolean isWorkStealingEnabled() {
+        return workStealingEnabled;
+    }
+
+    /**
+     * Sets whether idle cooperative worker threads should be woken up as
+     * soon as new input for one of their tasklets arrives. By default a
+     * thread with no work backs off and parks for up to 1 millisecond,
+     * which adds that much latency to the first item after each lull. With
+     * this option enabled the producers of the input (local queues and the
+     * network) unpark the thread, so it can react immediately and also
+     * park for longer, up to 10 milliseconds, when there's no work. So do
+     * the consumers of a full output queue once they free it up.
+     * <p>
+     * Threads running tasklets that can't be signalled keep the default
+     * behavior. These are the tasklets that also do work depending only on
+     * time, such as the sources, processors that emit a watermark on an
+     * idle timeout or wait for async operations and the senders of
+     * lingering packets. This makes the option most useful for
+     * latency-sensitive jobs with a low or bursty input rate. It's disabled
+     * by default.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setEventDrivenWakeupEnabled(boolean eventDrivenWakeupEnabled) {
+        this.eventDrivenWakeupEnabled = eventDrivenWakeupEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether {@linkplain #setEventDrivenWakeupEnabled(boolean)
+     * event-driven wakeup} of idle cooperative worker threads is enabled.
+     */
+    public boolean isEventDrivenWakeupEnabled() {
+        return eventDrivenWakeupEnabled;
+    }
+
+    /**
+     * Sets the directory where the members store the snapshot data on
+     * their local disk instead of in the snapshot {@code IMap}s. Each
+     * member writes the chunks of the snapshot data it produces into a
+     * subdirectory named after its UUID and sends a copy of each chunk to
+     * the next {@link #setBackupCount(int) backup-count} members, which
+     * store it in their own subdirectory. When a job is restored, each
+     * member reads only its local files.
+     * <p>
+     * Since the subdirectory is named after the UUID, the files written
+     * by a member before it restarted are not used. The default is {@code
+     * null}, which means the snapshot data is stored in {@code IMap}s.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setSnapshotDirectory(@Nullable String snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+        return this;
+    }
+
+    /**
+     * Returns the {@linkplain #setSnapshotDirectory(String) directory for
+     * the snapshot data} or {@code null}, if the snapshot data is stored
+     * in {@code IMap}s.
+     */
+    @Nullable
+    public String getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
 }
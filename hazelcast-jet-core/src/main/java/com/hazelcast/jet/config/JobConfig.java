@@ -30,6 +30,7 @@ import java.util.List;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.util.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -38,10 +39,23 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 public class JobConfig implements Serializable {
 
     private static final long SNAPSHOT_INTERVAL_MILLIS_DEFAULT = SECONDS.toMillis(10);
+    private static final int FULL_SNAPSHOT_INTERVAL_DEFAULT = 10;
+    private static final long MIN_SNAPSHOT_INTERVAL_MILLIS_DEFAULT = SECONDS.toMillis(1);
+    private static final long MAX_SNAPSHOT_INTERVAL_MILLIS_DEFAULT = MINUTES.toMillis(5);
 
     private String name;
     private ProcessingGuarantee processingGuarantee = ProcessingGuarantee.NONE;
     private long snapshotIntervalMillis = SNAPSHOT_INTERVAL_MILLIS_DEFAULT;
+    private double maxSnapshotOverhead;
+    private long minSnapshotIntervalMillis = MIN_SNAPSHOT_INTERVAL_MILLIS_DEFAULT;
+    private long maxSnapshotIntervalMillis = MAX_SNAPSHOT_INTERVAL_MILLIS_DEFAULT;
+    private boolean incrementalSnapshotsEnabled;
+    private int fullSnapshotInterval = FULL_SNAPSHOT_INTERVAL_DEFAULT;
+    private boolean snapshotCompressionEnabled;
+    private boolean unalignedSnapshotsEnabled;
+    private boolean offHeapStateEnabled;
+    private long maxGroupingKeysInMemory;
+    private String initialSnapshotName;
     private boolean autoScaling = true;
     private boolean splitBrainProtectionEnabled;
     private final List<ResourceConfig> resourceConfigs = new ArrayList<>();
@@ -186,7 +200,9 @@ public class JobConfig implements Serializable {
      * be set to a positive value. This setting is only relevant with
      * <i>at-least-once</i> or <i>exactly-once</i> processing guarantees.
      * <p>
-     * Default value is set to 10 seconds.
+     * Default value is set to 10 seconds. If the {@linkplain
+     * #setMaxSnapshotOverhead(double) adaptive snapshot interval} is
+     * enabled, this is the interval before the first snapshot.
      *
      * @return {@code this} instance for fluent API
      */
@@ -197,6 +213,321 @@ public class JobConfig implements Serializable {
         return this;
     }
 
+    /**
+     * Returns the configured {@linkplain #setMaxSnapshotOverhead(double)
+     * maximum snapshot overhead}.
+     */
+    public double getMaxSnapshotOverhead() {
+        return maxSnapshotOverhead;
+    }
+
+    /**
+     * Enables the adaptive snapshot interval and sets the maximum fraction of
+     * the wall time the job should spend taking snapshots. After each
+     * successful snapshot, Jet estimates the duration of the next one from
+     * the size of the last snapshot and the rate at which the recent
+     * snapshots were written. It then sets the interval before the next
+     * snapshot so that the time spent in snapshots doesn't exceed the given
+     * fraction. A job with a small state is thus snapshotted often and one
+     * with a large state less often. The interval is kept between the
+     * {@linkplain #setMinSnapshotIntervalMillis(long) minimum} and the
+     * {@linkplain #setMaxSnapshotIntervalMillis(long) maximum}.
+     * <p>
+     * The value must be less than 1. The default value is 0, which disables
+     * the adaptive interval: the {@linkplain #setSnapshotIntervalMillis(long)
+     * snapshot interval} is used between all snapshots. This setting is only
+     * relevant with <i>at-least-once</i> or <i>exactly-once</i> processing
+     * guarantees.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setMaxSnapshotOverhead(double fraction) {
+        Preconditions.checkTrue(fraction >= 0 && fraction < 1, "fraction must be in the range [0, 1)");
+        this.maxSnapshotOverhead = fraction;
+        return this;
+    }
+
+    /**
+     * Returns the configured {@linkplain #setMinSnapshotIntervalMillis(long)
+     * minimum snapshot interval}.
+     */
+    public long getMinSnapshotIntervalMillis() {
+        return minSnapshotIntervalMillis;
+    }
+
+    /**
+     * Sets the lower bound of the {@linkplain #setMaxSnapshotOverhead(double)
+     * adaptive snapshot interval} in milliseconds. If it's larger than the
+     * {@linkplain #setMaxSnapshotIntervalMillis(long) upper bound}, it takes
+     * precedence.
+     * <p>
+     * The default value is 1 second.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setMinSnapshotIntervalMillis(long interval) {
+        Preconditions.checkNotNegative(interval, "interval can't be negative");
+        this.minSnapshotIntervalMillis = interval;
+        return this;
+    }
+
+    /**
+     * Returns the configured {@linkplain #setMaxSnapshotIntervalMillis(long)
+     * maximum snapshot interval}.
+     */
+    public long getMaxSnapshotIntervalMillis() {
+        return maxSnapshotIntervalMillis;
+    }
+
+    /**
+     * Sets the upper bound of the {@linkplain #setMaxSnapshotOverhead(double)
+     * adaptive snapshot interval} in milliseconds. It limits the amount of
+     * input to reprocess after a failure of a job with a large state.
+     * <p>
+     * The default value is 5 minutes.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setMaxSnapshotIntervalMillis(long interval) {
+        Preconditions.checkNotNegative(interval, "interval can't be negative");
+        this.maxSnapshotIntervalMillis = interval;
+        return this;
+    }
+
+    /**
+     * Returns whether {@linkplain #setIncrementalSnapshotsEnabled(boolean)
+     * incremental snapshots} are enabled.
+     */
+    public boolean isIncrementalSnapshotsEnabled() {
+        return incrementalSnapshotsEnabled;
+    }
+
+    /**
+     * Sets whether the job should save incremental snapshots. In an
+     * incremental snapshot, the processors that support it save only the
+     * keys they changed or removed since the previous snapshot, instead of
+     * their entire state. The windowing and rolling aggregation processors
+     * support it, the other processors save their entire state as usual.
+     * <p>
+     * An incremental snapshot is stored together with the full snapshot it
+     * is based on and the incremental snapshots taken since then. A job
+     * restored from it reconstructs its state from this whole chain. To
+     * bound the length of the chain, every {@linkplain
+     * #setFullSnapshotInterval(int) n-th} snapshot is a full one. The first
+     * snapshot of each execution of the job and the snapshot after a
+     * failed one are also full.
+     * <p>
+     * Incremental snapshots are disabled by default. This setting is only
+     * relevant with <i>at-least-once</i> or <i>exactly-once</i> processing
+     * guarantees.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setIncrementalSnapshotsEnabled(boolean enabled) {
+        this.incrementalSnapshotsEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns the configured {@link #setFullSnapshotInterval(int) full
+     * snapshot interval}.
+     */
+    public int getFullSnapshotInterval() {
+        return fullSnapshotInterval;
+    }
+
+    /**
+     * Sets how often a full snapshot is taken when {@linkplain
+     * #setIncrementalSnapshotsEnabled(boolean) incremental snapshots} are
+     * enabled: a full snapshot is followed by at most {@code interval - 1}
+     * incremental snapshots. A longer interval means smaller average
+     * snapshots, but more data to read and merge when the job is restored.
+     * Must be a positive number.
+     * <p>
+     * The default value is 10.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setFullSnapshotInterval(int interval) {
+        Preconditions.checkPositive(interval, "interval must be positive");
+        this.fullSnapshotInterval = interval;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@linkplain #setSnapshotCompressionEnabled(boolean)
+     * snapshot compression} is enabled.
+     */
+    public boolean isSnapshotCompressionEnabled() {
+        return snapshotCompressionEnabled;
+    }
+
+    /**
+     * Sets whether the snapshot data should be compressed. The data is
+     * written in chunks of up to 128 KB, each chunk is compressed with the
+     * {@link java.util.zip.Deflater} on the {@link
+     * java.util.zip.Deflater#BEST_SPEED fastest} level and stored
+     * compressed, unless that wouldn't make it shorter. Compression trades
+     * CPU time while taking and restoring the snapshot for smaller memory
+     * use of the snapshot data and less traffic to its backups.
+     * <p>
+     * The snapshot compression is disabled by default. This setting is only
+     * relevant with <i>at-least-once</i> or <i>exactly-once</i> processing
+     * guarantees.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setSnapshotCompressionEnabled(boolean enabled) {
+        this.snapshotCompressionEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns whether {@linkplain #setUnalignedSnapshotsEnabled(boolean)
+     * unaligned snapshots} are enabled.
+     */
+    public boolean isUnalignedSnapshotsEnabled() {
+        return unalignedSnapshotsEnabled;
+    }
+
+    /**
+     * Sets whether the job should take unaligned snapshots. With the
+     * <i>exactly-once</i> guarantee, a processor normally stops processing
+     * the input on which it received the snapshot barrier until it receives
+     * the barrier on all its inputs. If one of the inputs lags behind, the
+     * processor and, through backpressure, its upstream are stalled until
+     * the barrier arrives on it.
+     * <p>
+     * With unaligned snapshots, the processor saves its state as soon as it
+     * receives the barrier on any input, forwards the barrier downstream and
+     * continues processing all inputs. The items it receives on an input
+     * before the barrier arrives on it are still processed, but also saved
+     * to the snapshot. When the job is restored, the restored processor
+     * processes them again before the other input. Thus the time to take
+     * a snapshot doesn't depend on the skew between the inputs, at the cost
+     * of larger snapshots. The in-flight items must be serializable, even
+     * if they only travel through local edges.
+     * <p>
+     * The terminal snapshot taken when the job is suspended or restarted is
+     * always aligned. The processors of a vertex with a broadcast input or
+     * an input {@linkplain com.hazelcast.jet.core.Processor#acceptsSerializedInput
+     * in the serialized form}, and those saving {@linkplain
+     * #setIncrementalSnapshotsEnabled(boolean) incremental snapshots} take
+     * aligned snapshots as well.
+     * <p>
+     * Unaligned snapshots are disabled by default. This setting is only
+     * relevant with the <i>exactly-once</i> processing guarantee.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setUnalignedSnapshotsEnabled(boolean enabled) {
+        this.unalignedSnapshotsEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@linkplain #setOffHeapStateEnabled(boolean)
+     * off-heap state} is enabled.
+     */
+    public boolean isOffHeapStateEnabled() {
+        return offHeapStateEnabled;
+    }
+
+    /**
+     * Sets whether the processors aggregating by a grouping key should keep
+     * their keyed state off the Java heap. The grouping keys and the
+     * accumulators are then stored in their serialized form in native
+     * memory, and an accumulator is deserialized only while it's being
+     * updated. A member can hold much more keyed state this way without long
+     * garbage collection pauses, at the cost of serializing the accumulators
+     * when they are updated. The grouping keys and the accumulators must be
+     * serializable and two keys are considered equal if their serialized
+     * forms are equal.
+     * <p>
+     * The off-heap state is used by the processors of the grouping, rolling
+     * aggregation, sliding window and session window stages. It is disabled
+     * by default.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setOffHeapStateEnabled(boolean enabled) {
+        this.offHeapStateEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns the {@linkplain #setMaxGroupingKeysInMemory(long) memory
+     * budget} of the batch grouping processors.
+     */
+    public long getMaxGroupingKeysInMemory() {
+        return maxGroupingKeysInMemory;
+    }
+
+    /**
+     * Sets the memory budget of the processors of the batch grouping and
+     * {@code distinct} stages, expressed as the maximum number of grouping
+     * keys a processor keeps in memory. When a processor exceeds it, it
+     * writes its accumulators to temporary files in the local {@code
+     * java.io.tmpdir} directory, partitioned by the hash of the key, and
+     * continues with an empty state. After it receives all the input, it
+     * merges the partitions one by one. This way a job can aggregate more
+     * keys than fit into the memory of the cluster, at the cost of the disk
+     * I/O. The grouping keys and the accumulators must be serializable.
+     * <p>
+     * The aggregate operation must have the {@linkplain
+     * com.hazelcast.jet.aggregate.AggregateOperation#combineFn() combining
+     * primitive}, otherwise the processor keeps all its keys in memory. The
+     * {@code distinct} stage emits the items with the keys it sees within
+     * the budget immediately and the rest after it receives all the input.
+     * <p>
+     * The default value is 0, which means there's no budget and the
+     * processors never write to disk.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setMaxGroupingKeysInMemory(long maxKeys) {
+        Preconditions.checkNotNegative(maxKeys, "maxKeys must not be negative");
+        this.maxGroupingKeysInMemory = maxKeys;
+        return this;
+    }
+
+    /**
+     * Returns the name of the {@linkplain #setInitialSnapshotName(String)
+     * initial snapshot} or {@code null} if none was set.
+     */
+    @Nullable
+    public String getInitialSnapshotName() {
+        return initialSnapshotName;
+    }
+
+    /**
+     * Sets the name of the {@linkplain Job#exportSnapshot(String) exported
+     * snapshot} the job's state is restored from when the job starts. The
+     * state is mapped to the vertices of the job by the vertex name: the
+     * state saved by a vertex is restored to the vertex with the same name,
+     * the state of the vertices the job doesn't contain is ignored. The
+     * snapshot is only used when the job has no snapshot of its own, that
+     * is it isn't used when the job restarts after it took a snapshot.
+     * <p>
+     * If the exported snapshot doesn't exist, the job fails.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setInitialSnapshotName(@Nullable String initialSnapshotName) {
+        this.initialSnapshotName = initialSnapshotName;
+        return this;
+    }
+
     /**
      * Sets the maximum time to retain the watermarks while coalescing them.
      * A negative value disables the limit and Jet will retain the watermark
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.config;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Compresses the bodies of the network packets of a distributed edge with
+ * {@link EdgeConfig#setPacketCompressionEnabled(boolean) packet compression}
+ * enabled, and decompresses them on the receiving member.
+ * <p>
+ * Jet creates a separate codec instance for each sending and receiving
+ * tasklet using the {@link EdgeConfig#setPacketCodecSupplier supplier}
+ * configured on the edge, therefore the implementation doesn't have to be
+ * thread-safe. The tasklets pass it reused buffers, so the codec doesn't
+ * have to allocate any for each packet. When the tasklet is done,
+ * Jet calls {@link #close()}.
+ */
+public interface PacketCodec {
+
+    /**
+     * Compresses {@code length} bytes of the array {@code src} starting at
+     * {@code srcOffset} into the array {@code dest} starting at {@code
+     * destOffset}. Returns the length of the compressed data, or {@code -1}
+     * if it would be longer than {@code maxLength}. In the latter case Jet
+     * sends the packet body uncompressed.
+     */
+    int compress(@Nonnull byte[] src, int srcOffset, int length,
+                 @Nonnull byte[] dest, int destOffset, int maxLength);
+
+    /**
+     * Decompresses the data previously written by {@link #compress}.
+     *
+     * @param src the array containing the compressed data
+     * @param srcOffset the offset of the compressed data in {@code src}
+     * @param length the length of the compressed data
+     * @param dest the array to write the decompressed data to, starting at
+     *             index 0. It can be longer than {@code uncompressedLength}.
+     * @param uncompressedLength the length of the data before compression
+     */
+    void decompress(@Nonnull byte[] src, int srcOffset, int length, @Nonnull byte[] dest, int uncompressedLength);
+
+    /**
+     * Releases the resources held by this codec. Jet calls this method when
+     * the tasklet using the codec is done. The default implementation does
+     * nothing.
+     */
+    default void close() {
+    }
+}
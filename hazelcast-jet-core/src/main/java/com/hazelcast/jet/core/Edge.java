@@ -69,6 +69,7 @@ public class Edge implements IdentifiedDataSerializable {
 
     private int priority;
     private boolean isDistributed;
+    private boolean isColumnar;
     private Partitioner<?> partitioner;
     private RoutingPolicy routingPolicy = RoutingPolicy.UNICAST;
 
@@ -362,6 +363,36 @@ public class Edge implements IdentifiedDataSerializable {
         return isDistributed;
     }
 
+    /**
+     * Declares that the items on this distributed edge should be sent in
+     * columnar batches. Consecutive items of the same type are then encoded
+     * column-wise: the type is written once per batch, repeated strings are
+     * written once and primitive values are packed. This reduces the network
+     * traffic and the serialization cost when the items are homogeneous.
+     * <p>
+     * The supported types are {@code Map.Entry} as returned by {@link
+     * com.hazelcast.jet.Util#entry Util.entry()}, the tuples, {@link
+     * com.hazelcast.jet.datamodel.TimestampedItem TimestampedItem}, {@link
+     * com.hazelcast.jet.datamodel.TimestampedEntry TimestampedEntry} and
+     * {@link com.hazelcast.jet.datamodel.WindowResult WindowResult}. Items
+     * of other types are sent one by one. The property has no effect on a
+     * local edge or if the destination processors {@link
+     * Processor#acceptsSerializedInput accept serialized input}.
+     */
+    @Nonnull
+    public Edge columnar() {
+        isColumnar = true;
+        return this;
+    }
+
+    /**
+     * Says whether this edge is <em>columnar</em>. The effects of this
+     * property are discussed in {@link #columnar()}.
+     */
+    public boolean isColumnar() {
+        return isColumnar;
+    }
+
     /**
      * Returns the {@code EdgeConfig} instance associated with this edge.
      */
@@ -414,6 +445,9 @@ public class Edge implements IdentifiedDataSerializable {
         if (isDistributed()) {
             b.append(".distributed()");
         }
+        if (isColumnar()) {
+            b.append(".columnar()");
+        }
         if (getPriority() != 0) {
             b.append(".priority(").append(getPriority()).append(')');
         }
@@ -451,6 +485,7 @@ public class Edge implements IdentifiedDataSerializable {
         out.writeInt(getDestOrdinal());
         out.writeInt(getPriority());
         out.writeBoolean(isDistributed());
+        out.writeBoolean(isColumnar());
         out.writeObject(getRoutingPolicy());
         CustomClassLoadedObject.write(out, getPartitioner());
         out.writeObject(getConfig());
@@ -464,6 +499,7 @@ public class Edge implements IdentifiedDataSerializable {
         destOrdinal = in.readInt();
         priority = in.readInt();
         isDistributed = in.readBoolean();
+        isColumnar = in.readBoolean();
         routingPolicy = in.readObject();
         try {
             partitioner = CustomClassLoadedObject.read(in);
@@ -79,6 +79,32 @@ public interface Processor {
         return true;
     }
 
+    /**
+     * Tells whether this processor accepts the items received on the given
+     * ordinal in the serialized form. If it does, the items that arrive over a
+     * {@link Edge#distributed() distributed} edge from another member aren't
+     * deserialized. The processor receives them as {@link
+     * com.hazelcast.nio.serialization.Data Data} instances, except for the
+     * {@code Map.Entry} items, which it receives as entries with the key and
+     * the value in the {@code Data} form. This saves a deserialization and
+     * serialization round trip in a processor that only forwards the item to
+     * an IMap, for example.
+     * <p>
+     * The items coming from the local member still arrive deserialized, so the
+     * processor must handle both forms. If the processor emits the received
+     * {@code Data} items to a distributed edge, they are sent without another
+     * serialization. However, it must not emit the entries with {@code Data}
+     * key and value.
+     * <p>
+     * Jet calls this method before {@link #init}. All processor instances of a
+     * vertex must return the same value.
+     * <p>
+     * The default implementation returns {@code false}.
+     */
+    default boolean acceptsSerializedInput(int ordinal) {
+        return false;
+    }
+
     /**
      * Initializes this processor with the outbox that the processing methods
      * must use to deposit their output items. This method will be called
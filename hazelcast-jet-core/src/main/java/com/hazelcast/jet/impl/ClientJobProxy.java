@@ -18,6 +18,7 @@ package com.hazelcast.jet.impl;
 
 import com.hazelcast.client.impl.clientside.HazelcastClientInstanceImpl;
 import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.client.impl.protocol.codec.JetExportSnapshotCodec;
 import com.hazelcast.client.impl.protocol.codec.JetGetJobConfigCodec;
 import com.hazelcast.client.impl.protocol.codec.JetGetJobStatusCodec;
 import com.hazelcast.client.impl.protocol.codec.JetGetJobSubmissionTimeCodec;
@@ -103,6 +104,16 @@ public class ClientJobProxy extends AbstractJobProxy<HazelcastClientInstanceImpl
         }
     }
 
+    @Override
+    public void exportSnapshot(@Nonnull String name) {
+        ClientMessage request = JetExportSnapshotCodec.encodeRequest(getId(), name);
+        try {
+            new CancellableFuture<>(invocation(request, masterAddress()).invoke()).get();
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+    }
+
     @Override
     protected long doGetJobSubmissionTime() {
         ClientMessage request = JetGetJobSubmissionTimeCodec.encodeRequest(getId());
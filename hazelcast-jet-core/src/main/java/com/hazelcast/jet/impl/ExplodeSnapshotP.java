@@ -18,30 +18,75 @@ package com.hazelcast.jet.impl;
 
 import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
+import com.hazelcast.jet.config.PacketCodec;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
 import com.hazelcast.jet.impl.execution.BroadcastEntry;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.spi.partition.IPartitionService;
 
 import javax.annotation.Nonnull;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.TOMBSTONE;
+import static com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CHUNK_CODEC_DEFLATE;
+import static com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CHUNK_CODEC_NONE;
+import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 
+/**
+ * Reads the chunks of the snapshot data map and emits the entries in them
+ * to the vertices they belong to.
+ * <p>
+ * The data of a {@linkplain SnapshotDataKey#isChained() chained} vertex is
+ * merged from the full snapshot the restored snapshot is based on and from
+ * all the incremental snapshots after it: for each key, the value from the
+ * latest snapshot is used, a tombstone removes the key. For each broadcast
+ * key, the values from the latest snapshot containing the key are used.
+ * The merged entries are emitted after all chunks are read.
+ * <p>
+ * All the entries in a chunk belong to the partition the chunk is stored
+ * in. The entries are emitted as {@link RestoredEntry} with that partition,
+ * so that the restore edge can route them by {@link #partitionOf} without
+ * serializing each key again to compute its partition. The entries of the
+ * partitions owned by the local member are passed to the local processors,
+ * only the others travel over the network.
+ */
 public class ExplodeSnapshotP extends AbstractProcessor {
 
     private final Map<String, FlatMapper<byte[], Object>> vertexToFlatMapper = new HashMap<>();
+    private final Map<String, Integer> vertexToOrdinal;
+    private final Map<String, ChainedState> vertexToChainedState = new HashMap<>();
     private final long expectedSnapshotId;
+    private final long baseSnapshotId;
     private InternalSerializationService serializationService;
+    private IPartitionService partitionService;
+    private PacketCodec codec;
+    private int chunkPartitionId;
+
+    private Iterator<Entry<String, ChainedState>> chainedStateIterator;
+    private Traverser<Object> chainedTraverser;
+    private int chainedOrdinal;
 
-    ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long expectedSnapshotId) {
+    ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long expectedSnapshotId, long baseSnapshotId) {
+        this.vertexToOrdinal = new HashMap<>(vertexToOrdinal);
         this.expectedSnapshotId = expectedSnapshotId;
+        this.baseSnapshotId = baseSnapshotId;
         for (Entry<String, Integer> en : vertexToOrdinal.entrySet()) {
             Object oldValue = vertexToFlatMapper.put(en.getKey(), flatMapper(en.getValue(), this::traverser));
             assert oldValue == null : "Duplicate ordinal: " + en.getValue();
@@ -50,12 +95,51 @@ public class ExplodeSnapshotP extends AbstractProcessor {
 
     @Override
     protected void init(@Nonnull Context context) {
-        serializationService =
-                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        HazelcastInstanceImpl instance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        serializationService = instance.getSerializationService();
+        partitionService = instance.node.getPartitionService();
+    }
+
+    /**
+     * The partitioner of the restore edge, see {@link RestoredEntry}.
+     */
+    static int partitionOf(Object restoredEntry, int partitionCount) {
+        return ((RestoredEntry) restoredEntry).partitionId;
+    }
+
+    /**
+     * Returns an input positioned at the first entry of the chunk,
+     * decompressed if needed, see {@link AsyncSnapshotWriterImpl}.
+     */
+    private BufferObjectDataInput chunkInput(byte[] chunk) {
+        if (chunk[0] == CHUNK_CODEC_DEFLATE) {
+            if (codec == null) {
+                codec = new DeflaterPacketCodec();
+            }
+            int uncompressedLength = Bits.readIntB(chunk, 1);
+            byte[] uncompressed = new byte[uncompressedLength];
+            codec.decompress(chunk, 1 + Bits.INT_SIZE_IN_BYTES, chunk.length - 1 - Bits.INT_SIZE_IN_BYTES,
+                    uncompressed, uncompressedLength);
+            return serializationService.createObjectDataInput(uncompressed);
+        }
+        if (chunk[0] != CHUNK_CODEC_NONE) {
+            throw new JetException("Unknown snapshot chunk codec: " + chunk[0]);
+        }
+        BufferObjectDataInput in = serializationService.createObjectDataInput(chunk);
+        in.position(1);
+        return in;
+    }
+
+    @Override
+    public void close() {
+        if (codec != null) {
+            codec.close();
+        }
     }
 
     private Traverser<Object> traverser(byte[] data) {
-        BufferObjectDataInput in = serializationService.createObjectDataInput(data);
+        BufferObjectDataInput in = chunkInput(data);
+        int partitionId = chunkPartitionId;
 
         return () -> uncheckCall(() -> {
             Object key = in.readObject();
@@ -66,7 +150,7 @@ public class ExplodeSnapshotP extends AbstractProcessor {
             Object value = in.readObject();
             return key instanceof BroadcastKey
                     ? new BroadcastEntry(key, value)
-                    : entry(key, value);
+                    : new RestoredEntry<>(key, value, partitionId);
         });
     }
 
@@ -84,11 +168,137 @@ public class ExplodeSnapshotP extends AbstractProcessor {
             return true;
         }
         long snapshotId = casted.getKey().snapshotId();
+        chunkPartitionId = partitionService.getPartitionId(casted.getKey().getPartitionKey());
+        if (casted.getKey().isChained()) {
+            if (snapshotId < baseSnapshotId || snapshotId > expectedSnapshotId) {
+                // data of a failed incremental snapshot
+                logFine(getLogger(), "Data for snapshot %s outside of the restored chain %s..%s ignored",
+                        snapshotId, baseSnapshotId, expectedSnapshotId);
+                return true;
+            }
+            mergeChunk(vertexToChainedState.computeIfAbsent(vertexName, x -> new ChainedState()),
+                    snapshotId, chunkPartitionId, casted.getValue());
+            return true;
+        }
         if (snapshotId != expectedSnapshotId) {
-            getLogger().warning("Data for unexpected snapshot ID encountered, ignoring. Expected="
-                    + expectedSnapshotId + ", found=" + snapshotId);
+            // the data map of an incremental snapshot also contains the data of the
+            // previous snapshots in the chain and possibly of a failed snapshot
+            if (baseSnapshotId == expectedSnapshotId) {
+                getLogger().warning("Data for unexpected snapshot ID encountered, ignoring. Expected="
+                        + expectedSnapshotId + ", found=" + snapshotId);
+            }
             return true;
         }
         return flatMapper.tryProcess(casted.getValue());
     }
+
+    private void mergeChunk(ChainedState state, long snapshotId, int partitionId, byte[] data) {
+        BufferObjectDataInput in = chunkInput(data);
+        uncheckRun(() -> {
+            for (Object key; (key = in.readObject()) != SnapshotDataValueTerminator.INSTANCE; ) {
+                state.merge(snapshotId, partitionId, key, in.readObject());
+            }
+            in.close();
+        });
+    }
+
+    @Override
+    public boolean complete() {
+        if (chainedStateIterator == null) {
+            chainedStateIterator = vertexToChainedState.entrySet().iterator();
+        }
+        for (;;) {
+            if (chainedTraverser == null) {
+                if (!chainedStateIterator.hasNext()) {
+                    return true;
+                }
+                Entry<String, ChainedState> en = chainedStateIterator.next();
+                chainedOrdinal = vertexToOrdinal.get(en.getKey());
+                chainedTraverser = en.getValue().traverser();
+            }
+            if (!emitFromTraverser(chainedOrdinal, chainedTraverser)) {
+                return false;
+            }
+            chainedTraverser = null;
+        }
+    }
+
+    /**
+     * The state of a chained vertex merged from the chunks read so far.
+     */
+    private static final class ChainedState {
+        private final Map<Object, VersionedValue> keyToValue = new HashMap<>();
+        private final Map<Object, VersionedValue> broadcastKeyToValues = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        void merge(long snapshotId, int partitionId, Object key, Object value) {
+            if (key instanceof BroadcastKey) {
+                VersionedValue values = broadcastKeyToValues.get(key);
+                if (values == null || values.snapshotId < snapshotId) {
+                    values = new VersionedValue(snapshotId, new ArrayList<>(), partitionId);
+                    broadcastKeyToValues.put(key, values);
+                }
+                if (values.snapshotId == snapshotId) {
+                    ((List<Object>) values.value).add(value);
+                }
+                return;
+            }
+            VersionedValue current = keyToValue.get(key);
+            if (current == null) {
+                keyToValue.put(key, new VersionedValue(snapshotId, value, partitionId));
+            } else if (current.snapshotId < snapshotId) {
+                current.snapshotId = snapshotId;
+                current.value = value;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Traverser<Object> traverser() {
+            Traverser<Object> entries = traverseIterable(keyToValue.entrySet())
+                    .filter(e -> e.getValue().value != TOMBSTONE)
+                    .map(e -> new RestoredEntry<>(e.getKey(), e.getValue().value, e.getValue().partitionId));
+            Traverser<Object> broadcastEntries = traverseIterable(broadcastKeyToValues.entrySet())
+                    .flatMap(e -> traverseIterable((List<Object>) e.getValue().value)
+                            .map(v -> new BroadcastEntry<>(e.getKey(), v)));
+            return () -> {
+                Object item = entries.next();
+                return item != null ? item : broadcastEntries.next();
+            };
+        }
+    }
+
+    private static final class VersionedValue {
+        long snapshotId;
+        Object value;
+        final int partitionId;
+
+        VersionedValue(long snapshotId, Object value, int partitionId) {
+            this.snapshotId = snapshotId;
+            this.value = value;
+            this.partitionId = partitionId;
+        }
+    }
+
+    /**
+     * A restored snapshot entry of a non-broadcast key together with the ID
+     * of the key's partition.
+     *
+     * @param <K> type of key
+     * @param <V> type of value
+     */
+    public static final class RestoredEntry<K, V> extends SimpleImmutableEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int partitionId;
+
+        RestoredEntry(K key, V value, int partitionId) {
+            super(key, value);
+            this.partitionId = partitionId;
+        }
+
+        public int partitionId() {
+            return partitionId;
+        }
+    }
 }
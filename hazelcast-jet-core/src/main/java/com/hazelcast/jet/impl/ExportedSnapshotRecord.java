@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+
+import static com.hazelcast.jet.Util.idToString;
+import static com.hazelcast.jet.impl.util.Util.toLocalDateTime;
+
+/**
+ * Describes a snapshot {@linkplain com.hazelcast.jet.Job#exportSnapshot(String)
+ * exported} under a name. The data of the snapshot is stored in the
+ * {@linkplain JobRepository#exportedSnapshotMapName(String) exported
+ * snapshot map}.
+ */
+public class ExportedSnapshotRecord implements IdentifiedDataSerializable {
+
+    private String name;
+    private long jobId;
+    private long snapshotId;
+    private long baseSnapshotId;
+    private long creationTime;
+
+    public ExportedSnapshotRecord() {
+    }
+
+    ExportedSnapshotRecord(String name, long jobId, long snapshotId, long baseSnapshotId, long creationTime) {
+        this.name = name;
+        this.jobId = jobId;
+        this.snapshotId = snapshotId;
+        this.baseSnapshotId = baseSnapshotId;
+        this.creationTime = creationTime;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the ID of the job the snapshot was exported from.
+     */
+    public long jobId() {
+        return jobId;
+    }
+
+    /**
+     * Returns the ID of the exported snapshot in the job it was exported
+     * from.
+     */
+    public long snapshotId() {
+        return snapshotId;
+    }
+
+    /**
+     * Returns the ID of the full snapshot the exported snapshot is based
+     * on. It's equal to {@link #snapshotId()}, unless the exported snapshot
+     * is incremental.
+     */
+    public long baseSnapshotId() {
+        return baseSnapshotId;
+    }
+
+    public long creationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.EXPORTED_SNAPSHOT_RECORD;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeLong(jobId);
+        out.writeLong(snapshotId);
+        out.writeLong(baseSnapshotId);
+        out.writeLong(creationTime);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        name = in.readUTF();
+        jobId = in.readLong();
+        snapshotId = in.readLong();
+        baseSnapshotId = in.readLong();
+        creationTime = in.readLong();
+    }
+
+    @Override
+    public String toString() {
+        return "ExportedSnapshotRecord{" +
+                "name='" + name + '\'' +
+                ", jobId=" + idToString(jobId) +
+                ", snapshotId=" + snapshotId +
+                ", baseSnapshotId=" + baseSnapshotId +
+                ", creationTime=" + toLocalDateTime(creationTime) +
+                '}';
+    }
+}
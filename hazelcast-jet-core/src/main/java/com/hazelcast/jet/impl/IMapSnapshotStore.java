@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.Partition;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.map.impl.proxy.MapProxyImpl;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+
+import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+
+/**
+ * Snapshot store that keeps each data map in an {@link IMap}. The map is
+ * backed up according to the {@link
+ * com.hazelcast.jet.config.InstanceConfig#setBackupCount(int) backup count}.
+ */
+public class IMapSnapshotStore implements SnapshotStore {
+
+    private static final int COPY_FETCH_SIZE = 64;
+
+    private final HazelcastInstance instance;
+
+    public IMapSnapshotStore(HazelcastInstance instance) {
+        this.instance = instance;
+    }
+
+    @Override
+    public void putAsync(String mapName, SnapshotDataKey key, Data chunk, ExecutionCallback<Object> callback) {
+        // we put a Data instance to the map directly to avoid the serialization of the byte array
+        IMap<SnapshotDataKey, Object> map = instance.getMap(mapName);
+        map.putAsync(key, chunk).andThen(callback);
+    }
+
+    @Override
+    public void clear(String mapName, long lastSnapshotId) {
+        instance.getMap(mapName).clear();
+    }
+
+    @Override
+    public void deleteSuperseded(String mapName, long snapshotId) {
+        instance.<SnapshotDataKey, Object>getMap(mapName).removeAll(new SupersededChunkPredicate(snapshotId));
+    }
+
+    @Override
+    public void destroy(String mapName) {
+        instance.getMap(mapName).destroy();
+    }
+
+    @Override
+    public ProcessorMetaSupplier readP(String mapName) {
+        return readMapP(mapName);
+    }
+
+    /**
+     * Copies the chunks of the partitions owned by the local member. The
+     * copies are stored in the same partitions, so they don't leave the
+     * member, except for the backups.
+     */
+    @Override
+    public void copyLocal(String sourceMapName, String targetMapName, Predicate<SnapshotDataKey> filter) {
+        MapProxyImpl<SnapshotDataKey, Object> source = (MapProxyImpl<SnapshotDataKey, Object>)
+                instance.<SnapshotDataKey, Object>getMap(sourceMapName);
+        IMap<SnapshotDataKey, Object> target = instance.getMap(targetMapName);
+        for (Partition partition : instance.getPartitionService().getPartitions()) {
+            if (partition.getOwner() == null || !partition.getOwner().localMember()) {
+                continue;
+            }
+            List<ICompletableFuture<Object>> futures = new ArrayList<>();
+            Iterator<Entry<SnapshotDataKey, Object>> it =
+                    source.iterator(COPY_FETCH_SIZE, partition.getPartitionId(), true);
+            while (it.hasNext()) {
+                Entry<SnapshotDataKey, Object> en = it.next();
+                if (filter.test(en.getKey())) {
+                    futures.add(target.putAsync(en.getKey(), en.getValue()));
+                }
+            }
+            for (ICompletableFuture<Object> future : futures) {
+                uncheckCall(future::get);
+            }
+        }
+    }
+
+    @Override
+    public long chunkCount(String mapName) {
+        // a partition migrated during the copy can be copied by no member
+        // or by two of them, the latter overwrites the same keys
+        return instance.getMap(mapName).size();
+    }
+
+    private static final class SupersededChunkPredicate
+            implements com.hazelcast.query.Predicate<SnapshotDataKey, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long snapshotId;
+
+        SupersededChunkPredicate(long snapshotId) {
+            this.snapshotId = snapshotId;
+        }
+
+        @Override
+        public boolean apply(Entry<SnapshotDataKey, Object> mapEntry) {
+            return mapEntry.getKey().isSupersededBy(snapshotId);
+        }
+    }
+}
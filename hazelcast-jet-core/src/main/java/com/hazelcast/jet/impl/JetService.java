@@ -75,6 +75,7 @@ public class JetService
     private JetInstance jetInstance;
     private Networking networking;
     private TaskletExecutionService taskletExecutionService;
+    private SnapshotStore snapshotStore;
     private JobRepository jobRepository;
     private JobCoordinationService jobCoordinationService;
     private JobExecutionService jobExecutionService;
@@ -104,10 +105,13 @@ public class JetService
         }
 
         jetInstance = new JetInstanceImpl((HazelcastInstanceImpl) engine.getHazelcastInstance(), config);
-        taskletExecutionService = new TaskletExecutionService(nodeEngine,
-                config.getInstanceConfig().getCooperativeThreadCount());
+        taskletExecutionService = new TaskletExecutionService(nodeEngine, config.getInstanceConfig());
 
-        jobRepository = new JobRepository(jetInstance);
+        String snapshotDirectory = config.getInstanceConfig().getSnapshotDirectory();
+        snapshotStore = snapshotDirectory != null
+                ? new LocalDiskSnapshotStore(engine, snapshotDirectory, config.getInstanceConfig().getBackupCount())
+                : new IMapSnapshotStore(jetInstance.getHazelcastInstance());
+        jobRepository = new JobRepository(jetInstance, snapshotStore);
 
         jobExecutionService = new JobExecutionService(nodeEngine, taskletExecutionService, jobRepository);
         jobCoordinationService = new JobCoordinationService(nodeEngine, this, config, jobRepository);
@@ -205,6 +209,10 @@ public class JetService
         return liveOperationRegistry;
     }
 
+    public SnapshotStore getSnapshotStore() {
+        return snapshotStore;
+    }
+
     public JobRepository getJobRepository() {
         return jobRepository;
     }
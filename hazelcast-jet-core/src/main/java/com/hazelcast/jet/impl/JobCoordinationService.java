@@ -354,6 +354,16 @@ public class JobCoordinationService {
         masterContext.resumeJob(jobRepository::newExecutionId);
     }
 
+    public CompletableFuture<Void> exportSnapshot(long jobId, String name) {
+        assertIsMaster("Cannot export snapshot of job " + idToString(jobId) + " from non-master node");
+
+        MasterContext masterContext = masterContexts.get(jobId);
+        if (masterContext == null) {
+            throw new JobNotFoundException("MasterContext not found to export snapshot of job " + idToString(jobId));
+        }
+        return masterContext.exportSnapshot(name);
+    }
+
     /**
      * Return a summary of all jobs
      */
@@ -517,7 +527,7 @@ public class JobCoordinationService {
             logger.warning("MasterContext not found to schedule snapshot of " + idToString(jobId));
             return;
         }
-        long snapshotInterval = masterContext.jobConfig().getSnapshotIntervalMillis();
+        long snapshotInterval = masterContext.snapshotIntervalMillis();
         InternalExecutionService executionService = nodeEngine.getExecutionService();
         if (logger.isFineEnabled()) {
             logger.fine(masterContext.jobIdString() + " snapshot is scheduled in " + snapshotInterval + "ms");
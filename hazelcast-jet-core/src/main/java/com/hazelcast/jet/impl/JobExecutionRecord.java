@@ -63,6 +63,14 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
      */
     private volatile long snapshotId = NO_SNAPSHOT;
 
+    /**
+     * ID of the full snapshot the latest successful snapshot is based on. If
+     * it's lower than {@link #snapshotId}, the latest successful snapshot is
+     * incremental and its data map contains the full snapshot and all the
+     * incremental snapshots taken after it.
+     */
+    private volatile long baseSnapshotId = NO_SNAPSHOT;
+
     /**
      * The data map index of current successful snapshot (0 or 1) or -1, if
      * there's no successful snapshot.
@@ -135,13 +143,25 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         ongoingSnapshotStartTime = Clock.currentTimeMillis();
     }
 
-    public void ongoingSnapshotDone(long numBytes, long numKeys, long numChunks, @Nullable String failureText) {
+    /**
+     * Called when the ongoing snapshot is done. An incremental snapshot is
+     * written to the data map of the successful snapshot, so it doesn't
+     * switch the data map.
+     */
+    public void ongoingSnapshotDone(long numBytes, long numStoredBytes, long numKeys, long numChunks,
+                                    long numChainedChunks, @Nullable String failureText, boolean isIncremental) {
         lastSnapshotFailure = failureText;
         if (failureText == null) {
-            snapshotStats = new SnapshotStats(
-                    ongoingSnapshotId, ongoingSnapshotStartTime, Clock.currentTimeMillis(), numBytes, numKeys, numChunks
-            );
-            dataMapIndex = ongoingDataMapIndex();
+            // the chained chunks of the snapshots this one is based on are a part of its data
+            long numBaseChainedChunks = isIncremental && snapshotStats != null
+                    ? snapshotStats.numChainedChunksWithBase : 0;
+            snapshotStats = new SnapshotStats(ongoingSnapshotId, ongoingSnapshotStartTime, Clock.currentTimeMillis(),
+                    numBytes, numStoredBytes, numKeys, numChunks, numChainedChunks,
+                    numBaseChainedChunks + numChainedChunks);
+            if (!isIncremental) {
+                dataMapIndex = ongoingDataMapIndex();
+                baseSnapshotId = ongoingSnapshotId;
+            }
             snapshotId = ongoingSnapshotId;
         }
         ongoingSnapshotStartTime = Long.MIN_VALUE;
@@ -155,6 +175,15 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         return snapshotId;
     }
 
+    /**
+     * The ID of the full snapshot the current successful snapshot is based
+     * on. It's equal to {@link #snapshotId()}, if the current successful
+     * snapshot isn't incremental.
+     */
+    public long baseSnapshotId() {
+        return baseSnapshotId;
+    }
+
     public int dataMapIndex() {
         return dataMapIndex;
     }
@@ -234,6 +263,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         out.writeLong(jobId);
         out.writeInt(dataMapIndex);
         out.writeLong(snapshotId);
+        out.writeLong(baseSnapshotId);
         out.writeLong(ongoingSnapshotId);
         out.writeInt(quorumSize.get());
         out.writeLong(ongoingSnapshotStartTime);
@@ -249,6 +279,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         jobId = in.readLong();
         dataMapIndex = in.readInt();
         snapshotId = in.readLong();
+        baseSnapshotId = in.readLong();
         ongoingSnapshotId = in.readLong();
         quorumSize.set(in.readInt());
         ongoingSnapshotStartTime = in.readLong();
@@ -267,6 +298,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                 ", suspended=" + suspended +
                 ", dataMapIndex=" + dataMapIndex +
                 ", snapshotId=" + snapshotId +
+                ", baseSnapshotId=" + baseSnapshotId +
                 ", ongoingSnapshotId=" + ongoingSnapshotId +
                 ", ongoingSnapshotStartTime=" + toLocalTime(ongoingSnapshotStartTime) +
                 ", snapshotStats=" + snapshotStats +
@@ -284,20 +316,26 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         private long startTime;
         private long endTime;
         private long numBytes;
+        private long numStoredBytes;
         private long numKeys;
         private long numChunks;
+        private long numChainedChunks;
+        private long numChainedChunksWithBase;
 
         public SnapshotStats() {
         }
 
-        SnapshotStats(long snapshotId, long startTime, long endTime, long numBytes,
-                      long numKeys, long numChunks) {
+        SnapshotStats(long snapshotId, long startTime, long endTime, long numBytes, long numStoredBytes,
+                      long numKeys, long numChunks, long numChainedChunks, long numChainedChunksWithBase) {
             this.snapshotId = snapshotId;
             this.startTime = startTime;
             this.endTime = endTime;
             this.numBytes = numBytes;
+            this.numStoredBytes = numStoredBytes;
             this.numKeys = numKeys;
             this.numChunks = numChunks;
+            this.numChainedChunks = numChainedChunks;
+            this.numChainedChunksWithBase = numChainedChunksWithBase;
         }
 
         public long startTime() {
@@ -313,12 +351,23 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         }
 
         /**
-         * Net number of bytes in primary copy. Doesn't include IMap overhead and backup copies.
+         * Net number of bytes in primary copy, before compression. Doesn't include IMap overhead and backup
+         * copies.
          */
         public long numBytes() {
             return numBytes;
         }
 
+        /**
+         * Net number of bytes stored in primary copy, after {@linkplain
+         * com.hazelcast.jet.config.JobConfig#setSnapshotCompressionEnabled(boolean)
+         * compression}. Equal to {@link #numBytes()} if the snapshot isn't
+         * compressed.
+         */
+        public long numStoredBytes() {
+            return numStoredBytes;
+        }
+
         /**
          * Number of snapshot keys (after exploding chunks).
          */
@@ -334,6 +383,17 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
             return numChunks;
         }
 
+        /**
+         * Number of chunks that make up the data of the snapshot: its own
+         * chunks and, for an incremental snapshot, the {@linkplain
+         * com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey#isChained()
+         * chained} chunks of the snapshots it's based on. This is the number
+         * of entries an export of the snapshot contains.
+         */
+        public long numChunksWithBase() {
+            return numChainedChunksWithBase + numChunks - numChainedChunks;
+        }
+
         @Override
         public int getFactoryId() {
             return JetInitDataSerializerHook.FACTORY_ID;
@@ -350,8 +410,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
             out.writeLong(startTime);
             out.writeLong(endTime);
             out.writeLong(numBytes);
+            out.writeLong(numStoredBytes);
             out.writeLong(numKeys);
             out.writeLong(numChunks);
+            out.writeLong(numChainedChunks);
+            out.writeLong(numChainedChunksWithBase);
         }
 
         @Override
@@ -360,8 +423,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
             startTime = in.readLong();
             endTime = in.readLong();
             numBytes = in.readLong();
+            numStoredBytes = in.readLong();
             numKeys = in.readLong();
             numChunks = in.readLong();
+            numChainedChunks = in.readLong();
+            numChainedChunksWithBase = in.readLong();
         }
 
         @Override
@@ -377,13 +443,17 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                     startTime == that.startTime &&
                     endTime == that.endTime &&
                     numBytes == that.numBytes &&
+                    numStoredBytes == that.numStoredBytes &&
                     numKeys == that.numKeys &&
-                    numChunks == that.numChunks;
+                    numChunks == that.numChunks &&
+                    numChainedChunks == that.numChainedChunks &&
+                    numChainedChunksWithBase == that.numChainedChunksWithBase;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(snapshotId, startTime, endTime, numBytes, numKeys, numChunks);
+            return Objects.hash(snapshotId, startTime, endTime, numBytes, numStoredBytes, numKeys, numChunks,
+                    numChainedChunks, numChainedChunksWithBase);
         }
 
         @Override
@@ -393,8 +463,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
                     ", startTime=" + startTime +
                     ", endTime=" + endTime +
                     ", numBytes=" + numBytes +
+                    ", numStoredBytes=" + numStoredBytes +
                     ", numKeys=" + numKeys +
                     ", numChunks=" + numChunks +
+                    ", numChainedChunks=" + numChainedChunks +
+                    ", numChainedChunksWithBase=" + numChainedChunksWithBase +
                     '}';
         }
     }
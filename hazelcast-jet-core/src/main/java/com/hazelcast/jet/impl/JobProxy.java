@@ -21,6 +21,7 @@ import com.hazelcast.jet.Job;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.DAG;
 import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.jet.impl.operation.ExportSnapshotOperation;
 import com.hazelcast.jet.impl.operation.GetJobConfigOperation;
 import com.hazelcast.jet.impl.operation.GetJobStatusOperation;
 import com.hazelcast.jet.impl.operation.GetJobSubmissionTimeOperation;
@@ -86,6 +87,15 @@ public class JobProxy extends AbstractJobProxy<NodeEngineImpl> {
         }
     }
 
+    @Override
+    public void exportSnapshot(@Nonnull String name) {
+        try {
+            invokeOp(new ExportSnapshotOperation(getId(), name)).get();
+        } catch (Exception e) {
+            throw rethrow(e);
+        }
+    }
+
     @Override
     protected long doGetJobSubmissionTime() {
         return uncheckCall(
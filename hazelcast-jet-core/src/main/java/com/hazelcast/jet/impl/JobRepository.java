@@ -99,16 +99,30 @@ public class JobRepository {
      */
     public static final String SNAPSHOT_DATA_MAP_PREFIX = INTERNAL_JET_OBJECTS_PREFIX + "snapshot.";
 
+    /**
+     * Name of internal IMap which stores {@link ExportedSnapshotRecord}s.
+     */
+    public static final String EXPORTED_SNAPSHOTS_MAP_NAME = INTERNAL_JET_OBJECTS_PREFIX + "exportedSnapshots";
+
+    /**
+     * Prefix for internal IMaps which store the data of exported snapshots:
+     * {@code _jet.exportedSnapshot.<name>}. Unlike the snapshot data maps,
+     * they aren't deleted with the job.
+     */
+    public static final String EXPORTED_SNAPSHOT_MAP_PREFIX = INTERNAL_JET_OBJECTS_PREFIX + "exportedSnapshot.";
+
     private static final String RESOURCE_MARKER = "__jet.resourceMarker";
     private static final long DEFAULT_RESOURCES_EXPIRATION_MILLIS = HOURS.toMillis(2);
 
     private final HazelcastInstance instance;
     private final ILogger logger;
+    private final SnapshotStore snapshotStore;
 
     private final IMap<Long, Long> randomIds;
     private final IMap<Long, JobRecord> jobRecords;
     private final IMap<Long, JobExecutionRecord> jobExecutionRecords;
     private final IMap<Long, JobResult> jobResults;
+    private final IMap<String, ExportedSnapshotRecord> exportedSnapshots;
     private long resourcesExpirationMillis = DEFAULT_RESOURCES_EXPIRATION_MILLIS;
 
     /**
@@ -125,13 +139,19 @@ public class JobRepository {
     private final Set<Long> deletedJobs = newSetFromMap(new ConcurrentHashMap<>());
 
     public JobRepository(JetInstance jetInstance) {
+        this(jetInstance, new IMapSnapshotStore(jetInstance.getHazelcastInstance()));
+    }
+
+    public JobRepository(JetInstance jetInstance, SnapshotStore snapshotStore) {
         this.instance = jetInstance.getHazelcastInstance();
+        this.snapshotStore = snapshotStore;
         this.logger = instance.getLoggingService().getLogger(getClass());
 
         this.randomIds = instance.getMap(RANDOM_IDS_MAP_NAME);
         this.jobRecords = instance.getMap(JOB_RECORDS_MAP_NAME);
         this.jobExecutionRecords = instance.getMap(JOB_EXECUTION_RECORDS_MAP_NAME);
         this.jobResults = instance.getMap(JOB_RESULTS_MAP_NAME);
+        this.exportedSnapshots = instance.getMap(EXPORTED_SNAPSHOTS_MAP_NAME);
     }
 
     // for tests
@@ -424,21 +444,68 @@ public class JobRepository {
      * Delete all snapshots for a given job.
      */
     private void destroySnapshotDataMaps(long jobId) {
-        instance.getMap(snapshotDataMapName(jobId, 0)).destroy();
-        instance.getMap(snapshotDataMapName(jobId, 1)).destroy();
+        snapshotStore.destroy(snapshotDataMapName(jobId, 0));
+        snapshotStore.destroy(snapshotDataMapName(jobId, 1));
         logFine(logger, "Destroyed both snapshot maps for job %s", idToString(jobId));
     }
 
-    void clearSnapshotData(long jobId, int dataMapIndex) {
+    SnapshotStore snapshotStore() {
+        return snapshotStore;
+    }
+
+    /**
+     * Returns map name in the form {@code "_jet.exportedSnapshot.<name>"}.
+     */
+    public static String exportedSnapshotMapName(String name) {
+        return EXPORTED_SNAPSHOT_MAP_PREFIX + name;
+    }
+
+    ExportedSnapshotRecord getExportedSnapshotRecord(String name) {
+        return exportedSnapshots.get(name);
+    }
+
+    void putExportedSnapshotRecord(ExportedSnapshotRecord record) {
+        exportedSnapshots.set(record.name(), record);
+    }
+
+    /**
+     * Deletes the exported snapshot with the given name, if it exists. The
+     * record is deleted first, so that the snapshot isn't used while its
+     * data is being deleted.
+     */
+    void deleteExportedSnapshot(String name) {
+        exportedSnapshots.delete(name);
+        snapshotStore.clear(exportedSnapshotMapName(name), Long.MAX_VALUE);
+    }
+
+    /**
+     * Deletes the data of the snapshots up to {@code lastSnapshotId} in the
+     * given data map.
+     */
+    void clearSnapshotData(long jobId, int dataMapIndex, long lastSnapshotId) {
         String mapName = snapshotDataMapName(jobId, dataMapIndex);
         try {
-            instance.getMap(mapName).clear();
+            snapshotStore.clear(mapName, lastSnapshotId);
             logFine(logger, "Cleared snapshot data map %s", mapName);
         } catch (Exception logged) {
             logger.warning("Cannot delete old snapshot data  " + idToString(jobId), logged);
         }
     }
 
+    /**
+     * Deletes the chunks of the data map superseded by the given successful
+     * incremental snapshot, see {@link SnapshotStore#deleteSuperseded}.
+     */
+    void deleteSupersededSnapshotData(long jobId, int dataMapIndex, long snapshotId) {
+        String mapName = snapshotDataMapName(jobId, dataMapIndex);
+        try {
+            snapshotStore.deleteSuperseded(mapName, snapshotId);
+            logFine(logger, "Deleted the data superseded by snapshot %d from %s", snapshotId, mapName);
+        } catch (Exception logged) {
+            logger.warning("Cannot delete superseded snapshot data " + idToString(jobId), logged);
+        }
+    }
+
     public static final class UpdateJobExecutionRecordEntryProcessor implements
                     EntryProcessor<Long, JobExecutionRecord>,
                     EntryBackupProcessor<Long, JobExecutionRecord>,
@@ -0,0 +1,638 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.Member;
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.impl.operation.DeleteSnapshotChunksOperation;
+import com.hazelcast.jet.impl.operation.DeleteSupersededSnapshotChunksOperation;
+import com.hazelcast.jet.impl.operation.StoreSnapshotChunkOperation;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Bits;
+import com.hazelcast.nio.IOUtil;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.InternalCompletableFuture;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.isRestartableException;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
+import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Snapshot store that keeps the data maps in files on the local disk of
+ * the members, see {@link
+ * com.hazelcast.jet.config.InstanceConfig#setSnapshotDirectory(String)}.
+ * <p>
+ * Each member stores the chunks in {@code
+ * <snapshotDirectory>/<memberUuid>/<mapName>/<originUuid>.chunks} files,
+ * where {@code originUuid} is the UUID of the member that wrote the chunk.
+ * The chunks that aren't {@linkplain SnapshotDataKey#isChained() chained}
+ * are stored in a separate {@code <originUuid>.<snapshotId>.chunks} file
+ * for each snapshot.
+ * The chunk is also sent to the next {@code replicaCount} members in the
+ * member list, which store it under the same origin. A chunk is a record
+ * of the key length, the serialized key, the chunk length and the chunk.
+ * Next to the copies, the members store the UUIDs of the origin's replicas
+ * in order in a {@code <originUuid>.replicas} file.
+ * <p>
+ * The restore reads the chunks written by the local member and the copies
+ * of a departed member's chunks if the local member is its first replica
+ * still in the cluster. Each chunk is therefore read once, on a member
+ * that has it on its local disk.
+ * The files are only appended to, the file I/O runs on the {@value
+ * #EXECUTOR_NAME} executor. A chunk is forced to the disk before it's
+ * acknowledged.
+ * <p>
+ * The chunks {@linkplain #deleteSuperseded superseded} by an incremental
+ * snapshot are deleted by deleting the files of the earlier snapshots.
+ * <p>
+ * When the chunks of a data map are deleted, the chunks of the snapshots
+ * up to the given ID that arrive later are rejected, so that they don't
+ * recreate the files. The files stored by the members that left the
+ * cluster are deleted too, therefore the snapshot directory must not be
+ * shared with the members of another cluster.
+ */
+public class LocalDiskSnapshotStore implements SnapshotStore {
+
+    static final String EXECUTOR_NAME = "jet:snapshot-store";
+
+    private static final String FILE_SUFFIX = ".chunks";
+    private static final String REPLICAS_FILE_SUFFIX = ".replicas";
+
+    private final NodeEngine nodeEngine;
+    private final ILogger logger;
+    private final File memberDirectory;
+    private final int replicaCount;
+    private final Map<File, FileChannel> channels = new ConcurrentHashMap<>();
+    // the replica UUIDs last written to a replicas file
+    private final Map<File, List<String>> replicaUuids = new ConcurrentHashMap<>();
+    // the highest ID of the deleted snapshots of a data map. It isn't removed
+    // for a destroyed data map, whose name isn't used again
+    private final Map<String, Long> deletedSnapshotIds = new ConcurrentHashMap<>();
+    // the appends hold the read lock, the deletes the write lock
+    private final ReadWriteLock deleteLock = new ReentrantReadWriteLock();
+
+    public LocalDiskSnapshotStore(NodeEngine nodeEngine, String directory, int replicaCount) {
+        this.nodeEngine = nodeEngine;
+        this.logger = nodeEngine.getLogger(getClass());
+        this.memberDirectory = new File(directory, nodeEngine.getLocalMember().getUuid());
+        this.replicaCount = replicaCount;
+    }
+
+    @Override
+    public void putAsync(String mapName, SnapshotDataKey key, Data chunk, ExecutionCallback<Object> callback) {
+        String originUuid = nodeEngine.getLocalMember().getUuid();
+        byte[] keyBytes = nodeEngine.toData(key).toByteArray();
+        byte[] chunkBytes = chunk.toByteArray();
+        List<Member> replicas = replicaMembers();
+        List<String> uuids = new ArrayList<>(replicas.size());
+        for (Member replica : replicas) {
+            uuids.add(replica.getUuid());
+        }
+        ExecutionCallback<Object> allCallback = allOf(replicas.size() + 1, callback);
+        appendAsync(mapName, key.snapshotId(), key.isChained(), originUuid, null, keyBytes, chunkBytes)
+                .whenComplete((r, e) -> {
+                    if (e == null) {
+                        allCallback.onResponse(null);
+                    } else {
+                        allCallback.onFailure(peel(e));
+                    }
+                });
+        for (Member replica : replicas) {
+            nodeEngine.getOperationService()
+                      .invokeOnTarget(JetService.SERVICE_NAME,
+                              new StoreSnapshotChunkOperation(mapName, key.snapshotId(), key.isChained(),
+                                      originUuid, uuids, keyBytes, chunkBytes),
+                              replica.getAddress())
+                      .andThen(allCallback);
+        }
+    }
+
+    @Override
+    public void clear(String mapName, long lastSnapshotId) {
+        invokeOnAllMembers(() -> new DeleteSnapshotChunksOperation(mapName, lastSnapshotId));
+    }
+
+    @Override
+    public void deleteSuperseded(String mapName, long snapshotId) {
+        invokeOnAllMembers(() -> new DeleteSupersededSnapshotChunksOperation(mapName, snapshotId));
+    }
+
+    @Override
+    public void destroy(String mapName) {
+        invokeOnAllMembers(() -> new DeleteSnapshotChunksOperation(mapName, Long.MAX_VALUE));
+    }
+
+    @Override
+    public ProcessorMetaSupplier readP(String mapName) {
+        return ProcessorMetaSupplier.preferLocalParallelismOne(() -> new ReadLocalSnapshotP(mapName));
+    }
+
+    /**
+     * Copies the records of the local files of the data map, including the
+     * copies stored for the other members, to the files of the same origin
+     * in the target data map. The target data map is written to again even
+     * if it was deleted before.
+     */
+    @Override
+    public void copyLocal(String sourceMapName, String targetMapName, Predicate<SnapshotDataKey> filter) {
+        SerializationService serializationService = nodeEngine.getSerializationService();
+        deletedSnapshotIds.remove(targetMapName);
+        for (File file : localChunkFiles(sourceMapName)) {
+            String originUuid = originUuid(file);
+            List<String> replicas = isLocal(originUuid) ? null : readReplicaUuids(file);
+            ChunkFileTraverser traverser = new ChunkFileTraverser(file, serializationService, logger);
+            try {
+                for (byte[][] record; (record = traverser.nextRecord()) != null; ) {
+                    byte[] key = record[0];
+                    byte[] chunk = record[1];
+                    SnapshotDataKey dataKey = serializationService.toObject(new HeapData(key));
+                    if (filter.test(dataKey)) {
+                        uncheckRun(() -> append(targetMapName, dataKey.snapshotId(), dataKey.isChained(),
+                                originUuid, replicas, key, chunk));
+                    }
+                }
+            } finally {
+                traverser.close();
+            }
+        }
+    }
+
+    /**
+     * Returns {@code -1}: the chunks are stored on the member that wrote
+     * them and its replicas, which are never migrated, so a {@link
+     * #copyLocal} can't miss any. It fails, if a member leaves.
+     */
+    @Override
+    public long chunkCount(String mapName) {
+        return -1;
+    }
+
+    /**
+     * Appends the chunk of the given snapshot to the local file of the given
+     * origin member. For a copy of another member's chunk, {@code
+     * replicaUuids} are the UUIDs of the origin's replicas. Fails, if the
+     * snapshot was deleted.
+     *
+     * @param isChained whether the chunk is {@linkplain
+     *                  SnapshotDataKey#isChained() chained}
+     */
+    public CompletableFuture<Void> appendAsync(
+            String mapName, long snapshotId, boolean isChained, String originUuid, List<String> replicaUuids,
+            byte[] key, byte[] chunk
+    ) {
+        return CompletableFuture.runAsync(
+                () -> uncheckRun(() -> append(mapName, snapshotId, isChained, originUuid, replicaUuids, key, chunk)),
+                nodeEngine.getExecutionService().getExecutor(EXECUTOR_NAME));
+    }
+
+    /**
+     * Deletes the local files of the data map, including those stored by
+     * the members that left the cluster. The chunks of the snapshots up to
+     * {@code lastSnapshotId} appended later are rejected.
+     */
+    public CompletableFuture<Void> deleteLocalAsync(String mapName, long lastSnapshotId) {
+        return CompletableFuture.runAsync(() -> deleteLocal(mapName, lastSnapshotId),
+                nodeEngine.getExecutionService().getExecutor(EXECUTOR_NAME));
+    }
+
+    /**
+     * Deletes the local files of the data map that hold the chunks
+     * {@linkplain SnapshotDataKey#isSupersededBy(long) superseded} by the
+     * given snapshot.
+     */
+    public CompletableFuture<Void> deleteSupersededLocalAsync(String mapName, long snapshotId) {
+        return CompletableFuture.runAsync(() -> deleteSupersededLocal(mapName, snapshotId),
+                nodeEngine.getExecutionService().getExecutor(EXECUTOR_NAME));
+    }
+
+    private void deleteSupersededLocal(String mapName, long snapshotId) {
+        for (File file : localChunkFiles(mapName)) {
+            if (!isSupersededBy(file, snapshotId)) {
+                continue;
+            }
+            // don't close the channel while a late chunk is being appended to it
+            deleteLock.writeLock().lock();
+            try {
+                IOUtil.closeResource(channels.remove(file));
+                IOUtil.deleteQuietly(file);
+            } finally {
+                deleteLock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void append(
+            String mapName, long snapshotId, boolean isChained, String originUuid, List<String> replicas,
+            byte[] key, byte[] chunk
+    ) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(2 * Bits.INT_SIZE_IN_BYTES + key.length + chunk.length);
+        record.putInt(key.length).put(key).putInt(chunk.length).put(chunk);
+        record.flip();
+        String fileName = isChained ? originUuid + FILE_SUFFIX : originUuid + '.' + snapshotId + FILE_SUFFIX;
+        File file = new File(new File(memberDirectory, mapName), fileName);
+        deleteLock.readLock().lock();
+        try {
+            if (snapshotId <= deletedSnapshotIds.getOrDefault(mapName, Long.MIN_VALUE)) {
+                throw new JetException("Snapshot " + snapshotId + " in " + mapName + " was deleted");
+            }
+            FileChannel channel = channels.computeIfAbsent(file, f -> uncheckCall(() -> open(f)));
+            if (replicas != null && !replicas.equals(replicaUuids.get(replicasFile(file)))) {
+                writeReplicaUuids(file, replicas);
+            }
+            synchronized (channel) {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+                channel.force(false);
+            }
+        } finally {
+            deleteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the replicas file of the given chunk file, unless another
+     * thread has just written the same replicas.
+     */
+    private void writeReplicaUuids(File chunkFile, List<String> replicas) {
+        replicaUuids.compute(replicasFile(chunkFile), (f, written) -> {
+            if (!replicas.equals(written)) {
+                uncheckCall(() -> Files.write(f.toPath(), replicas, UTF_8));
+            }
+            return replicas;
+        });
+    }
+
+    /**
+     * Returns the UUIDs of the replicas of the origin of the given chunk
+     * file or {@code null}, if they weren't stored.
+     */
+    private static List<String> readReplicaUuids(File chunkFile) {
+        File file = replicasFile(chunkFile);
+        return file.exists() ? uncheckCall(() -> Files.readAllLines(file.toPath(), UTF_8)) : null;
+    }
+
+    private static File replicasFile(File chunkFile) {
+        return new File(chunkFile.getParentFile(), originUuid(chunkFile) + REPLICAS_FILE_SUFFIX);
+    }
+
+    private static String originUuid(File chunkFile) {
+        String name = chunkFile.getName();
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    /**
+     * Returns whether the given chunk file holds the chunks of a single
+     * snapshot earlier than the given one.
+     */
+    private static boolean isSupersededBy(File chunkFile, long snapshotId) {
+        String name = chunkFile.getName();
+        int originEnd = name.indexOf('.');
+        int suffixStart = name.length() - FILE_SUFFIX.length();
+        return originEnd < suffixStart && Long.parseLong(name.substring(originEnd + 1, suffixStart)) < snapshotId;
+    }
+
+    private boolean isLocal(String uuid) {
+        return memberDirectory.getName().equals(uuid);
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        return FileChannel.open(file.toPath(), CREATE, WRITE, APPEND);
+    }
+
+    private void deleteLocal(String mapName, long lastSnapshotId) {
+        File directory = new File(memberDirectory, mapName);
+        deleteLock.writeLock().lock();
+        try {
+            deletedSnapshotIds.merge(mapName, lastSnapshotId, Math::max);
+            for (Iterator<Entry<File, FileChannel>> it = channels.entrySet().iterator(); it.hasNext(); ) {
+                Entry<File, FileChannel> en = it.next();
+                if (directory.equals(en.getKey().getParentFile())) {
+                    it.remove();
+                    IOUtil.closeResource(en.getValue());
+                }
+            }
+            replicaUuids.keySet().removeIf(f -> directory.equals(f.getParentFile()));
+            IOUtil.delete(directory);
+        } finally {
+            deleteLock.writeLock().unlock();
+        }
+        deleteOfDepartedMembers(mapName);
+    }
+
+    /**
+     * Deletes the files of the data map in the directories of the members
+     * that are no longer in the cluster. They would never be read or deleted
+     * otherwise, since a member that rejoins gets a new UUID.
+     */
+    private void deleteOfDepartedMembers(String mapName) {
+        Set<String> memberUuids = new HashSet<>();
+        for (Member member : nodeEngine.getClusterService().getMembers()) {
+            memberUuids.add(member.getUuid());
+        }
+        File[] memberDirectories = memberDirectory.getParentFile().listFiles(File::isDirectory);
+        if (memberDirectories == null) {
+            return;
+        }
+        for (File directory : memberDirectories) {
+            if (memberUuids.contains(directory.getName())) {
+                continue;
+            }
+            File mapDirectory = new File(directory, mapName);
+            if (mapDirectory.exists()) {
+                logFine(logger, "Deleting %s of a departed member", mapDirectory);
+                // another member sharing the snapshot directory might be deleting it too
+                IOUtil.deleteQuietly(mapDirectory);
+            }
+            String[] remaining = directory.list();
+            if (remaining != null && remaining.length == 0) {
+                IOUtil.deleteQuietly(directory);
+            }
+        }
+    }
+
+    private void invokeOnAllMembers(Supplier<Operation> operationSupplier) {
+        List<InternalCompletableFuture<Object>> futures = new ArrayList<>();
+        for (Member member : nodeEngine.getClusterService().getMembers()) {
+            futures.add(nodeEngine.getOperationService().invokeOnTarget(JetService.SERVICE_NAME,
+                    operationSupplier.get(), member.getAddress()));
+        }
+        for (InternalCompletableFuture<Object> future : futures) {
+            try {
+                future.join();
+            } catch (Exception e) {
+                // the files of a member that left aren't read anymore
+                if (!isRestartableException(peel(e))) {
+                    throw rethrow(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the members that store the copies of the chunks written by the
+     * local member: the {@code replicaCount} members following it in the
+     * member list.
+     */
+    private List<Member> replicaMembers() {
+        if (replicaCount == 0) {
+            return Collections.emptyList();
+        }
+        List<Member> members = new ArrayList<>(nodeEngine.getClusterService().getMembers());
+        int localIndex = members.indexOf(nodeEngine.getLocalMember());
+        List<Member> replicas = new ArrayList<>(replicaCount);
+        for (int i = 1; i <= replicaCount && i < members.size(); i++) {
+            replicas.add(members.get((localIndex + i) % members.size()));
+        }
+        return replicas;
+    }
+
+    /**
+     * Returns the local files of the data map the restore reads on this
+     * member: the files of the chunks written by this member and the copies
+     * of the chunks of the departed members, for which this member is the
+     * first replica still in the cluster. A copy whose replicas are unknown
+     * is read too.
+     */
+    List<File> chunkFilesToRead(String mapName) {
+        Set<String> memberUuids = new HashSet<>();
+        for (Member member : nodeEngine.getClusterService().getMembers()) {
+            memberUuids.add(member.getUuid());
+        }
+        List<File> files = new ArrayList<>();
+        for (File file : localChunkFiles(mapName)) {
+            String originUuid = originUuid(file);
+            if (isLocal(originUuid)) {
+                files.add(file);
+            } else if (!memberUuids.contains(originUuid) && isFirstLiveReplica(file, memberUuids)) {
+                logFine(logger, "Reading the copy of the chunks of departed member %s in %s", originUuid, mapName);
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private boolean isFirstLiveReplica(File chunkFile, Set<String> memberUuids) {
+        List<String> replicas = readReplicaUuids(chunkFile);
+        if (replicas == null) {
+            logger.warning("Replicas of " + chunkFile + " are unknown, reading it");
+            return true;
+        }
+        for (String uuid : replicas) {
+            if (isLocal(uuid)) {
+                return true;
+            }
+            if (memberUuids.contains(uuid)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the local files of the data map.
+     */
+    List<File> localChunkFiles(String mapName) {
+        File[] files = new File(memberDirectory, mapName).listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        return files != null ? Arrays.asList(files) : Collections.emptyList();
+    }
+
+    private static ExecutionCallback<Object> allOf(int count, ExecutionCallback<Object> callback) {
+        AtomicInteger remaining = new AtomicInteger(count);
+        AtomicBoolean failed = new AtomicBoolean();
+        return new ExecutionCallback<Object>() {
+            @Override
+            public void onResponse(Object response) {
+                if (remaining.decrementAndGet() == 0) {
+                    callback.onResponse(null);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (failed.compareAndSet(false, true)) {
+                    callback.onFailure(t);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the records of a chunk file. A record cut short by a failure
+     * of the member that was writing it is ignored.
+     */
+    private static final class ChunkFileTraverser implements Traverser<Entry<SnapshotDataKey, byte[]>> {
+
+        private final File file;
+        private final SerializationService serializationService;
+        private final ILogger logger;
+        private DataInputStream in;
+        private long remaining;
+
+        ChunkFileTraverser(File file, SerializationService serializationService, ILogger logger) {
+            this.file = file;
+            this.serializationService = serializationService;
+            this.logger = logger;
+        }
+
+        @Override
+        public Entry<SnapshotDataKey, byte[]> next() {
+            byte[][] record = nextRecord();
+            return record == null ? null : entry(serializationService.toObject(new HeapData(record[0])),
+                    serializationService.toObject(new HeapData(record[1])));
+        }
+
+        /**
+         * Returns the serialized key and chunk of the next record or {@code
+         * null}, if there are no more records.
+         */
+        byte[][] nextRecord() {
+            return uncheckCall(() -> {
+                if (in == null) {
+                    in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                    remaining = file.length();
+                }
+                if (remaining == 0) {
+                    close();
+                    return null;
+                }
+                try {
+                    byte[] key = readBytes();
+                    byte[] chunk = readBytes();
+                    remaining -= 2 * Bits.INT_SIZE_IN_BYTES + key.length + chunk.length;
+                    return new byte[][] {key, chunk};
+                } catch (EOFException e) {
+                    logger.warning("Incomplete record at the end of " + file + " ignored");
+                    remaining = 0;
+                    close();
+                    return null;
+                }
+            });
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        void close() {
+            IOUtil.closeResource(in);
+        }
+    }
+
+    /**
+     * Emits the chunks of the data map the local member {@linkplain
+     * #chunkFilesToRead reads}.
+     */
+    private static final class ReadLocalSnapshotP extends AbstractProcessor {
+
+        private final String mapName;
+        private SerializationService serializationService;
+        private Iterator<File> files;
+        private ChunkFileTraverser currentFile;
+
+        ReadLocalSnapshotP(String mapName) {
+            this.mapName = mapName;
+        }
+
+        @Override
+        protected void init(@Nonnull Context context) {
+            NodeEngine nodeEngine = ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance())
+                    .node.nodeEngine;
+            JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
+            serializationService = nodeEngine.getSerializationService();
+            files = ((LocalDiskSnapshotStore) service.getSnapshotStore()).chunkFilesToRead(mapName).iterator();
+        }
+
+        @Override
+        public boolean isCooperative() {
+            return false;
+        }
+
+        @Override
+        public boolean complete() {
+            while (currentFile != null || files.hasNext()) {
+                if (currentFile == null) {
+                    currentFile = new ChunkFileTraverser(files.next(), serializationService, getLogger());
+                }
+                if (!emitFromTraverser(currentFile)) {
+                    return false;
+                }
+                currentFile = null;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            if (currentFile != null) {
+                currentFile.close();
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.hazelcast.core.Member;
 import com.hazelcast.internal.cluster.MemberInfo;
 import com.hazelcast.internal.cluster.impl.ClusterServiceImpl;
 import com.hazelcast.internal.cluster.impl.MembersView;
+import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Job;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.DAG;
@@ -36,6 +37,7 @@ import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.exception.TerminatedWithSnapshotException;
 import com.hazelcast.jet.impl.execution.init.ExecutionPlan;
 import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
+import com.hazelcast.jet.impl.operation.CopySnapshotDataOperation;
 import com.hazelcast.jet.impl.operation.InitExecutionOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
@@ -78,8 +80,9 @@ import static com.hazelcast.jet.core.JobStatus.NOT_RUNNING;
 import static com.hazelcast.jet.core.JobStatus.RUNNING;
 import static com.hazelcast.jet.core.JobStatus.STARTING;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED;
-import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
 import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static com.hazelcast.jet.impl.JobRepository.exportedSnapshotMapName;
 import static com.hazelcast.jet.impl.TerminationMode.ActionAfterTerminate.RESTART;
 import static com.hazelcast.jet.impl.TerminationMode.ActionAfterTerminate.SUSPEND;
 import static com.hazelcast.jet.impl.TerminationMode.CANCEL;
@@ -162,6 +165,41 @@ public class MasterContext {
      */
     private volatile boolean nextSnapshotIsTerminal;
 
+    /**
+     * It's true if the next snapshot can be incremental: the previous
+     * snapshot in the current execution was successful. The processors
+     * track their changes since the previous snapshot they saved, so after
+     * a failed snapshot or a restart the next snapshot must be full.
+     */
+    private boolean lastSnapshotSucceeded;
+
+    private final SnapshotIntervalController snapshotIntervalController;
+
+    /**
+     * The number of {@linkplain #exportSnapshot(String) snapshot exports} in
+     * progress. No snapshot is started while it's positive, because a
+     * successful snapshot deletes the data of the previous one.
+     */
+    private int exportsInProgress;
+
+    /**
+     * The exports requested while a snapshot was in progress. They start
+     * when it completes.
+     */
+    private final List<Runnable> pendingExports = new ArrayList<>();
+
+    /**
+     * True, if a snapshot wasn't started due to an export in progress. It's
+     * started when the last export completes.
+     */
+    private boolean snapshotPostponed;
+
+    /**
+     * True after the {@link #snapshotIntervalController} was registered as
+     * a metrics source.
+     */
+    private volatile boolean intervalMetricRegistered;
+
     /**
      * A future (re)created when the job is started and completed when terminal
      * snapshot is completed (successfully or not).
@@ -178,6 +216,7 @@ public class MasterContext {
         this.jobExecutionRecord = jobExecutionRecord;
         this.jobId = jobRecord.getJobId();
         this.jobName = jobRecord.getJobNameOrId();
+        this.snapshotIntervalController = new SnapshotIntervalController(jobRecord.getConfig());
         if (jobExecutionRecord.isSuspended()) {
             jobStatus = SUSPENDED;
         }
@@ -211,6 +250,14 @@ public class MasterContext {
         return completionFuture;
     }
 
+    /**
+     * Returns the interval to wait before the next snapshot, see {@link
+     * SnapshotIntervalController}.
+     */
+    long snapshotIntervalMillis() {
+        return snapshotIntervalController.intervalMillis();
+    }
+
     /**
      * @return false, if termination was already requested
      */
@@ -316,6 +363,7 @@ public class MasterContext {
 
             snapshotInProgress = false;
             nextSnapshotIsTerminal = false;
+            lastSnapshotSucceeded = false;
             terminalSnapshotFuture = new CompletableFuture<>();
         }
 
@@ -325,19 +373,35 @@ public class MasterContext {
             return;
         }
 
+        boolean restored = false;
         if (isSnapshottingEnabled()) {
             long snapshotToRestore = jobExecutionRecord.snapshotId();
             try {
-                jobRepository.clearSnapshotData(jobId, jobExecutionRecord.ongoingDataMapIndex());
+                jobRepository.clearSnapshotData(jobId, jobExecutionRecord.ongoingDataMapIndex(),
+                        jobExecutionRecord.ongoingSnapshotId());
             } catch (Exception e) {
                 logger.warning("Cannot delete old snapshots for " + jobName, e);
             }
             if (snapshotToRestore >= 0) {
-                rewriteDagWithSnapshotRestore(dag, snapshotToRestore);
+                rewriteDagWithSnapshotRestore(dag, jobExecutionRecord.successfulSnapshotDataMapName(jobId),
+                        snapshotToRestore, jobExecutionRecord.baseSnapshotId());
+                restored = true;
             } else {
                 logger.info("No previous snapshot for " + jobIdString() + " found.");
             }
         }
+        String initialSnapshotName = jobConfig().getInitialSnapshotName();
+        if (!restored && initialSnapshotName != null) {
+            ExportedSnapshotRecord record = jobRepository.getExportedSnapshotRecord(initialSnapshotName);
+            if (record == null) {
+                finalizeJob(new JetException("Exported snapshot '" + initialSnapshotName + "' not found, "
+                        + jobIdString() + " can't start"));
+                return;
+            }
+            logger.info("Starting " + jobIdString() + " from exported snapshot '" + initialSnapshotName + '\'');
+            rewriteDagWithSnapshotRestore(dag, exportedSnapshotMapName(initialSnapshotName),
+                    record.snapshotId(), record.baseSnapshotId());
+        }
 
         MembersView membersView = getMembersView();
         ClassLoader previousCL = swapContextClassLoader(classLoader);
@@ -364,19 +428,23 @@ public class MasterContext {
         invokeOnParticipants(operationCtor, this::onInitStepCompleted, null);
     }
 
-    private void rewriteDagWithSnapshotRestore(DAG dag, long snapshotId) {
-        String mapName = jobExecutionRecord.successfulSnapshotDataMapName(jobId);
-        logger.info("State of " + jobIdString() + " will be restored from snapshot " + snapshotId + ", map=" + mapName);
+    private void rewriteDagWithSnapshotRestore(DAG dag, String mapName, long snapshotId, long baseSnapshotId) {
+        logger.info("State of " + jobIdString() + " will be restored from snapshot " + snapshotId
+                + (baseSnapshotId < snapshotId ? " based on snapshot " + baseSnapshotId : "") + ", map=" + mapName);
 
         List<Vertex> originalVertices = new ArrayList<>();
         dag.iterator().forEachRemaining(originalVertices::add);
 
         Map<String, Integer> vertexToOrdinal = new HashMap<>();
         Vertex readSnapshotVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "read",
-                readMapP(mapName));
+                jobRepository.snapshotStore().readP(mapName));
         Vertex explodeVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "explode",
-                () -> new ExplodeSnapshotP(vertexToOrdinal, snapshotId));
-        dag.edge(between(readSnapshotVertex, explodeVertex).isolated());
+                () -> new ExplodeSnapshotP(vertexToOrdinal, snapshotId, baseSnapshotId));
+        Edge readToExplode = between(readSnapshotVertex, explodeVertex);
+        // The chunks of a partition written by different snapshots of the chain must
+        // reach the same processor to be merged. The partition key of the chunk keys
+        // is the key of the partition they're stored in.
+        dag.edge(baseSnapshotId < snapshotId ? readToExplode.partitioned(entryKey()) : readToExplode.isolated());
 
         int index = 0;
         // add the edges
@@ -498,10 +566,22 @@ public class MasterContext {
         invokeOnParticipants(operationCtor, completionCallback, executionInvocationCallback);
 
         if (isSnapshottingEnabled()) {
+            registerIntervalMetric();
             coordinationService.scheduleSnapshot(jobId, executionId);
         }
     }
 
+    private void registerIntervalMetric() {
+        if (!snapshotIntervalController.isAdaptive() || intervalMetricRegistered) {
+            return;
+        }
+        intervalMetricRegistered = true;
+        nodeEngine.getMetricsRegistry().newProbeBuilder()
+                  .withTag("module", "jet")
+                  .withTag("job", idToString(jobId))
+                  .scanAndRegister(snapshotIntervalController);
+    }
+
     private void handleTermination(@Nonnull TerminationMode mode) {
         // this method can be called multiple times to handle the termination, it must
         // be safe against it (idempotent).
@@ -522,6 +602,7 @@ public class MasterContext {
 
     void beginSnapshot(long executionId) {
         boolean isTerminal;
+        boolean isIncremental;
         assertLockNotHeld();
         synchronized (lock) {
             if (this.executionId != executionId) {
@@ -537,8 +618,11 @@ public class MasterContext {
                 return;
             }
 
-            if (snapshotInProgress) {
-                logger.fine("Not beginning snapshot since one is already in progress " + jobIdString());
+            if (snapshotInProgress || exportsInProgress > 0) {
+                // a snapshot postponed due to an export is started when the export completes
+                snapshotPostponed |= !snapshotInProgress;
+                logger.fine("Not beginning snapshot since a snapshot or its export is already in progress "
+                        + jobIdString());
                 return;
             }
             if (terminalSnapshotFuture.isDone()) {
@@ -547,24 +631,41 @@ public class MasterContext {
             }
             snapshotInProgress = true;
             isTerminal = nextSnapshotIsTerminal;
+            isIncremental = isNextSnapshotIncremental();
             jobExecutionRecord.startNewSnapshot();
         }
 
         writeJobExecutionRecord(false);
         long newSnapshotId = jobExecutionRecord.ongoingSnapshotId();
+        // an incremental snapshot is added to the data map of the snapshot it's based on
+        int dataMapIndex = isIncremental ? jobExecutionRecord.dataMapIndex() : jobExecutionRecord.ongoingDataMapIndex();
 
-        logger.info(String.format("Starting%s snapshot %s for %s", isTerminal ? " terminal" : "", newSnapshotId,
-                jobIdString()));
+        logger.info(String.format("Starting%s%s snapshot %s for %s", isTerminal ? " terminal" : "",
+                isIncremental ? " incremental" : "", newSnapshotId, jobIdString()));
         Function<ExecutionPlan, Operation> factory =
-                plan -> new SnapshotOperation(jobId, executionId, newSnapshotId,
-                        jobExecutionRecord.ongoingDataMapIndex(), isTerminal);
+                plan -> new SnapshotOperation(jobId, executionId, newSnapshotId, dataMapIndex, isTerminal,
+                        isIncremental);
 
         invokeOnParticipants(factory,
-                responses -> onSnapshotCompleted(responses, executionId, newSnapshotId, isTerminal), null);
+                responses -> onSnapshotCompleted(responses, executionId, newSnapshotId, isTerminal, isIncremental),
+                null);
+    }
+
+    /**
+     * Returns whether the next snapshot can be incremental: it's enabled, the
+     * previous snapshot succeeded and the snapshot chain isn't longer than
+     * the full snapshot interval.
+     */
+    private boolean isNextSnapshotIncremental() {
+        assertLockHeld();
+        long chainLength = jobExecutionRecord.snapshotId() - jobExecutionRecord.baseSnapshotId() + 1;
+        return jobConfig().isIncrementalSnapshotsEnabled()
+                && lastSnapshotSucceeded
+                && chainLength < jobConfig().getFullSnapshotInterval();
     }
 
     private void onSnapshotCompleted(Map<MemberInfo, Object> responses, long executionId, long snapshotId,
-                                                  boolean wasTerminal) {
+                                     boolean wasTerminal, boolean wasIncremental) {
         // Note: this method can be called after finalizeJob() is called or even after new execution started.
         // We only wait for snapshot completion if the job completed with a terminal snapshot and the job
         // was successful.
@@ -572,7 +673,7 @@ public class MasterContext {
         for (Object response : responses.values()) {
             // the response is either SnapshotOperationResult or an exception, see #invokeOnParticipants() method
             if (response instanceof Throwable) {
-                response = new SnapshotOperationResult(0, 0, 0, (Throwable) response);
+                response = new SnapshotOperationResult(0, 0, 0, 0, 0, (Throwable) response);
             }
             mergedResult.merge((SnapshotOperationResult) response);
         }
@@ -583,19 +684,35 @@ public class MasterContext {
                     "one of the failures: " + mergedResult.getError());
         }
         jobExecutionRecord.ongoingSnapshotDone(
-                mergedResult.getNumBytes(), mergedResult.getNumKeys(), mergedResult.getNumChunks(),
-                mergedResult.getError());
+                mergedResult.getNumBytes(), mergedResult.getNumStoredBytes(), mergedResult.getNumKeys(),
+                mergedResult.getNumChunks(), mergedResult.getNumChainedChunks(), mergedResult.getError(),
+                wasIncremental);
         writeJobExecutionRecord(false);
         SnapshotStats stats = jobExecutionRecord.snapshotStats();
-        logger.info(String.format("Snapshot %d for %s completed with status %s in %dms, " +
-                        "%,d bytes, %,d keys in %,d chunks, stored in data map %d",
-                snapshotId, jobIdString(), isSuccess ? "SUCCESS" : "FAILURE",
-                stats.duration(), stats.numBytes(),
+        if (isSuccess) {
+            snapshotIntervalController.snapshotCompleted(stats.duration(), stats.numBytes());
+        }
+        logger.info(String.format("Snapshot %d%s for %s completed with status %s in %dms, " +
+                        "%,d bytes (%,d stored), %,d keys in %,d chunks, stored in data map %d",
+                snapshotId, wasIncremental ? " (incremental)" : "", jobIdString(), isSuccess ? "SUCCESS" : "FAILURE",
+                stats.duration(), stats.numBytes(), stats.numStoredBytes(),
                 stats.numKeys(), stats.numChunks(),
                 jobExecutionRecord.dataMapIndex()));
-        jobRepository.clearSnapshotData(jobId, jobExecutionRecord.ongoingDataMapIndex());
+        jobRepository.clearSnapshotData(jobId, jobExecutionRecord.ongoingDataMapIndex(),
+                jobExecutionRecord.ongoingSnapshotId());
+        if (isSuccess && wasIncremental) {
+            // the vertices that aren't chained saved their full state again
+            jobRepository.deleteSupersededSnapshotData(jobId, jobExecutionRecord.dataMapIndex(), snapshotId);
+        }
 
         Runnable nonSynchronizedAction = () -> { };
+        List<Runnable> exports;
+        synchronized (lock) {
+            exports = new ArrayList<>(pendingExports);
+            pendingExports.clear();
+            exportsInProgress += exports.size();
+        }
+        exports.forEach(Runnable::run);
         synchronized (lock) {
             if (this.executionId != executionId) {
                 logger.fine("Not completing terminalSnapshotFuture on " + jobIdString() + ", new execution " +
@@ -604,6 +721,7 @@ public class MasterContext {
             }
             assert snapshotInProgress : "snapshot not in progress";
             snapshotInProgress = false;
+            lastSnapshotSucceeded = isSuccess;
             if (wasTerminal) {
                 // after a terminal snapshot, no more snapshots are scheduled in this execution
                 boolean completedNow = terminalSnapshotFuture.complete(null);
@@ -620,6 +738,111 @@ public class MasterContext {
         nonSynchronizedAction.run();
     }
 
+    /**
+     * Exports the last successful snapshot of the job under the given name,
+     * see {@link Job#exportSnapshot(String)}. If a snapshot is in progress,
+     * the export starts after it completes.
+     */
+    CompletableFuture<Void> exportSnapshot(String name) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Runnable export = () -> nodeEngine.getExecutionService().execute(ExecutionService.ASYNC_EXECUTOR,
+                () -> runExport(name, future));
+        assertLockNotHeld();
+        synchronized (lock) {
+            if (snapshotInProgress) {
+                pendingExports.add(export);
+                return future;
+            }
+            exportsInProgress++;
+        }
+        export.run();
+        return future;
+    }
+
+    private void runExport(String name, CompletableFuture<Void> future) {
+        CompletableFuture<Void> copyFuture;
+        try {
+            copyFuture = copySnapshotData(name);
+        } catch (Throwable e) {
+            copyFuture = new CompletableFuture<>();
+            copyFuture.completeExceptionally(e);
+        }
+        copyFuture.whenComplete(withTryCatch(logger, (r, e) -> onExportCompleted(name, future, e)));
+    }
+
+    private void onExportCompleted(String name, CompletableFuture<Void> future, Throwable error) {
+        Runnable postponedSnapshot = () -> { };
+        synchronized (lock) {
+            exportsInProgress--;
+            if (exportsInProgress == 0 && snapshotPostponed) {
+                snapshotPostponed = false;
+                long executionId = this.executionId;
+                postponedSnapshot = () -> coordinationService.beginSnapshot(jobId, executionId);
+            }
+        }
+        postponedSnapshot.run();
+        if (error == null) {
+            future.complete(null);
+        } else {
+            logger.warning("Export of the snapshot of " + jobIdString() + " as '" + name + "' failed", error);
+            future.completeExceptionally(peel(error));
+        }
+    }
+
+    // The copying members are waited for asynchronously: they copy on the
+    // ASYNC_EXECUTOR, which may have just one thread
+    private CompletableFuture<Void> copySnapshotData(String name) {
+        long snapshotId = jobExecutionRecord.snapshotId();
+        if (snapshotId < 0) {
+            throw new IllegalStateException(jobIdString() + " has no successful snapshot to export");
+        }
+        long baseSnapshotId = jobExecutionRecord.baseSnapshotId();
+        long expectedChunkCount = jobExecutionRecord.snapshotStats().numChunksWithBase();
+        String sourceMapName = jobExecutionRecord.successfulSnapshotDataMapName(jobId);
+        String targetMapName = exportedSnapshotMapName(name);
+        logger.info("Exporting snapshot " + snapshotId + " of " + jobIdString() + " as '" + name + '\'');
+        jobRepository.deleteExportedSnapshot(name);
+        Collection<Member> members = nodeEngine.getClusterService().getMembers();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(members.size());
+        ExecutionCallback<Object> callback = callbackOf(r -> {
+            if (remaining.decrementAndGet() > 0) {
+                return;
+            }
+            try {
+                checkExportedSnapshot(name, targetMapName, expectedChunkCount);
+                jobRepository.putExportedSnapshotRecord(new ExportedSnapshotRecord(name, jobId, snapshotId,
+                        baseSnapshotId, System.currentTimeMillis()));
+                logger.info("Snapshot " + snapshotId + " of " + jobIdString() + " exported as '" + name + '\'');
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, future::completeExceptionally);
+        for (Member member : members) {
+            InternalCompletableFuture<Object> f = nodeEngine.getOperationService().invokeOnTarget(
+                    JetService.SERVICE_NAME,
+                    new CopySnapshotDataOperation(sourceMapName, targetMapName, snapshotId, baseSnapshotId),
+                    member.getAddress());
+            f.andThen(callback);
+        }
+        return future;
+    }
+
+    // The source data map is deleted when the job ends and a partition can
+    // migrate while it's copied, either makes the copy incomplete
+    private void checkExportedSnapshot(String name, String targetMapName, long expectedChunkCount) {
+        JobStatus status = jobStatus();
+        if (status == COMPLETED || status == FAILED) {
+            throw new JetException(jobIdString() + " ended while exporting its snapshot as '" + name + '\'');
+        }
+        long chunkCount = jobRepository.snapshotStore().chunkCount(targetMapName);
+        if (chunkCount >= 0 && chunkCount != expectedChunkCount) {
+            throw new JetException("Exported snapshot '" + name + "' of " + jobIdString() + " has " + chunkCount
+                    + " chunks, expected " + expectedChunkCount + ", the cluster probably changed during the export");
+        }
+    }
+
     // Called as callback when all ExecuteOperation invocations are done
     private void onExecuteStepCompleted(Map<MemberInfo, Object> responses) {
         invokeCompleteExecution(getResult("Execution", responses));
@@ -819,6 +1042,9 @@ public class MasterContext {
     }
 
     void setFinalResult(Throwable failure) {
+        if (intervalMetricRegistered) {
+            nodeEngine.getMetricsRegistry().deregister(snapshotIntervalController);
+        }
         if (failure == null) {
             completionFuture.internalComplete();
         } else {
@@ -1001,7 +1227,8 @@ public class MasterContext {
         SnapshotRestoreEdge(Vertex source, int sourceOrdinal, Vertex destination, int destOrdinal) {
             super(source, sourceOrdinal, destination, destOrdinal);
             distributed();
-            partitioned(entryKey());
+            // the partition of each entry is known from the chunk it was read from
+            partitioned(wholeItem(), ExplodeSnapshotP::partitionOf);
         }
 
         @Override
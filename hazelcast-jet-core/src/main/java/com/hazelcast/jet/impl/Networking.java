@@ -16,10 +16,12 @@
 
 package com.hazelcast.jet.impl;
 
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.jet.impl.execution.ExecutionContext;
 import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.nio.Connection;
@@ -28,6 +30,7 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ScheduledFuture;
@@ -39,14 +42,23 @@ import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.getRemoteMembers;
 import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
 import static com.hazelcast.nio.Packet.FLAG_JET_FLOW_CONTROL;
 import static com.hazelcast.nio.Packet.FLAG_URGENT;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class Networking {
+    /**
+     * The size of the header written by {@link #createStreamPacketHeader}:
+     * the execution ID, the destination vertex ID and the ordinal.
+     */
+    public static final int STREAM_PACKET_HEADER_SIZE = LONG_SIZE_IN_BYTES + 2 * INT_SIZE_IN_BYTES;
+
     private static final byte[] EMPTY_BYTES = new byte[0];
 
     private final NodeEngineImpl nodeEngine;
+    private final boolean useBigEndian;
     private final ILogger logger;
     private final JobExecutionService jobExecutionService;
     private final ScheduledFuture<?> flowControlSender;
@@ -55,6 +67,8 @@ public class Networking {
         this.nodeEngine = (NodeEngineImpl) nodeEngine;
         this.logger = nodeEngine.getLogger(getClass());
         this.jobExecutionService = jobExecutionService;
+        this.useBigEndian = ((InternalSerializationService) nodeEngine.getSerializationService()).getByteOrder()
+                == ByteOrder.BIG_ENDIAN;
         this.flowControlSender = nodeEngine.getExecutionService().scheduleWithRepetition(
                 this::broadcastFlowControlPacket, 0, flowControlPeriodMs, MILLISECONDS);
     }
@@ -71,18 +85,26 @@ public class Networking {
         handleFlowControlPacket(packet.getConn().getEndPoint(), packet.toByteArray());
     }
 
-    private void handleStreamPacket(Packet packet) throws IOException {
-        BufferObjectDataInput in = createObjectDataInput(nodeEngine, packet.toByteArray());
-        long executionId = in.readLong();
-        int vertexId = in.readInt();
-        int ordinal = in.readInt();
+    private void handleStreamPacket(Packet packet) {
+        // Packet.toByteArray() returns the payload itself, we read the header
+        // directly from it and pass it on to the receiver without a copy
+        byte[] payload = packet.toByteArray();
+        long executionId = Bits.readLong(payload, 0, useBigEndian);
+        int vertexId = Bits.readInt(payload, LONG_SIZE_IN_BYTES, useBigEndian);
+        int ordinal = Bits.readInt(payload, LONG_SIZE_IN_BYTES + INT_SIZE_IN_BYTES, useBigEndian);
         ExecutionContext executionContext = jobExecutionService.getExecutionContext(executionId);
-        executionContext.handlePacket(vertexId, ordinal, packet.getConn().getEndPoint(), in);
+        executionContext.handlePacket(vertexId, ordinal, packet.getConn().getEndPoint(), payload);
     }
 
     public static byte[] createStreamPacketHeader(NodeEngine nodeEngine, long executionId,
                                                   int destinationVertexId, int ordinal) {
-        try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
+        return createStreamPacketHeader((InternalSerializationService) nodeEngine.getSerializationService(),
+                executionId, destinationVertexId, ordinal);
+    }
+
+    public static byte[] createStreamPacketHeader(InternalSerializationService serializationService, long executionId,
+                                                  int destinationVertexId, int ordinal) {
+        try (BufferObjectDataOutput out = createObjectDataOutput(serializationService)) {
             out.writeLong(executionId);
             out.writeInt(destinationVertexId);
             out.writeInt(ordinal);
@@ -92,6 +114,32 @@ public class Networking {
         }
     }
 
+    /**
+     * Sends to the given member a flow-control packet with a single message
+     * for the sender tasklet of the given edge, outside of the periodic
+     * broadcast.
+     */
+    public static void sendFlowControlPacket(NodeEngine nodeEngine, Address member, long executionId,
+                                             int destVertexId, int destOrdinal, int sendSeqLimitCompressed) {
+        Connection conn = getMemberConnection(nodeEngine, member);
+        if (conn == null) {
+            return;
+        }
+        try (BufferObjectDataOutput out = createObjectDataOutput(nodeEngine)) {
+            out.writeInt(1);
+            out.writeLong(executionId);
+            out.writeInt(1);
+            out.writeInt(destVertexId);
+            out.writeInt(destOrdinal);
+            out.writeInt(sendSeqLimitCompressed);
+            conn.write(new Packet(out.toByteArray())
+                    .setPacketType(Packet.Type.JET)
+                    .raiseFlags(FLAG_URGENT | FLAG_JET_FLOW_CONTROL));
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
     private void broadcastFlowControlPacket() {
         try {
             getRemoteMembers(nodeEngine).forEach(member -> uncheckRun(() -> {
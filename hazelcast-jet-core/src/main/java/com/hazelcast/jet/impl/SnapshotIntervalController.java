@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.metrics.ProbeUnit;
+import com.hazelcast.jet.config.JobConfig;
+
+/**
+ * Chooses the interval between the snapshots of a job. With the {@linkplain
+ * JobConfig#setMaxSnapshotOverhead(double) adaptive interval} disabled, it's
+ * always the configured {@linkplain JobConfig#getSnapshotIntervalMillis()
+ * snapshot interval}.
+ * <p>
+ * Otherwise the interval is recomputed after each successful snapshot. The
+ * controller keeps a moving average of the rate at which the snapshots
+ * were written and estimates the duration of the next snapshot as the time
+ * to write as many bytes as the last one contained. The interval is then
+ * the shortest one for which the estimated duration is at most the
+ * configured fraction of the interval plus the duration.
+ */
+class SnapshotIntervalController {
+
+    /**
+     * The weight of the last snapshot in the moving average of the rate.
+     */
+    private static final double ALPHA = 0.5;
+
+    private final double maxOverhead;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+
+    private double bytesPerMilli;
+
+    @Probe(name = "snapshotIntervalMillis", unit = ProbeUnit.MS)
+    private volatile long intervalMillis;
+
+    SnapshotIntervalController(JobConfig config) {
+        this.maxOverhead = config.getMaxSnapshotOverhead();
+        this.minIntervalMillis = config.getMinSnapshotIntervalMillis();
+        this.maxIntervalMillis = config.getMaxSnapshotIntervalMillis();
+        this.intervalMillis = isAdaptive() ? bound(config.getSnapshotIntervalMillis())
+                : config.getSnapshotIntervalMillis();
+    }
+
+    boolean isAdaptive() {
+        return maxOverhead > 0;
+    }
+
+    /**
+     * Returns the interval to wait before the next snapshot.
+     */
+    long intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Updates the interval after a successful snapshot that took {@code
+     * durationMillis} and contained {@code numBytes}.
+     */
+    void snapshotCompleted(long durationMillis, long numBytes) {
+        if (!isAdaptive()) {
+            return;
+        }
+        long duration = Math.max(1, durationMillis);
+        double estimatedDuration = duration;
+        if (numBytes > 0) {
+            double rate = (double) numBytes / duration;
+            bytesPerMilli = bytesPerMilli == 0 ? rate : ALPHA * rate + (1 - ALPHA) * bytesPerMilli;
+            estimatedDuration = numBytes / bytesPerMilli;
+        }
+        intervalMillis = bound((long) Math.ceil(estimatedDuration * (1 - maxOverhead) / maxOverhead));
+    }
+
+    private long bound(long interval) {
+        return Math.max(minIntervalMillis, Math.min(maxIntervalMillis, interval));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+
+import java.util.function.Predicate;
+
+/**
+ * The storage of the snapshot data. The data of a snapshot is written to
+ * one of the two data maps of the job, identified by the {@linkplain
+ * JobRepository#snapshotDataMapName(long, int) map name}, as chunks keyed
+ * by {@link SnapshotDataKey}.
+ */
+public interface SnapshotStore {
+
+    /**
+     * Asynchronously stores the chunk under the given key. The callback is
+     * called with {@code null} when the chunk is stored, or with a previous
+     * value stored under the key.
+     */
+    void putAsync(String mapName, SnapshotDataKey key, Data chunk, ExecutionCallback<Object> callback);
+
+    /**
+     * Deletes all the chunks of the data map on all members. Returns after
+     * the chunks are deleted. The store may reject the chunks of the
+     * snapshots up to {@code lastSnapshotId} that are put later, when their
+     * snapshot is already abandoned.
+     */
+    void clear(String mapName, long lastSnapshotId);
+
+    /**
+     * Deletes the chunks of the data map {@linkplain
+     * SnapshotDataKey#isSupersededBy(long) superseded} by the given
+     * incremental snapshot on all members. The vertices that don't save
+     * incremental snapshots write their full state to each snapshot of the
+     * chain, so without this their earlier states pile up in the data map.
+     * Returns after the chunks are deleted.
+     */
+    void deleteSuperseded(String mapName, long snapshotId);
+
+    /**
+     * Deletes the data map on all members, including all its chunks.
+     */
+    void destroy(String mapName);
+
+    /**
+     * Returns a source of the chunks of the data map, it emits {@code
+     * Entry<SnapshotDataKey, byte[]>} items.
+     */
+    ProcessorMetaSupplier readP(String mapName);
+
+    /**
+     * Copies the chunks of the data map stored on the local member, for
+     * which the filter returns {@code true}, to another data map. Returns
+     * after the chunks are copied. It's called on all members to copy the
+     * whole data map.
+     */
+    void copyLocal(String sourceMapName, String targetMapName, Predicate<SnapshotDataKey> filter);
+
+    /**
+     * Returns the number of distinct chunks in the data map on all members,
+     * or {@code -1}, if the store can't tell. Used to check that a {@link
+     * #copyLocal} called on all members copied all the chunks.
+     */
+    long chunkCount(String mapName);
+}
@@ -197,6 +197,15 @@ public final class XmlJetConfigBuilder extends AbstractConfigBuilder {
                 case "scale-up-delay-millis":
                     instanceConfig.setScaleUpDelayMillis(longValue(node));
                     break;
+                case "work-stealing-enabled":
+                    instanceConfig.setWorkStealingEnabled(booleanValue(node));
+                    break;
+                case "event-driven-wakeup-enabled":
+                    instanceConfig.setEventDrivenWakeupEnabled(booleanValue(node));
+                    break;
+                case "snapshot-directory":
+                    instanceConfig.setSnapshotDirectory(stringValue(node));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
@@ -214,9 +223,24 @@ public final class XmlJetConfigBuilder extends AbstractConfigBuilder {
                 case "packet-size-limit":
                     config.setPacketSizeLimit(intValue(child));
                     break;
+                case "packet-linger-time-micros":
+                    config.setPacketLingerTimeMicros(longValue(child));
+                    break;
                 case "receive-window-multiplier":
                     config.setReceiveWindowMultiplier(intValue(child));
                     break;
+                case "skew-reduction-enabled":
+                    config.setSkewReductionEnabled(booleanValue(child));
+                    break;
+                case "priority-draining-threshold":
+                    config.setPriorityDrainingThreshold(longValue(child));
+                    break;
+                case "max-watermark-skew":
+                    config.setMaxWatermarkSkew(longValue(child));
+                    break;
+                case "packet-compression-enabled":
+                    config.setPacketCompressionEnabled(booleanValue(child));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
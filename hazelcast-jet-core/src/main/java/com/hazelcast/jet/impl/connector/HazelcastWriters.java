@@ -55,8 +55,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.cache.configuration.Configuration;
 import java.io.IOException;
 import java.util.AbstractMap;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -129,7 +131,8 @@ public final class HazelcastWriters {
                 instance -> procContext -> new UpdateMapContext<>(instance, mapName, toKeyFn, updateFn, isLocal),
                 UpdateMapContext::add,
                 instance -> UpdateMapContext::flush,
-                UpdateMapContext::finish
+                UpdateMapContext::finish,
+                false
         ));
     }
 
@@ -292,7 +295,14 @@ public final class HazelcastWriters {
                 ArrayMap::add,
                 instance -> {
                     IMap map = instance.getMap(name);
+                    // the keys received in the serialized form don't reflect the map's partitioning strategy
+                    boolean deserializeKeys = isLocal && ((MapProxyImpl) map).getPartitionStrategy() != null;
+                    SerializationService serializationService =
+                            isLocal ? ((HazelcastInstanceImpl) instance).getSerializationService() : null;
                     return buffer -> {
+                        if (deserializeKeys) {
+                            buffer.deserialize(serializationService, false);
+                        }
                         try {
                             map.putAll(buffer);
                         } catch (HazelcastInstanceNotActiveException e) {
@@ -301,7 +311,8 @@ public final class HazelcastWriters {
                         buffer.clear();
                     };
                 },
-                DistributedConsumer.noop()
+                DistributedConsumer.noop(),
+                isLocal
         ));
     }
 
@@ -313,7 +324,8 @@ public final class HazelcastWriters {
                 instance -> procContext -> new ArrayMap(),
                 ArrayMap::add,
                 CacheFlush.flushToCache(name, isLocal),
-                DistributedConsumer.noop()
+                DistributedConsumer.noop(),
+                isLocal
         ));
     }
 
@@ -335,7 +347,8 @@ public final class HazelcastWriters {
                         buffer.clear();
                     };
                 },
-                DistributedConsumer.noop()
+                DistributedConsumer.noop(),
+                false
         ));
     }
 
@@ -356,7 +369,15 @@ public final class HazelcastWriters {
         ) {
             return instance -> {
                 ICache cache = instance.getCacheManager().getCache(name);
+                // a cache with the key or value type configured rejects the entries
+                // received in the serialized form
+                boolean deserialize = isLocal && hasTypesConfigured(cache);
+                SerializationService serializationService =
+                        isLocal ? ((HazelcastInstanceImpl) instance).getSerializationService() : null;
                 return buffer -> {
+                    if (deserialize) {
+                        buffer.deserialize(serializationService, true);
+                    }
                     try {
                         cache.putAll(buffer);
                     } catch (HazelcastInstanceNotActiveException e) {
@@ -366,6 +387,11 @@ public final class HazelcastWriters {
                 };
             };
         }
+
+        private static boolean hasTypesConfigured(ICache cache) {
+            Configuration config = cache.getConfiguration(Configuration.class);
+            return config.getKeyType() != Object.class || config.getValueType() != Object.class;
+        }
     }
 
     private static final class ArrayMap extends AbstractMap<Object, Object> {
@@ -386,6 +412,22 @@ public final class HazelcastWriters {
             entries.add(entry);
         }
 
+        /**
+         * Replaces the keys and, if requested, the values received in the
+         * serialized form with the deserialized ones.
+         */
+        void deserialize(SerializationService serializationService, boolean includingValues) {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry<Object, Object> entry = entries.get(i);
+                Object key = entry.getKey();
+                Object value = entry.getValue();
+                if (key instanceof Data || includingValues && value instanceof Data) {
+                    entries.set(i, new SimpleImmutableEntry<>(serializationService.toObject(key),
+                            includingValues ? serializationService.toObject(value) : value));
+                }
+            }
+        }
+
         private class ArraySet extends AbstractSet<Entry<Object, Object>> {
             @Override @Nonnull
             public Iterator<Entry<Object, Object>> iterator() {
@@ -550,6 +592,7 @@ public final class HazelcastWriters {
                 instanceToNewBufferFn;
         private final DistributedBiConsumer<B, T> addToBufferFn;
         private final DistributedConsumer<B> disposeBufferFn;
+        private final boolean acceptsSerializedInput;
 
         private transient DistributedFunction<Processor.Context, B> newBufferFn;
         private transient DistributedConsumer<B> flushBufferFn;
@@ -560,9 +603,11 @@ public final class HazelcastWriters {
                 DistributedFunction<HazelcastInstance, DistributedFunction<Processor.Context, B>> instanceToNewBufferFn,
                 DistributedBiConsumer<B, T> addToBufferFn,
                 DistributedFunction<HazelcastInstance, DistributedConsumer<B>> instanceToFlushBufferFn,
-                DistributedConsumer<B> disposeBufferFn
+                DistributedConsumer<B> disposeBufferFn,
+                boolean acceptsSerializedInput
         ) {
             this.clientXml = clientXml;
+            this.acceptsSerializedInput = acceptsSerializedInput;
             this.instanceToFlushBufferFn = instanceToFlushBufferFn;
             this.instanceToNewBufferFn = instanceToNewBufferFn;
             this.addToBufferFn = addToBufferFn;
@@ -594,7 +639,8 @@ public final class HazelcastWriters {
 
         @Override @Nonnull
         public List<Processor> get(int count) {
-            return Stream.generate(() -> new WriteBufferedP<>(newBufferFn, addToBufferFn, flushBufferFn, disposeBufferFn))
+            return Stream.generate(() -> new WriteBufferedP<>(newBufferFn, addToBufferFn, flushBufferFn, disposeBufferFn,
+                                 acceptsSerializedInput))
                          .limit(count).collect(toList());
         }
     }
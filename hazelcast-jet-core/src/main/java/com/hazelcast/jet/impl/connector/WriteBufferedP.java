@@ -34,6 +34,7 @@ public final class WriteBufferedP<B, T> implements Processor {
     private final DistributedBiConsumer<? super B, ? super T> onReceiveFn;
     private final DistributedConsumer<? super B> flushFn;
     private final DistributedConsumer<? super B> destroyFn;
+    private final boolean acceptsSerializedInput;
 
     private B buffer;
 
@@ -42,11 +43,22 @@ public final class WriteBufferedP<B, T> implements Processor {
             @Nonnull DistributedBiConsumer<? super B, ? super T> onReceiveFn,
             @Nonnull DistributedConsumer<? super B> flushFn,
             @Nonnull DistributedConsumer<? super B> destroyFn
+    ) {
+        this(createFn, onReceiveFn, flushFn, destroyFn, false);
+    }
+
+    WriteBufferedP(
+            @Nonnull DistributedFunction<? super Context, B> createFn,
+            @Nonnull DistributedBiConsumer<? super B, ? super T> onReceiveFn,
+            @Nonnull DistributedConsumer<? super B> flushFn,
+            @Nonnull DistributedConsumer<? super B> destroyFn,
+            boolean acceptsSerializedInput
     ) {
         this.createFn = createFn;
         this.onReceiveFn = onReceiveFn;
         this.flushFn = flushFn;
         this.destroyFn = destroyFn;
+        this.acceptsSerializedInput = acceptsSerializedInput;
     }
 
     @Override
@@ -80,6 +92,11 @@ public final class WriteBufferedP<B, T> implements Processor {
         return false;
     }
 
+    @Override
+    public boolean acceptsSerializedInput(int ordinal) {
+        return acceptsSerializedInput;
+    }
+
     /**
      * This is private API. Call {@link SinkProcessors#writeBufferedP} instead.
      */
@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.datamodel.TimestampedItem;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.jet.datamodel.Tuple4;
+import com.hazelcast.jet.datamodel.Tuple5;
+import com.hazelcast.jet.datamodel.WindowResult;
+import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
+import static com.hazelcast.jet.datamodel.Tuple4.tuple4;
+import static com.hazelcast.jet.datamodel.Tuple5.tuple5;
+
+/**
+ * Encodes a batch of items of the same {@link Shape} column-wise, as used
+ * on a {@link Edge#columnar() columnar} edge. The batch starts with the
+ * shape ID, followed by the partition IDs of all the items and then by
+ * one column per field of the shape. Each column starts with its type:
+ * <ul><li>
+ *     {@code long}, {@code int} and {@code double} columns, used when all
+ *     the values are of the corresponding boxed type, contain the packed
+ *     primitive values
+ * </li><li>
+ *     {@code String} columns contain the dictionary of distinct values,
+ *     followed by the dictionary index of each value. The index takes one
+ *     or two bytes if the dictionary is small enough.
+ * </li><li>
+ *     object columns, used for all other values, contain each value as
+ *     written by {@code writeObject()}
+ * </li></ul>
+ * An instance holds the buffers reused for all the batches, it must be
+ * confined to a single thread.
+ */
+final class ColumnarBatchCodec {
+
+    /**
+     * On a columnar edge, the item count of each packet is followed by one of
+     * these markers. A marker tells whether the items are written one by one
+     * or as a columnar batch.
+     */
+    static final byte LAYOUT_ROWS = 0;
+    static final byte LAYOUT_COLUMNS = 1;
+
+    private static final byte COLUMN_OBJECT = 0;
+    private static final byte COLUMN_LONG = 1;
+    private static final byte COLUMN_INT = 2;
+    private static final byte COLUMN_DOUBLE = 3;
+    private static final byte COLUMN_STRING = 4;
+
+    private static final int BYTE_INDEX_LIMIT = 1 << Byte.SIZE;
+    private static final int SHORT_INDEX_LIMIT = 1 << Short.SIZE;
+
+    private static final Shape[] SHAPES = Shape.values();
+    private static final Map<Class<?>, Shape> SHAPES_BY_CLASS = new HashMap<>();
+
+    static {
+        for (Shape shape : SHAPES) {
+            SHAPES_BY_CLASS.put(shape.type, shape);
+        }
+    }
+
+    // reused by the writer
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> dictionaryValues = new ArrayList<>();
+
+    // reused by the reader
+    private Object[][] columns = new Object[0][];
+    private String[] stringValues = new String[0];
+    private Object[] items = new Object[0];
+    private int[] partitionIds = new int[0];
+
+    /**
+     * Returns the shape of the given item or {@code null} if the item can't
+     * be written in a columnar batch.
+     */
+    @Nullable
+    static Shape shapeOf(Object item) {
+        return SHAPES_BY_CLASS.get(item.getClass());
+    }
+
+    /**
+     * Writes the given items, all of them of the given shape, as a columnar
+     * batch.
+     */
+    void writeBatch(ObjectDataOutput out, Shape shape, List<? extends ObjectWithPartitionId> batch)
+            throws IOException {
+        out.writeByte(shape.ordinal());
+        for (ObjectWithPartitionId o : batch) {
+            out.writeInt(o.getPartitionId());
+        }
+        for (int field = 0; field < shape.arity; field++) {
+            writeColumn(out, shape, field, batch);
+        }
+    }
+
+    /**
+     * Reads a columnar batch of the given number of items. Returns the
+     * array of the items, whose partition IDs are then available from {@link
+     * #partitionIds()}. Both arrays are reused by the next call, the caller
+     * should clear the returned items once it's done with them.
+     */
+    Object[] readBatch(ObjectDataInput in, int count) throws IOException {
+        final byte shapeId = in.readByte();
+        if (shapeId < 0 || shapeId >= SHAPES.length) {
+            throw new JetException("Unknown columnar batch shape: " + shapeId);
+        }
+        final Shape shape = SHAPES[shapeId];
+        if (partitionIds.length < count) {
+            partitionIds = new int[count];
+            items = new Object[count];
+        }
+        for (int i = 0; i < count; i++) {
+            partitionIds[i] = in.readInt();
+        }
+        if (columns.length < shape.arity || columns[0].length < count) {
+            columns = new Object[Math.max(columns.length, shape.arity)][Math.max(count, items.length)];
+        }
+        for (int field = 0; field < shape.arity; field++) {
+            readColumn(in, columns[field], count);
+        }
+        for (int i = 0; i < count; i++) {
+            items[i] = shape.create(columns, i);
+        }
+        for (int field = 0; field < shape.arity; field++) {
+            Arrays.fill(columns[field], 0, count, null);
+        }
+        return items;
+    }
+
+    int[] partitionIds() {
+        return partitionIds;
+    }
+
+    private void writeColumn(ObjectDataOutput out, Shape shape, int field,
+                             List<? extends ObjectWithPartitionId> batch) throws IOException {
+        final byte type = columnType(shape, field, batch);
+        out.writeByte(type);
+        switch (type) {
+            case COLUMN_LONG:
+                for (ObjectWithPartitionId o : batch) {
+                    out.writeLong((Long) shape.field(o.getItem(), field));
+                }
+                break;
+            case COLUMN_INT:
+                for (ObjectWithPartitionId o : batch) {
+                    out.writeInt((Integer) shape.field(o.getItem(), field));
+                }
+                break;
+            case COLUMN_DOUBLE:
+                for (ObjectWithPartitionId o : batch) {
+                    out.writeDouble((Double) shape.field(o.getItem(), field));
+                }
+                break;
+            case COLUMN_STRING:
+                writeStringColumn(out, shape, field, batch);
+                break;
+            default:
+                for (ObjectWithPartitionId o : batch) {
+                    out.writeObject(shape.field(o.getItem(), field));
+                }
+        }
+    }
+
+    private void writeStringColumn(ObjectDataOutput out, Shape shape, int field,
+                                   List<? extends ObjectWithPartitionId> batch) throws IOException {
+        try {
+            for (ObjectWithPartitionId o : batch) {
+                String value = (String) shape.field(o.getItem(), field);
+                if (dictionary.putIfAbsent(value, dictionaryValues.size()) == null) {
+                    dictionaryValues.add(value);
+                }
+            }
+            final int size = dictionaryValues.size();
+            out.writeInt(size);
+            for (String value : dictionaryValues) {
+                out.writeUTF(value);
+            }
+            for (ObjectWithPartitionId o : batch) {
+                int index = dictionary.get(shape.field(o.getItem(), field));
+                if (size <= BYTE_INDEX_LIMIT) {
+                    out.writeByte(index);
+                } else if (size <= SHORT_INDEX_LIMIT) {
+                    out.writeShort(index);
+                } else {
+                    out.writeInt(index);
+                }
+            }
+        } finally {
+            dictionary.clear();
+            dictionaryValues.clear();
+        }
+    }
+
+    private void readColumn(ObjectDataInput in, Object[] column, int count) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case COLUMN_OBJECT:
+                for (int i = 0; i < count; i++) {
+                    column[i] = in.readObject();
+                }
+                break;
+            case COLUMN_LONG:
+                for (int i = 0; i < count; i++) {
+                    column[i] = in.readLong();
+                }
+                break;
+            case COLUMN_INT:
+                for (int i = 0; i < count; i++) {
+                    column[i] = in.readInt();
+                }
+                break;
+            case COLUMN_DOUBLE:
+                for (int i = 0; i < count; i++) {
+                    column[i] = in.readDouble();
+                }
+                break;
+            case COLUMN_STRING:
+                readStringColumn(in, column, count);
+                break;
+            default:
+                throw new JetException("Unknown column type: " + type);
+        }
+    }
+
+    private void readStringColumn(ObjectDataInput in, Object[] column, int count) throws IOException {
+        final int size = in.readInt();
+        if (stringValues.length < size) {
+            stringValues = new String[size];
+        }
+        for (int i = 0; i < size; i++) {
+            stringValues[i] = in.readUTF();
+        }
+        for (int i = 0; i < count; i++) {
+            int index = size <= BYTE_INDEX_LIMIT ? in.readUnsignedByte()
+                    : size <= SHORT_INDEX_LIMIT ? in.readUnsignedShort()
+                    : in.readInt();
+            column[i] = stringValues[index];
+        }
+        Arrays.fill(stringValues, 0, size, null);
+    }
+
+    private static byte columnType(Shape shape, int field, List<? extends ObjectWithPartitionId> batch) {
+        final Class<?> clazz = classOrNull(shape.field(batch.get(0).getItem(), field));
+        final byte type = clazz == Long.class ? COLUMN_LONG
+                : clazz == Integer.class ? COLUMN_INT
+                : clazz == Double.class ? COLUMN_DOUBLE
+                : clazz == String.class ? COLUMN_STRING
+                : COLUMN_OBJECT;
+        if (type == COLUMN_OBJECT) {
+            return type;
+        }
+        for (ObjectWithPartitionId o : batch) {
+            if (classOrNull(shape.field(o.getItem(), field)) != clazz) {
+                return COLUMN_OBJECT;
+            }
+        }
+        return type;
+    }
+
+    private static Class<?> classOrNull(Object o) {
+        return o != null ? o.getClass() : null;
+    }
+
+    /**
+     * The item types supported in a columnar batch. A shape decomposes an
+     * item into its fields and creates it back from them.
+     */
+    @SuppressWarnings("checkstyle:magicnumber")
+    enum Shape {
+        ENTRY(SimpleImmutableEntry.class, 2) {
+            @Override
+            Object field(Object item, int field) {
+                Map.Entry e = (Map.Entry) item;
+                return field == 0 ? e.getKey() : e.getValue();
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return new SimpleImmutableEntry<>(c[0][i], c[1][i]);
+            }
+        },
+        TUPLE2(Tuple2.class, 2) {
+            @Override
+            Object field(Object item, int field) {
+                Tuple2 t = (Tuple2) item;
+                return field == 0 ? t.f0() : t.f1();
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return tuple2(c[0][i], c[1][i]);
+            }
+        },
+        TUPLE3(Tuple3.class, 3) {
+            @Override
+            Object field(Object item, int field) {
+                Tuple3 t = (Tuple3) item;
+                return field == 0 ? t.f0() : field == 1 ? t.f1() : t.f2();
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return tuple3(c[0][i], c[1][i], c[2][i]);
+            }
+        },
+        TUPLE4(Tuple4.class, 4) {
+            @Override
+            Object field(Object item, int field) {
+                Tuple4 t = (Tuple4) item;
+                switch (field) {
+                    case 0: return t.f0();
+                    case 1: return t.f1();
+                    case 2: return t.f2();
+                    default: return t.f3();
+                }
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return tuple4(c[0][i], c[1][i], c[2][i], c[3][i]);
+            }
+        },
+        TUPLE5(Tuple5.class, 5) {
+            @Override
+            Object field(Object item, int field) {
+                Tuple5 t = (Tuple5) item;
+                switch (field) {
+                    case 0: return t.f0();
+                    case 1: return t.f1();
+                    case 2: return t.f2();
+                    case 3: return t.f3();
+                    default: return t.f4();
+                }
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return tuple5(c[0][i], c[1][i], c[2][i], c[3][i], c[4][i]);
+            }
+        },
+        TIMESTAMPED_ITEM(TimestampedItem.class, 2) {
+            @Override
+            Object field(Object item, int field) {
+                TimestampedItem t = (TimestampedItem) item;
+                return field == 0 ? t.timestamp() : t.item();
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return new TimestampedItem<>((Long) c[0][i], c[1][i]);
+            }
+        },
+        TIMESTAMPED_ENTRY(TimestampedEntry.class, 3) {
+            @Override
+            Object field(Object item, int field) {
+                TimestampedEntry t = (TimestampedEntry) item;
+                return field == 0 ? t.getTimestamp() : field == 1 ? t.getKey() : t.getValue();
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return new TimestampedEntry<>((Long) c[0][i], c[1][i], c[2][i]);
+            }
+        },
+        WINDOW_RESULT(WindowResult.class, 4) {
+            @Override
+            Object field(Object item, int field) {
+                WindowResult w = (WindowResult) item;
+                switch (field) {
+                    case 0: return w.getStart();
+                    case 1: return w.getEnd();
+                    case 2: return w.getKey();
+                    default: return w.getValue();
+                }
+            }
+
+            @Override
+            Object create(Object[][] c, int i) {
+                return new WindowResult<>((Long) c[0][i], (Long) c[1][i], c[2][i], c[3][i]);
+            }
+        };
+
+        final Class<?> type;
+        final int arity;
+
+        Shape(Class<?> type, int arity) {
+            this.type = type;
+            this.arity = arity;
+        }
+
+        abstract Object field(Object item, int field);
+
+        abstract Object create(Object[][] columns, int index);
+    }
+}
@@ -22,11 +22,16 @@ import com.hazelcast.internal.util.concurrent.QueuedPipe;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.jet.impl.util.SkewReductionPolicy;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
 import java.util.function.ToIntFunction;
 
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
@@ -46,8 +51,10 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     private final ConcurrentConveyor<Object> conveyor;
     private final ProgressTracker tracker = new ProgressTracker();
     private final ItemDetector itemDetector = new ItemDetector();
+    private final InFlightRecorder inFlightRecorder = new InFlightRecorder();
 
     private final WatermarkCoalescer watermarkCoalescer;
+    private final SkewReductionPolicy skewReductionPolicy;
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the queue
     private final ILogger logger;
 
@@ -59,6 +66,15 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     private SnapshotBarrier currentBarrier;  // next snapshot barrier to emit
     private long numActiveQueues; // number of active queues remaining
 
+    // Tells whether the current barrier is forwarded as soon as it's received
+    // from the first queue, see enableUnalignedSnapshots().
+    private boolean unalignedSnapshots;
+    private ToIntFunction<Object> partitionKeyFn;
+    private boolean barrierForwarded;
+    private long lastForwardedSnapshotId = -1;
+    private boolean recordingInFlight;
+    private WorkSignal[] producerSignals;
+
     /**
      * @param waitForAllBarriers If {@code true}, a queue that had a barrier won't
      *          be drained until the same barrier is received from all other
@@ -67,10 +83,22 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      */
     public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
                                        boolean waitForAllBarriers, int maxWatermarkRetainMillis, String debugName) {
+        this(conveyor, ordinal, priority, waitForAllBarriers, maxWatermarkRetainMillis, null, debugName);
+    }
+
+    /**
+     * @param skewReductionPolicy if not {@code null}, the queues are drained
+     *          in the order and subject to the limits given by the policy;
+     *          otherwise they are drained in the index order
+     */
+    public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
+                                       boolean waitForAllBarriers, int maxWatermarkRetainMillis,
+                                       @Nullable SkewReductionPolicy skewReductionPolicy, String debugName) {
         this.conveyor = conveyor;
         this.ordinal = ordinal;
         this.priority = priority;
         this.waitForAllBarriers = waitForAllBarriers;
+        this.skewReductionPolicy = skewReductionPolicy;
 
         watermarkCoalescer = WatermarkCoalescer.create(maxWatermarkRetainMillis, conveyor.queueCount());
 
@@ -80,6 +108,35 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         logger.finest("Coalescing " + conveyor.queueCount() + " input queues");
     }
 
+    /**
+     * Makes the stream forward a non-terminal snapshot barrier as soon as it
+     * is received from the first queue. The items received from the other
+     * queues until their barrier are recorded as in-flight, see {@link
+     * #drainInFlightItems}. The stream should be created with {@code
+     * waitForAllBarriers == false}.
+     *
+     * @param partitionKeyFn returns the shared partition key of the item's
+     *          partition, if the edge is partitioned, {@code null} otherwise
+     */
+    public void enableUnalignedSnapshots(@Nullable ToIntFunction<Object> partitionKeyFn) {
+        this.unalignedSnapshots = true;
+        this.partitionKeyFn = partitionKeyFn;
+    }
+
+    /**
+     * Makes the stream signal the producer of a queue after draining the
+     * queue while it was full, so that the producer, which can't make
+     * progress until then, doesn't have to be polled.
+     *
+     * @param producerSignals the signals of the producers indexed by the
+     *          queue index, the element is {@code null} if the producer
+     *          has no signal
+     */
+    public void setProducerSignals(WorkSignal[] producerSignals) {
+        assert producerSignals.length == conveyor.queueCount() : "producerSignals.length != queueCount";
+        this.producerSignals = producerSignals;
+    }
+
     @Override
     public int ordinal() {
         return ordinal;
@@ -98,7 +155,10 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     // package-visible for testing
     ProgressState drainTo(long now, Predicate<Object> dest) {
         tracker.reset();
-        for (int queueIndex = 0; queueIndex < conveyor.queueCount(); queueIndex++) {
+        for (int drainOrderIdx = 0; drainOrderIdx < conveyor.queueCount(); drainOrderIdx++) {
+            final int queueIndex = skewReductionPolicy != null
+                    ? skewReductionPolicy.toQueueIndex(drainOrderIdx)
+                    : drainOrderIdx;
             final QueuedPipe<Object> q = conveyor.queue(queueIndex);
             if (q == null) {
                 continue;
@@ -109,13 +169,25 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 continue;
             }
 
-            ProgressState result = drainQueue(q, dest);
+            // skip queues too far ahead of the lagging ones. Not while other queues wait for
+            // the barrier: the lagging ones won't advance until it's received from this one.
+            if (skewReductionPolicy != null && !isBlockedOnBarrier()
+                    && skewReductionPolicy.shouldStopDraining(queueIndex, tracker.isMadeProgress())) {
+                continue;
+            }
+
+            ProgressState result = drainQueue(q, queueIndex, recordingInFlight && !receivedBarriers.get(queueIndex)
+                    ? inFlightRecorder.wrap(dest) : dest);
             tracker.mergeWith(result);
+            boolean drainOrderChanged = false;
 
             if (itemDetector.item == DONE_ITEM) {
                 conveyor.removeQueue(queueIndex);
                 receivedBarriers.clear(queueIndex);
                 numActiveQueues--;
+                if (skewReductionPolicy != null) {
+                    skewReductionPolicy.queueDone(queueIndex);
+                }
                 long wmTimestamp = watermarkCoalescer.queueDone(queueIndex);
                 if (maybeEmitWm(wmTimestamp, dest)) {
                     if (logger.isFinestEnabled()) {
@@ -126,6 +198,8 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
             } else if (itemDetector.item instanceof Watermark) {
                 long wmTimestamp = ((Watermark) itemDetector.item).timestamp();
                 boolean forwarded = maybeEmitWm(watermarkCoalescer.observeWm(now, queueIndex, wmTimestamp), dest);
+                drainOrderChanged = skewReductionPolicy != null
+                        && skewReductionPolicy.observeWm(queueIndex, wmTimestamp);
                 if (logger.isFinestEnabled()) {
                     logger.finest("Received " + itemDetector.item + " from queue " + queueIndex
                             + (forwarded ? ", forwarded" : ", not forwarded"));
@@ -143,17 +217,35 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 return tracker.toProgressState();
             }
 
-            if (itemDetector.item != null) {
-                // if we have received the current snapshot from all active queues, forward it
-                if (receivedBarriers.cardinality() == numActiveQueues) {
-                    assert currentBarrier != null : "currentBarrier == null";
+            if (itemDetector.item != null && currentBarrier != null) {
+                // if we have received the current snapshot from all active queues, forward it. With
+                // unaligned snapshots, forward it right away and record the items before it in the
+                // other queues as in-flight.
+                boolean receivedFromAll = receivedBarriers.cardinality() == numActiveQueues;
+                boolean forward = !barrierForwarded
+                        && (receivedFromAll || unalignedSnapshots && !waitForAllBarriers);
+                if (forward) {
                     boolean res = dest.test(currentBarrier);
                     assert res : "test result expected to be true";
+                    lastForwardedSnapshotId = currentBarrier.snapshotId();
+                    barrierForwarded = true;
+                    recordingInFlight = !receivedFromAll;
+                }
+                if (receivedFromAll) {
                     currentBarrier = null;
                     receivedBarriers.clear();
+                    barrierForwarded = false;
+                    recordingInFlight = false;
+                }
+                if (forward) {
                     return MADE_PROGRESS;
                 }
             }
+
+            if (drainOrderChanged) {
+                // the remaining queues will be drained in the new order in the next call
+                break;
+            }
         }
 
         // try to emit WM based on history
@@ -167,6 +259,14 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         return tracker.toProgressState();
     }
 
+    /**
+     * Tells whether some queues aren't drained until the current barrier
+     * is received from the other ones.
+     */
+    private boolean isBlockedOnBarrier() {
+        return waitForAllBarriers && !receivedBarriers.isEmpty();
+    }
+
     private boolean maybeEmitWm(long timestamp, Predicate<Object> dest) {
         if (timestamp != NO_NEW_WM) {
             boolean res = dest.test(new Watermark(timestamp));
@@ -176,6 +276,31 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         return false;
     }
 
+    @Override
+    public void startInFlightRecording(long snapshotId) {
+        if (numActiveQueues > 0 && lastForwardedSnapshotId < snapshotId) {
+            recordingInFlight = true;
+        }
+    }
+
+    @Override
+    public boolean drainInFlightItems(ObjIntConsumer<Object> target) {
+        List<Object> items = inFlightRecorder.items;
+        for (Object item : items) {
+            target.accept(item, partitionKeyFn != null ? partitionKeyFn.applyAsInt(item) : -1);
+        }
+        items.clear();
+        if (numActiveQueues == 0) {
+            recordingInFlight = false;
+        }
+        return !recordingInFlight;
+    }
+
+    @Override
+    public boolean isRecordingInFlight() {
+        return recordingInFlight;
+    }
+
     @Override
     public boolean isDone() {
         return numActiveQueues == 0;
@@ -184,12 +309,18 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     /**
      * Drains the supplied queue into a {@code dest} collection, up to the next
      * {@link Watermark} or {@link SnapshotBarrier}. Also updates the {@code tracker} with new status.
-     *
+     * Signals the queue's producer if the queue was full.
      */
-    private ProgressState drainQueue(Pipe<Object> queue, Predicate<Object> dest) {
+    private ProgressState drainQueue(Pipe<Object> queue, int queueIndex, Predicate<Object> dest) {
         itemDetector.reset(dest);
 
+        // only this stream removes from the queue: if it's full now, the producer may be blocked on it
+        WorkSignal producerSignal = producerSignals != null && queue.remainingCapacity() == 0
+                ? producerSignals[queueIndex] : null;
         int drainedCount = queue.drain(itemDetector);
+        if (producerSignal != null && drainedCount > 0) {
+            producerSignal.signal();
+        }
 
         itemDetector.dest = null;
         return ProgressState.valueOf(drainedCount > 0, itemDetector.item == DONE_ITEM);
@@ -236,6 +367,28 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         }
     }
 
+    /**
+     * Records the items passed to the destination as in-flight.
+     */
+    private static final class InFlightRecorder implements Predicate<Object> {
+        final List<Object> items = new ArrayList<>();
+        Predicate<Object> dest;
+
+        Predicate<Object> wrap(Predicate<Object> newDest) {
+            dest = newDest;
+            return this;
+        }
+
+        @Override
+        public boolean test(Object o) {
+            boolean accepted = dest.test(o);
+            if (accepted) {
+                items.add(o);
+            }
+            return accepted;
+        }
+    }
+
     @Override
     public int sizes() {
         return conveyorSum(QueuedPipe::size);
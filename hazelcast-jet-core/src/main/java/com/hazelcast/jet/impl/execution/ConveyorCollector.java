@@ -19,16 +19,29 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.jet.impl.util.ProgressState;
 
+import javax.annotation.Nullable;
+
 public class ConveyorCollector implements OutboundCollector {
 
     private final ConcurrentConveyor<Object> conveyor;
     private final int queueIndex;
     private final int[] partitions;
+    private final WorkSignal consumerSignal;
 
     public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions) {
+        this(conveyor, queueIndex, partitions, null);
+    }
+
+    /**
+     * @param consumerSignal signal of the tasklet draining the conveyor, raised
+     *                       after each successful offer
+     */
+    public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions,
+                             @Nullable WorkSignal consumerSignal) {
         this.conveyor = conveyor;
         this.queueIndex = queueIndex;
         this.partitions = partitions;
+        this.consumerSignal = consumerSignal;
     }
 
     @Override
@@ -47,7 +60,13 @@ public class ConveyorCollector implements OutboundCollector {
     }
 
     protected ProgressState offerToConveyor(Object item) {
-        return conveyor.offer(queueIndex, item) ? ProgressState.DONE : ProgressState.NO_PROGRESS;
+        if (!conveyor.offer(queueIndex, item)) {
+            return ProgressState.NO_PROGRESS;
+        }
+        if (consumerSignal != null) {
+            consumerSignal.signal();
+        }
+        return ProgressState.DONE;
     }
 }
 
@@ -29,7 +29,6 @@ import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResul
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
-import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
@@ -208,20 +207,20 @@ public class ExecutionContext {
      * Starts a new snapshot by incrementing the current snapshot id
      */
     public CompletionStage<SnapshotOperationResult> beginSnapshot(long snapshotId, int ongoingDataMapIndex,
-                                                                  boolean isTerminal) {
+                                                                  boolean isTerminal, boolean isIncremental) {
         synchronized (executionLock) {
             if (cancellationFuture.isDone() || executionFuture != null && executionFuture.isDone()) {
                 throw new CancellationException();
             }
-            return snapshotContext.startNewSnapshot(snapshotId, ongoingDataMapIndex, isTerminal);
+            return snapshotContext.startNewSnapshot(snapshotId, ongoingDataMapIndex, isTerminal, isIncremental);
         }
     }
 
-    public void handlePacket(int vertexId, int ordinal, Address sender, BufferObjectDataInput in) {
+    public void handlePacket(int vertexId, int ordinal, Address sender, byte[] packet) {
         receiverMap.get(vertexId)
                    .get(ordinal)
                    .get(sender)
-                   .receiveStreamPacket(in);
+                   .receiveStreamPacket(packet);
     }
 
     public boolean hasParticipant(Address member) {
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.core.PartitionAware;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * The snapshot key of an item that was in flight when an {@linkplain
+ * JobConfig#setUnalignedSnapshotsEnabled(boolean) unaligned snapshot} was
+ * taken: the processor received it from an input after it saved its
+ * state, but before the snapshot barrier on that input. The value is the
+ * item itself. When the job is restored, the item is passed to the
+ * restored processor's {@code process()} method again.
+ * <p>
+ * If the item was received from a partitioned edge, the partition key of
+ * the key is one of the {@linkplain
+ * com.hazelcast.jet.impl.JetService#getSharedPartitionKeys() shared partition
+ * keys} of the item's partition, so that the item is restored to the same
+ * processor as the keyed state of the item's key.
+ */
+public final class InFlightItemKey implements PartitionAware<Object>, IdentifiedDataSerializable {
+
+    /**
+     * The order in which the restored in-flight items are replayed: by the
+     * input ordinal, then by the processor that recorded them and then in
+     * the order that processor received them.
+     */
+    static final Comparator<InFlightItemKey> REPLAY_ORDER =
+            Comparator.comparingInt(InFlightItemKey::ordinal)
+                      .thenComparingInt(InFlightItemKey::processorIndex)
+                      .thenComparingInt(InFlightItemKey::sequence);
+
+    private int partitionKey;
+    private int processorIndex;
+    private int ordinal;
+    private int sequence;
+
+    public InFlightItemKey() {
+    }
+
+    InFlightItemKey(int partitionKey, int processorIndex, int ordinal, int sequence) {
+        this.partitionKey = partitionKey;
+        this.processorIndex = processorIndex;
+        this.ordinal = ordinal;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the input ordinal the item was received from.
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * Returns the global index of the processor that recorded the item.
+     */
+    public int processorIndex() {
+        return processorIndex;
+    }
+
+    /**
+     * Returns the sequence of the item among the items recorded by its
+     * processor.
+     */
+    public int sequence() {
+        return sequence;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+        return partitionKey;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.IN_FLIGHT_ITEM_KEY;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(partitionKey);
+        out.writeInt(processorIndex);
+        out.writeInt(ordinal);
+        out.writeInt(sequence);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        partitionKey = in.readInt();
+        processorIndex = in.readInt();
+        ordinal = in.readInt();
+        sequence = in.readInt();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        InFlightItemKey that;
+        return this == o
+                || o instanceof InFlightItemKey
+                && this.processorIndex == (that = (InFlightItemKey) o).processorIndex
+                && this.ordinal == that.ordinal
+                && this.sequence == that.sequence;
+    }
+
+    @Override
+    public int hashCode() {
+        int hc = processorIndex;
+        hc = 73 * hc + ordinal;
+        hc = 73 * hc + sequence;
+        return hc;
+    }
+
+    @Override
+    public String toString() {
+        return "InFlightItemKey{processorIndex=" + processorIndex + ", ordinal=" + ordinal
+                + ", sequence=" + sequence + '}';
+    }
+}
@@ -19,6 +19,8 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.util.function.Predicate;
 
+import java.util.function.ObjIntConsumer;
+
 /**
  * The inbound side of a data stream corresponding to a single DAG edge identified by its ordinal. In the
  * {@code ProcessorTasklet} it corresponds to the target of an edge; in {@code SenderTasklet} it corresponds to the
@@ -40,4 +42,40 @@ public interface InboundEdgeStream {
     int capacities();
 
     int sizes();
+
+    /**
+     * Used with {@linkplain
+     * com.hazelcast.jet.config.JobConfig#setUnalignedSnapshotsEnabled(boolean)
+     * unaligned snapshots}. Tells the stream that the receiving processor
+     * saved its state for the given snapshot, so the items drained from now
+     * on until the snapshot's barrier are in flight. Has no effect if the
+     * barrier was already received from all queues.
+     */
+    default void startInFlightRecording(long snapshotId) {
+    }
+
+    /**
+     * Used with {@linkplain
+     * com.hazelcast.jet.config.JobConfig#setUnalignedSnapshotsEnabled(boolean)
+     * unaligned snapshots}. Passes the in-flight items recorded so far,
+     * together with the shared partition key of each item's partition, or
+     * -1 if the edge isn't partitioned, to {@code target}.
+     *
+     * @return {@code true}, if the current snapshot barrier was received from
+     *      all queues, that is no more in-flight items will follow
+     */
+    default boolean drainInFlightItems(ObjIntConsumer<Object> target) {
+        return true;
+    }
+
+    /**
+     * Used with {@linkplain
+     * com.hazelcast.jet.config.JobConfig#setUnalignedSnapshotsEnabled(boolean)
+     * unaligned snapshots}. Tells whether the stream forwarded the current
+     * snapshot barrier before receiving it from all its queues, so that it
+     * records the items from the remaining queues as in-flight.
+     */
+    default boolean isRecordingInFlight() {
+        return false;
+    }
 }
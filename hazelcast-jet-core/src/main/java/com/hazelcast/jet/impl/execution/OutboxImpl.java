@@ -216,4 +216,8 @@ public class OutboxImpl implements Outbox {
     final boolean offerToEdgesAndSnapshot(Object item) {
         return offerInternal(allEdgesAndSnapshot, item);
     }
+
+    final boolean offerToSnapshotEdge(Object item) {
+        return offerInternal(snapshotEdge, item);
+    }
 }
@@ -65,6 +65,13 @@ enum ProcessorState {
      */
     EMIT_BARRIER,
 
+    /**
+     * Saving the items that were in flight during an unaligned snapshot to
+     * the snapshot and then waiting for the outbox to accept the {@link
+     * SnapshotBarrier} to the snapshot queue.
+     */
+    SAVE_IN_FLIGHT_ITEMS,
+
     /**
      * Waiting for the outbox to accept the {@code DONE_ITEM}.
      */
@@ -21,10 +21,13 @@ import com.hazelcast.internal.metrics.ProbeBuilder;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.ProbeUnit;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.Processor.Context;
 import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.processor.CopyOnWriteSnapshotSupport;
+import com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport;
 import com.hazelcast.jet.impl.processor.ProcessorWrapper;
 import com.hazelcast.jet.impl.util.ArrayDequeInbox;
 import com.hazelcast.jet.impl.util.CircularListCursor;
@@ -38,6 +41,7 @@ import com.hazelcast.util.function.Predicate;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -48,6 +52,7 @@ import java.util.Queue;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ObjIntConsumer;
 
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.execution.ProcessorState.COMPLETE;
@@ -58,11 +63,15 @@ import static com.hazelcast.jet.impl.execution.ProcessorState.EMIT_WATERMARK;
 import static com.hazelcast.jet.impl.execution.ProcessorState.END;
 import static com.hazelcast.jet.impl.execution.ProcessorState.PROCESS_INBOX;
 import static com.hazelcast.jet.impl.execution.ProcessorState.PROCESS_WATERMARK;
+import static com.hazelcast.jet.impl.execution.ProcessorState.SAVE_IN_FLIGHT_ITEMS;
 import static com.hazelcast.jet.impl.execution.ProcessorState.SAVE_SNAPSHOT;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
+import static com.hazelcast.jet.impl.processor.CopyOnWriteSnapshotSupport.copyOnWriteSnapshotSupport;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.incrementalSnapshotSupport;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.util.Util.jobNameAndExecutionId;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
@@ -85,6 +94,7 @@ public class ProcessorTasklet implements Tasklet {
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the ordinal
 
     private final ArrayDequeInbox inbox = new ArrayDequeInbox(progTracker);
+    private final List<? extends InboundEdgeStream> instreams;
     private final Queue<ArrayList<InboundEdgeStream>> instreamGroupQueue;
     private final WatermarkCoalescer watermarkCoalescer;
     private final ILogger logger;
@@ -105,11 +115,36 @@ public class ProcessorTasklet implements Tasklet {
     // Once a terminal snapshot barrier is reached, this is always true.
     private boolean waitForAllBarriers;
 
+    // Tells whether the snapshot is taken as soon as a barrier is received
+    // from any input. The items received from the other inputs until their
+    // barrier are saved to the snapshot and processed again after a restore.
+    private final boolean unalignedSnapshots;
+    private boolean unalignedSnapshotInProgress;
+    private final Queue<Entry<InFlightItemKey, Object>> inFlightItems = new ArrayDeque<>();
+    private final List<Entry<InFlightItemKey, Object>> restoredInFlightItems = new ArrayList<>();
+    private final Queue<Entry<InFlightItemKey, Object>> inFlightItemsToReplay = new ArrayDeque<>();
+    private final ObjIntConsumer<Object> addToInFlightItemsFunction = this::addToInFlightItems;
+    private int inFlightItemsOrdinal;
+    private int inFlightItemsSequence;
+    private int replayOrdinal;
+
+    // The entries of the processor's state copy that are saved to the
+    // snapshot while the processor continues to process items, see
+    // CopyOnWriteSnapshotSupport. The barrier is emitted to the snapshot
+    // queue after them. They have their own outbox so that an entry rejected
+    // by the snapshot queue doesn't block the processor's outbox.
+    private final OutboxImpl snapshotCopyOutbox;
+    private Traverser<? extends Entry<?, ?>> snapshotCopyTraverser;
+    private Entry<?, ?> pendingSnapshotCopyEntry;
+    private SnapshotBarrier snapshotCopyBarrier;
+
     private final AtomicLongArray receivedCounts;
     private final AtomicLongArray receivedBatches;
     private final AtomicLongArray emittedCounts;
     private final AtomicLong queuesSize = new AtomicLong();
     private final AtomicLong queuesCapacity = new AtomicLong();
+    private final TaskletCallStats callStats = new TaskletCallStats();
+    private final WorkSignal workSignal;
     private final Predicate<Object> addToInboxFunction = inbox.queue()::add;
 
     public ProcessorTasklet(@Nonnull Processor.Context context,
@@ -119,12 +154,35 @@ public class ProcessorTasklet implements Tasklet {
                             @Nonnull List<? extends OutboundEdgeStream> outstreams,
                             @Nonnull SnapshotContext ssContext,
                             @Nonnull OutboundCollector ssCollector,
-                            int maxWatermarkRetainMillis) {
+                            int maxWatermarkRetainMillis,
+                            @Nullable WorkSignal workSignal) {
+        this(context, serializationService, processor, instreams, outstreams, ssContext, ssCollector,
+                maxWatermarkRetainMillis, workSignal, false);
+    }
+
+    /**
+     * @param unalignedSnapshots whether to take the snapshots {@linkplain
+     *          com.hazelcast.jet.config.JobConfig#setUnalignedSnapshotsEnabled(boolean)
+     *          unaligned}, only effective with exactly-once guarantee. The
+     *          input streams must be created accordingly.
+     */
+    @SuppressWarnings("checkstyle:ExecutableStatementCount")
+    public ProcessorTasklet(@Nonnull Processor.Context context,
+                            @Nonnull SerializationService serializationService,
+                            @Nonnull Processor processor,
+                            @Nonnull List<? extends InboundEdgeStream> instreams,
+                            @Nonnull List<? extends OutboundEdgeStream> outstreams,
+                            @Nonnull SnapshotContext ssContext,
+                            @Nonnull OutboundCollector ssCollector,
+                            int maxWatermarkRetainMillis,
+                            @Nullable WorkSignal workSignal,
+                            boolean unalignedSnapshots) {
         Preconditions.checkNotNull(processor, "processor");
         this.context = context;
         this.serializationService = serializationService;
         this.processor = processor;
         this.numActiveOrdinals = instreams.size();
+        this.instreams = instreams;
         this.instreamGroupQueue = instreams
                 .stream()
                 .collect(groupingBy(InboundEdgeStream::priority, TreeMap::new,
@@ -136,6 +194,7 @@ public class ProcessorTasklet implements Tasklet {
                                     .sorted(comparing(OutboundEdgeStream::ordinal))
                                     .toArray(OutboundEdgeStream[]::new);
         this.ssContext = ssContext;
+        this.workSignal = workSignal;
         this.logger = getLogger(context);
 
         instreamCursor = popInstreamGroup();
@@ -143,10 +202,14 @@ public class ProcessorTasklet implements Tasklet {
         receivedBatches = new AtomicLongArray(instreams.size());
         emittedCounts = new AtomicLongArray(outstreams.size() + 1);
         outbox = createOutbox(ssCollector);
+        snapshotCopyOutbox = createSnapshotCopyOutbox(ssCollector);
         receivedBarriers = new BitSet(instreams.size());
         state = initialProcessingState();
         pendingSnapshotId = ssContext.activeSnapshotId() + 1;
-        waitForAllBarriers = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE;
+        this.unalignedSnapshots = unalignedSnapshots
+                && ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE;
+        waitForAllBarriers = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE
+                && !this.unalignedSnapshots;
 
         watermarkCoalescer = WatermarkCoalescer.create(maxWatermarkRetainMillis, instreams.size());
     }
@@ -185,6 +248,17 @@ public class ProcessorTasklet implements Tasklet {
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesSize.get());
         probeBuilder.register(this, "queuesCapacity", ProbeLevel.INFO, ProbeUnit.COUNT,
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesCapacity.get());
+        callStats.registerMetrics(this, probeBuilder);
+    }
+
+    @Override @Nonnull
+    public TaskletCallStats callStats() {
+        return callStats;
+    }
+
+    @Override @Nullable
+    public WorkSignal workSignal() {
+        return workSignal;
     }
 
     private OutboxImpl createOutbox(@Nonnull OutboundCollector ssCollector) {
@@ -197,6 +271,15 @@ public class ProcessorTasklet implements Tasklet {
                 serializationService, OUTBOX_BATCH_SIZE, emittedCounts);
     }
 
+    private OutboxImpl createSnapshotCopyOutbox(@Nonnull OutboundCollector ssCollector) {
+        // the edge collectors are never used, but the snapshot queue keeps its
+        // index to share the emittedCounts
+        OutboundCollector[] collectors = new OutboundCollector[outstreams.length + 1];
+        collectors[outstreams.length] = ssCollector;
+        return new OutboxImpl(collectors, true, progTracker,
+                serializationService, OUTBOX_BATCH_SIZE, emittedCounts);
+    }
+
     @Override
     public void init() {
         if (serializationService.getManagedContext() != null) {
@@ -223,6 +306,10 @@ public class ProcessorTasklet implements Tasklet {
         progTracker.reset();
         outbox.reset();
         stateMachineStep(now);
+        if (snapshotCopyBarrier != null) {
+            snapshotCopyOutbox.reset();
+            saveSnapshotCopy();
+        }
         ProgressState progressState = progTracker.toProgressState();
         if (progressState.isDone()) {
             closeProcessor();
@@ -277,9 +364,10 @@ public class ProcessorTasklet implements Tasklet {
                 }
                 if (!inbox.isEmpty()) {
                     if (isSnapshotInbox()) {
-                        processor.restoreFromSnapshot(inbox);
+                        restoreFromSnapshot();
                     } else {
-                        processor.process(currInstream.ordinal(), inbox);
+                        // currInstream is null while replaying the in-flight items
+                        processor.process(currInstream != null ? currInstream.ordinal() : replayOrdinal, inbox);
                     }
                 }
 
@@ -289,11 +377,25 @@ public class ProcessorTasklet implements Tasklet {
                         state = COMPLETE_EDGE;
                         progTracker.madeProgress();
                         return;
+                    } else if (unalignedSnapshotInProgress) {
+                        state = SAVE_IN_FLIGHT_ITEMS;
+                        stateMachineStep(now); // recursion
+                        return;
                     } else if (context.snapshottingEnabled()
                             && numActiveOrdinals > 0
-                            && receivedBarriers.cardinality() == numActiveOrdinals) {
-                        // we have an empty inbox and received the current snapshot barrier from all active ordinals
-                        state = SAVE_SNAPSHOT;
+                            && receivedBarriers.cardinality() == numActiveOrdinals
+                            && !isAnyInstreamRecordingInFlight()) {
+                        // we have an empty inbox and received the current snapshot barrier from all queues
+                        // of all active ordinals
+                        startSaveSnapshot();
+                        return;
+                    } else if (context.snapshottingEnabled()
+                            && unalignedSnapshots && !waitForAllBarriers
+                            && !receivedBarriers.isEmpty()) {
+                        // we have an empty inbox and received the current snapshot barrier from some ordinals
+                        // or from some queues of all of them
+                        startUnalignedSnapshot();
+                        startSaveSnapshot();
                         return;
                     } else if (numActiveOrdinals == 0) {
                         progTracker.madeProgress();
@@ -307,7 +409,7 @@ public class ProcessorTasklet implements Tasklet {
             case COMPLETE_EDGE:
                 progTracker.notDone();
                 if (isSnapshotInbox()
-                        ? processor.finishSnapshotRestore() : processor.completeEdge(currInstream.ordinal())) {
+                        ? finishSnapshotRestore() : processor.completeEdge(currInstream.ordinal())) {
                     progTracker.madeProgress();
                     state = initialProcessingState();
                 }
@@ -326,11 +428,21 @@ public class ProcessorTasklet implements Tasklet {
             case EMIT_BARRIER:
                 assert context.snapshottingEnabled() : "Snapshotting is not enabled";
                 assert currentBarrier != null : "currentBarrier == null";
-                if (outbox.offerToEdgesAndSnapshot(currentBarrier)) {
+                // With an unaligned snapshot, the barrier is emitted to the snapshot
+                // queue after the in-flight items
+                // With a snapshot copy, the barrier is emitted to the snapshot queue after
+                // the copied entries
+                if (unalignedSnapshotInProgress || snapshotCopyTraverser != null
+                        ? outbox.offer(currentBarrier) : outbox.offerToEdgesAndSnapshot(currentBarrier)) {
                     progTracker.madeProgress();
                     if (currentBarrier.isTerminal()) {
                         state = EMIT_DONE_ITEM;
+                    } else if (unalignedSnapshotInProgress) {
+                        state = initialProcessingState();
                     } else {
+                        if (snapshotCopyTraverser != null) {
+                            snapshotCopyBarrier = currentBarrier;
+                        }
                         currentBarrier = null;
                         receivedBarriers.clear();
                         pendingSnapshotId++;
@@ -340,6 +452,27 @@ public class ProcessorTasklet implements Tasklet {
                 progTracker.notDone();
                 return;
 
+            case SAVE_IN_FLIGHT_ITEMS:
+                progTracker.notDone();
+                boolean allBarriersReceived = collectInFlightItems();
+                for (Entry<InFlightItemKey, Object> en; (en = inFlightItems.peek()) != null; inFlightItems.remove()) {
+                    if (!outbox.offerToSnapshot(en.getKey(), en.getValue())) {
+                        return;
+                    }
+                    progTracker.madeProgress();
+                }
+                if (!allBarriersReceived) {
+                    state = PROCESS_WATERMARK;
+                } else if (outbox.offerToSnapshotEdge(currentBarrier)) {
+                    progTracker.madeProgress();
+                    currentBarrier = null;
+                    receivedBarriers.clear();
+                    pendingSnapshotId++;
+                    unalignedSnapshotInProgress = false;
+                    state = initialProcessingState();
+                }
+                return;
+
             case COMPLETE:
                 progTracker.notDone();
                 // check ssContext to see if a barrier should be emitted
@@ -348,8 +481,8 @@ public class ProcessorTasklet implements Tasklet {
                     assert currSnapshotId <= pendingSnapshotId : "Unexpected new snapshot id " + currSnapshotId
                             + ", current was" + pendingSnapshotId;
                     if (currSnapshotId == pendingSnapshotId) {
-                        state = SAVE_SNAPSHOT;
                         currentBarrier = new SnapshotBarrier(currSnapshotId, ssContext.isTerminalSnapshot());
+                        startSaveSnapshot();
                         progTracker.madeProgress();
                         return;
                     }
@@ -361,7 +494,8 @@ public class ProcessorTasklet implements Tasklet {
                 return;
 
             case EMIT_DONE_ITEM:
-                if (!outbox.offerToEdgesAndSnapshot(DONE_ITEM)) {
+                // the snapshot copy must be saved before the DONE_ITEM
+                if (snapshotCopyBarrier != null || !outbox.offerToEdgesAndSnapshot(DONE_ITEM)) {
                     progTracker.notDone();
                     return;
                 }
@@ -374,10 +508,138 @@ public class ProcessorTasklet implements Tasklet {
         }
     }
 
+    private void startSaveSnapshot() {
+        IncrementalSnapshotSupport incrementalSupport = incrementalSnapshotSupport(processor);
+        if (incrementalSupport != null) {
+            incrementalSupport.beforeSaveToSnapshot(ssContext.isIncrementalSnapshot());
+        }
+        assert snapshotCopyBarrier == null : "previous snapshot copy not saved";
+        CopyOnWriteSnapshotSupport copySupport = copyOnWriteSnapshotSupport(processor);
+        if (copySupport != null && !unalignedSnapshots && !currentBarrier.isTerminal()) {
+            snapshotCopyTraverser = copySupport.takeSnapshotCopy();
+        }
+        state = snapshotCopyTraverser != null ? EMIT_BARRIER : SAVE_SNAPSHOT;
+    }
+
+    /**
+     * Saves the entries of the processor's state copy to the snapshot queue,
+     * followed by the barrier, as long as the queue accepts them.
+     */
+    private void saveSnapshotCopy() {
+        progTracker.notDone();
+        if (snapshotCopyTraverser != null) {
+            if (pendingSnapshotCopyEntry == null) {
+                pendingSnapshotCopyEntry = snapshotCopyTraverser.next();
+            }
+            for (; pendingSnapshotCopyEntry != null; pendingSnapshotCopyEntry = snapshotCopyTraverser.next()) {
+                if (!snapshotCopyOutbox.offerToSnapshot(
+                        pendingSnapshotCopyEntry.getKey(), pendingSnapshotCopyEntry.getValue())) {
+                    return;
+                }
+            }
+            snapshotCopyTraverser = null;
+        }
+        if (snapshotCopyOutbox.offerToSnapshotEdge(snapshotCopyBarrier)) {
+            snapshotCopyBarrier = null;
+        }
+    }
+
+    /**
+     * Starts an unaligned snapshot: from now on, the items received from the
+     * inputs before the current snapshot's barrier are in flight.
+     */
+    private void startUnalignedSnapshot() {
+        unalignedSnapshotInProgress = true;
+        for (InboundEdgeStream instream : instreams) {
+            instream.startInFlightRecording(pendingSnapshotId);
+        }
+    }
+
+    private boolean isAnyInstreamRecordingInFlight() {
+        for (InboundEdgeStream instream : instreams) {
+            if (instream.isRecordingInFlight()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the in-flight items recorded by the input streams to {@link
+     * #inFlightItems}. Returns {@code true}, if the current snapshot barrier
+     * was received from all queues of all inputs.
+     */
+    private boolean collectInFlightItems() {
+        boolean allBarriersReceived = true;
+        for (InboundEdgeStream instream : instreams) {
+            inFlightItemsOrdinal = instream.ordinal();
+            allBarriersReceived &= instream.drainInFlightItems(addToInFlightItemsFunction);
+        }
+        return allBarriersReceived;
+    }
+
+    private void addToInFlightItems(Object item, int partitionKey) {
+        int sequence = inFlightItemsSequence++;
+        // the items from an edge that isn't partitioned can be restored to any processor
+        InFlightItemKey key = new InFlightItemKey(partitionKey >= 0 ? partitionKey : sequence,
+                context.globalProcessorIndex(), inFlightItemsOrdinal, sequence);
+        inFlightItems.add(entry(key, item));
+    }
+
+    private void restoreFromSnapshot() {
+        inbox.queue().removeIf(this::moveToReplay);
+        if (!inbox.isEmpty()) {
+            processor.restoreFromSnapshot(inbox);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean moveToReplay(Object item) {
+        if (item instanceof Entry && ((Entry) item).getKey() instanceof InFlightItemKey) {
+            restoredInFlightItems.add((Entry<InFlightItemKey, Object>) item);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Completes the snapshot restore. The restored in-flight items arrive in
+     * no particular order, so they are queued for replay only after all of
+     * them are restored, sorted in the {@linkplain
+     * InFlightItemKey#REPLAY_ORDER order} in which they were received.
+     */
+    private boolean finishSnapshotRestore() {
+        if (!processor.finishSnapshotRestore()) {
+            return false;
+        }
+        restoredInFlightItems.sort((e1, e2) -> InFlightItemKey.REPLAY_ORDER.compare(e1.getKey(), e2.getKey()));
+        inFlightItemsToReplay.addAll(restoredInFlightItems);
+        restoredInFlightItems.clear();
+        return true;
+    }
+
+    /**
+     * Fills the inbox with the restored in-flight items of a single ordinal.
+     */
+    private void fillInboxFromReplay() {
+        currInstream = null;
+        replayOrdinal = inFlightItemsToReplay.peek().getKey().ordinal();
+        for (Entry<InFlightItemKey, Object> en;
+             (en = inFlightItemsToReplay.peek()) != null && en.getKey().ordinal() == replayOrdinal; ) {
+            inbox.queue().add(inFlightItemsToReplay.remove().getValue());
+        }
+        progTracker.madeProgress();
+    }
+
     private void fillInbox(long now) {
         assert inbox.isEmpty() : "inbox is not empty";
         assert pendingWatermark == null : "null wm expected, but was " + pendingWatermark;
 
+        // the restored in-flight items are processed after the snapshot restore is complete
+        if (!inFlightItemsToReplay.isEmpty() && (currInstream == null || currInstream.isDone())) {
+            fillInboxFromReplay();
+            return;
+        }
         if (instreamCursor == null) {
             return;
         }
@@ -474,7 +736,9 @@ public class ProcessorTasklet implements Tasklet {
      */
     private ProcessorState initialProcessingState() {
         return pendingWatermark != null ? PROCESS_WATERMARK
-                : instreamCursor == null ? COMPLETE : PROCESS_INBOX;
+                : instreamCursor != null || !inFlightItemsToReplay.isEmpty() ? PROCESS_INBOX
+                : unalignedSnapshotInProgress ? SAVE_IN_FLIGHT_ITEMS
+                : COMPLETE;
     }
 
     /**
@@ -16,8 +16,18 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.internal.metrics.LongProbeFunction;
+import com.hazelcast.internal.metrics.ProbeBuilder;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.ProbeUnit;
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.util.concurrent.MPSCQueue;
+import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.config.PacketCodec;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.impl.Networking;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
@@ -28,14 +38,20 @@ import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.util.concurrent.IdleStrategy;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_HEADER_SIZE;
+import static com.hazelcast.jet.impl.execution.ColumnarBatchCodec.LAYOUT_COLUMNS;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static java.lang.Math.ceil;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
@@ -71,6 +87,26 @@ public class ReceiverTasklet implements Tasklet {
      */
     static final int INITIAL_RECEIVE_WINDOW_COMPRESSED = 800;
 
+    /**
+     * The receiver acknowledges the processed data to the sender immediately,
+     * instead of waiting for the periodic flow-control message, when the
+     * sender may have used all but this fraction of the receive window and
+     * the receiver has no items waiting in its inbox.
+     */
+    static final int IMMEDIATE_ACK_WINDOW_DIVISOR = 4;
+
+    /**
+     * With the serialized pass-through, each item is preceded by one of these
+     * markers. A marker tells whether the item was written as an object to
+     * deserialize, as {@code Data}, or as a {@code Map.Entry} with {@code Data}
+     * key and value.
+     */
+    static final byte ITEM_OBJECT = 0;
+    static final byte ITEM_DATA = 1;
+    static final byte ITEM_ENTRY = 2;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
     /**
      * Receive Window converges towards the amount of data processed per flow-control
      * period multiplied by this number.
@@ -78,15 +114,25 @@ public class ReceiverTasklet implements Tasklet {
     private final int rwinMultiplier;
     private final double flowControlPeriodNs;
 
-    private final Queue<BufferObjectDataInput> incoming = new MPSCQueue<>((IdleStrategy) null);
+    private final Queue<byte[]> incoming = new MPSCQueue<>((IdleStrategy) null);
     private final ProgressTracker tracker = new ProgressTracker();
     private final ArrayDeque<ObjWithPtionIdAndSize> inbox = new ArrayDeque<>();
     private final OutboundCollector collector;
+    private final PacketCodec packetCodec;
+    private final boolean serializedPassThrough;
+    private final ColumnarBatchCodec columnarCodec;
+    private final IntConsumer immediateAckSender;
+    // reused for all the received packets, only accessed by the tasklet execution thread
+    private final BufferObjectDataInput packetInput;
+    private byte[] decompressBuffer = EMPTY_BYTES;
 
     private boolean receptionDone;
 
     private final AtomicLong itemsInCounter = new AtomicLong();
     private final AtomicLong bytesInCounter = new AtomicLong();
+    private final AtomicLong immediateAcksCounter = new AtomicLong();
+    private final TaskletCallStats callStats = new TaskletCallStats();
+    private final WorkSignal workSignal = new WorkSignal();
 
     //                    FLOW-CONTROL STATE
     //            All arrays are indexed by sender ID.
@@ -94,16 +140,44 @@ public class ReceiverTasklet implements Tasklet {
     // read by a task scheduler thread, written by a tasklet execution thread
     private volatile long ackedSeq;
     private volatile int numWaitingInInbox;
+    // the last limit sent to the sender, written by both threads
+    private volatile int sentSendSeqLimitCompressed;
 
-    // read and written by updateAndGetSendSeqLimitCompressed(), which is invoked sequentially by a task scheduler
-    private int receiveWindowCompressed;
+    // read and written by a tasklet execution thread
+    private long receivedSeq;
+
+    // read and written by updateAndGetSendSeqLimitCompressed(), which is invoked sequentially by a task scheduler,
+    // read by the metrics
+    private volatile int receiveWindowCompressed;
     private int prevAckedSeqCompressed;
     private long prevTimestamp;
 
     //                 END FLOW-CONTROL STATE
 
-    public ReceiverTasklet(OutboundCollector collector, int rwinMultiplier, int flowControlPeriodMs) {
+    /**
+     * @param packetCodec the codec to decompress the packet bodies with, or
+     *                    {@code null} if the sender doesn't compress them
+     * @param serializedPassThrough whether the receiving processors {@link
+     *                              Processor#acceptsSerializedInput accept
+     *                              serialized items}
+     * @param columnar whether the sender sends the items in columnar
+     *                 batches, see {@link Edge#columnar()}. Ignored with
+     *                 the serialized pass-through.
+     * @param immediateAckSender sends the given {@code sendSeqLimitCompressed}
+     *                           to the sender outside of the periodic flow
+     *                           control, or {@code null} to only use the
+     *                           periodic one
+     */
+    public ReceiverTasklet(OutboundCollector collector, InternalSerializationService serializationService,
+                           int rwinMultiplier, int flowControlPeriodMs, @Nullable PacketCodec packetCodec,
+                           boolean serializedPassThrough, boolean columnar,
+                           @Nullable IntConsumer immediateAckSender) {
         this.collector = collector;
+        this.packetCodec = packetCodec;
+        this.serializedPassThrough = serializedPassThrough;
+        this.columnarCodec = columnar && !serializedPassThrough ? new ColumnarBatchCodec() : null;
+        this.immediateAckSender = immediateAckSender;
+        this.packetInput = serializationService.createObjectDataInput(EMPTY_BYTES);
         this.rwinMultiplier = rwinMultiplier;
         this.flowControlPeriodNs = (double) MILLISECONDS.toNanos(flowControlPeriodMs);
         this.receiveWindowCompressed = INITIAL_RECEIVE_WINDOW_COMPRESSED;
@@ -137,11 +211,45 @@ public class ReceiverTasklet implements Tasklet {
             ackItem(o.estimatedMemoryFootprint);
         }
         numWaitingInInbox = inbox.size();
+        if (immediateAckSender != null && numWaitingInInbox == 0) {
+            tryAckImmediately();
+        }
         return tracker.toProgressState();
     }
 
-    void receiveStreamPacket(BufferObjectDataInput packetInput) {
-        incoming.add(packetInput);
+    /**
+     * Sends the new {@code sendSeqLimitCompressed} to the sender if the sender
+     * is close to exhausting the limit it last received, so that it doesn't
+     * have to wait for the next periodic flow-control message. Only called
+     * when all the received items were processed.
+     */
+    private void tryAckImmediately() {
+        final int rwin = receiveWindowCompressed;
+        final int threshold = Math.max(1, rwin / IMMEDIATE_ACK_WINDOW_DIVISOR);
+        final int sentLimit = sentSendSeqLimitCompressed;
+        final int newLimit = compressSeq(ackedSeq) + rwin;
+        if (sentLimit - compressSeq(receivedSeq) <= threshold && newLimit - sentLimit >= threshold) {
+            sentSendSeqLimitCompressed = newLimit;
+            lazyIncrement(immediateAcksCounter);
+            immediateAckSender.accept(newLimit);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (packetCodec != null) {
+            packetCodec.close();
+        }
+    }
+
+    /**
+     * Queues the payload of a stream packet for processing. The payload
+     * starts with the header created by {@link
+     * Networking#createStreamPacketHeader}.
+     */
+    void receiveStreamPacket(byte[] packet) {
+        incoming.add(packet);
+        workSignal.signal();
     }
 
     /**
@@ -207,7 +315,9 @@ public class ReceiverTasklet implements Tasklet {
             receiveWindowCompressed += rwinDiff / 2;
             LoggingUtil.logFinest(LOG, "receiveWindowCompressed=%d", receiveWindowCompressed);
         }
-        return ackedSeqCompressed + receiveWindowCompressed;
+        final int sendSeqLimitCompressed = ackedSeqCompressed + receiveWindowCompressed;
+        sentSendSeqLimitCompressed = sendSeqLimitCompressed;
+        return sendSeqLimitCompressed;
     }
 
     // Only one thread writes to ackedSeq
@@ -232,6 +342,10 @@ public class ReceiverTasklet implements Tasklet {
         return (int) (seq >> COMPRESSED_SEQ_UNIT_LOG2);
     }
 
+    static long decompressSeq(int seqCompressed) {
+        return (long) seqCompressed << COMPRESSED_SEQ_UNIT_LOG2;
+    }
+
     static long estimatedMemoryFootprint(long itemBlobSize) {
         final int inboxSlot = 4; // slot in ArrayDeque<ObjPtionAndSenderId> inbox
         final int objPtionAndSenderIdHeader = 16; // object header of ObjPtionAndSenderId instance
@@ -249,19 +363,23 @@ public class ReceiverTasklet implements Tasklet {
         try {
             long totalBytes = 0;
             long totalItems = 0;
-            for (BufferObjectDataInput received; (received = incoming.poll()) != null; ) {
-                final int itemCount = received.readInt();
-                for (int i = 0; i < itemCount; i++) {
-                    final int mark = received.position();
-                    final Object item = received.readObject();
-                    final int itemSize = received.position() - mark;
-                    inbox.add(new ObjWithPtionIdAndSize(item, received.readInt(), itemSize));
+            for (byte[] received; (received = incoming.poll()) != null; ) {
+                packetInput.init(received, STREAM_PACKET_HEADER_SIZE);
+                if (packetCodec != null) {
+                    decompressBody(received);
+                }
+                final int itemCount = packetInput.readInt();
+                if (columnarCodec != null && packetInput.readByte() == LAYOUT_COLUMNS) {
+                    readColumnarBatch(itemCount);
+                } else {
+                    readItems(itemCount);
                 }
                 totalItems += itemCount;
-                totalBytes += received.position();
-                received.close();
+                totalBytes += received.length;
                 tracker.madeProgress();
             }
+            // don't retain the last packet
+            packetInput.clear();
             lazyAdd(bytesInCounter, totalBytes);
             lazyAdd(itemsInCounter, totalItems);
         } catch (IOException e) {
@@ -269,6 +387,64 @@ public class ReceiverTasklet implements Tasklet {
         }
     }
 
+    private void readItems(int itemCount) throws IOException {
+        for (int i = 0; i < itemCount; i++) {
+            final int mark = packetInput.position();
+            final Object item = serializedPassThrough ? readPassThroughItem() : packetInput.readObject();
+            final int itemSize = packetInput.position() - mark;
+            final ObjWithPtionIdAndSize o = new ObjWithPtionIdAndSize(item, packetInput.readInt(), itemSize);
+            receivedSeq += o.estimatedMemoryFootprint;
+            inbox.add(o);
+        }
+    }
+
+    private void readColumnarBatch(int itemCount) throws IOException {
+        final int mark = packetInput.position();
+        final Object[] items = columnarCodec.readBatch(packetInput, itemCount);
+        final int[] partitionIds = columnarCodec.partitionIds();
+        // the same item size as the one used by the sender to count its sentSeq
+        final int itemSize = Math.max(1, (packetInput.position() - mark) / itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            inbox.add(new ObjWithPtionIdAndSize(items[i], partitionIds[i], itemSize));
+            items[i] = null;
+        }
+        receivedSeq += itemCount * estimatedMemoryFootprint(itemSize);
+    }
+
+    private Object readPassThroughItem() throws IOException {
+        final byte marker = packetInput.readByte();
+        switch (marker) {
+            case ITEM_OBJECT:
+                return packetInput.readObject();
+            case ITEM_DATA:
+                return packetInput.readData();
+            case ITEM_ENTRY:
+                return new SimpleImmutableEntry<>(packetInput.readData(), packetInput.readData());
+            default:
+                throw new JetException("Unknown item marker: " + marker);
+        }
+    }
+
+    /**
+     * Reads the packet body written by {@link SenderTasklet} with packet
+     * compression enabled. If the body is compressed, decompresses it into
+     * the {@link #decompressBuffer} and re-initializes the {@link
+     * #packetInput} with it.
+     */
+    private void decompressBody(byte[] received) throws IOException {
+        final int uncompressedLength = packetInput.readInt();
+        if (uncompressedLength < 0) {
+            return;
+        }
+        final int compressedLength = packetInput.readInt();
+        if (decompressBuffer.length < uncompressedLength) {
+            decompressBuffer = new byte[uncompressedLength];
+        }
+        packetCodec.decompress(received, packetInput.position(), compressedLength, decompressBuffer,
+                uncompressedLength);
+        packetInput.init(decompressBuffer, 0);
+    }
+
     private static class ObjWithPtionIdAndSize extends ObjectWithPartitionId {
         final long estimatedMemoryFootprint;
 
@@ -278,6 +454,23 @@ public class ReceiverTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Registers the flow-control metrics of this tasklet: the sequence of
+     * the data acknowledged to the sender and the size of the receive
+     * window, both in bytes, the number of items waiting in the inbox and
+     * the number of flow-control messages sent outside of the periodic ones.
+     */
+    public void registerFlowControlMetrics(ProbeBuilder probeBuilder) {
+        probeBuilder.register(this, "ackedSeq", ProbeLevel.INFO, ProbeUnit.BYTES,
+                (LongProbeFunction<ReceiverTasklet>) t -> t.ackedSeq);
+        probeBuilder.register(this, "receiveWindow", ProbeLevel.INFO, ProbeUnit.BYTES,
+                (LongProbeFunction<ReceiverTasklet>) t -> decompressSeq(t.receiveWindowCompressed));
+        probeBuilder.register(this, "inboxSize", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<ReceiverTasklet>) t -> t.numWaitingInInbox);
+        probeBuilder.register(this, "immediateAcks", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<ReceiverTasklet>) t -> t.immediateAcksCounter.get());
+    }
+
     public AtomicLong getItemsInCounter() {
         return itemsInCounter;
     }
@@ -285,4 +478,14 @@ public class ReceiverTasklet implements Tasklet {
     public AtomicLong getBytesInCounter() {
         return bytesInCounter;
     }
+
+    @Override @Nonnull
+    public TaskletCallStats callStats() {
+        return callStats;
+    }
+
+    @Override @Nonnull
+    public WorkSignal workSignal() {
+        return workSignal;
+    }
 }
@@ -16,6 +16,16 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.internal.metrics.LongProbeFunction;
+import com.hazelcast.internal.metrics.ProbeBuilder;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.ProbeUnit;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.PacketCodec;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
@@ -24,53 +34,144 @@ import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.nio.Connection;
 import com.hazelcast.nio.Packet;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.util.function.Predicate;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hazelcast.jet.impl.Networking.createStreamPacketHeader;
+import static com.hazelcast.jet.impl.execution.ColumnarBatchCodec.LAYOUT_COLUMNS;
+import static com.hazelcast.jet.impl.execution.ColumnarBatchCodec.LAYOUT_ROWS;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.ITEM_DATA;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.ITEM_ENTRY;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.ITEM_OBJECT;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.compressSeq;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.decompressSeq;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.estimatedMemoryFootprint;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
 import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class SenderTasklet implements Tasklet {
 
+    private static final int INITIAL_ITEM_SIZE_ESTIMATE = 16;
+    private static final long NOT_BLOCKED = -1;
+
     private final Connection connection;
-    private final Queue<Object> inbox = new ArrayDeque<>();
+    private final Deque<Object> inbox = new ArrayDeque<>();
     private final ProgressTracker progTracker = new ProgressTracker();
     private final InboundEdgeStream inboundEdgeStream;
     private final BufferObjectDataOutput outputBuffer;
     private final int bufPosPastHeader;
+    private final PacketCodec packetCodec;
+    private final boolean useBigEndian;
+    private final boolean serializedPassThrough;
+    private final InternalSerializationService serializationService;
+    private final ColumnarBatchCodec columnarCodec;
+    private final List<ObjectWithPartitionId> columnarBatch = new ArrayList<>();
     private final int packetSizeLimit;
+    private final long packetLingerNanos;
     private final AtomicLong itemsOutCounter = new AtomicLong();
     private final AtomicLong bytesOutCounter = new AtomicLong();
+    private final AtomicLong packetsOutCounter = new AtomicLong();
+    // the value of sentSeq for the metrics
+    private final AtomicLong sentSeqCounter = new AtomicLong();
+    private final AtomicLong flowControlBlockedNanos = new AtomicLong();
+    private final TaskletCallStats callStats = new TaskletCallStats();
+    private final WorkSignal workSignal = new WorkSignal();
 
+    // reused for all the compressed packets. The packet itself can't reuse a
+    // buffer: it owns its exact-size payload until the connection writes it
+    private byte[] compressBuffer = new byte[0];
+    // the size of an item in the last columnar batch, used to estimate the
+    // number of items that fit into the next one
+    private int columnarItemSize = INITIAL_ITEM_SIZE_ESTIMATE;
+    // the average item size in the last packet, used to estimate when the
+    // inbox holds enough items to fill a packet
+    private int itemSizeEstimate = INITIAL_ITEM_SIZE_ESTIMATE;
+    private boolean lingering;
+    private long lingerStartNanos;
     private boolean instreamExhausted;
     // read and written by Jet thread
     private long sentSeq;
+    // the System.nanoTime() when the flow control started to block this
+    // tasklet or NOT_BLOCKED. Written by Jet thread, read by the metrics.
+    private volatile long blockedSinceNanos = NOT_BLOCKED;
 
-    // Written by HZ networking thread, read by Jet thread
+    // Written by HZ networking threads holding the lock on this, read by Jet thread
     private volatile int sendSeqLimitCompressed;
     private Predicate<Object> addToInboxFunction = inbox::add;
 
     public SenderTasklet(InboundEdgeStream inboundEdgeStream, NodeEngine nodeEngine, Address destinationAddress,
                          long executionId, int destinationVertexId, int packetSizeLimit) {
+        this(inboundEdgeStream, nodeEngine, destinationAddress, executionId, destinationVertexId, packetSizeLimit,
+                null, false, false, 0);
+    }
+
+    /**
+     * @param packetCodec the codec to compress the packet bodies with, or
+     *                    {@code null} to send them uncompressed
+     * @param serializedPassThrough whether the receiving processors {@link
+     *                              Processor#acceptsSerializedInput accept
+     *                              serialized items}
+     * @param columnar whether to send the items in columnar batches, see
+     *                 {@link Edge#columnar()}. Ignored with the serialized
+     *                 pass-through.
+     * @param packetLingerNanos the maximum time to wait for enough items to
+     *                          fill a packet, see {@link
+     *                          EdgeConfig#setPacketLingerTimeMicros(long)}
+     */
+    public SenderTasklet(InboundEdgeStream inboundEdgeStream, NodeEngine nodeEngine, Address destinationAddress,
+                         long executionId, int destinationVertexId, int packetSizeLimit,
+                         @Nullable PacketCodec packetCodec, boolean serializedPassThrough, boolean columnar,
+                         long packetLingerNanos) {
+        this(inboundEdgeStream, (InternalSerializationService) nodeEngine.getSerializationService(),
+                getMemberConnection(nodeEngine, destinationAddress), executionId, destinationVertexId,
+                packetSizeLimit, packetCodec, serializedPassThrough, columnar, packetLingerNanos);
+    }
+
+    /**
+     * Same as the above constructor, but takes the serialization service
+     * and the connection to the destination member directly.
+     */
+    public SenderTasklet(InboundEdgeStream inboundEdgeStream, InternalSerializationService serializationService,
+                         Connection connection, long executionId, int destinationVertexId, int packetSizeLimit,
+                         @Nullable PacketCodec packetCodec, boolean serializedPassThrough, boolean columnar,
+                         long packetLingerNanos) {
         this.inboundEdgeStream = inboundEdgeStream;
         this.packetSizeLimit = packetSizeLimit;
-        this.connection = getMemberConnection(nodeEngine, destinationAddress);
-        this.outputBuffer = createObjectDataOutput(nodeEngine);
-        uncheckRun(() -> outputBuffer.write(createStreamPacketHeader(
-                nodeEngine, executionId, destinationVertexId, inboundEdgeStream.ordinal())));
+        this.packetLingerNanos = packetLingerNanos;
+        this.packetCodec = packetCodec;
+        this.serializedPassThrough = serializedPassThrough;
+        this.columnarCodec = columnar && !serializedPassThrough ? new ColumnarBatchCodec() : null;
+        this.serializationService = serializationService;
+        this.connection = connection;
+        this.outputBuffer = createObjectDataOutput(serializationService);
+        this.useBigEndian = outputBuffer.getByteOrder() == ByteOrder.BIG_ENDIAN;
+        uncheckRun(() -> {
+            outputBuffer.write(createStreamPacketHeader(
+                    serializationService, executionId, destinationVertexId, inboundEdgeStream.ordinal()));
+            if (packetCodec != null) {
+                // the marker of an uncompressed body, see compressPacket()
+                outputBuffer.writeInt(-1);
+            }
+        });
         bufPosPastHeader = outputBuffer.position();
     }
 
@@ -81,19 +182,85 @@ public class SenderTasklet implements Tasklet {
         if (progTracker.isDone()) {
             return progTracker.toProgressState();
         }
-        if (tryFillOutputBuffer()) {
-            progTracker.madeProgress();
-            connection.write(new Packet(outputBuffer.toByteArray()).setPacketType(Packet.Type.JET));
+        if (!isLingering()) {
+            trySendPacket();
         }
+        sentSeqCounter.lazySet(sentSeq);
+        updateFlowControlBlocked();
         return progTracker.toProgressState();
     }
 
+    private void trySendPacket() {
+        final int writtenCount = tryFillOutputBuffer();
+        if (writtenCount == 0) {
+            return;
+        }
+        progTracker.madeProgress();
+        itemSizeEstimate = Math.max(1, (outputBuffer.position() - bufPosPastHeader) / writtenCount);
+        byte[] packetBytes = outputBuffer.toByteArray();
+        if (packetCodec != null) {
+            packetBytes = compressPacket(packetBytes);
+        }
+        lazyAdd(bytesOutCounter, packetBytes.length);
+        lazyIncrement(packetsOutCounter);
+        connection.write(new Packet(packetBytes).setPacketType(Packet.Type.JET));
+        // the items left in the inbox or added to it later start a new linger period
+        lingering = false;
+    }
+
+    /**
+     * Tracks the time during which there are items to send, but the receive
+     * window of the receiver is exhausted.
+     */
+    private void updateFlowControlBlocked() {
+        final boolean blocked = !inbox.isEmpty() && !isWithinLimit(sentSeq, sendSeqLimitCompressed);
+        final long blockedSince = blockedSinceNanos;
+        if (blocked && blockedSince == NOT_BLOCKED) {
+            blockedSinceNanos = System.nanoTime();
+        } else if (!blocked && blockedSince != NOT_BLOCKED) {
+            lazyAdd(flowControlBlockedNanos, System.nanoTime() - blockedSince);
+            blockedSinceNanos = NOT_BLOCKED;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (packetCodec != null) {
+            packetCodec.close();
+        }
+    }
+
+    /**
+     * Tells whether to keep the items in the inbox and wait for more, so
+     * that the next packet is fuller. With a linger time, the sender waits
+     * until the inbox holds enough items to fill a packet, but at most the
+     * linger time since it started waiting.
+     */
+    private boolean isLingering() {
+        if (packetLingerNanos == 0 || inbox.isEmpty() || instreamExhausted || isInboxFull()) {
+            lingering = false;
+            return false;
+        }
+        final long now = System.nanoTime();
+        if (!lingering) {
+            lingering = true;
+            lingerStartNanos = now;
+        }
+        return now - lingerStartNanos < packetLingerNanos;
+    }
+
+    private boolean isInboxFull() {
+        return (long) inbox.size() * itemSizeEstimate >= packetSizeLimit - bufPosPastHeader;
+    }
+
     private void tryFillInbox() {
         if (!inbox.isEmpty()) {
             progTracker.notDone();
-            return;
-        }
-        if (instreamExhausted) {
+            // while lingering, keep adding items until there are enough for a packet
+            if (packetLingerNanos == 0 || instreamExhausted || isInboxFull()) {
+                return;
+            }
+        } else if (instreamExhausted) {
             return;
         }
         progTracker.notDone();
@@ -105,10 +272,21 @@ public class SenderTasklet implements Tasklet {
         }
     }
 
-    private boolean tryFillOutputBuffer() {
+    /**
+     * Writes the items from the inbox to the output buffer, returns the
+     * number of written items.
+     */
+    private int tryFillOutputBuffer() {
         try {
             // header size + slot for writtenCount
             outputBuffer.position(bufPosPastHeader + Bits.INT_SIZE_IN_BYTES);
+            if (columnarCodec != null) {
+                final ColumnarBatchCodec.Shape shape = shapeOf(inbox.peek());
+                if (shape != null) {
+                    return tryWriteColumnarBatch(shape);
+                }
+                outputBuffer.writeByte(LAYOUT_ROWS);
+            }
             int writtenCount = 0;
             for (Object item;
                  outputBuffer.position() < packetSizeLimit
@@ -119,29 +297,172 @@ public class SenderTasklet implements Tasklet {
                 ObjectWithPartitionId itemWithPId = item instanceof ObjectWithPartitionId ?
                         (ObjectWithPartitionId) item : new ObjectWithPartitionId(item, - 1);
                 final int mark = outputBuffer.position();
-                outputBuffer.writeObject(itemWithPId.getItem());
+                writeItem(itemWithPId.getItem());
                 sentSeq += estimatedMemoryFootprint(outputBuffer.position() - mark);
                 outputBuffer.writeInt(itemWithPId.getPartitionId());
             }
             outputBuffer.writeInt(bufPosPastHeader, writtenCount);
-            lazyAdd(bytesOutCounter, outputBuffer.position());
             lazyAdd(itemsOutCounter, writtenCount);
-            return writtenCount > 0;
+            return writtenCount;
         } catch (IOException e) {
             throw rethrow(e);
         }
     }
 
     /**
-     * Updates the upper limit on {@link #sentSeq}, which constrains how much more data this tasklet can send.
+     * Writes the items from the head of the inbox that have the given shape
+     * as a columnar batch. The number of items is first estimated using the
+     * item size in the previous batch. If the encoded batch turns out to
+     * exceed the send limit, the items past the limit are returned to the
+     * inbox and the batch is written again.
+     */
+    private int tryWriteColumnarBatch(ColumnarBatchCodec.Shape shape) throws IOException {
+        final long itemWeight = estimatedMemoryFootprint(columnarItemSize);
+        long batchSeq = sentSeq;
+        for (Object item;
+             outputBuffer.position() + columnarBatch.size() * columnarItemSize < packetSizeLimit
+                     && isWithinLimit(batchSeq, sendSeqLimitCompressed)
+                     && (item = inbox.peek()) != null
+                     && shapeOf(item) == shape;
+             batchSeq += itemWeight
+        ) {
+            inbox.remove();
+            columnarBatch.add(item instanceof ObjectWithPartitionId
+                    ? (ObjectWithPartitionId) item : new ObjectWithPartitionId(item, -1));
+        }
+        if (columnarBatch.isEmpty()) {
+            return 0;
+        }
+        try {
+            outputBuffer.writeByte(LAYOUT_COLUMNS);
+            final int mark = outputBuffer.position();
+            while (true) {
+                columnarCodec.writeBatch(outputBuffer, shape, columnarBatch);
+                columnarItemSize = Math.max(1, (outputBuffer.position() - mark) / columnarBatch.size());
+                int fitCount = countWithinLimit(columnarBatch.size(), estimatedMemoryFootprint(columnarItemSize));
+                if (fitCount == columnarBatch.size()) {
+                    break;
+                }
+                for (int i = columnarBatch.size() - 1; i >= fitCount; i--) {
+                    inbox.addFirst(columnarBatch.remove(i));
+                }
+                outputBuffer.position(mark);
+            }
+            final int writtenCount = columnarBatch.size();
+            // the receiver acks each item of the batch with the same weight
+            sentSeq += writtenCount * estimatedMemoryFootprint(columnarItemSize);
+            outputBuffer.writeInt(bufPosPastHeader, writtenCount);
+            lazyAdd(itemsOutCounter, writtenCount);
+            return writtenCount;
+        } finally {
+            columnarBatch.clear();
+        }
+    }
+
+    /**
+     * Returns how many of the given number of items of the given weight
+     * start within the send limit, at least one. Like in the row layout, the
+     * last item may go past the limit.
+     */
+    private int countWithinLimit(int count, long itemWeight) {
+        int fitCount = 1;
+        while (fitCount < count && isWithinLimit(sentSeq + fitCount * itemWeight, sendSeqLimitCompressed)) {
+            fitCount++;
+        }
+        return fitCount;
+    }
+
+    @Nullable
+    private static ColumnarBatchCodec.Shape shapeOf(Object item) {
+        if (item instanceof ObjectWithPartitionId) {
+            item = ((ObjectWithPartitionId) item).getItem();
+        }
+        return item != null ? ColumnarBatchCodec.shapeOf(item) : null;
+    }
+
+    private void writeItem(Object item) throws IOException {
+        if (!serializedPassThrough) {
+            if (item instanceof Data) {
+                writeDataAsObject((Data) item);
+            } else {
+                outputBuffer.writeObject(item);
+            }
+        } else if (item instanceof BroadcastItem) {
+            // control items are always deserialized by the receiver
+            outputBuffer.writeByte(ITEM_OBJECT);
+            outputBuffer.writeObject(item);
+        } else if (item instanceof Map.Entry) {
+            Map.Entry entry = (Map.Entry) item;
+            outputBuffer.writeByte(ITEM_ENTRY);
+            outputBuffer.writeData(serializationService.toData(entry.getKey()));
+            outputBuffer.writeData(serializationService.toData(entry.getValue()));
+        } else {
+            outputBuffer.writeByte(ITEM_DATA);
+            outputBuffer.writeData(item instanceof Data ? (Data) item : serializationService.toData(item));
+        }
+    }
+
+    /**
+     * Writes a {@code Data} item emitted by a processor that {@link
+     * Processor#acceptsSerializedInput accepts serialized input} to an edge
+     * whose receiver expects it in the form written by {@code writeObject()}.
+     */
+    private void writeDataAsObject(Data data) throws IOException {
+        if (useBigEndian) {
+            // Data stores the type ID in big endian, after the partition hash it
+            // contains exactly what writeObject() would write. HeapData returns
+            // its payload without copying it
+            byte[] bytes = data.toByteArray();
+            outputBuffer.write(bytes, HeapData.TYPE_OFFSET, bytes.length - HeapData.TYPE_OFFSET);
+        } else {
+            outputBuffer.writeObject(serializationService.toObject(data));
+        }
+    }
+
+    /**
+     * Compresses the body of the given packet, which is preceded by the
+     * marker of an uncompressed body, {@code -1}. The compressed body is
+     * preceded by its uncompressed and compressed length instead. If the
+     * compressed packet wouldn't be shorter, returns the given packet.
+     */
+    private byte[] compressPacket(byte[] packet) {
+        final int headerSize = bufPosPastHeader - Bits.INT_SIZE_IN_BYTES;
+        final int compressedBodyPos = bufPosPastHeader + Bits.INT_SIZE_IN_BYTES;
+        final int bodyLength = packet.length - bufPosPastHeader;
+        final int maxCompressedLength = packet.length - 1 - compressedBodyPos;
+        if (maxCompressedLength <= 0) {
+            return packet;
+        }
+        if (compressBuffer.length < packet.length) {
+            compressBuffer = new byte[packet.length];
+        }
+        final int compressedLength = packetCodec.compress(packet, bufPosPastHeader, bodyLength,
+                compressBuffer, compressedBodyPos, maxCompressedLength);
+        if (compressedLength < 0) {
+            return packet;
+        }
+        System.arraycopy(packet, 0, compressBuffer, 0, headerSize);
+        Bits.writeInt(compressBuffer, headerSize, bodyLength, useBigEndian);
+        Bits.writeInt(compressBuffer, headerSize + Bits.INT_SIZE_IN_BYTES, compressedLength, useBigEndian);
+        return Arrays.copyOf(compressBuffer, compressedBodyPos + compressedLength);
+    }
+
+    /**
+     * Raises the upper limit on {@link #sentSeq}, which constrains how much more data this tasklet can send.
+     * The immediate and the periodic flow-control messages can arrive out of order, so a limit lower than
+     * the current one is ignored.
      *
      * @param sendSeqLimitCompressed the compressed seq read from a flow-control message. The method
      *                               {@link #isWithinLimit(long, int)} derives the limit on the uncompressed
      *                               {@code sentSeq} from the number supplied here.
      */
-    // Called from HZ networking thread
-    public void setSendSeqLimitCompressed(int sendSeqLimitCompressed) {
-        this.sendSeqLimitCompressed = sendSeqLimitCompressed;
+    // Called from HZ networking threads
+    public synchronized void setSendSeqLimitCompressed(int sendSeqLimitCompressed) {
+        // the comparison must handle the wrap-around, see isWithinLimit()
+        if (sendSeqLimitCompressed - this.sendSeqLimitCompressed > 0) {
+            this.sendSeqLimitCompressed = sendSeqLimitCompressed;
+            workSignal.signal();
+        }
     }
 
     @Override
@@ -159,6 +480,29 @@ public class SenderTasklet implements Tasklet {
         return compressSeq(sentSeq) - sendSeqLimitCompressed <= 0;
     }
 
+    /**
+     * Returns the total time this tasklet spent blocked by the flow control,
+     * including the current blocking period, if any.
+     */
+    public long flowControlBlockedNanos() {
+        final long blockedSince = blockedSinceNanos;
+        return flowControlBlockedNanos.get() + (blockedSince != NOT_BLOCKED ? System.nanoTime() - blockedSince : 0);
+    }
+
+    /**
+     * Registers the flow-control metrics of this tasklet: the sequence of
+     * the sent data and its limit set by the receiver, both in bytes, and
+     * the time spent blocked by the limit.
+     */
+    public void registerFlowControlMetrics(ProbeBuilder probeBuilder) {
+        probeBuilder.register(this, "sentSeq", ProbeLevel.INFO, ProbeUnit.BYTES,
+                (LongProbeFunction<SenderTasklet>) t -> t.sentSeqCounter.get());
+        probeBuilder.register(this, "sendSeqLimit", ProbeLevel.INFO, ProbeUnit.BYTES,
+                (LongProbeFunction<SenderTasklet>) t -> decompressSeq(t.sendSeqLimitCompressed));
+        probeBuilder.register(this, "flowControlBlockedTime", ProbeLevel.INFO, ProbeUnit.MS,
+                (LongProbeFunction<SenderTasklet>) t -> NANOSECONDS.toMillis(t.flowControlBlockedNanos()));
+    }
+
     public AtomicLong getItemsOutCounter() {
         return itemsOutCounter;
     }
@@ -166,4 +510,22 @@ public class SenderTasklet implements Tasklet {
     public AtomicLong getBytesOutCounter() {
         return bytesOutCounter;
     }
+
+    public AtomicLong getPacketsOutCounter() {
+        return packetsOutCounter;
+    }
+
+    @Nonnull @Override
+    public TaskletCallStats callStats() {
+        return callStats;
+    }
+
+    /**
+     * Returns {@code null} if the packets linger: a lingering packet is
+     * sent once the linger time elapses, which nothing signals.
+     */
+    @Nullable @Override
+    public WorkSignal workSignal() {
+        return packetLingerNanos == 0 ? workSignal : null;
+    }
 }
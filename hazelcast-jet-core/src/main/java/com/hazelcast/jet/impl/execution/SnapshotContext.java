@@ -43,6 +43,12 @@ public class SnapshotContext {
      */
     private volatile boolean isTerminal;
 
+    /**
+     * If true, the processors supporting it should save only the changes
+     * since the previous snapshot.
+     */
+    private volatile boolean isIncremental;
+
     /**
      * Current number of {@link StoreSnapshotTasklet}s in the job. It's
      * decremented as the tasklets complete (this is when they receive
@@ -99,8 +105,10 @@ public class SnapshotContext {
     private volatile CompletableFuture<SnapshotOperationResult> future;
 
     private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong totalStoredBytes = new AtomicLong();
     private final AtomicLong totalKeys = new AtomicLong();
     private final AtomicLong totalChunks = new AtomicLong();
+    private final AtomicLong totalChainedChunks = new AtomicLong();
     private boolean isCancelled;
 
     public SnapshotContext(ILogger logger, long jobId, String jobNameAndExecutionId, long activeSnapshotId,
@@ -140,6 +148,10 @@ public class SnapshotContext {
         return isTerminal;
     }
 
+    boolean isIncrementalSnapshot() {
+        return isIncremental;
+    }
+
     ProcessingGuarantee processingGuarantee() {
         return guarantee;
     }
@@ -155,12 +167,18 @@ public class SnapshotContext {
         this.numHigherPriorityTasklets = highPriorityTaskletCount;
     }
 
+    // for tests
+    CompletableFuture<SnapshotOperationResult> startNewSnapshot(long snapshotId, int dataMapIndex, boolean isTerminal) {
+        return startNewSnapshot(snapshotId, dataMapIndex, isTerminal, false);
+    }
+
     /**
      * This method is called when the member received {@link
-     * SnapshotOperation}.
+     * SnapshotOperation}. An incremental snapshot is written to the data map
+     * of the snapshot it is based on.
      */
     synchronized CompletableFuture<SnapshotOperationResult> startNewSnapshot(
-            long snapshotId, int dataMapIndex, boolean isTerminal) {
+            long snapshotId, int dataMapIndex, boolean isTerminal, boolean isIncremental) {
         assert snapshotId == currentSnapshotId + 1
                 : "new snapshotId not incremented by 1. Previous=" + currentSnapshotId + ", new=" + snapshotId;
         assert currentSnapshotId == activeSnapshotId : "last snapshot was postponed but not started";
@@ -169,6 +187,7 @@ public class SnapshotContext {
             throw new CancellationException("execution cancelled");
         }
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
 
         boolean success = numRemainingTasklets.compareAndSet(0, numTasklets);
         assert success : "numRemainingTasklets wasn't 0, but " + numRemainingTasklets.get();
@@ -188,7 +207,7 @@ public class SnapshotContext {
         }
         if (numTasklets == 0) {
             // member is already done with the job and master didn't know it yet - we are immediately successful
-            return completedFuture(new SnapshotOperationResult(0, 0, 0, null));
+            return completedFuture(new SnapshotOperationResult(0, 0, 0, 0, 0, null));
         }
         future = new CompletableFuture<>();
         return future;
@@ -224,19 +243,24 @@ public class SnapshotContext {
         if (lastCompletedSnapshotId < currentSnapshotId) {
             // if tasklet is done before it was aware of the current snapshot, we
             // treat it as if it already completed the snapshot without any data
-            snapshotDoneForTasklet(0, 0, 0);
+            snapshotDoneForTasklet(0, 0, 0, 0, 0);
         }
     }
 
     /**
      * Called when current snapshot is done in {@link StoreSnapshotTasklet}
      * (it received barriers from all its processors and all async flush
-     * operations are done).
+     * operations are done). The {@code numChainedChunks} are the {@linkplain
+     * com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey#isChained()
+     * chained} ones among the {@code numChunks}.
      */
-    void snapshotDoneForTasklet(long numBytes, long numKeys, long numChunks) {
+    void snapshotDoneForTasklet(long numBytes, long numStoredBytes, long numKeys, long numChunks,
+                                long numChainedChunks) {
         totalBytes.addAndGet(numBytes);
+        totalStoredBytes.addAndGet(numStoredBytes);
         totalKeys.addAndGet(numKeys);
         totalChunks.addAndGet(numChunks);
+        totalChainedChunks.addAndGet(numChainedChunks);
         int newRemainingTasklets = numRemainingTasklets.decrementAndGet();
         assert newRemainingTasklets >= 0 : "newRemainingTasklets=" + newRemainingTasklets;
         if (newRemainingTasklets == 0) {
@@ -263,13 +287,16 @@ public class SnapshotContext {
             return;
         }
         future.complete(
-                new SnapshotOperationResult(totalBytes.get(), totalKeys.get(), totalChunks.get(), snapshotError.get()));
+                new SnapshotOperationResult(totalBytes.get(), totalStoredBytes.get(), totalKeys.get(), totalChunks.get(),
+                        totalChainedChunks.get(), snapshotError.get()));
 
         future = null;
         snapshotError.set(null);
         totalBytes.set(0);
+        totalStoredBytes.set(0);
         totalKeys.set(0);
         totalChunks.set(0);
+        totalChainedChunks.set(0);
         currentDataMapIndex = -1;
     }
 
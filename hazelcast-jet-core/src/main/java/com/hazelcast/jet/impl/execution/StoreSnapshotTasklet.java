@@ -44,6 +44,7 @@ public class StoreSnapshotTasklet implements Tasklet {
 
     private final AsyncSnapshotWriter ssWriter;
     private final ProgressTracker progTracker = new ProgressTracker();
+    private final WorkSignal workSignal = new WorkSignal();
     private State state = DRAIN;
     private boolean hasReachedBarrier;
     private Entry<Data, Data> pendingEntry;
@@ -64,6 +65,8 @@ public class StoreSnapshotTasklet implements Tasklet {
         this.isHigherPrioritySource = isHigherPrioritySource;
 
         this.ssWriter = ssWriter;
+        // the writer is blocked until its async writes complete
+        ssWriter.setAsyncOpDoneAction(workSignal::signal);
         this.pendingSnapshotId = snapshotContext.activeSnapshotId() + 1;
         addToInboxFunction = this::addToInbox;
     }
@@ -75,6 +78,11 @@ public class StoreSnapshotTasklet implements Tasklet {
         return progTracker.toProgressState();
     }
 
+    @Nonnull @Override
+    public WorkSignal workSignal() {
+        return workSignal;
+    }
+
     private void stateMachineStep() {
         switch (state) {
             case DRAIN:
@@ -120,8 +128,9 @@ public class StoreSnapshotTasklet implements Tasklet {
                     snapshotContext.reportError(error);
                 }
                 progTracker.madeProgress();
-                snapshotContext.snapshotDoneForTasklet(ssWriter.getTotalPayloadBytes(), ssWriter.getTotalKeys(),
-                        ssWriter.getTotalChunks());
+                snapshotContext.snapshotDoneForTasklet(ssWriter.getTotalPayloadBytes(), ssWriter.getTotalStoredBytes(),
+                        ssWriter.getTotalKeys(), ssWriter.getTotalChunks(),
+                        ssWriter.isChained() ? ssWriter.getTotalChunks() : 0);
                 ssWriter.resetStats();
                 pendingSnapshotId++;
                 hasReachedBarrier = false;
@@ -150,6 +159,11 @@ public class StoreSnapshotTasklet implements Tasklet {
         return true;
     }
 
+    @Override
+    public void close() {
+        ssWriter.close();
+    }
+
     @Override
     public String toString() {
         return StoreSnapshotTasklet.class.getSimpleName() + '{' + vertexName + '}';
@@ -19,6 +19,7 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public interface Tasklet {
 
@@ -35,4 +36,24 @@ public interface Tasklet {
     default void close() {
     }
 
+    /**
+     * Returns the stats into which the executing worker records the
+     * duration of each {@link #call()}, or {@code null} if the calls
+     * shouldn't be measured.
+     */
+    @Nullable
+    default TaskletCallStats callStats() {
+        return null;
+    }
+
+    /**
+     * Returns the signal through which new work for this tasklet is
+     * announced, see {@link WorkSignal}, or {@code null} if the tasklet has
+     * to be polled because it can make progress just due to time passing.
+     */
+    @Nullable
+    default WorkSignal workSignal() {
+        return null;
+    }
+
 }
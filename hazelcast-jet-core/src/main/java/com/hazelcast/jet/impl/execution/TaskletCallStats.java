@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.metrics.LongProbeFunction;
+import com.hazelcast.internal.metrics.ProbeBuilder;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.ProbeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Statistics of the {@link Tasklet#call()} invocations of a single tasklet:
+ * the number of calls, the cumulative time spent in them and a histogram
+ * of call durations.
+ * <p>
+ * The histogram has power-of-two buckets: bucket {@code i} counts the
+ * calls that took less than 2<sup>i</sup> microseconds, but not less than
+ * the upper bound of the previous bucket. The last bucket counts all
+ * longer calls.
+ * <p>
+ * Only the thread currently running the tasklet updates the stats, so the
+ * updates use {@code lazySet} and take no locks. Any thread can read them.
+ */
+public final class TaskletCallStats {
+
+    static final int BUCKET_COUNT = 21;
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLongArray durationBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Records a call that took the given number of nanoseconds.
+     */
+    public void record(long nanos) {
+        lazyIncrement(callCount);
+        lazyAdd(busyNanos, nanos);
+        lazyIncrement(durationBuckets, bucketIndex(nanos));
+    }
+
+    public long callCount() {
+        return callCount.get();
+    }
+
+    public long busyNanos() {
+        return busyNanos.get();
+    }
+
+    public long bucketCount(int index) {
+        return durationBuckets.get(index);
+    }
+
+    /**
+     * Registers the stats as metrics of the given {@code source}. The
+     * histogram buckets are registered as {@code callDuration} metrics with a
+     * {@code bucket} tag containing the bucket's exclusive upper bound in
+     * microseconds, or {@code inf} for the last bucket.
+     */
+    public <S> void registerMetrics(S source, ProbeBuilder probeBuilder) {
+        probeBuilder.register(source, "callCount", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<S>) s -> callCount.get());
+        probeBuilder.register(source, "busyTime", ProbeLevel.INFO, ProbeUnit.MS,
+                (LongProbeFunction<S>) s -> NANOSECONDS.toMillis(busyNanos.get()));
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            int finalI = i;
+            probeBuilder.withTag("bucket", i == BUCKET_COUNT - 1 ? "inf" : String.valueOf(1L << i))
+                        .register(source, "callDuration", ProbeLevel.INFO, ProbeUnit.COUNT,
+                                (LongProbeFunction<S>) s -> durationBuckets.get(finalI));
+        }
+    }
+
+    static int bucketIndex(long nanos) {
+        long micros = NANOSECONDS.toMicros(nanos);
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+}
@@ -18,6 +18,7 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
 import com.hazelcast.jet.impl.util.ProgressState;
@@ -65,12 +66,24 @@ public class TaskletExecutionService {
             new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(1));
     private static final IdleStrategy IDLER_NON_COOPERATIVE =
             new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(5));
+    // used when all tasklets of a worker signal new input, the worker is then unparked on arrival of work
+    private static final IdleStrategy IDLER_EVENT_DRIVEN =
+            new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(10));
+
+    // length of the period over which the load of cooperative workers is measured
+    private static final long LOAD_PERIOD_NANOS = MILLISECONDS.toNanos(100);
+    // a worker whose load is below this fraction of the period is never a stealing victim
+    private static final double STEAL_MIN_VICTIM_LOAD = 0.8;
+    // the minimum difference in load between the victim and the thief
+    private static final double STEAL_MIN_LOAD_GAP = 0.2;
 
     private final ExecutorService blockingTaskletExecutor = newCachedThreadPool(new BlockingTaskThreadFactory());
     private final CooperativeWorker[] cooperativeWorkers;
     private final Thread[] cooperativeThreadPool;
     private final String hzInstanceName;
     private final ILogger logger;
+    private final boolean workStealingEnabled;
+    private final boolean eventDrivenWakeupEnabled;
     private int cooperativeThreadIndex;
     @Probe
     private final AtomicInteger blockingWorkerCount = new AtomicInteger();
@@ -82,8 +95,11 @@ public class TaskletExecutionService {
     private final AtomicReference<Boolean> gracefulShutdown = new AtomicReference<>(null);
     private final Object lock = new Object();
 
-    public TaskletExecutionService(NodeEngineImpl nodeEngine, int threadCount) {
+    public TaskletExecutionService(NodeEngineImpl nodeEngine, InstanceConfig config) {
+        int threadCount = config.getCooperativeThreadCount();
         this.hzInstanceName = nodeEngine.getHazelcastInstance().getName();
+        this.workStealingEnabled = config.isWorkStealingEnabled();
+        this.eventDrivenWakeupEnabled = config.isEventDrivenWakeupEnabled();
         this.cooperativeWorkers = new CooperativeWorker[threadCount];
         this.cooperativeThreadPool = new Thread[threadCount];
         this.logger = nodeEngine.getLoggingService().getLogger(TaskletExecutionService.class);
@@ -143,6 +159,7 @@ public class TaskletExecutionService {
             } else {
                 blockingTaskletExecutor.shutdownNow();
             }
+            Arrays.stream(cooperativeThreadPool).forEach(LockSupport::unpark);
         }
     }
 
@@ -183,6 +200,11 @@ public class TaskletExecutionService {
             }
         }
         for (int i = 0; i < trackersByThread.length; i++) {
+            if (eventDrivenWakeupEnabled) {
+                for (TaskletTracker t : trackersByThread[i]) {
+                    cooperativeWorkers[i].subscribe(t);
+                }
+            }
             cooperativeWorkers[i].trackers.addAll(trackersByThread[i]);
         }
         Arrays.stream(cooperativeThreadPool).forEach(LockSupport::unpark);
@@ -240,8 +262,13 @@ public class TaskletExecutionService {
                 t.init();
                 long idleCount = 0;
                 ProgressState result;
+                final TaskletCallStats callStats = tracker.callStats;
                 do {
+                    long start = callStats != null ? System.nanoTime() : 0;
                     result = t.call();
+                    if (callStats != null) {
+                        callStats.record(System.nanoTime() - start);
+                    }
                     if (result.isMadeProgress()) {
                         idleCount = 0;
                     } else {
@@ -269,6 +296,18 @@ public class TaskletExecutionService {
         private final List<TaskletTracker> trackers;
         @Probe
         private final AtomicLong iterationCount = new AtomicLong();
+        @Probe
+        private final AtomicLong taskletMigrationCount = new AtomicLong();
+
+        // nanoseconds spent in tasklet calls during the last complete load period, normalized to the period length
+        private volatile long lastPeriodBusyNanos;
+        private long periodStart = System.nanoTime();
+
+        // event-driven wakeup: producers set workPending and unpark the thread if it's parked
+        private final Runnable wakeUpAction = this::wakeUp;
+        private volatile Thread thread;
+        private volatile boolean workPending;
+        private volatile boolean parked;
 
         CooperativeWorker() {
             this.trackers = new CopyOnWriteArrayList<>();
@@ -277,6 +316,7 @@ public class TaskletExecutionService {
         @Override
         public void run() {
             final Thread thread = currentThread();
+            this.thread = thread;
             long idleCount = 0;
             while (true) {
                 Boolean gracefulShutdownLocal = gracefulShutdown.get();
@@ -284,17 +324,27 @@ public class TaskletExecutionService {
                 if (gracefulShutdownLocal != null && (!gracefulShutdownLocal || trackers.isEmpty())) {
                     break;
                 }
+                if (eventDrivenWakeupEnabled) {
+                    // signals raised from now on will prevent the next park
+                    workPending = false;
+                }
                 boolean madeProgress = false;
+                boolean allSignalled = eventDrivenWakeupEnabled;
+                boolean finestEnabled = logger.isFinestEnabled();
                 for (TaskletTracker t : trackers) {
+                    allSignalled &= t.workSignal != null;
+                    boolean measure = workStealingEnabled || finestEnabled || t.callStats != null;
                     long start = 0;
-                    if (logger.isFinestEnabled()) {
+                    if (measure) {
                         start = System.nanoTime();
                     }
+                    boolean dismissed = false;
                     try {
                         thread.setContextClassLoader(t.jobClassLoader);
                         final ProgressState result = t.tasklet.call();
                         if (result.isDone()) {
                             dismissTasklet(t);
+                            dismissed = true;
                         } else {
                             madeProgress |= result.isMadeProgress();
                         }
@@ -302,21 +352,39 @@ public class TaskletExecutionService {
                         logger.warning("Exception in " + t.tasklet, e);
                         t.executionTracker.exception(new JetException("Exception in " + t.tasklet + ": " + e, e));
                     }
-                    if (t.executionTracker.executionCompletedExceptionally()) {
+                    if (!dismissed && t.executionTracker.executionCompletedExceptionally()) {
                         dismissTasklet(t);
+                        dismissed = true;
                     }
 
-                    if (logger.isFinestEnabled()) {
-                        long elapsedMs = NANOSECONDS.toMillis((System.nanoTime() - start));
-                        if (elapsedMs > COOPERATIVE_LOGGING_THRESHOLD) {
+                    if (measure) {
+                        long elapsedNanos = System.nanoTime() - start;
+                        t.periodBusyNanos += elapsedNanos;
+                        if (t.callStats != null) {
+                            t.callStats.record(elapsedNanos);
+                        }
+                        long elapsedMs = NANOSECONDS.toMillis(elapsedNanos);
+                        if (finestEnabled && elapsedMs > COOPERATIVE_LOGGING_THRESHOLD) {
                             logger.finest("Cooperative tasklet call of '" + t.tasklet + "' took more than "
                                     + COOPERATIVE_LOGGING_THRESHOLD + " ms: " + elapsedMs + "ms");
                         }
                     }
+                    if (workStealingEnabled) {
+                        handOverIfStolen(t, dismissed);
+                    }
                 }
                 lazyIncrement(iterationCount);
+                if (workStealingEnabled) {
+                    endLoadPeriodIfDue();
+                }
                 if (madeProgress) {
                     idleCount = 0;
+                } else if (allSignalled) {
+                    parked = true;
+                    if (!workPending) {
+                        IDLER_EVENT_DRIVEN.idle(++idleCount);
+                    }
+                    parked = false;
                 } else {
                     IDLER_COOPERATIVE.idle(++idleCount);
                 }
@@ -332,17 +400,135 @@ public class TaskletExecutionService {
             t.executionTracker.taskletDone();
             trackers.remove(t);
         }
+
+        /**
+         * Moves the tasklet to the worker that claimed it in {@link
+         * #stealWork()}. The move is done by the owning worker between two
+         * calls to the tasklet, so the tasklet is never called concurrently
+         * by two threads.
+         */
+        private void handOverIfStolen(TaskletTracker t, boolean dismissed) {
+            CooperativeWorker thief = t.stealingWorker.get();
+            if (thief == null) {
+                return;
+            }
+            t.stealingWorker.set(null);
+            if (dismissed || gracefulShutdown.get() != null) {
+                return;
+            }
+            trackers.remove(t);
+            if (eventDrivenWakeupEnabled) {
+                thief.subscribe(t);
+            }
+            thief.trackers.add(t);
+            lazyIncrement(taskletMigrationCount);
+            logFinest(logger, "Tasklet %s migrated to another cooperative worker", t.tasklet);
+        }
+
+        /**
+         * Makes the tasklet's input producers wake up this worker.
+         */
+        private void subscribe(TaskletTracker t) {
+            if (t.workSignal != null) {
+                t.workSignal.setWakeUpAction(wakeUpAction);
+            }
+        }
+
+        /**
+         * Called by the producers of a tasklet's input after they added to
+         * it. Only touches {@code workPending} if it's not yet set, which is
+         * the common case under load, to avoid a volatile write per item.
+         */
+        private void wakeUp() {
+            if (!workPending) {
+                workPending = true;
+                if (parked) {
+                    LockSupport.unpark(thread);
+                }
+            }
+        }
+
+        private void endLoadPeriodIfDue() {
+            long now = System.nanoTime();
+            long periodLength = now - periodStart;
+            if (periodLength < LOAD_PERIOD_NANOS) {
+                return;
+            }
+            long busyNanos = 0;
+            for (TaskletTracker t : trackers) {
+                t.lastPeriodBusyNanos = normalize(t.periodBusyNanos, periodLength);
+                busyNanos += t.periodBusyNanos;
+                t.periodBusyNanos = 0;
+            }
+            lastPeriodBusyNanos = normalize(busyNanos, periodLength);
+            periodStart = now;
+            if (gracefulShutdown.get() == null) {
+                stealWork();
+            }
+        }
+
+        /**
+         * Looks for the most loaded worker and, if the difference in load is
+         * big enough, claims one of its tasklets. The tasklet picked is the
+         * busiest one that, once moved, doesn't make this worker busier than
+         * the victim was. The victim then hands the tasklet over in {@link
+         * #handOverIfStolen}.
+         */
+        private void stealWork() {
+            CooperativeWorker victim = null;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                if (w != this && w.trackers.size() > 1
+                        && (victim == null || w.lastPeriodBusyNanos > victim.lastPeriodBusyNanos)) {
+                    victim = w;
+                }
+            }
+            if (victim == null
+                    || victim.lastPeriodBusyNanos < LOAD_PERIOD_NANOS * STEAL_MIN_VICTIM_LOAD) {
+                return;
+            }
+            long gap = victim.lastPeriodBusyNanos - lastPeriodBusyNanos;
+            if (gap < LOAD_PERIOD_NANOS * STEAL_MIN_LOAD_GAP) {
+                return;
+            }
+            TaskletTracker candidate = null;
+            for (TaskletTracker t : victim.trackers) {
+                if (t.stealingWorker.get() != null) {
+                    // a hand-over from this victim is already pending
+                    return;
+                }
+                long load = t.lastPeriodBusyNanos;
+                if (load > 0 && load < gap && (candidate == null || load > candidate.lastPeriodBusyNanos)) {
+                    candidate = t;
+                }
+            }
+            if (candidate != null) {
+                candidate.stealingWorker.compareAndSet(null, this);
+            }
+        }
+
+        private long normalize(long busyNanos, long periodLength) {
+            return busyNanos * LOAD_PERIOD_NANOS / periodLength;
+        }
     }
 
     private static final class TaskletTracker {
         final Tasklet tasklet;
         final ExecutionTracker executionTracker;
         final ClassLoader jobClassLoader;
+        final TaskletCallStats callStats;
+        final WorkSignal workSignal;
+        // the worker that claimed this tasklet through work stealing
+        final AtomicReference<CooperativeWorker> stealingWorker = new AtomicReference<>();
+        // accessed only by the worker currently running the tasklet
+        long periodBusyNanos;
+        volatile long lastPeriodBusyNanos;
 
         TaskletTracker(Tasklet tasklet, ExecutionTracker executionTracker, ClassLoader jobClassLoader) {
             this.tasklet = tasklet;
             this.executionTracker = executionTracker;
             this.jobClassLoader = jobClassLoader;
+            this.callStats = tasklet.callStats();
+            this.workSignal = tasklet.workSignal();
         }
 
         @Override
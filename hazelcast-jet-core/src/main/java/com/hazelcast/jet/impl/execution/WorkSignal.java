@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+/**
+ * Used to tell the cooperative worker running a tasklet that new input
+ * is available to the tasklet, so that an idle worker can wake up
+ * immediately instead of waiting for its park to time out.
+ * <p>
+ * The producers of the tasklet's input call {@link #signal()} after each
+ * successful offer, the consumers of its output after freeing up a full
+ * queue and the async operations it waits for when they complete. Until
+ * the tasklet is assigned to a worker with event-driven wakeup enabled
+ * the signal is a no-op.
+ */
+public final class WorkSignal {
+
+    private volatile Runnable wakeUpAction;
+
+    /**
+     * Wakes up the worker currently running the tasklet, if any.
+     */
+    public void signal() {
+        Runnable action = wakeUpAction;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    void setWakeUpAction(Runnable wakeUpAction) {
+        this.wakeUpAction = wakeUpAction;
+    }
+}
@@ -35,6 +35,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
     private int destOrdinal;
     private int priority;
     private boolean isDistributed;
+    private boolean isColumnar;
     private RoutingPolicy routingPolicy;
     private Partitioner partitioner;
     private EdgeConfig config;
@@ -54,6 +55,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
         this.destOrdinal = edge.getDestOrdinal();
         this.priority = edge.getPriority();
         this.isDistributed = isJobDistributed && edge.isDistributed();
+        this.isColumnar = edge.isColumnar();
         this.routingPolicy = edge.getRoutingPolicy();
         this.partitioner = edge.getPartitioner();
         this.config = config;
@@ -106,6 +108,10 @@ public class EdgeDef implements IdentifiedDataSerializable {
         return isDistributed;
     }
 
+    boolean isColumnar() {
+        return isColumnar;
+    }
+
     EdgeConfig getConfig() {
         return config;
     }
@@ -130,6 +136,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
         out.writeInt(sourceOrdinal);
         out.writeInt(priority);
         out.writeBoolean(isDistributed);
+        out.writeBoolean(isColumnar);
         out.writeObject(routingPolicy);
         CustomClassLoadedObject.write(out, partitioner);
         out.writeObject(config);
@@ -142,6 +149,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
         sourceOrdinal = in.readInt();
         priority = in.readInt();
         isDistributed = in.readBoolean();
+        isColumnar = in.readBoolean();
         routingPolicy = in.readObject();
         partitioner = CustomClassLoadedObject.read(in);
         config = in.readObject();
@@ -20,15 +20,19 @@ import com.hazelcast.internal.metrics.LongProbeFunction;
 import com.hazelcast.internal.metrics.ProbeBuilder;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.ProbeUnit;
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.internal.util.concurrent.QueuedPipe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.EdgeConfig;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.PacketCodec;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Edge.RoutingPolicy;
+import com.hazelcast.jet.core.Partitioner;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.impl.JetService;
@@ -44,9 +48,12 @@ import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.StoreSnapshotTasklet;
 import com.hazelcast.jet.impl.execution.Tasklet;
+import com.hazelcast.jet.impl.execution.WorkSignal;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcSupplierCtx;
+import com.hazelcast.jet.impl.processor.ProcessorWrapper;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
+import com.hazelcast.jet.impl.util.SkewReductionPolicy;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.ObjectDataInput;
@@ -57,6 +64,7 @@ import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.spi.partition.IPartitionService;
 import com.hazelcast.util.StringUtil;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -68,18 +76,22 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
 import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.config.EdgeConfig.DEFAULT_QUEUE_SIZE;
+import static com.hazelcast.jet.impl.Networking.sendFlowControlPacket;
 import static com.hazelcast.jet.impl.execution.OutboundCollector.compositeCollector;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.incrementalSnapshotSupport;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.Util.getJetInstance;
 import static com.hazelcast.jet.impl.util.Util.memoize;
 import static com.hazelcast.jet.impl.util.Util.readList;
 import static com.hazelcast.jet.impl.util.Util.writeList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
@@ -106,7 +118,13 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
     private final Map<String, ConcurrentConveyor<Object>[]> localConveyorMap = new HashMap<>();
     private final Map<String, Map<Address, ConcurrentConveyor<Object>>> edgeSenderConveyorMap = new HashMap<>();
+    /** vertex id --> local processor index --> work signal of the processor tasklet */
+    private final Map<Integer, WorkSignal[]> processorWorkSignals = new HashMap<>();
+    /** edge id --> queue index --> work signal of the tasklet producing to the queue of the local conveyors */
+    private final Map<String, WorkSignal[]> edgeProducerSignals = new HashMap<>();
     private final List<Processor> processors = new ArrayList<>();
+    /** vertex id --> processors of the vertex on this member */
+    private final Map<Integer, Collection<? extends Processor>> vertexProcessors = new HashMap<>();
 
     private PartitionArrangement ptionArrgmt;
 
@@ -141,20 +159,30 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
         this.ptionArrgmt = new PartitionArrangement(partitionOwners, nodeEngine.getThisAddress());
         JetInstance instance = getJetInstance(nodeEngine);
+        // create all the processors first, the tasklets of an edge need to know the
+        // capabilities of the processors at both its ends
         for (VertexDef vertex : vertices) {
-            Collection<? extends Processor> processors = createProcessors(vertex, vertex.localParallelism());
+            vertexProcessors.put(vertex.vertexId(), createProcessors(vertex, vertex.localParallelism()));
+        }
+        for (VertexDef vertex : vertices) {
+            Collection<? extends Processor> processors = vertexProcessors.get(vertex.vertexId());
 
             // create StoreSnapshotTasklet and the queues to it
             QueuedPipe<Object>[] snapshotQueues = new QueuedPipe[vertex.localParallelism()];
             Arrays.setAll(snapshotQueues, i -> new OneToOneConcurrentArrayQueue<>(SNAPSHOT_QUEUE_SIZE));
             ConcurrentConveyor<Object> ssConveyor = ConcurrentConveyor.concurrentConveyor(null, snapshotQueues);
-            StoreSnapshotTasklet ssTasklet = new StoreSnapshotTasklet(snapshotContext,
-                    new ConcurrentInboundEdgeStream(ssConveyor, 0, 0, true, -1,
-                            "ssFrom:" + vertex.name()),
-                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount),
+            boolean isChained = jobConfig.isIncrementalSnapshotsEnabled()
+                    && processors.stream().allMatch(p -> incrementalSnapshotSupport(p) != null);
+            ConcurrentInboundEdgeStream ssStream = new ConcurrentInboundEdgeStream(ssConveyor, 0, 0, true, -1,
+                    "ssFrom:" + vertex.name());
+            ssStream.setProducerSignals(processorWorkSignals(vertex));
+            StoreSnapshotTasklet ssTasklet = new StoreSnapshotTasklet(snapshotContext, ssStream,
+                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount,
+                            isChained, jobConfig.isSnapshotCompressionEnabled()),
                     nodeEngine.getLogger(StoreSnapshotTasklet.class.getName() + "." + vertex.name()),
                     vertex.name(), vertex.isHigherPriorityUpstream());
             tasklets.add(ssTasklet);
+            boolean unalignedSnapshots = isUnalignedSnapshots(vertex, isChained);
 
             int localProcessorIdx = 0;
             for (Processor processor : processors) {
@@ -188,8 +216,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
                 // ignore vertices which are only used for snapshot restore and do not
                 // consider snapshot restore edges for determining source tag
-                if (vertex.inboundEdges().stream().allMatch(EdgeDef::isSnapshotRestoreEdge)
-                        && !vertex.isSnapshotVertex()) {
+                boolean hasRegularInput = !vertex.inboundEdges().stream().allMatch(EdgeDef::isSnapshotRestoreEdge);
+                if (!hasRegularInput && !vertex.isSnapshotVertex()) {
                     probeBuilder = probeBuilder.withTag("source", "true");
                 }
                 if (vertex.outboundEdges().size() == 0) {
@@ -207,14 +235,18 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         vertex, localProcessorIdx, probeBuilder
                 );
                 List<InboundEdgeStream> inboundStreams = createInboundEdgeStreams(
-                        vertex, localProcessorIdx, globalProcessorIndex
+                        vertex, localProcessorIdx, globalProcessorIndex, unalignedSnapshots
                 );
 
-                OutboundCollector snapshotCollector = new ConveyorCollector(ssConveyor, localProcessorIdx, null);
+                OutboundCollector snapshotCollector = new ConveyorCollector(ssConveyor, localProcessorIdx, null,
+                        ssTasklet.workSignal());
 
                 ProcessorTasklet processorTasklet = new ProcessorTasklet(context, nodeEngine.getSerializationService(),
                         processor, inboundStreams, outboundStreams, snapshotContext, snapshotCollector,
-                        jobConfig.getMaxWatermarkRetainMillis());
+                        jobConfig.getMaxWatermarkRetainMillis(),
+                        isSignalCapable(processor, hasRegularInput)
+                                ? processorWorkSignal(vertex, localProcessorIdx) : null,
+                        unalignedSnapshots);
                 processorTasklet.registerMetrics(processorProbeBuilder);
                 tasklets.add(processorTasklet);
                 this.processors.add(processor);
@@ -387,21 +419,31 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             final Map<Address, ConcurrentConveyor<Object>> addrToConveyor = new HashMap<>();
             List<AtomicLong> bytesCounters = new ArrayList<>();
             List<AtomicLong> itemsCounters = new ArrayList<>();
+            List<AtomicLong> packetsCounters = new ArrayList<>();
             Tasklet firstTasklet = null;
             for (Address destAddr : remoteMembers.get()) {
                 final ConcurrentConveyor<Object> conveyor = createConveyorArray(
                         1, edge.sourceVertex().localParallelism(), edge.getConfig().getQueueSize())[0];
                 final ConcurrentInboundEdgeStream inboundEdgeStream = newEdgeStream(edge, conveyor,
                         "sender-toVertex:" + edge.destVertex().name() + "-toMember:"
-                                + destAddr.toString().replace('.', '-'));
+                                + destAddr.toString().replace('.', '-'), false);
+                inboundEdgeStream.setProducerSignals(processorWorkSignals(edge.sourceVertex()));
                 final int destVertexId = edge.destVertex().vertexId();
                 final SenderTasklet t = new SenderTasklet(inboundEdgeStream, nodeEngine,
-                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit());
+                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit(),
+                        newPacketCodec(edge.getConfig()), isSerializedPassThrough(edge), edge.isColumnar(),
+                        MICROSECONDS.toNanos(edge.getConfig().getPacketLingerTimeMicros()));
                 if (firstTasklet == null) {
                     firstTasklet = t;
                 }
+                ProbeBuilder senderProbeBuilder = probeBuilder
+                        .withTag("tasklet", "sender")
+                        .withTag("destinationAddress", destAddr.toString());
+                t.callStats().registerMetrics(t, senderProbeBuilder);
+                t.registerFlowControlMetrics(senderProbeBuilder);
                 bytesCounters.add(t.getBytesOutCounter());
                 itemsCounters.add(t.getItemsOutCounter());
+                packetsCounters.add(t.getPacketsOutCounter());
                 senderMap.computeIfAbsent(destVertexId, xx -> new HashMap<>())
                          .computeIfAbsent(edge.destOrdinal(), xx -> new HashMap<>())
                          .put(destAddr, t);
@@ -417,6 +459,12 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         addCountersProbeFunction(bytesCounters));
                 probeBuilder.register(firstTasklet, "distributedItemsOut", ProbeLevel.INFO, ProbeUnit.BYTES,
                         addCountersProbeFunction(itemsCounters));
+                probeBuilder.register(firstTasklet, "distributedPacketsOut", ProbeLevel.INFO, ProbeUnit.COUNT,
+                        addCountersProbeFunction(packetsCounters));
+                probeBuilder.register(firstTasklet, "distributedAvgPacketSize", ProbeLevel.INFO, ProbeUnit.BYTES,
+                        divideCountersProbeFunction(bytesCounters, packetsCounters));
+                probeBuilder.register(firstTasklet, "distributedAvgItemsPerPacket", ProbeLevel.INFO, ProbeUnit.COUNT,
+                        divideCountersProbeFunction(itemsCounters, packetsCounters));
             }
             return addrToConveyor;
         });
@@ -433,6 +481,17 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         };
     }
 
+    private static <T> LongProbeFunction<T> divideCountersProbeFunction(
+            List<AtomicLong> dividendCounters, List<AtomicLong> divisorCounters
+    ) {
+        LongProbeFunction<T> dividend = addCountersProbeFunction(dividendCounters);
+        LongProbeFunction<T> divisor = addCountersProbeFunction(divisorCounters);
+        return source -> {
+            long divisorValue = divisor.get(source);
+            return divisorValue == 0 ? 0 : dividend.get(source) / divisorValue;
+        };
+    }
+
     @SuppressWarnings("unchecked")
     private static ConcurrentConveyor<Object>[] createConveyorArray(int count, int queueCount, int queueSize) {
         ConcurrentConveyor<Object>[] concurrentConveyors = new ConcurrentConveyor[count];
@@ -484,7 +543,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                     e -> createConveyorArray(downstreamParallelism, 1, queueSize));
             return IntStream.range(0, downstreamParallelism)
                             .filter(i -> i % upstreamParallelism == processorIndex)
-                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i]))
+                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i],
+                                    processorWorkSignal(edge.destVertex(), i)))
                             .toArray(OutboundCollector[]::new);
         }
 
@@ -499,11 +559,14 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         final ConcurrentConveyor<Object>[] localConveyors = localConveyorMap.computeIfAbsent(edge.edgeId(),
                 e -> {
                     int queueCount = upstreamParallelism + (edge.isDistributed() ? numRemoteMembers : 0);
+                    // the receivers add their signals when created
+                    edgeProducerSignals.put(edge.edgeId(),
+                            Arrays.copyOf(processorWorkSignals(edge.sourceVertex()), queueCount));
                     return createConveyorArray(downstreamParallelism, queueCount, queueSize);
                 });
         final OutboundCollector[] localCollectors = new OutboundCollector[downstreamParallelism];
-        Arrays.setAll(localCollectors, n ->
-                new ConveyorCollector(localConveyors[n], processorIndex, ptionsPerProcessor[n]));
+        Arrays.setAll(localCollectors, n -> new ConveyorCollector(localConveyors[n], processorIndex,
+                ptionsPerProcessor[n], processorWorkSignal(edge.destVertex(), n)));
 
         // in a local edge, we only have the local collectors.
         if (!edge.isDistributed()) {
@@ -522,8 +585,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         allCollectors[0] = compositeCollector(localCollectors, edge, totalPtionCount);
         int index = 1;
         for (Map.Entry<Address, int[]> entry : memberToPartitions.entrySet()) {
+            SenderTasklet sender = senderMap.get(edge.destVertex().vertexId()).get(edge.destOrdinal())
+                                            .get(entry.getKey());
             allCollectors[index++] = new ConveyorCollectorWithPartition(senderConveyorMap.get(entry.getKey()),
-                    processorIndex, entry.getValue());
+                    processorIndex, entry.getValue(), sender.workSignal());
         }
         return allCollectors;
     }
@@ -547,12 +612,23 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                            final int queueOffset = --offset;
                            Arrays.setAll(collectors, n -> new ConveyorCollector(
                                    localConveyors[n], localConveyors[n].queueCount() + queueOffset,
-                                   ptionsPerProcessor[n]));
+                                   ptionsPerProcessor[n], processorWorkSignal(edge.destVertex(), n)));
                            final OutboundCollector collector = compositeCollector(collectors, edge, totalPtionCount);
-                           ReceiverTasklet receiverTasklet = new ReceiverTasklet(
-                                   collector, edge.getConfig().getReceiveWindowMultiplier(),
-                                   getConfig().getInstanceConfig().getFlowControlPeriodMs());
+                           ReceiverTasklet receiverTasklet = new ReceiverTasklet(collector,
+                                   (InternalSerializationService) nodeEngine.getSerializationService(),
+                                   edge.getConfig().getReceiveWindowMultiplier(),
+                                   getConfig().getInstanceConfig().getFlowControlPeriodMs(),
+                                   newPacketCodec(edge.getConfig()), isSerializedPassThrough(edge), edge.isColumnar(),
+                                   limit -> sendFlowControlPacket(nodeEngine, addr, executionId,
+                                           edge.destVertex().vertexId(), edge.destOrdinal(), limit));
                            addrToTasklet.put(addr, receiverTasklet);
+                           edgeProducerSignals.get(edge.edgeId())[localConveyors[0].queueCount() + queueOffset] =
+                                   receiverTasklet.workSignal();
+                           ProbeBuilder receiverProbeBuilder = probeBuilder
+                                   .withTag("tasklet", "receiver")
+                                   .withTag("sourceAddress", addr.toString());
+                           receiverTasklet.callStats().registerMetrics(receiverTasklet, receiverProbeBuilder);
+                           receiverTasklet.registerFlowControlMetrics(receiverProbeBuilder);
                            if (firstTasklet == null) {
                                firstTasklet = receiverTasklet;
                            }
@@ -572,28 +648,129 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                    });
     }
 
+    private WorkSignal processorWorkSignal(VertexDef vertex, int localProcessorIdx) {
+        return processorWorkSignals(vertex)[localProcessorIdx];
+    }
+
+    private WorkSignal[] processorWorkSignals(VertexDef vertex) {
+        return processorWorkSignals.computeIfAbsent(vertex.vertexId(), x -> {
+            WorkSignal[] signals = new WorkSignal[vertex.localParallelism()];
+            Arrays.setAll(signals, i -> new WorkSignal());
+            return signals;
+        });
+    }
+
+    /**
+     * Tells whether the tasklet of the processor has work only when an item
+     * arrives to its input or when space frees up in its output queues, so
+     * that it can be signalled instead of polled. That's not the case for
+     * a processor without input, a processor overriding {@link
+     * Processor#tryProcess()}, which does work in the absence of input,
+     * such as emitting on an idle timeout or waiting for async operations,
+     * and with the time-based watermark retention.
+     */
+    private boolean isSignalCapable(Processor processor, boolean hasRegularInput) {
+        if (!hasRegularInput || jobConfig.getMaxWatermarkRetainMillis() >= 0) {
+            return false;
+        }
+        Processor unwrapped = processor;
+        while (unwrapped instanceof ProcessorWrapper) {
+            unwrapped = ((ProcessorWrapper) unwrapped).getWrapped();
+        }
+        try {
+            return unwrapped.getClass().getMethod("tryProcess").getDeclaringClass() == Processor.class;
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     private JetConfig getConfig() {
         JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
         return service.getJetInstance().getConfig();
     }
 
     private List<InboundEdgeStream> createInboundEdgeStreams(VertexDef srcVertex, int localProcessorIdx,
-                                                             int globalProcessorIdx) {
+                                                             int globalProcessorIdx, boolean unalignedSnapshots) {
         final List<InboundEdgeStream> inboundStreams = new ArrayList<>();
         for (EdgeDef inEdge : srcVertex.inboundEdges()) {
             // each tasklet has one input conveyor per edge
             final ConcurrentConveyor<Object> conveyor = localConveyorMap.get(inEdge.edgeId())[localProcessorIdx];
-            inboundStreams.add(newEdgeStream(inEdge, conveyor,
-                    "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx));
+            ConcurrentInboundEdgeStream stream = newEdgeStream(inEdge, conveyor,
+                    "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx, unalignedSnapshots);
+            // with the isolated routing, there's a single producer per conveyor
+            stream.setProducerSignals(inEdge.routingPolicy() == RoutingPolicy.ISOLATED
+                    ? new WorkSignal[] {processorWorkSignal(inEdge.sourceVertex(),
+                            localProcessorIdx % inEdge.sourceVertex().localParallelism())}
+                    : edgeProducerSignals.get(inEdge.edgeId()));
+            inboundStreams.add(stream);
         }
         return inboundStreams;
     }
 
     private ConcurrentInboundEdgeStream newEdgeStream(EdgeDef inEdge, ConcurrentConveyor<Object> conveyor,
-                                                      String debugName) {
-        return new ConcurrentInboundEdgeStream(conveyor, inEdge.destOrdinal(), inEdge.priority(),
-                jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE,
-                jobConfig.getMaxWatermarkRetainMillis(), debugName);
+                                                      String debugName, boolean unalignedSnapshots) {
+        EdgeConfig edgeConfig = inEdge.getConfig();
+        SkewReductionPolicy skewReductionPolicy = edgeConfig.isSkewReductionEnabled()
+                ? new SkewReductionPolicy(conveyor.queueCount(), edgeConfig.getMaxWatermarkSkew(),
+                        edgeConfig.getPriorityDrainingThreshold(), false)
+                : null;
+        ConcurrentInboundEdgeStream stream = new ConcurrentInboundEdgeStream(conveyor, inEdge.destOrdinal(),
+                inEdge.priority(),
+                jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE && !unalignedSnapshots,
+                jobConfig.getMaxWatermarkRetainMillis(), skewReductionPolicy, debugName);
+        if (unalignedSnapshots && !inEdge.isSnapshotRestoreEdge()) {
+            stream.enableUnalignedSnapshots(inEdge.routingPolicy() == RoutingPolicy.PARTITIONED
+                    ? partitionKeyFn(inEdge.partitioner()) : null);
+        }
+        return stream;
+    }
+
+    /**
+     * Tells whether the processors of the given vertex take {@linkplain
+     * JobConfig#setUnalignedSnapshotsEnabled(boolean) unaligned snapshots}.
+     * The in-flight items received from a broadcast edge would be restored
+     * only to one of the processors, the ones passed in the serialized form
+     * wouldn't be restored in that form and those saved to a chained
+     * snapshot would also be restored from the older snapshots of the chain.
+     * Such vertices take aligned snapshots.
+     */
+    private boolean isUnalignedSnapshots(VertexDef vertex, boolean isChained) {
+        return jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE
+                && jobConfig.isUnalignedSnapshotsEnabled()
+                && !isChained
+                && vertex.inboundEdges().stream().noneMatch(e ->
+                        e.routingPolicy() == RoutingPolicy.BROADCAST || isSerializedPassThrough(e));
+    }
+
+    /**
+     * Returns a function that maps an item of a partitioned edge to the
+     * shared partition key of the partition the edge's partitioner assigns
+     * it to.
+     */
+    @SuppressWarnings("unchecked")
+    private ToIntFunction<Object> partitionKeyFn(Partitioner partitioner) {
+        IPartitionService partitionService = nodeEngine.getPartitionService();
+        partitioner.init(partitionService::getPartitionId);
+        JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
+        int[] partitionKeys = service.getSharedPartitionKeys();
+        int partitionCount = partitionService.getPartitionCount();
+        return item -> partitionKeys[partitioner.getPartition(item, partitionCount)];
+    }
+
+    /**
+     * Tells whether the items of the given distributed edge are passed to the
+     * receiving processors in the serialized form, see {@link
+     * Processor#acceptsSerializedInput}.
+     */
+    private boolean isSerializedPassThrough(EdgeDef edge) {
+        return !edge.isSnapshotRestoreEdge()
+                && vertexProcessors.get(edge.destVertex().vertexId()).stream()
+                                   .allMatch(p -> p.acceptsSerializedInput(edge.destOrdinal()));
+    }
+
+    @Nullable
+    private static PacketCodec newPacketCodec(EdgeConfig edgeConfig) {
+        return edgeConfig.isPacketCompressionEnabled() ? edgeConfig.getPacketCodecSupplier().get() : null;
     }
 
     public List<Processor> getProcessors() {
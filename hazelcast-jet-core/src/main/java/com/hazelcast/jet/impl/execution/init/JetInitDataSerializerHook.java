@@ -18,6 +18,7 @@ package com.hazelcast.jet.impl.execution.init;
 
 import com.hazelcast.internal.serialization.DataSerializerHook;
 import com.hazelcast.internal.serialization.impl.FactoryIdHelper;
+import com.hazelcast.jet.impl.ExportedSnapshotRecord;
 import com.hazelcast.jet.impl.JobExecutionRecord;
 import com.hazelcast.jet.impl.JobExecutionRecord.SnapshotStats;
 import com.hazelcast.jet.impl.JobRecord;
@@ -28,7 +29,12 @@ import com.hazelcast.jet.impl.JobRepository.FilterJobResultByNamePredicate;
 import com.hazelcast.jet.impl.JobRepository.UpdateJobExecutionRecordEntryProcessor;
 import com.hazelcast.jet.impl.JobResult;
 import com.hazelcast.jet.impl.JobSummary;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
 import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
+import com.hazelcast.jet.impl.operation.CopySnapshotDataOperation;
+import com.hazelcast.jet.impl.operation.DeleteSnapshotChunksOperation;
+import com.hazelcast.jet.impl.operation.DeleteSupersededSnapshotChunksOperation;
+import com.hazelcast.jet.impl.operation.ExportSnapshotOperation;
 import com.hazelcast.jet.impl.operation.GetJobConfigOperation;
 import com.hazelcast.jet.impl.operation.GetJobIdsByNameOperation;
 import com.hazelcast.jet.impl.operation.GetJobIdsOperation;
@@ -42,6 +48,7 @@ import com.hazelcast.jet.impl.operation.ResumeJobOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
 import com.hazelcast.jet.impl.operation.StartExecutionOperation;
+import com.hazelcast.jet.impl.operation.StoreSnapshotChunkOperation;
 import com.hazelcast.jet.impl.operation.SubmitJobOperation;
 import com.hazelcast.jet.impl.operation.TerminateExecutionOperation;
 import com.hazelcast.jet.impl.operation.TerminateJobOperation;
@@ -90,6 +97,14 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
     public static final int GET_JOB_SUMMARY_LIST_OP = 32;
     public static final int JOB_SUMMARY = 33;
     public static final int SNAPSHOT_STATS = 34;
+    public static final int ASYNC_SNAPSHOT_WRITER_SNAPSHOT_DATA_VALUE_TOMBSTONE = 35;
+    public static final int STORE_SNAPSHOT_CHUNK_OP = 36;
+    public static final int DELETE_SNAPSHOT_CHUNKS_OP = 37;
+    public static final int IN_FLIGHT_ITEM_KEY = 38;
+    public static final int EXPORT_SNAPSHOT_OP = 39;
+    public static final int COPY_SNAPSHOT_DATA_OP = 40;
+    public static final int EXPORTED_SNAPSHOT_RECORD = 41;
+    public static final int DELETE_SUPERSEDED_SNAPSHOT_CHUNKS_OP = 42;
 
     public static final int FACTORY_ID = FactoryIdHelper.getFactoryId(JET_IMPL_DS_FACTORY, JET_IMPL_DS_FACTORY_ID);
 
@@ -165,6 +180,8 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
                     return new AsyncSnapshotWriterImpl.SnapshotDataKey();
                 case ASYNC_SNAPSHOT_WRITER_SNAPSHOT_DATA_VALUE_TERMINATOR:
                     return AsyncSnapshotWriterImpl.SnapshotDataValueTerminator.INSTANCE;
+                case ASYNC_SNAPSHOT_WRITER_SNAPSHOT_DATA_VALUE_TOMBSTONE:
+                    return AsyncSnapshotWriterImpl.SnapshotDataValueTombstone.INSTANCE;
                 case SNAPSHOT_OPERATION_RESULT:
                     return new SnapshotOperationResult();
                 case RESUME_JOB_OP:
@@ -177,6 +194,20 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
                     return new GetJobSummaryListOperation();
                 case SNAPSHOT_STATS:
                     return new SnapshotStats();
+                case STORE_SNAPSHOT_CHUNK_OP:
+                    return new StoreSnapshotChunkOperation();
+                case DELETE_SNAPSHOT_CHUNKS_OP:
+                    return new DeleteSnapshotChunksOperation();
+                case IN_FLIGHT_ITEM_KEY:
+                    return new InFlightItemKey();
+                case EXPORT_SNAPSHOT_OP:
+                    return new ExportSnapshotOperation();
+                case COPY_SNAPSHOT_DATA_OP:
+                    return new CopySnapshotDataOperation();
+                case EXPORTED_SNAPSHOT_RECORD:
+                    return new ExportedSnapshotRecord();
+                case DELETE_SUPERSEDED_SNAPSHOT_CHUNKS_OP:
+                    return new DeleteSupersededSnapshotChunksOperation();
                 default:
                     throw new IllegalArgumentException("Unknown type id " + typeId);
             }
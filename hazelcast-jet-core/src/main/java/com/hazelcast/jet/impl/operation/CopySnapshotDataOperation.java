@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.SnapshotStore;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.spi.ExecutionService;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
+
+/**
+ * Operation sent to all members to copy their local chunks of a snapshot
+ * to another data map, see {@link SnapshotStore#copyLocal}. Only the
+ * chunks that are a part of the given snapshot are copied.
+ */
+public class CopySnapshotDataOperation extends AsyncOperation {
+
+    private String sourceMapName;
+    private String targetMapName;
+    private long snapshotId;
+    private long baseSnapshotId;
+
+    public CopySnapshotDataOperation() {
+    }
+
+    public CopySnapshotDataOperation(String sourceMapName, String targetMapName, long snapshotId,
+                                     long baseSnapshotId) {
+        this.sourceMapName = sourceMapName;
+        this.targetMapName = targetMapName;
+        this.snapshotId = snapshotId;
+        this.baseSnapshotId = baseSnapshotId;
+    }
+
+    @Override
+    protected void doRun() {
+        JetService service = getService();
+        SnapshotStore store = service.getSnapshotStore();
+        CompletableFuture.runAsync(() -> store.copyLocal(sourceMapName, targetMapName,
+                key -> key.isPartOf(snapshotId, baseSnapshotId)),
+                getNodeEngine().getExecutionService().getExecutor(ExecutionService.ASYNC_EXECUTOR))
+                         .whenComplete(withTryCatch(getLogger(), (r, e) -> doSendResponse(e != null ? peel(e) : null)));
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.COPY_SNAPSHOT_DATA_OP;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(sourceMapName);
+        out.writeUTF(targetMapName);
+        out.writeLong(snapshotId);
+        out.writeLong(baseSnapshotId);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        sourceMapName = in.readUTF();
+        targetMapName = in.readUTF();
+        snapshotId = in.readLong();
+        baseSnapshotId = in.readLong();
+    }
+}
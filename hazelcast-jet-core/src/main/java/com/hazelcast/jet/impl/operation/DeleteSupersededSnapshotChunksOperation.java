@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.LocalDiskSnapshotStore;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
+
+/**
+ * Operation sent to all members to delete the chunks superseded by an
+ * incremental snapshot from their local files of a snapshot data map, see
+ * {@link LocalDiskSnapshotStore#deleteSuperseded}.
+ */
+public class DeleteSupersededSnapshotChunksOperation extends AsyncOperation {
+
+    private String mapName;
+    private long snapshotId;
+
+    public DeleteSupersededSnapshotChunksOperation() {
+    }
+
+    public DeleteSupersededSnapshotChunksOperation(String mapName, long snapshotId) {
+        this.mapName = mapName;
+        this.snapshotId = snapshotId;
+    }
+
+    @Override
+    protected void doRun() {
+        JetService service = getService();
+        LocalDiskSnapshotStore store = (LocalDiskSnapshotStore) service.getSnapshotStore();
+        store.deleteSupersededLocalAsync(mapName, snapshotId)
+             .whenComplete(withTryCatch(getLogger(), (r, e) -> doSendResponse(e != null ? peel(e) : null)));
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.DELETE_SUPERSEDED_SNAPSHOT_CHUNKS_OP;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(mapName);
+        out.writeLong(snapshotId);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        mapName = in.readUTF();
+        snapshotId = in.readLong();
+    }
+}
@@ -41,17 +41,20 @@ public class SnapshotOperation extends AsyncJobOperation {
     private long snapshotId;
     private int ongoingDataMapIndex;
     private boolean isTerminal;
+    private boolean isIncremental;
 
     // for deserialization
     public SnapshotOperation() {
     }
 
-    public SnapshotOperation(long jobId, long executionId, long snapshotId, int ongoingDataMapIndex, boolean isTerminal) {
+    public SnapshotOperation(long jobId, long executionId, long snapshotId, int ongoingDataMapIndex, boolean isTerminal,
+                             boolean isIncremental) {
         super(jobId);
         this.executionId = executionId;
         this.snapshotId = snapshotId;
         this.ongoingDataMapIndex = ongoingDataMapIndex;
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
     }
 
     @Override
@@ -60,10 +63,11 @@ public class SnapshotOperation extends AsyncJobOperation {
         ExecutionContext ctx = service.getJobExecutionService().assertExecutionContext(
                 getCallerAddress(), jobId(), executionId, getClass().getSimpleName()
         );
-        ctx.beginSnapshot(snapshotId, ongoingDataMapIndex, isTerminal).whenComplete(withTryCatch(getLogger(),
+        ctx.beginSnapshot(snapshotId, ongoingDataMapIndex, isTerminal, isIncremental)
+           .whenComplete(withTryCatch(getLogger(),
                 (result, exc) -> {
                     if (exc != null) {
-                        result = new SnapshotOperationResult(0, 0, 0, exc);
+                        result = new SnapshotOperationResult(0, 0, 0, 0, 0, exc);
                     }
                     if (result.getError() == null) {
                         logFine(getLogger(),
@@ -99,6 +103,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         out.writeLong(snapshotId);
         out.writeBoolean(isTerminal);
         out.writeInt(ongoingDataMapIndex);
+        out.writeBoolean(isIncremental);
     }
 
     @Override
@@ -108,6 +113,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         snapshotId = in.readLong();
         isTerminal = in.readBoolean();
         ongoingDataMapIndex = in.readInt();
+        isIncremental = in.readBoolean();
     }
 
     /**
@@ -115,17 +121,22 @@ public class SnapshotOperation extends AsyncJobOperation {
      */
     public static final class SnapshotOperationResult implements IdentifiedDataSerializable {
         private long numBytes;
+        private long numStoredBytes;
         private long numKeys;
         private long numChunks;
+        private long numChainedChunks;
         private String error;
 
         public SnapshotOperationResult() {
         }
 
-        public SnapshotOperationResult(long numBytes, long numKeys, long numChunks, Throwable error) {
+        public SnapshotOperationResult(long numBytes, long numStoredBytes, long numKeys, long numChunks,
+                                       long numChainedChunks, Throwable error) {
             this.numBytes = numBytes;
+            this.numStoredBytes = numStoredBytes;
             this.numKeys = numKeys;
             this.numChunks = numChunks;
+            this.numChainedChunks = numChainedChunks;
             this.error = error == null ? null : requireNonNull(error.toString());
         }
 
@@ -133,6 +144,10 @@ public class SnapshotOperation extends AsyncJobOperation {
             return numBytes;
         }
 
+        public long getNumStoredBytes() {
+            return numStoredBytes;
+        }
+
         public long getNumKeys() {
             return numKeys;
         }
@@ -141,6 +156,15 @@ public class SnapshotOperation extends AsyncJobOperation {
             return numChunks;
         }
 
+        /**
+         * Returns the number of the {@linkplain
+         * com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey#isChained()
+         * chained} chunks among the {@linkplain #getNumChunks() chunks}.
+         */
+        public long getNumChainedChunks() {
+            return numChainedChunks;
+        }
+
         public String getError() {
             return error;
         }
@@ -152,8 +176,10 @@ public class SnapshotOperation extends AsyncJobOperation {
          */
         public void merge(SnapshotOperationResult other) {
             numBytes += other.numBytes;
+            numStoredBytes += other.numStoredBytes;
             numKeys += other.numKeys;
             numChunks += other.numChunks;
+            numChainedChunks += other.numChainedChunks;
             if (error == null) {
                 error = other.error;
             }
@@ -163,8 +189,10 @@ public class SnapshotOperation extends AsyncJobOperation {
         public String toString() {
             return "SnapshotOperationResult{" +
                     "numBytes=" + numBytes +
+                    ", numStoredBytes=" + numStoredBytes +
                     ", numKeys=" + numKeys +
                     ", numChunks=" + numChunks +
+                    ", numChainedChunks=" + numChainedChunks +
                     ", error=" + error +
                     '}';
         }
@@ -182,16 +210,20 @@ public class SnapshotOperation extends AsyncJobOperation {
         @Override
         public void writeData(ObjectDataOutput out) throws IOException {
             out.writeLong(numBytes);
+            out.writeLong(numStoredBytes);
             out.writeLong(numKeys);
             out.writeLong(numChunks);
+            out.writeLong(numChainedChunks);
             out.writeUTF(error);
         }
 
         @Override
         public void readData(ObjectDataInput in) throws IOException {
             numBytes = in.readLong();
+            numStoredBytes = in.readLong();
             numKeys = in.readLong();
             numChunks = in.readLong();
+            numChainedChunks = in.readLong();
             error = in.readUTF();
         }
     }
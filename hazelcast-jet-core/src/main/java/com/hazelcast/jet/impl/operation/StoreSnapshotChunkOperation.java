@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.LocalDiskSnapshotStore;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
+
+/**
+ * Operation sent from a member writing a snapshot to the members storing
+ * the copies of its chunks, see {@link LocalDiskSnapshotStore}.
+ */
+public class StoreSnapshotChunkOperation extends AsyncOperation {
+
+    private String mapName;
+    private long snapshotId;
+    private boolean isChained;
+    private String originUuid;
+    private List<String> replicaUuids;
+    private byte[] key;
+    private byte[] chunk;
+
+    public StoreSnapshotChunkOperation() {
+    }
+
+    public StoreSnapshotChunkOperation(
+            String mapName, long snapshotId, boolean isChained, String originUuid, List<String> replicaUuids,
+            byte[] key, byte[] chunk
+    ) {
+        this.mapName = mapName;
+        this.snapshotId = snapshotId;
+        this.isChained = isChained;
+        this.originUuid = originUuid;
+        this.replicaUuids = replicaUuids;
+        this.key = key;
+        this.chunk = chunk;
+    }
+
+    @Override
+    protected void doRun() {
+        JetService service = getService();
+        LocalDiskSnapshotStore store = (LocalDiskSnapshotStore) service.getSnapshotStore();
+        store.appendAsync(mapName, snapshotId, isChained, originUuid, replicaUuids, key, chunk)
+             .whenComplete(withTryCatch(getLogger(), (r, e) -> doSendResponse(e != null ? peel(e) : null)));
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.STORE_SNAPSHOT_CHUNK_OP;
+    }
+
+    @Override
+    protected void writeInternal(ObjectDataOutput out) throws IOException {
+        super.writeInternal(out);
+        out.writeUTF(mapName);
+        out.writeLong(snapshotId);
+        out.writeBoolean(isChained);
+        out.writeUTF(originUuid);
+        out.writeInt(replicaUuids.size());
+        for (String uuid : replicaUuids) {
+            out.writeUTF(uuid);
+        }
+        out.writeByteArray(key);
+        out.writeByteArray(chunk);
+    }
+
+    @Override
+    protected void readInternal(ObjectDataInput in) throws IOException {
+        super.readInternal(in);
+        mapName = in.readUTF();
+        snapshotId = in.readLong();
+        isChained = in.readBoolean();
+        originUuid = in.readUTF();
+        int replicaCount = in.readInt();
+        replicaUuids = new ArrayList<>(replicaCount);
+        for (int i = 0; i < replicaCount; i++) {
+            replicaUuids.add(in.readUTF());
+        }
+        key = in.readByteArray();
+        chunk = in.readByteArray();
+    }
+}
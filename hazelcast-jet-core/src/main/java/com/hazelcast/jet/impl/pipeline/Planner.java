@@ -16,6 +16,8 @@
 
 package com.hazelcast.jet.impl.pipeline;
 
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.core.DAG;
 import com.hazelcast.jet.core.Edge;
 import com.hazelcast.jet.core.Processor;
@@ -23,7 +25,12 @@ import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.core.WatermarkEmissionPolicy;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedPredicate;
 import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.pipeline.transform.FilterTransform;
+import com.hazelcast.jet.impl.pipeline.transform.FlatMapTransform;
+import com.hazelcast.jet.impl.pipeline.transform.MapTransform;
 import com.hazelcast.jet.impl.pipeline.transform.SinkTransform;
 import com.hazelcast.jet.impl.pipeline.transform.StreamSourceTransform;
 import com.hazelcast.jet.impl.pipeline.transform.TimestampTransform;
@@ -31,6 +38,8 @@ import com.hazelcast.jet.impl.pipeline.transform.Transform;
 import com.hazelcast.jet.impl.util.Util;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -45,6 +54,7 @@ import static com.hazelcast.jet.core.SlidingWindowPolicy.tumblingWinPolicy;
 import static com.hazelcast.jet.core.WatermarkEmissionPolicy.emitByFrame;
 import static com.hazelcast.jet.core.WatermarkEmissionPolicy.noWatermarks;
 import static com.hazelcast.jet.impl.TopologicalSorter.topologicalSort;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
 @SuppressWarnings("unchecked")
@@ -89,12 +99,136 @@ public class Planner {
         }
 
         Iterable<Transform> sorted = topologicalSort(adjacencyMap, Object::toString);
+        Set<Transform> fusedTransforms = new HashSet<>();
         for (Transform transform : sorted) {
-            transform.addToDag(this);
+            if (fusedTransforms.contains(transform)) {
+                continue;
+            }
+            List<Transform> chain = findFusableChain(transform, adjacencyMap);
+            if (chain == null) {
+                transform.addToDag(this);
+                continue;
+            }
+            Transform fused = fuseChain(chain);
+            fused.addToDag(this);
+            // All the transforms in the chain are represented by the fused
+            // vertex, the downstream of the chain will connect to it
+            PlannerVertex fusedPv = xform2vertex.remove(fused);
+            for (Transform t : chain) {
+                xform2vertex.put(t, fusedPv);
+            }
+            fusedTransforms.addAll(chain);
         }
         return dag;
     }
 
+    /**
+     * Returns the longest chain of stateless transforms starting with the
+     * given one that can run in a single vertex, or {@code null} if the
+     * chain would be shorter than two transforms. Two adjacent transforms
+     * can be fused if the upstream one has no other downstream and they
+     * have the same local parallelism. Both are then connected with a
+     * local round-robin edge, so fusing them changes nothing but the
+     * number of hops an item makes.
+     */
+    @Nullable
+    private static List<Transform> findFusableChain(
+            @Nonnull Transform transform, @Nonnull Map<Transform, List<Transform>> adjacencyMap
+    ) {
+        List<Transform> chain = new ArrayList<>();
+        for (Transform t = transform; isFusable(t); ) {
+            chain.add(t);
+            List<Transform> downstream = adjacencyMap.get(t);
+            if (downstream.size() != 1 || downstream.get(0).localParallelism() != t.localParallelism()) {
+                break;
+            }
+            t = downstream.get(0);
+        }
+        return chain.size() > 1 ? chain : null;
+    }
+
+    private static boolean isFusable(Transform transform) {
+        return transform instanceof MapTransform
+                || transform instanceof FilterTransform
+                || transform instanceof FlatMapTransform;
+    }
+
+    /**
+     * Composes the functions of the transforms in the chain into a single
+     * {@link MapTransform} (if the chain has no flat-mapping stages) or
+     * {@link FlatMapTransform}. Consecutive map and filter stages are
+     * composed into a single mapping function which returns {@code null}
+     * for filtered-out items, so they don't allocate any traversers.
+     */
+    @Nonnull
+    private static Transform fuseChain(@Nonnull List<Transform> chain) {
+        DistributedFunction<Object, Object> mapFn = null;
+        DistributedFunction<Object, Traverser<Object>> flatMapFn = null;
+        for (Transform t : chain) {
+            if (t instanceof FlatMapTransform) {
+                DistributedFunction<Object, Traverser<Object>> stageFn =
+                        mapThenFlatMap(mapFn, ((FlatMapTransform) t).flatMapFn());
+                flatMapFn = flatMapFn == null ? stageFn : flatMapThenFlatMap(flatMapFn, stageFn);
+                mapFn = null;
+            } else {
+                DistributedFunction<Object, Object> stageFn = t instanceof MapTransform
+                        ? ((MapTransform) t).mapFn()
+                        : filterToMapFn(((FilterTransform) t).filterFn());
+                mapFn = mapFn == null ? stageFn : mapThenMap(mapFn, stageFn);
+            }
+        }
+        Transform upstream = chain.get(0).upstream().get(0);
+        String name = chain.stream().map(Transform::name).collect(joining(", ", "fused(", ")"));
+        Transform fused = flatMapFn == null
+                ? new MapTransform<>(name, upstream, mapFn)
+                : new FlatMapTransform<>(name, upstream, flatMapThenMap(flatMapFn, mapFn));
+        fused.localParallelism(chain.get(0).localParallelism());
+        return fused;
+    }
+
+    private static DistributedFunction<Object, Object> filterToMapFn(DistributedPredicate<Object> filterFn) {
+        return item -> filterFn.test(item) ? item : null;
+    }
+
+    private static DistributedFunction<Object, Object> mapThenMap(
+            DistributedFunction<Object, Object> first, DistributedFunction<Object, Object> second
+    ) {
+        return item -> {
+            Object mapped = first.apply(item);
+            return mapped != null ? second.apply(mapped) : null;
+        };
+    }
+
+    private static DistributedFunction<Object, Traverser<Object>> mapThenFlatMap(
+            @Nullable DistributedFunction<Object, Object> mapFn,
+            DistributedFunction<Object, Traverser<Object>> flatMapFn
+    ) {
+        if (mapFn == null) {
+            return flatMapFn;
+        }
+        return item -> {
+            Object mapped = mapFn.apply(item);
+            return mapped != null ? flatMapFn.apply(mapped) : Traversers.empty();
+        };
+    }
+
+    private static DistributedFunction<Object, Traverser<Object>> flatMapThenFlatMap(
+            DistributedFunction<Object, Traverser<Object>> first,
+            DistributedFunction<Object, Traverser<Object>> second
+    ) {
+        return item -> first.apply(item).flatMap(second);
+    }
+
+    private static DistributedFunction<Object, Traverser<Object>> flatMapThenMap(
+            DistributedFunction<Object, Traverser<Object>> flatMapFn,
+            @Nullable DistributedFunction<Object, Object> mapFn
+    ) {
+        if (mapFn == null) {
+            return flatMapFn;
+        }
+        return item -> flatMapFn.apply(item).map(mapFn);
+    }
+
     private static void validateNoLeakage(Map<Transform, List<Transform>> adjacencyMap) {
         List<Transform> leakages = adjacencyMap
                 .entrySet().stream()
@@ -16,18 +16,16 @@
 
 package com.hazelcast.jet.impl.pipeline.transform;
 
-import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedSupplier;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
-import com.hazelcast.jet.pipeline.ContextFactory;
-
-import java.util.HashSet;
+import com.hazelcast.jet.impl.processor.DistinctP;
 
 import static com.hazelcast.jet.core.Edge.between;
 import static com.hazelcast.jet.core.Partitioner.HASH_CODE;
-import static com.hazelcast.jet.core.processor.Processors.filterUsingContextP;
 
 public class DistinctTransform<T, K> extends AbstractTransform {
     private final DistributedFunction<? super T, ? extends K> keyFn;
@@ -44,12 +42,10 @@ public class DistinctTransform<T, K> extends AbstractTransform {
                          .localParallelism(localParallelism());
         PlannerVertex pv2 = p.addVertex(this, namePrefix + '2', localParallelism(), distinctP(keyFn));
         p.addEdges(this, v1, (e, ord) -> e.partitioned(keyFn, HASH_CODE));
-        p.dag.edge(between(v1, pv2.v).distributed().partitioned(keyFn));
+        p.dag.edge(between(v1, pv2.v).distributed().partitioned(keyFn).columnar());
     }
 
-    @SuppressWarnings("unchecked")
-    private static <T, K> ProcessorSupplier distinctP(DistributedFunction<? super T, ? extends K> keyFn) {
-        return filterUsingContextP(ContextFactory.withCreateFn(jet -> new HashSet<>()),
-                (seenItems, item) -> seenItems.add(keyFn.apply((T) item)));
+    private static <T, K> DistributedSupplier<Processor> distinctP(DistributedFunction<? super T, ? extends K> keyFn) {
+        return () -> new DistinctP<>(keyFn);
     }
 }
@@ -33,7 +33,15 @@ public class FlatMapTransform<T, R> extends AbstractTransform {
             @Nonnull Transform upstream,
             @Nonnull DistributedFunction<? super T, ? extends Traverser<? extends R>> flatMapFn
     ) {
-        super("flat-map", upstream);
+        this("flat-map", upstream, flatMapFn);
+    }
+
+    public FlatMapTransform(
+            @Nonnull String name,
+            @Nonnull Transform upstream,
+            @Nonnull DistributedFunction<? super T, ? extends Traverser<? extends R>> flatMapFn
+    ) {
+        super(name, upstream);
         this.flatMapFn = flatMapFn;
     }
 
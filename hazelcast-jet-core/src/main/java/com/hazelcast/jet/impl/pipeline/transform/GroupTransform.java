@@ -101,6 +101,7 @@ public class GroupTransform<K, A, R, OUT> extends AbstractTransform {
     //                                |
     //                           distributed
     //                           partitioned
+    //                            columnar
     //                                v
     //                         ---------------
     //                        | combineByKeyP |
@@ -113,6 +114,6 @@ public class GroupTransform<K, A, R, OUT> extends AbstractTransform {
         PlannerVertex pv2 = p.addVertex(this, namePrefix + '2', localParallelism(),
                 combineByKeyP(aggrOp, mapToOutputFn));
         p.addEdges(this, v1, (e, ord) -> e.partitioned(groupKeyFns.get(ord), HASH_CODE));
-        p.dag.edge(between(v1, pv2.v).distributed().partitioned(entryKey()));
+        p.dag.edge(between(v1, pv2.v).distributed().partitioned(entryKey()).columnar());
     }
 }
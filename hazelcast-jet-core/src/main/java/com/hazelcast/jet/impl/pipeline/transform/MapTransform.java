@@ -32,7 +32,15 @@ public class MapTransform<T, R> extends AbstractTransform {
             @Nonnull Transform upstream,
             @Nonnull DistributedFunction<? super T, ? extends R> mapFn
     ) {
-        super("map", upstream);
+        this("map", upstream, mapFn);
+    }
+
+    public MapTransform(
+            @Nonnull String name,
+            @Nonnull Transform upstream,
+            @Nonnull DistributedFunction<? super T, ? extends R> mapFn
+    ) {
+        super(name, upstream);
         this.mapFn = mapFn;
     }
 
@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.util.HashUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
+
+/**
+ * Writes the accumulators of a grouping processor that exceeded its memory
+ * budget to temporary files and merges them after the processor received
+ * all the input, see {@link
+ * com.hazelcast.jet.config.JobConfig#setMaxGroupingKeysInMemory(long)}.
+ * <p>
+ * The spilled entries are partitioned by the hash of the key into a fixed
+ * number of files, the runs. When merging, the runs are loaded into memory
+ * one at a time and the accumulators of the same key are combined. If a
+ * run turns out to have more keys than the budget, it's partitioned again
+ * into smaller runs using a different hash function.
+ * <p>
+ * The work is split into chunks so that the processor can stay
+ * cooperative: {@link #spillChunk()} and {@link #mergeChunk()} must be
+ * called repeatedly until they return {@code true}.
+ *
+ * @param <K> type of the key
+ * @param <A> type of the accumulator
+ */
+final class AccumulatorSpiller<K, A> {
+
+    static final int PARTITION_COUNT = 16;
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int MAX_LEVEL = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final SerializationService serializationService;
+    private final BiConsumer<? super A, ? super A> combineFn;
+    private final long maxKeysInMemory;
+
+    private final Deque<Run> runs = new ArrayDeque<>();
+    private final List<File> files = new ArrayList<>();
+
+    // the state of the spilling phase
+    private boolean spilled;
+    private Run[] spillRuns;
+    private Iterator<? extends Entry<K, A>> spillIterator;
+
+    // the state of the merging phase
+    private Run mergedRun;
+    private DataInputStream input;
+    private Map<K, A> mergedEntries;
+    private Run[] repartitionRuns;
+    private Map<K, A> result;
+
+    AccumulatorSpiller(
+            @Nonnull SerializationService serializationService,
+            @Nonnull BiConsumer<? super A, ? super A> combineFn,
+            long maxKeysInMemory
+    ) {
+        this.serializationService = serializationService;
+        this.combineFn = combineFn;
+        this.maxKeysInMemory = maxKeysInMemory;
+    }
+
+    /**
+     * Returns the serialization service to use for the spiller of the
+     * processor with the given context.
+     */
+    static SerializationService serializationService(@Nonnull Processor.Context context) {
+        return ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+    }
+
+    /**
+     * Starts writing the given entries to the runs. The caller must not
+     * change the entries until {@link #spillChunk()} returns {@code true}.
+     */
+    void startSpill(@Nonnull Iterator<? extends Entry<K, A>> entries) {
+        assert spillIterator == null : "spill in progress";
+        if (spillRuns == null) {
+            spillRuns = createRuns(0);
+        }
+        spillIterator = entries;
+        spilled = true;
+    }
+
+    /**
+     * Returns whether any entries were spilled.
+     */
+    boolean hasSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Writes the next chunk of the spilled entries. Returns {@code true}, if
+     * all entries were written or no spill is in progress.
+     */
+    boolean spillChunk() {
+        if (spillIterator == null) {
+            return true;
+        }
+        for (int i = 0; i < CHUNK_SIZE && spillIterator.hasNext(); i++) {
+            Entry<K, A> e = spillIterator.next();
+            write(spillRuns, 0, e.getKey(), e.getValue());
+        }
+        if (spillIterator.hasNext()) {
+            return false;
+        }
+        spillIterator = null;
+        return true;
+    }
+
+    /**
+     * Makes progress merging the runs. Returns {@code true}, if the entries
+     * of the next run are merged and available from {@link
+     * #pollMergedEntries()} or there are no more runs. The last spill must be
+     * complete before the first call.
+     */
+    boolean mergeChunk() {
+        assert spillIterator == null : "spill in progress";
+        if (spillRuns != null) {
+            closeRuns(spillRuns);
+            spillRuns = null;
+        }
+        if (result != null) {
+            return true;
+        }
+        if (input == null) {
+            if (runs.isEmpty()) {
+                return true;
+            }
+            openRun(runs.poll());
+        }
+        for (int i = 0; i < CHUNK_SIZE && mergedRun.remaining > 0; i++, mergedRun.remaining--) {
+            readEntry();
+        }
+        if (mergedRun.remaining > 0) {
+            return false;
+        }
+        closeMergedRun();
+        if (repartitionRuns != null) {
+            closeRuns(repartitionRuns);
+            repartitionRuns = null;
+            return false;
+        }
+        result = mergedEntries;
+        mergedEntries = null;
+        return true;
+    }
+
+    /**
+     * Returns the entries of the last merged run, or {@code null}, if
+     * there are no more runs.
+     */
+    @Nullable
+    Map<K, A> pollMergedEntries() {
+        Map<K, A> entries = result;
+        result = null;
+        return entries;
+    }
+
+    /**
+     * Deletes the temporary files.
+     */
+    void close() {
+        try {
+            if (input != null) {
+                input.close();
+            }
+            for (Run run : runs) {
+                run.close();
+            }
+            if (spillRuns != null) {
+                closeRuns(spillRuns);
+            }
+            if (repartitionRuns != null) {
+                closeRuns(repartitionRuns);
+            }
+        } catch (IOException e) {
+            throw rethrow(e);
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private void openRun(Run run) {
+        mergedRun = run;
+        mergedEntries = new HashMap<>();
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private void closeMergedRun() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+        input = null;
+        mergedRun.file.delete();
+        mergedRun = null;
+    }
+
+    private void readEntry() {
+        K key;
+        A acc;
+        try {
+            key = serializationService.toObject(new HeapData(readBytes()));
+            acc = serializationService.toObject(new HeapData(readBytes()));
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+        if (repartitionRuns != null) {
+            write(repartitionRuns, mergedRun.level + 1, key, acc);
+            return;
+        }
+        A oldAcc = mergedEntries.putIfAbsent(key, acc);
+        if (oldAcc != null) {
+            combineFn.accept(oldAcc, acc);
+        } else if (mergedEntries.size() > maxKeysInMemory && mergedRun.level < MAX_LEVEL) {
+            // the run doesn't fit into the budget, partition it again
+            repartitionRuns = createRuns(mergedRun.level + 1);
+            for (Entry<K, A> e : mergedEntries.entrySet()) {
+                write(repartitionRuns, mergedRun.level + 1, e.getKey(), e.getValue());
+            }
+            mergedEntries = null;
+        }
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private Run[] createRuns(int level) {
+        Run[] newRuns = new Run[PARTITION_COUNT];
+        for (int i = 0; i < newRuns.length; i++) {
+            newRuns[i] = new Run(level);
+        }
+        return newRuns;
+    }
+
+    // closes the output of the runs and adds those with any entries to the
+    // front of the queue
+    private void closeRuns(Run[] closedRuns) {
+        try {
+            for (int i = closedRuns.length - 1; i >= 0; i--) {
+                closedRuns[i].close();
+                if (closedRuns[i].remaining > 0) {
+                    runs.addFirst(closedRuns[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private void write(Run[] targetRuns, int level, K key, A acc) {
+        int hash = HashUtil.MurmurHash3_fmix(key.hashCode() + level);
+        Run run = targetRuns[Math.floorMod(hash, PARTITION_COUNT)];
+        try {
+            run.write(serializationService.toData(key).toByteArray(), serializationService.toData(acc).toByteArray(),
+                    files);
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static final class Run {
+        final int level;
+        File file;
+        DataOutputStream output;
+        long remaining;
+
+        Run(int level) {
+            this.level = level;
+        }
+
+        void write(byte[] keyBytes, byte[] accBytes, List<File> createdFiles) throws IOException {
+            if (output == null) {
+                file = File.createTempFile("jet-spill-", ".tmp");
+                createdFiles.add(file);
+                output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+            }
+            output.writeInt(keyBytes.length);
+            output.write(keyBytes);
+            output.writeInt(accBytes.length);
+            output.write(accBytes);
+            remaining++;
+        }
+
+        void close() throws IOException {
+            if (output != null) {
+                output.close();
+                output = null;
+            }
+        }
+    }
+}
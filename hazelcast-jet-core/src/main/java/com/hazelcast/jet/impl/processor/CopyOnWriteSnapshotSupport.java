@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.Processor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map.Entry;
+
+/**
+ * Implemented by processors that can save their snapshot without pausing
+ * the processing of items.
+ * <p>
+ * When the processor reaches a snapshot barrier, the tasklet calls {@link
+ * #takeSnapshotCopy()} instead of {@link Processor#saveToSnapshot()}. The
+ * processor takes a cheap logical copy of its state, for example by
+ * copying each value only when it's first changed after the barrier, and
+ * returns a traverser over the copy. The tasklet forwards the barrier
+ * downstream immediately and then saves the traversed entries to the
+ * snapshot between the processing calls, so the processor must be ready
+ * to process items while the traverser is being drained. The traverser
+ * returns {@code null} only after all entries were returned; after that
+ * the processor can discard the copy.
+ * <p>
+ * The tasklet only uses the copy for a snapshot that doesn't terminate
+ * the job and only with aligned snapshots, otherwise it calls {@code
+ * saveToSnapshot()} as usual.
+ */
+public interface CopyOnWriteSnapshotSupport {
+
+    /**
+     * Takes a logical copy of the processor's state and returns a traverser
+     * over the snapshot entries, or {@code null}, if the copy can't be taken
+     * now. In that case, the tasklet calls {@link Processor#saveToSnapshot()}.
+     * <p>
+     * Called after {@link IncrementalSnapshotSupport#beforeSaveToSnapshot
+     * beforeSaveToSnapshot()}, if the processor implements it.
+     */
+    @Nullable
+    Traverser<? extends Entry<?, ?>> takeSnapshotCopy();
+
+    /**
+     * Returns the given processor, or the processor wrapped in it, if it
+     * supports copy-on-write snapshots. Otherwise returns {@code null}.
+     */
+    @Nullable
+    static CopyOnWriteSnapshotSupport copyOnWriteSnapshotSupport(@Nonnull Processor processor) {
+        Processor unwrapped = processor instanceof ProcessorWrapper
+                ? ((ProcessorWrapper) processor).getWrapped() : processor;
+        return unwrapped instanceof CopyOnWriteSnapshotSupport ? (CopyOnWriteSnapshotSupport) unwrapped : null;
+    }
+}
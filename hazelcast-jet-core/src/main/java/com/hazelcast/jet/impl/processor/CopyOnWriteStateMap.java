@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * A {@link KeyedStateStore} that can take a logical copy of its contents
+ * in constant time, used by the processors that implement {@link
+ * CopyOnWriteSnapshotSupport}.
+ * <p>
+ * While a copy is taken, the underlying store isn't changed structurally,
+ * so that the copy can be traversed: the added keys are kept aside and the
+ * removed keys are only marked as removed. The value of a key is copied
+ * using the {@code copyFn} before it's first changed after the copy was
+ * taken, that is when it's retrieved using {@link #getForUpdate} or {@link
+ * #computeIfAbsent}. After the copy is released, the changes kept aside
+ * are merged into the underlying store on the next update.
+ * <p>
+ * Null values aren't supported. Not thread-safe.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public final class CopyOnWriteStateMap<K, V> implements KeyedStateStore<K, V> {
+
+    private final KeyedStateStore<K, V> store;
+    private final UnaryOperator<V> copyFn;
+
+    // These are non-null from the time a copy is taken until the first
+    // update after it's released
+    private Map<K, V> addedEntries;
+    private Set<K> removedKeys;
+    private Map<K, V> copiedValues;
+    private boolean copyReleased;
+
+    /**
+     * @param copyFn function that returns a copy of a value that isn't
+     *               affected by the later changes to the value
+     */
+    public CopyOnWriteStateMap(@Nonnull UnaryOperator<V> copyFn) {
+        this(new HeapKeyedStateStore<>(), copyFn);
+    }
+
+    /**
+     * @param store  the underlying store
+     * @param copyFn function that returns a copy of a value that isn't
+     *               affected by the later changes to the value
+     */
+    public CopyOnWriteStateMap(@Nonnull KeyedStateStore<K, V> store, @Nonnull UnaryOperator<V> copyFn) {
+        this.store = store;
+        this.copyFn = copyFn;
+    }
+
+    @Nullable @Override
+    public V get(@Nonnull K key) {
+        if (addedEntries == null) {
+            return store.get(key);
+        }
+        V value = addedEntries.get(key);
+        return value != null || removedKeys.contains(key) ? value : store.get(key);
+    }
+
+    @Nullable @Override
+    public V getForUpdate(@Nonnull K key) {
+        mergeIfReleased();
+        if (addedEntries == null) {
+            return store.getForUpdate(key);
+        }
+        V value = addedEntries.get(key);
+        if (value != null || removedKeys.contains(key)) {
+            return value;
+        }
+        value = store.getForUpdate(key);
+        if (value != null && !copiedValues.containsKey(key)) {
+            copiedValues.put(key, copyFn.apply(value));
+        }
+        return value;
+    }
+
+    @Nonnull @Override
+    public V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn) {
+        mergeIfReleased();
+        if (addedEntries == null) {
+            return store.computeIfAbsent(key, createFn);
+        }
+        V value = getForUpdate(key);
+        if (value == null) {
+            value = createFn.apply(key);
+            addedEntries.put(key, value);
+        }
+        return value;
+    }
+
+    @Nullable @Override
+    public V put(@Nonnull K key, @Nonnull V value) {
+        mergeIfReleased();
+        if (addedEntries == null) {
+            return store.put(key, value);
+        }
+        if (addedEntries.containsKey(key) || removedKeys.contains(key) || store.get(key) == null) {
+            return addedEntries.put(key, value);
+        }
+        // replacing the value of an existing key isn't a structural change
+        V oldValue = store.put(key, value);
+        copiedValues.putIfAbsent(key, oldValue);
+        return oldValue;
+    }
+
+    @Nullable @Override
+    public V remove(@Nonnull K key) {
+        mergeIfReleased();
+        if (addedEntries == null) {
+            return store.remove(key);
+        }
+        V value = addedEntries.remove(key);
+        if (value != null || removedKeys.contains(key)) {
+            return value;
+        }
+        value = store.get(key);
+        if (value != null) {
+            removedKeys.add(key);
+            copiedValues.putIfAbsent(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return addedEntries == null ? store.size() : store.size() - removedKeys.size() + addedEntries.size();
+    }
+
+    @Nonnull @Override
+    public Iterator<Entry<K, V>> iterator() {
+        if (addedEntries == null) {
+            return store.iterator();
+        }
+        Set<K> removed = removedKeys;
+        return Stream.concat(StreamSupport.stream(store.spliterator(), false).filter(e -> !removed.contains(e.getKey())),
+                addedEntries.entrySet().stream())
+                     .iterator();
+    }
+
+    /**
+     * Closes the underlying store. The copy, if taken, can't be used
+     * afterwards either.
+     */
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    /**
+     * Takes a logical copy of the current contents. The copy is available
+     * until {@link #releaseCopy()} is called.
+     */
+    public void takeCopy() {
+        mergeIfReleased();
+        assert addedEntries == null : "copy already taken";
+        addedEntries = new HashMap<>();
+        removedKeys = new HashSet<>();
+        copiedValues = new HashMap<>();
+    }
+
+    /**
+     * Returns a traverser over the entries of the copy.
+     */
+    @Nonnull
+    public Traverser<Entry<K, V>> traverseCopy() {
+        assert addedEntries != null && !copyReleased : "no copy taken";
+        Map<K, V> copied = copiedValues;
+        return traverseIterable(store)
+                .map(e -> {
+                    V copiedValue = copied.get(e.getKey());
+                    return entry(e.getKey(), copiedValue != null ? copiedValue : e.getValue());
+                });
+    }
+
+    /**
+     * Returns the value of the key in the copy, or {@code null}, if there's
+     * none.
+     */
+    @Nullable
+    public V copiedValue(@Nonnull K key) {
+        assert addedEntries != null && !copyReleased : "no copy taken";
+        V copiedValue = copiedValues.get(key);
+        return copiedValue != null ? copiedValue : store.get(key);
+    }
+
+    /**
+     * Releases the copy taken by {@link #takeCopy()}.
+     */
+    public void releaseCopy() {
+        assert addedEntries != null : "no copy taken";
+        copyReleased = true;
+    }
+
+    // The changes aren't merged in releaseCopy() because an iterator over the
+    // current entries might be in use at that time
+    private void mergeIfReleased() {
+        if (!copyReleased) {
+            return;
+        }
+        for (K key : removedKeys) {
+            store.remove(key);
+        }
+        for (Entry<K, V> e : addedEntries.entrySet()) {
+            store.put(e.getKey(), e.getValue());
+        }
+        addedEntries = null;
+        removedKeys = null;
+        copiedValues = null;
+        copyReleased = false;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Entry<K, V> e : this) {
+            joiner.add(e.getKey() + "=" + e.getValue());
+        }
+        return joiner.toString();
+    }
+}
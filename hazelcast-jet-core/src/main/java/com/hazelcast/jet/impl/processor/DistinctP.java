@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.MutableReference;
+import com.hazelcast.jet.core.AbstractProcessor;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * Batch processor that emits the first item it receives for each distinct
+ * key.
+ * <p>
+ * If the job has a {@linkplain
+ * com.hazelcast.jet.config.JobConfig#setMaxGroupingKeysInMemory(long)
+ * memory budget} and the processor exceeds it, it spills the keys it
+ * already emitted to disk and from then on keeps the first item of each
+ * new key instead of emitting it. It spills those items whenever it
+ * exceeds the budget again and, after it receives all the input, emits
+ * those whose key it didn't emit before.
+ */
+public class DistinctP<T, K> extends AbstractProcessor {
+
+    private final Function<? super T, ? extends K> keyFn;
+
+    private Set<K> emittedKeys = new HashSet<>();
+    private long maxKeysInMemory;
+    private AccumulatorSpiller<K, MutableReference<T>> spiller;
+    // the first item of each key received after the first spill; an empty
+    // reference marks a key whose item was emitted before the first spill
+    private Map<K, MutableReference<T>> keyToItem;
+    private Traverser<T> resultTraverser;
+
+    public DistinctP(@Nonnull Function<? super T, ? extends K> keyFn) {
+        this.keyFn = keyFn;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        maxKeysInMemory = context.jobConfig().getMaxGroupingKeysInMemory();
+        if (maxKeysInMemory > 0) {
+            spiller = new AccumulatorSpiller<>(AccumulatorSpiller.serializationService(context),
+                    DistinctP::combine, maxKeysInMemory);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (spiller != null && !spiller.spillChunk()) {
+            return false;
+        }
+        K key = keyFn.apply((T) item);
+        if (keyToItem != null) {
+            keyToItem.computeIfAbsent(key, k -> new MutableReference<>((T) item));
+            if (keyToItem.size() >= maxKeysInMemory) {
+                spill();
+            }
+            return true;
+        }
+        if (emittedKeys.contains(key)) {
+            return true;
+        }
+        if (!tryEmit(item)) {
+            return false;
+        }
+        emittedKeys.add(key);
+        if (spiller != null && emittedKeys.size() >= maxKeysInMemory) {
+            spiller.startSpill(emittedKeys.stream()
+                    .map(k -> entry(k, new MutableReference<T>()))
+                    .iterator());
+            emittedKeys = null;
+            keyToItem = new HashMap<>();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        if (keyToItem == null) {
+            return true;
+        }
+        if (!spiller.spillChunk() || spillRemaining()) {
+            return false;
+        }
+        do {
+            if (resultTraverser != null) {
+                if (!emitFromTraverser(resultTraverser)) {
+                    return false;
+                }
+                resultTraverser = null;
+            }
+            if (!spiller.mergeChunk()) {
+                return false;
+            }
+            Map<K, MutableReference<T>> mergedEntries = spiller.pollMergedEntries();
+            if (mergedEntries != null) {
+                resultTraverser = traverseIterable(mergedEntries.values())
+                        .map(MutableReference::get);
+            }
+        } while (resultTraverser != null);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    private void spill() {
+        spiller.startSpill(keyToItem.entrySet().iterator());
+        keyToItem = new HashMap<>();
+    }
+
+    private boolean spillRemaining() {
+        if (keyToItem.isEmpty()) {
+            return false;
+        }
+        spill();
+        return true;
+    }
+
+    private static <T> void combine(MutableReference<T> ref1, MutableReference<T> ref2) {
+        if (ref2.isNull()) {
+            ref1.set(null);
+        }
+    }
+}
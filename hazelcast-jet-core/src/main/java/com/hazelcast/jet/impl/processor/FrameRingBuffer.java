@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.util.QuickMath;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+import java.util.function.LongFunction;
+
+import static com.hazelcast.jet.Util.entry;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+
+/**
+ * Stores the frames of {@link SlidingWindowP}, keyed by the frame
+ * timestamp. Since the frame timestamps are contiguous multiples of the
+ * frame size, a frame is stored in a ring buffer slot indexed by its
+ * sequence number ({@code frameTs / frameSize}), which avoids boxing and
+ * hashing the timestamps. The ring buffer grows to cover the range of
+ * the frames on record, up to {@link #MAX_CAPACITY} frames. The frames
+ * outside of that range (e.g. after a large jump in event time) are kept
+ * in a hash map until the ring buffer empties.
+ * <p>
+ * Null frames aren't supported. Not thread-safe.
+ *
+ * @param <F> type of the frame
+ */
+final class FrameRingBuffer<F> implements Iterable<Entry<Long, F>> {
+
+    static final int INITIAL_CAPACITY = 16;
+    static final int MAX_CAPACITY = 1 << 14;
+
+    private final long frameSize;
+    private final long frameOffset;
+
+    private Object[] slots;
+    private int mask;
+    private int ringSize;
+    // the range of sequences of the frames in the ring, valid if ringSize > 0
+    private long lowSeq;
+    private long highSeq;
+
+    // the frames that didn't fit into the ring, lazily created
+    private Map<Long, F> overflow;
+
+    FrameRingBuffer(long frameSize, long frameOffset) {
+        this.frameSize = frameSize;
+        this.frameOffset = floorMod(frameOffset, frameSize);
+        this.slots = new Object[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    private FrameRingBuffer(FrameRingBuffer<F> that) {
+        this.frameSize = that.frameSize;
+        this.frameOffset = that.frameOffset;
+        this.slots = that.slots.clone();
+        this.mask = that.mask;
+        this.ringSize = that.ringSize;
+        this.lowSeq = that.lowSeq;
+        this.highSeq = that.highSeq;
+        this.overflow = that.overflow != null ? new HashMap<>(that.overflow) : null;
+    }
+
+    /**
+     * Returns the frame for the given timestamp or {@code null}, if
+     * there's none.
+     */
+    @Nullable
+    F get(long frameTs) {
+        long seq = floorDiv(frameTs, frameSize);
+        F frame = inRing(seq) ? slot(seq) : null;
+        if (frame == null && overflow != null) {
+            frame = overflow.get(frameTs);
+        }
+        return frame;
+    }
+
+    /**
+     * Returns the frame for the given timestamp, creating it using the
+     * {@code createFn}, if there's none.
+     */
+    @Nonnull
+    F computeIfAbsent(long frameTs, @Nonnull LongFunction<F> createFn) {
+        F frame = get(frameTs);
+        if (frame == null) {
+            frame = createFn.apply(frameTs);
+            add(floorDiv(frameTs, frameSize), frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Removes and returns the frame for the given timestamp or returns
+     * {@code null}, if there's none.
+     */
+    @Nullable
+    F remove(long frameTs) {
+        long seq = floorDiv(frameTs, frameSize);
+        F frame = inRing(seq) ? slot(seq) : null;
+        if (frame == null) {
+            return overflow != null ? removeFromOverflow(frameTs) : null;
+        }
+        slots[index(seq)] = null;
+        if (--ringSize == 0) {
+            migrateOverflow();
+        } else if (seq == lowSeq) {
+            do {
+                lowSeq++;
+            } while (slots[index(lowSeq)] == null);
+        } else if (seq == highSeq) {
+            do {
+                highSeq--;
+            } while (slots[index(highSeq)] == null);
+        }
+        return frame;
+    }
+
+    boolean isEmpty() {
+        return ringSize == 0 && overflow == null;
+    }
+
+    int size() {
+        return ringSize + (overflow != null ? overflow.size() : 0);
+    }
+
+    /**
+     * Returns the lowest frame timestamp on record. Must not be called
+     * when empty.
+     */
+    long bottomTs() {
+        assert !isEmpty() : "bottomTs() called when empty";
+        long bottomTs = ringSize > 0 ? frameTs(lowSeq) : Long.MAX_VALUE;
+        if (overflow != null) {
+            for (long ts : overflow.keySet()) {
+                bottomTs = Math.min(bottomTs, ts);
+            }
+        }
+        return bottomTs;
+    }
+
+    /**
+     * Returns a shallow copy of this buffer: the frames themselves are
+     * shared.
+     */
+    @Nonnull
+    FrameRingBuffer<F> copy() {
+        return new FrameRingBuffer<>(this);
+    }
+
+    /**
+     * Returns an iterator over the frames. The frames in the ring buffer
+     * are returned in the order of their timestamps, followed by the
+     * overflowing frames in no particular order.
+     */
+    @Nonnull @Override
+    public Iterator<Entry<Long, F>> iterator() {
+        return new Iterator<Entry<Long, F>>() {
+            private long seq = ringSize > 0 ? lowSeq : 1;
+            private final long endSeq = ringSize > 0 ? highSeq : 0;
+            private Iterator<Entry<Long, F>> overflowIterator;
+
+            @Override
+            public boolean hasNext() {
+                while (seq <= endSeq && slots[index(seq)] == null) {
+                    seq++;
+                }
+                if (seq <= endSeq) {
+                    return true;
+                }
+                if (overflowIterator == null) {
+                    overflowIterator = overflow != null
+                            ? overflow.entrySet().iterator()
+                            : Collections.<Entry<Long, F>>emptyIterator();
+                }
+                return overflowIterator.hasNext();
+            }
+
+            @Override
+            public Entry<Long, F> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (seq <= endSeq) {
+                    long frameSeq = seq++;
+                    return entry(frameTs(frameSeq), slot(frameSeq));
+                }
+                return overflowIterator.next();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "{", "}");
+        for (Entry<Long, F> e : this) {
+            sj.add(e.getKey() + "=" + e.getValue());
+        }
+        return sj.toString();
+    }
+
+    private void add(long seq, F frame) {
+        if (ringSize == 0) {
+            lowSeq = seq;
+            highSeq = seq;
+        } else if (seq < lowSeq || seq > highSeq) {
+            long newLowSeq = Math.min(seq, lowSeq);
+            long newHighSeq = Math.max(seq, highSeq);
+            // a negative difference means the subtraction overflowed
+            long span = newHighSeq - newLowSeq + 1;
+            if (span <= 0 || span > MAX_CAPACITY) {
+                if (overflow == null) {
+                    overflow = new HashMap<>();
+                }
+                overflow.put(frameTs(seq), frame);
+                return;
+            }
+            if (span > slots.length) {
+                grow(QuickMath.nextPowerOfTwo((int) span));
+            }
+            lowSeq = newLowSeq;
+            highSeq = newHighSeq;
+        }
+        slots[index(seq)] = frame;
+        ringSize++;
+    }
+
+    private void grow(int newCapacity) {
+        Object[] newSlots = new Object[newCapacity];
+        int newMask = newCapacity - 1;
+        for (long seq = lowSeq; seq <= highSeq; seq++) {
+            newSlots[(int) seq & newMask] = slots[index(seq)];
+        }
+        slots = newSlots;
+        mask = newMask;
+    }
+
+    private F removeFromOverflow(long frameTs) {
+        F frame = overflow.remove(frameTs);
+        if (overflow.isEmpty()) {
+            overflow = null;
+        }
+        return frame;
+    }
+
+    /**
+     * Moves the overflowing frames to the ring, starting from the lowest
+     * one, as far as they fit. Called when the ring becomes empty.
+     */
+    private void migrateOverflow() {
+        if (overflow == null) {
+            return;
+        }
+        Map<Long, F> frames = overflow;
+        overflow = null;
+        Long[] timestamps = frames.keySet().toArray(new Long[0]);
+        Arrays.sort(timestamps);
+        for (Long ts : timestamps) {
+            add(floorDiv(ts, frameSize), frames.get(ts));
+        }
+    }
+
+    private boolean inRing(long seq) {
+        return ringSize > 0 && seq >= lowSeq && seq <= highSeq;
+    }
+
+    @SuppressWarnings("unchecked")
+    private F slot(long seq) {
+        return (F) slots[index(seq)];
+    }
+
+    private int index(long seq) {
+        return (int) seq & mask;
+    }
+
+    private long frameTs(long seq) {
+        return seq * frameSize + frameOffset;
+    }
+}
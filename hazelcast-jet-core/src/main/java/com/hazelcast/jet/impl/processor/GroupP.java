@@ -23,13 +23,14 @@ import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.function.DistributedFunction;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
-import static com.hazelcast.jet.Traversers.traverseStream;
+import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Collections.singletonList;
 
@@ -38,13 +39,26 @@ import static java.util.Collections.singletonList;
  * aggregate operation on each group. The items may originate from one or
  * more inbound edges. The supplied aggregate operation must have as many
  * accumulation functions as there are inbound edges.
+ * <p>
+ * If the job has a {@linkplain
+ * com.hazelcast.jet.config.JobConfig#setMaxGroupingKeysInMemory(long)
+ * memory budget} and the aggregate operation can combine accumulators, the
+ * processor spills its accumulators to disk when it exceeds the budget.
  */
 public class GroupP<K, A, R, OUT> extends AbstractProcessor {
     @Nonnull private final List<DistributedFunction<?, ? extends K>> groupKeyFns;
     @Nonnull private final AggregateOperation<A, R> aggrOp;
+    @Nonnull private final BiFunction<? super K, ? super R, OUT> mapToOutputFn;
 
-    private final Map<K, A> keyToAcc = new HashMap<>();
-    private final Traverser<OUT> resultTraverser;
+    private Supplier<KeyedStateStore<K, A>> stateStoreSupplier = HeapKeyedStateStore::new;
+    private KeyedStateStore<K, A> keyToAcc = stateStoreSupplier.get();
+    // the store being spilled, closed when the spill is complete
+    private KeyedStateStore<K, A> spilledStore;
+    private Traverser<OUT> resultTraverser;
+
+    // the maximum number of keys in keyToAcc, 0 if unlimited
+    private long maxKeysInMemory;
+    private AccumulatorSpiller<K, A> spiller;
 
     public GroupP(
             @Nonnull List<DistributedFunction<?, ? extends K>> groupKeyFns,
@@ -55,9 +69,7 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
                 "provided for " + aggrOp.arity() + "-arity aggregate operation");
         this.groupKeyFns = groupKeyFns;
         this.aggrOp = aggrOp;
-        this.resultTraverser = traverseStream(keyToAcc
-                .entrySet().stream()
-                .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue()))));
+        this.mapToOutputFn = mapToOutputFn;
     }
 
     public <T> GroupP(
@@ -68,18 +80,108 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
         this(singletonList(groupKeyFn), aggrOp, mapToOutputFn);
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        stateStoreSupplier = KeyedStateStore.keyedStateStoreSupplier(context);
+        keyToAcc = stateStoreSupplier.get();
+        maxKeysInMemory = context.jobConfig().getMaxGroupingKeysInMemory();
+        if (maxKeysInMemory > 0 && aggrOp.combineFn() == null) {
+            getLogger().warning("The aggregate operation has no combineFn, the accumulators can't be spilled to disk");
+            maxKeysInMemory = 0;
+        }
+        if (maxKeysInMemory > 0) {
+            spiller = new AccumulatorSpiller<>(AccumulatorSpiller.serializationService(context),
+                    aggrOp.combineFn(), maxKeysInMemory);
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (spiller != null && !spillChunk()) {
+            return false;
+        }
         Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
         K key = keyFn.apply(item);
         A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
         aggrOp.accumulateFn(ordinal).accept(acc, item);
+        if (spiller != null && keyToAcc.size() >= maxKeysInMemory) {
+            spill();
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
+        if (spiller != null && spiller.hasSpilled()) {
+            return completeFromSpilledRuns();
+        }
+        if (resultTraverser == null) {
+            resultTraverser = traverseIterable(keyToAcc).map(this::toOutput);
+        }
         return emitFromTraverser(resultTraverser);
     }
+
+    @Override
+    public void close() {
+        if (spiller != null) {
+            spiller.close();
+        }
+        if (spilledStore != null) {
+            spilledStore.close();
+        }
+        keyToAcc.close();
+    }
+
+    private void spill() {
+        spiller.startSpill(keyToAcc.iterator());
+        // the spilled store is no longer changed
+        spilledStore = keyToAcc;
+        keyToAcc = stateStoreSupplier.get();
+    }
+
+    private boolean spillChunk() {
+        if (!spiller.spillChunk()) {
+            return false;
+        }
+        if (spilledStore != null) {
+            spilledStore.close();
+            spilledStore = null;
+        }
+        return true;
+    }
+
+    private boolean completeFromSpilledRuns() {
+        if (!spillChunk() || spillRemaining()) {
+            return false;
+        }
+        do {
+            if (resultTraverser != null) {
+                if (!emitFromTraverser(resultTraverser)) {
+                    return false;
+                }
+                resultTraverser = null;
+            }
+            if (!spiller.mergeChunk()) {
+                return false;
+            }
+            Map<K, A> mergedEntries = spiller.pollMergedEntries();
+            if (mergedEntries != null) {
+                resultTraverser = traverseIterable(mergedEntries.entrySet()).map(this::toOutput);
+            }
+        } while (resultTraverser != null);
+        return true;
+    }
+
+    private boolean spillRemaining() {
+        if (keyToAcc.isEmpty()) {
+            return false;
+        }
+        spill();
+        return true;
+    }
+
+    private OUT toOutput(Entry<K, A> e) {
+        return mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue()));
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+/**
+ * A {@link KeyedStateStore} keeping the keys and values in a {@link
+ * HashMap}.
+ */
+public final class HeapKeyedStateStore<K, V> implements KeyedStateStore<K, V> {
+
+    private final Map<K, V> map = new HashMap<>();
+
+    @Nullable @Override
+    public V get(@Nonnull K key) {
+        return map.get(key);
+    }
+
+    @Nullable @Override
+    public V getForUpdate(@Nonnull K key) {
+        return map.get(key);
+    }
+
+    @Nonnull @Override
+    public V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn) {
+        return map.computeIfAbsent(key, createFn);
+    }
+
+    @Nullable @Override
+    public V put(@Nonnull K key, @Nonnull V value) {
+        return map.put(key, value);
+    }
+
+    @Nullable @Override
+    public V remove(@Nonnull K key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Nonnull @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return map.entrySet().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
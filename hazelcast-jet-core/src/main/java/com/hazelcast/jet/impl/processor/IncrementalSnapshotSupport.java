@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTombstone;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by processors that can save an incremental snapshot, see
+ * {@link JobConfig#setIncrementalSnapshotsEnabled(boolean)}.
+ * <p>
+ * Before each snapshot, {@link #beforeSaveToSnapshot(boolean)} tells the
+ * processor whether the snapshot is incremental. In an incremental
+ * snapshot, the processor saves the current value of each key it changed
+ * since the previous snapshot and the {@link #TOMBSTONE} as the value of
+ * each key it removed. It must save all its {@linkplain
+ * com.hazelcast.jet.core.BroadcastKey broadcast keys} in every snapshot.
+ * In a full snapshot, it saves its entire state as usual. The restored
+ * state is merged from the full snapshot and the subsequent incremental
+ * ones, so the processor never receives a tombstone.
+ * <p>
+ * The processor only needs to track its changes if incremental snapshots
+ * are enabled in the {@link JobConfig}. If it's never told otherwise, it
+ * saves full snapshots.
+ */
+public interface IncrementalSnapshotSupport {
+
+    /**
+     * The snapshot value of a removed key.
+     */
+    Object TOMBSTONE = SnapshotDataValueTombstone.INSTANCE;
+
+    /**
+     * Called before the first {@link Processor#saveToSnapshot()} call of
+     * each snapshot.
+     *
+     * @param incremental whether to save only the changes since the
+     *                    previous snapshot
+     */
+    void beforeSaveToSnapshot(boolean incremental);
+
+    /**
+     * Returns the given processor, or the processor wrapped in it, if it
+     * supports incremental snapshots. Otherwise returns {@code null}.
+     */
+    @Nullable
+    static IncrementalSnapshotSupport incrementalSnapshotSupport(@Nonnull Processor processor) {
+        Processor unwrapped = processor instanceof ProcessorWrapper
+                ? ((ProcessorWrapper) processor).getWrapped() : processor;
+        return unwrapped instanceof IncrementalSnapshotSupport ? (IncrementalSnapshotSupport) unwrapped : null;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Storage of the keyed state of a processor: a map from a grouping key to
+ * a mutable value, typically an accumulator. The {@link HeapKeyedStateStore}
+ * keeps the values as plain objects, the {@link OffHeapKeyedStateStore}
+ * keeps them serialized in native memory, see {@link
+ * JobConfig#setOffHeapStateEnabled(boolean)}.
+ * <p>
+ * A value returned from {@link #get} must not be changed. A value returned
+ * from {@link #getForUpdate} or {@link #computeIfAbsent} can be changed,
+ * but only until the next call to any other method of the store or of
+ * another store from the same {@linkplain #keyedStateStoreSupplier
+ * supplier}: a store that doesn't keep the values as objects might write
+ * the changes back and discard the object at that point.
+ * <p>
+ * A store that's no longer needed must be {@linkplain #close() closed}.
+ * <p>
+ * Null values aren't supported. Not thread-safe.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public interface KeyedStateStore<K, V> extends Iterable<Entry<K, V>> {
+
+    /**
+     * Returns the value of the key, or {@code null}, if there's none. The
+     * caller must not change the returned value.
+     */
+    @Nullable
+    V get(@Nonnull K key);
+
+    /**
+     * Returns the value of the key, or {@code null}, if there's none. The
+     * caller can change the returned value.
+     */
+    @Nullable
+    V getForUpdate(@Nonnull K key);
+
+    /**
+     * Returns the value of the key, creating it if there's none. The caller
+     * can change the returned value.
+     */
+    @Nonnull
+    V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn);
+
+    /**
+     * Sets the value of the key and returns the previous one, if any.
+     */
+    @Nullable
+    V put(@Nonnull K key, @Nonnull V value);
+
+    /**
+     * Removes the key and returns its value, if any.
+     */
+    @Nullable
+    V remove(@Nonnull K key);
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns an iterator over the entries. The caller must not change the
+     * values and the keys must not be added or removed while the iterator
+     * is used.
+     */
+    @Nonnull @Override
+    Iterator<Entry<K, V>> iterator();
+
+    /**
+     * Releases the memory held by the store. The store must not be used
+     * afterwards. Calling it again has no effect.
+     */
+    default void close() {
+    }
+
+    /**
+     * Returns a supplier of the stores for the keyed state of the processor
+     * with the given context, as configured in its {@link JobConfig}. The
+     * stores from one supplier share their memory, so the processor should
+     * call this once.
+     */
+    @Nonnull
+    static <K, V> Supplier<KeyedStateStore<K, V>> keyedStateStoreSupplier(@Nonnull Processor.Context context) {
+        if (!context.jobConfig().isOffHeapStateEnabled()) {
+            return HeapKeyedStateStore::new;
+        }
+        SerializationService serializationService =
+                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        OffHeapMemoryPool pool = new OffHeapMemoryPool(OffHeapKeyedStateStore.DEFAULT_MAX_MATERIALIZED);
+        return () -> new OffHeapKeyedStateStore<>(serializationService, pool);
+    }
+}
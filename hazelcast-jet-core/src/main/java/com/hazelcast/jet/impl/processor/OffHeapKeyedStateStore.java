@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * A {@link KeyedStateStore} keeping the serialized keys and values in
+ * native memory, outside of the Java heap.
+ * <p>
+ * The entries are stored in an open-addressing hash table with linear
+ * probing. Its slots hold the addresses of the records, which are
+ * allocated sequentially in direct byte buffers of up to 1 MB. A record
+ * consists of the hash and the length of the key, the length and the
+ * reserved capacity of the value, followed by the key and the value. The
+ * keys are compared in their serialized form.
+ * <p>
+ * The values returned for update are kept deserialized in a small on-heap
+ * map and are written back before the entries are iterated or when the
+ * stores of the processor keep too many of them, see {@link
+ * OffHeapMemoryPool}. A value that outgrows its record is moved to a new record and
+ * when more than a half of the allocated memory is taken by the abandoned
+ * records, the live records are compacted into new buffers. The slots of
+ * the hash table don't move unless a key is added or removed.
+ * <p>
+ * The buffers are taken from and returned to an {@link OffHeapMemoryPool},
+ * which the stores of a processor share. They are returned when they're
+ * replaced by larger ones or compacted and when the store is {@linkplain
+ * #close() closed}.
+ */
+public final class OffHeapKeyedStateStore<K, V> implements KeyedStateStore<K, V> {
+
+    static final int DEFAULT_MAX_MATERIALIZED = 1024;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+    private static final int MIN_SEGMENT_SIZE = 1 << 12;
+    private static final int MAX_SEGMENT_SIZE = 1 << 20;
+    private static final int MIN_GARBAGE_TO_COMPACT = 1 << 16;
+
+    private static final int HASH_OFFSET = 0;
+    private static final int KEY_LENGTH_OFFSET = 4;
+    private static final int VALUE_LENGTH_OFFSET = 8;
+    private static final int VALUE_CAPACITY_OFFSET = 12;
+    private static final int HEADER_SIZE = 16;
+
+    private final SerializationService serializationService;
+    private final OffHeapMemoryPool pool;
+    private final Map<K, V> materialized = new HashMap<>();
+
+    // the record addresses, 0 marks an empty slot
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    // the last segment, its position is where the next record is allocated
+    private ByteBuffer tail;
+    private long usedBytes;
+    private long garbageBytes;
+
+    public OffHeapKeyedStateStore(@Nonnull SerializationService serializationService) {
+        this(serializationService, new OffHeapMemoryPool(DEFAULT_MAX_MATERIALIZED));
+    }
+
+    OffHeapKeyedStateStore(@Nonnull SerializationService serializationService, @Nonnull OffHeapMemoryPool pool) {
+        this.serializationService = serializationService;
+        this.pool = pool;
+        this.slots = allocateSlots(INITIAL_CAPACITY);
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    @Nullable @Override
+    public V get(@Nonnull K key) {
+        V value = materialized.get(key);
+        if (value != null) {
+            return value;
+        }
+        Data keyData = serializationService.toData(key);
+        int slot = findSlot(keyData.toByteArray(), keyData.hashCode());
+        return slot >= 0 ? readValue(slotAddress(slot)) : null;
+    }
+
+    @Nullable @Override
+    public V getForUpdate(@Nonnull K key) {
+        V value = materialized.get(key);
+        if (value == null) {
+            value = get(key);
+            if (value != null) {
+                materialize(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Nonnull @Override
+    public V computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> createFn) {
+        V value = materialized.get(key);
+        if (value != null) {
+            return value;
+        }
+        Data keyData = serializationService.toData(key);
+        byte[] keyBytes = keyData.toByteArray();
+        int slot = findSlot(keyBytes, keyData.hashCode());
+        if (slot >= 0) {
+            value = readValue(slotAddress(slot));
+        } else {
+            value = createFn.apply(key);
+            insert(keyBytes, keyData.hashCode(), toBytes(value));
+        }
+        materialize(key, value);
+        return value;
+    }
+
+    @Nullable @Override
+    public V put(@Nonnull K key, @Nonnull V value) {
+        V oldValue = dematerialize(key);
+        Data keyData = serializationService.toData(key);
+        byte[] keyBytes = keyData.toByteArray();
+        int slot = findSlot(keyBytes, keyData.hashCode());
+        if (slot < 0) {
+            insert(keyBytes, keyData.hashCode(), toBytes(value));
+            return null;
+        }
+        if (oldValue == null) {
+            oldValue = readValue(slotAddress(slot));
+        }
+        writeValue(slot, toBytes(value));
+        return oldValue;
+    }
+
+    @Nullable @Override
+    public V remove(@Nonnull K key) {
+        V oldValue = dematerialize(key);
+        Data keyData = serializationService.toData(key);
+        int slot = findSlot(keyData.toByteArray(), keyData.hashCode());
+        if (slot < 0) {
+            return null;
+        }
+        long address = slotAddress(slot);
+        if (oldValue == null) {
+            oldValue = readValue(address);
+        }
+        garbageBytes += recordSize(address);
+        deleteSlot(slot);
+        size--;
+        compactIfNeeded();
+        return oldValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Nonnull @Override
+    public Iterator<Entry<K, V>> iterator() {
+        writeBackMaterialized();
+        return new Iterator<Entry<K, V>>() {
+            private int slot = nextOccupiedSlot(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot <= mask;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long address = slotAddress(slot);
+                slot = nextOccupiedSlot(slot + 1);
+                K key = serializationService.toObject(new HeapData(readKeyBytes(address)));
+                V value = materialized.get(key);
+                return entry(key, value != null ? value : readValue(address));
+            }
+        };
+    }
+
+    /**
+     * Drops the entries and returns the buffers to the pool. The store must
+     * not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (slots == null) {
+            return;
+        }
+        pool.afterDematerialize(this, materialized.size(), 0);
+        materialized.clear();
+        pool.release(slots);
+        slots = null;
+        segments.forEach(pool::release);
+        segments.clear();
+        tail = null;
+        size = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Returns the number of bytes allocated for the records.
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Entry<K, V> e : this) {
+            joiner.add(e.getKey() + "=" + e.getValue());
+        }
+        return joiner.toString();
+    }
+
+    private void materialize(K key, V value) {
+        pool.beforeMaterialize(this);
+        materialized.put(key, value);
+    }
+
+    private V dematerialize(K key) {
+        V value = materialized.remove(key);
+        if (value != null) {
+            pool.afterDematerialize(this, 1, materialized.size());
+        }
+        return value;
+    }
+
+    /**
+     * Writes the values kept deserialized back to the records. Called by the
+     * pool when the stores of the processor keep too many of them.
+     */
+    void writeBackMaterialized() {
+        if (materialized.isEmpty()) {
+            return;
+        }
+        for (Entry<K, V> e : materialized.entrySet()) {
+            Data keyData = serializationService.toData(e.getKey());
+            int slot = findSlot(keyData.toByteArray(), keyData.hashCode());
+            assert slot >= 0 : "materialized key not found: " + e.getKey();
+            writeValue(slot, toBytes(e.getValue()));
+        }
+        pool.afterDematerialize(this, materialized.size(), 0);
+        materialized.clear();
+    }
+
+    // Returns the slot of the key or, if it's not found, -(slot + 1) of the
+    // empty slot that ended the search
+    private int findSlot(byte[] keyBytes, int hash) {
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            long address = slotAddress(slot);
+            if (address == 0) {
+                return -slot - 1;
+            }
+            if (segment(address).getInt(offset(address) + HASH_OFFSET) == hash && keyEquals(address, keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    private int nextOccupiedSlot(int slot) {
+        while (slot <= mask && slotAddress(slot) == 0) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private void insert(byte[] keyBytes, int hash, byte[] valueBytes) {
+        if (size + 1 > (mask + 1) * MAX_LOAD_FACTOR) {
+            resize();
+        }
+        int slot = -findSlot(keyBytes, hash) - 1;
+        assert slot >= 0 : "key already present";
+        setSlotAddress(slot, writeRecord(hash, keyBytes, valueBytes));
+        size++;
+    }
+
+    private void writeValue(int slot, byte[] valueBytes) {
+        long address = slotAddress(slot);
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        if (valueBytes.length <= segment.getInt(offset + VALUE_CAPACITY_OFFSET)) {
+            segment.putInt(offset + VALUE_LENGTH_OFFSET, valueBytes.length);
+            putBytes(segment, offset + HEADER_SIZE + segment.getInt(offset + KEY_LENGTH_OFFSET), valueBytes);
+            return;
+        }
+        int hash = segment.getInt(offset + HASH_OFFSET);
+        setSlotAddress(slot, writeRecord(hash, readKeyBytes(address), valueBytes));
+        garbageBytes += recordSize(address);
+        compactIfNeeded();
+    }
+
+    private long writeRecord(int hash, byte[] keyBytes, byte[] valueBytes) {
+        // reserve some space for the value to grow in place
+        int valueCapacity = valueBytes.length + (valueBytes.length >> 2);
+        long address = allocate(HEADER_SIZE + keyBytes.length + valueCapacity);
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        segment.putInt(offset + HASH_OFFSET, hash);
+        segment.putInt(offset + KEY_LENGTH_OFFSET, keyBytes.length);
+        segment.putInt(offset + VALUE_LENGTH_OFFSET, valueBytes.length);
+        segment.putInt(offset + VALUE_CAPACITY_OFFSET, valueCapacity);
+        putBytes(segment, offset + HEADER_SIZE, keyBytes);
+        putBytes(segment, offset + HEADER_SIZE + keyBytes.length, valueBytes);
+        return address;
+    }
+
+    private long allocate(int recordSize) {
+        if (tail == null || tail.remaining() < recordSize) {
+            int segmentSize = tail == null ? MIN_SEGMENT_SIZE : Math.min(MAX_SEGMENT_SIZE, tail.capacity() * 2);
+            tail = pool.allocate(Math.max(segmentSize, recordSize));
+            segments.add(tail);
+        }
+        int offset = tail.position();
+        tail.position(offset + recordSize);
+        usedBytes += recordSize;
+        return (long) segments.size() << Integer.SIZE | offset;
+    }
+
+    private void resize() {
+        ByteBuffer oldSlots = slots;
+        int oldCapacity = mask + 1;
+        slots = allocateSlots(oldCapacity * 2);
+        mask = oldCapacity * 2 - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            long address = oldSlots.getLong(i * Long.BYTES);
+            if (address != 0) {
+                int slot = spread(segment(address).getInt(offset(address) + HASH_OFFSET)) & mask;
+                while (slotAddress(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                setSlotAddress(slot, address);
+            }
+        }
+        pool.release(oldSlots);
+    }
+
+    // a pooled buffer isn't cleared, but an empty slot must be 0
+    private ByteBuffer allocateSlots(int capacity) {
+        ByteBuffer buffer = pool.allocate(capacity * Long.BYTES);
+        for (int i = 0; i < capacity; i++) {
+            buffer.putLong(i * Long.BYTES, 0);
+        }
+        return buffer;
+    }
+
+    // Removes the entry from the slot, moving back the entries following it
+    // in the probe sequence so that they can still be found
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        for (int i = (slot + 1) & mask; ; i = (i + 1) & mask) {
+            long address = slotAddress(i);
+            if (address == 0) {
+                break;
+            }
+            int home = spread(segment(address).getInt(offset(address) + HASH_OFFSET)) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                setSlotAddress(gap, address);
+                gap = i;
+            }
+        }
+        setSlotAddress(gap, 0);
+    }
+
+    private void compactIfNeeded() {
+        if (garbageBytes < MIN_GARBAGE_TO_COMPACT || garbageBytes * 2 < usedBytes) {
+            return;
+        }
+        List<ByteBuffer> oldSegments = new ArrayList<>(segments);
+        segments.clear();
+        tail = null;
+        usedBytes = 0;
+        garbageBytes = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            long address = slotAddress(slot);
+            if (address != 0) {
+                ByteBuffer segment = oldSegments.get(segmentIndex(address));
+                int offset = offset(address);
+                byte[] keyBytes = getBytes(segment, offset + HEADER_SIZE, segment.getInt(offset + KEY_LENGTH_OFFSET));
+                byte[] valueBytes = getBytes(segment, offset + HEADER_SIZE + keyBytes.length,
+                        segment.getInt(offset + VALUE_LENGTH_OFFSET));
+                setSlotAddress(slot, writeRecord(segment.getInt(offset + HASH_OFFSET), keyBytes, valueBytes));
+            }
+        }
+        oldSegments.forEach(pool::release);
+    }
+
+    private boolean keyEquals(long address, byte[] keyBytes) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        if (segment.getInt(offset + KEY_LENGTH_OFFSET) != keyBytes.length) {
+            return false;
+        }
+        offset += HEADER_SIZE;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (segment.get(offset + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] readKeyBytes(long address) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        return getBytes(segment, offset + HEADER_SIZE, segment.getInt(offset + KEY_LENGTH_OFFSET));
+    }
+
+    private V readValue(long address) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        int valueOffset = offset + HEADER_SIZE + segment.getInt(offset + KEY_LENGTH_OFFSET);
+        return serializationService.toObject(
+                new HeapData(getBytes(segment, valueOffset, segment.getInt(offset + VALUE_LENGTH_OFFSET))));
+    }
+
+    private int recordSize(long address) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        return HEADER_SIZE + segment.getInt(offset + KEY_LENGTH_OFFSET) + segment.getInt(offset + VALUE_CAPACITY_OFFSET);
+    }
+
+    private byte[] toBytes(V value) {
+        return serializationService.toData(value).toByteArray();
+    }
+
+    private long slotAddress(int slot) {
+        return slots.getLong(slot * Long.BYTES);
+    }
+
+    private void setSlotAddress(int slot, long address) {
+        slots.putLong(slot * Long.BYTES, address);
+    }
+
+    private ByteBuffer segment(long address) {
+        return segments.get(segmentIndex(address));
+    }
+
+    // the segment index is stored incremented by one so that no address is 0
+    private static int segmentIndex(long address) {
+        return (int) (address >>> Integer.SIZE) - 1;
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> Short.SIZE);
+    }
+
+    private static void putBytes(ByteBuffer segment, int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            segment.put(offset + i, bytes[i]);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer segment, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = segment.get(offset + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.util.QuickMath;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The resources shared by the {@link OffHeapKeyedStateStore}s of one
+ * processor, e.g. by the stores of the frames of a {@link SlidingWindowP}.
+ * <p>
+ * The direct byte buffers released by a closed store are pooled and handed
+ * out to the stores created later, so that a processor that keeps creating
+ * and closing stores doesn't keep allocating native memory. The buffers
+ * have power-of-two capacities. The pool retains at most as many free
+ * bytes as there are in use, but at least {@link #MIN_RETAINED_BYTES}; the
+ * excess buffers, the largest first, are dropped to be freed by the
+ * garbage collector.
+ * <p>
+ * The pool also bounds the number of the values all the stores keep
+ * deserialized: when it's reached, all the stores write them back.
+ * <p>
+ * Not thread-safe.
+ */
+final class OffHeapMemoryPool {
+
+    static final long MIN_RETAINED_BYTES = 1 << 20;
+
+    private final int maxMaterialized;
+    private final Set<OffHeapKeyedStateStore<?, ?>> storesWithMaterialized = new LinkedHashSet<>();
+    private int materializedCount;
+
+    // the free buffers, indexed by the log2 of their capacity
+    private final List<ArrayDeque<ByteBuffer>> freeBuffers = new ArrayList<>();
+    private long usedBytes;
+    private long freeBytes;
+
+    OffHeapMemoryPool(int maxMaterialized) {
+        this.maxMaterialized = maxMaterialized;
+        for (int i = 0; i < Integer.SIZE; i++) {
+            freeBuffers.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Returns a buffer with a capacity of at least the given size, rounded
+     * up to a power of two. The contents of a reused buffer aren't cleared.
+     */
+    @Nonnull
+    ByteBuffer allocate(int size) {
+        int capacity = QuickMath.nextPowerOfTwo(size);
+        ByteBuffer buffer = freeBuffers.get(QuickMath.log2(capacity)).poll();
+        if (buffer != null) {
+            freeBytes -= capacity;
+            buffer.clear();
+        } else {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+        usedBytes += capacity;
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #allocate} to the pool. The
+     * caller must not use it afterwards.
+     */
+    void release(@Nonnull ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        assert QuickMath.isPowerOfTwo(capacity) : "buffer not allocated by the pool";
+        usedBytes -= capacity;
+        freeBuffers.get(QuickMath.log2(capacity)).add(buffer);
+        freeBytes += capacity;
+        long maxFreeBytes = Math.max(usedBytes, MIN_RETAINED_BYTES);
+        for (int i = freeBuffers.size() - 1; i >= 0 && freeBytes > maxFreeBytes; i--) {
+            ArrayDeque<ByteBuffer> buffers = freeBuffers.get(i);
+            while (freeBytes > maxFreeBytes && !buffers.isEmpty()) {
+                buffers.poll();
+                freeBytes -= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * Called by a store before it deserializes a value to keep. Makes all
+     * the stores write their values back, if there are too many.
+     */
+    void beforeMaterialize(@Nonnull OffHeapKeyedStateStore<?, ?> store) {
+        if (materializedCount >= maxMaterialized) {
+            for (OffHeapKeyedStateStore<?, ?> s : storesWithMaterialized.toArray(new OffHeapKeyedStateStore[0])) {
+                s.writeBackMaterialized();
+            }
+            assert materializedCount == 0 : "materializedCount=" + materializedCount;
+        }
+        storesWithMaterialized.add(store);
+        materializedCount++;
+    }
+
+    /**
+     * Called by a store after it wrote back or dropped {@code count} of the
+     * values it kept, {@code remaining} is the number of those still kept.
+     */
+    void afterDematerialize(@Nonnull OffHeapKeyedStateStore<?, ?> store, int count, int remaining) {
+        materializedCount -= count;
+        if (remaining == 0) {
+            storesWithMaterialized.remove(store);
+        }
+    }
+
+    /**
+     * Returns the bytes handed out and not released.
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the bytes retained for reuse.
+     */
+    long freeBytes() {
+        return freeBytes;
+    }
+
+    int materializedCount() {
+        return materializedCount;
+    }
+}
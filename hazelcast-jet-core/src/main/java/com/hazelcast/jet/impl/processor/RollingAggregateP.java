@@ -25,11 +25,12 @@ import com.hazelcast.jet.function.DistributedTriFunction;
 import com.hazelcast.jet.pipeline.GeneralStageWithKey;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
 
 /**
  * Backing processor for {@link GeneralStageWithKey#rollingAggregate}.
@@ -39,13 +40,18 @@ import static com.hazelcast.jet.Traversers.traverseIterable;
  * @param <A> type of the accumulator
  * @param <R> type of the output item
  */
-public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor {
+public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor implements IncrementalSnapshotSupport {
     private final FlatMapper<T, OUT> flatMapper;
 
-    private final Map<K, A> keyToAcc = new HashMap<>();
+    private KeyedStateStore<K, A> keyToAcc = new HeapKeyedStateStore<>();
     private final ResettableSingletonTraverser<OUT> outputTraverser = new ResettableSingletonTraverser<>();
     private Traverser<Entry<K, A>> snapshotTraverser;
 
+    // keys changed since the last snapshot. It's null if we don't need to
+    // track them
+    private Set<K> dirtyKeys;
+    private boolean incrementalSnapshot;
+
     public RollingAggregateP(
             @Nonnull DistributedFunction<? super T, ? extends K> keyFn,
             @Nonnull AggregateOperation1<? super T, A, ? extends R> aggrOp,
@@ -55,6 +61,9 @@ public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
             K key = keyFn.apply(item);
             A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
             aggrOp.accumulateFn().accept(acc, item);
+            if (dirtyKeys != null) {
+                dirtyKeys.add(key);
+            }
             R aggResult = aggrOp.exportFn().apply(acc);
             OUT output = mapToOutputFn.apply(item, key, aggResult);
             if (output != null) {
@@ -64,6 +73,14 @@ public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
         });
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        keyToAcc = KeyedStateStore.<K, A>keyedStateStoreSupplier(context).get();
+        if (context.snapshottingEnabled() && context.jobConfig().isIncrementalSnapshotsEnabled()) {
+            dirtyKeys = new HashSet<>();
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
@@ -73,15 +90,34 @@ public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
     @Override
     public boolean saveToSnapshot() {
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(keyToAcc.entrySet())
-                    .onFirstNull(() -> snapshotTraverser = null);
+            // the keys are never removed, so an incremental snapshot saves no tombstones
+            Traverser<Entry<K, A>> entries = incrementalSnapshot
+                    ? traverseIterable(dirtyKeys).map(key -> entry(key, keyToAcc.get(key)))
+                    : traverseIterable(keyToAcc);
+            snapshotTraverser = entries
+                    .onFirstNull(() -> {
+                        snapshotTraverser = null;
+                        if (dirtyKeys != null) {
+                            dirtyKeys.clear();
+                        }
+                    });
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Override
+    public void beforeSaveToSnapshot(boolean incremental) {
+        incrementalSnapshot = incremental && dirtyKeys != null;
+    }
+
     @Override
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
         @SuppressWarnings("unchecked") A old = keyToAcc.put((K) key, (A) value);
         assert old == null : "Duplicate key '" + key + '\'';
     }
+
+    @Override
+    public void close() {
+        keyToAcc.close();
+    }
 }
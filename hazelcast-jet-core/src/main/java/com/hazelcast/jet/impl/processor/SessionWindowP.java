@@ -36,10 +36,8 @@ import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
@@ -49,12 +47,14 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.TOMBSTONE;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
@@ -75,11 +75,12 @@ import static java.util.Objects.requireNonNull;
  * @param <A> type of the accumulator object
  * @param <R> type of the finished result
  */
-public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
+public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor
+        implements IncrementalSnapshotSupport, CopyOnWriteSnapshotSupport {
     private static final Watermark COMPLETING_WM = new Watermark(Long.MAX_VALUE);
 
     // exposed for testing, to check for memory leaks
-    final Map<K, Windows<A>> keyToWindows = new HashMap<>();
+    CopyOnWriteStateMap<K, Windows<A>> keyToWindows = new CopyOnWriteStateMap<>(this::copyWindows);
     final SortedMap<Long, Set<K>> deadlineToKeys = new TreeMap<>();
     long currentWatermark = Long.MIN_VALUE;
 
@@ -108,6 +109,11 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     private Traverser snapshotTraverser;
     private long minRestoredCurrentWatermark = Long.MAX_VALUE;
 
+    // keys whose windows changed since the last snapshot. It's null if we
+    // don't need to track them
+    private Set<K> dirtyKeys;
+    private boolean incrementalSnapshot;
+
     // extracted lambdas to reduce GC litter
     private final Function<K, Windows<A>> newWindowsFunction = k -> {
         lazyIncrement(totalKeys);
@@ -136,6 +142,11 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     @Override
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
+        keyToWindows = new CopyOnWriteStateMap<>(
+                KeyedStateStore.<K, Windows<A>>keyedStateStoreSupplier(context).get(), this::copyWindows);
+        if (context.snapshottingEnabled() && context.jobConfig().isIncrementalSnapshotsEnabled()) {
+            dirtyKeys = new HashSet<>();
+        }
     }
 
     @Override
@@ -174,7 +185,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         Stream<OUT> closedWindows = windowsToClose
                 .values().stream()
                 .flatMap(Set::stream)
-                .map(key -> closeWindows(keyToWindows.get(key), key, wm.timestamp()))
+                .map(key -> closeWindows(keyToWindows.getForUpdate(key), key, wm.timestamp()))
                 .flatMap(List::stream);
         return traverseStream(closedWindows)
                 .onFirstNull(() -> {
@@ -201,13 +212,59 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     @Override
     public boolean saveToSnapshot() {
         if (snapshotTraverser == null) {
-            snapshotTraverser = Traversers.<Object>traverseIterable(keyToWindows.entrySet())
+            Traverser<Object> entries = incrementalSnapshot
+                    ? Traversers.traverseIterable(dirtyKeys).<Object>map(key -> {
+                        Windows<A> windows = keyToWindows.get(key);
+                        return entry(key, windows != null ? windows : TOMBSTONE);
+                    })
+                    : Traversers.<Object>traverseIterable(keyToWindows);
+            snapshotTraverser = entries
                     .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
-                    .onFirstNull(() -> snapshotTraverser = null);
+                    .onFirstNull(() -> {
+                        snapshotTraverser = null;
+                        if (dirtyKeys != null) {
+                            dirtyKeys.clear();
+                        }
+                    });
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Override
+    public void beforeSaveToSnapshot(boolean incremental) {
+        incrementalSnapshot = incremental && dirtyKeys != null;
+    }
+
+    @Override
+    public Traverser<Entry<Object, Object>> takeSnapshotCopy() {
+        keyToWindows.takeCopy();
+        Traverser<Entry<Object, Object>> entries;
+        if (incrementalSnapshot) {
+            Set<K> keys = dirtyKeys;
+            dirtyKeys = new HashSet<>();
+            entries = Traversers.traverseIterable(keys).map(key -> {
+                Windows<A> windows = keyToWindows.copiedValue(key);
+                return entry(key, windows != null ? windows : TOMBSTONE);
+            });
+        } else {
+            if (dirtyKeys != null) {
+                dirtyKeys.clear();
+            }
+            entries = keyToWindows.traverseCopy().map(e -> entry(e.getKey(), e.getValue()));
+        }
+        return entries
+                .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
+                .onFirstNull(keyToWindows::releaseCopy);
+    }
+
+    private Windows<A> copyWindows(Windows<A> windows) {
+        return windows.deepCopy(acc -> {
+            A copy = aggrOp.createFn().get();
+            combineFn.accept(copy, acc);
+            return copy;
+        });
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
@@ -235,7 +292,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     public boolean finishSnapshotRestore() {
         assert deadlineToKeys.isEmpty();
         // populate deadlineToKeys
-        for (Entry<K, Windows<A>> entry : keyToWindows.entrySet()) {
+        for (Entry<K, Windows<A>> entry : keyToWindows) {
             for (long end : entry.getValue().ends) {
                 addToDeadlines(entry.getKey(), end);
             }
@@ -246,7 +303,15 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         return true;
     }
 
+    @Override
+    public void close() {
+        keyToWindows.close();
+    }
+
     private void addItem(int ordinal, Windows<A> w, K key, long timestamp, Object item) {
+        if (dirtyKeys != null) {
+            dirtyKeys.add(key);
+        }
         aggrOp.accumulateFn(ordinal).accept(resolveAcc(w, key, timestamp), item);
     }
 
@@ -254,6 +319,9 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         if (w == null) {
             return emptyList();
         }
+        if (dirtyKeys != null) {
+            dirtyKeys.add(key);
+        }
         List<OUT> results = new ArrayList<>();
         int i = 0;
         for (; i < w.size && w.ends[i] < wm; i++) {
@@ -340,6 +408,18 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             arraycopy(accs, from, accs, to, length);
         }
 
+        private Windows<A> deepCopy(UnaryOperator<A> copyAccFn) {
+            Windows<A> copy = new Windows<>();
+            copy.size = size;
+            copy.starts = Arrays.copyOf(starts, starts.length);
+            copy.ends = Arrays.copyOf(ends, ends.length);
+            copy.accs = Arrays.copyOf(accs, accs.length);
+            for (int i = 0; i < size; i++) {
+                copy.accs[i] = copyAccFn.apply(accs[i]);
+            }
+            return copy;
+        }
+
         private void expandIfNeeded() {
             if (size == starts.length) {
                 starts = Arrays.copyOf(starts, 2 * starts.length);
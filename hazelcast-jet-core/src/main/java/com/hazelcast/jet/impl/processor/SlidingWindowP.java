@@ -38,22 +38,26 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
-import java.util.stream.LongStream;
 
 import static com.hazelcast.jet.Traversers.traverseIterable;
-import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
-import static com.hazelcast.jet.function.DistributedComparator.naturalOrder;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.TOMBSTONE;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
@@ -61,7 +65,7 @@ import static com.hazelcast.jet.impl.util.Util.logLateEvent;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
-import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -71,10 +75,11 @@ import static java.util.Objects.requireNonNull;
  * @param <A> type of the frame accumulator object
  * @param <R> type of the finished result
  */
-public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
+public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor
+        implements IncrementalSnapshotSupport, CopyOnWriteSnapshotSupport {
 
     // package-visible for testing
-    final Map<Long, Map<K, A>> tsToKeyToAcc = new HashMap<>();
+    final FrameRingBuffer<CopyOnWriteStateMap<K, A>> tsToKeyToAcc;
     Map<K, A> slidingWindow;
     long nextWinToEmit = Long.MIN_VALUE;
 
@@ -105,7 +110,9 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     @Nonnull
     private final A emptyAcc;
     private Traverser<Object> flushTraverser;
-    private Traverser<Entry> snapshotTraverser;
+    private Traverser<Entry<Object, Object>> snapshotTraverser;
+    // the frames of the copy taken by takeSnapshotCopy(), until it's saved
+    private FrameRingBuffer<CopyOnWriteStateMap<K, A>> copiedFrames;
 
     // This field tracks the upper bound for the keyset of tsToKeyToAcc.
     // It serves as an optimization that avoids a full scan over the
@@ -116,8 +123,15 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private long minRestoredNextWinToEmit = Long.MAX_VALUE;
     private ProcessingGuarantee processingGuarantee;
 
+    // keys changed or evicted since the last snapshot, per frame timestamp.
+    // It's null if we don't need to track them
+    private Map<Long, Set<K>> tsToDirtyKeys;
+    private boolean incrementalSnapshot;
+
+    private Supplier<KeyedStateStore<K, A>> stateStoreSupplier = HeapKeyedStateStore::new;
+
     // extracted lambdas to reduce GC litter
-    private Function<Long, Map<K, A>> createMapPerTsFunction;
+    private LongFunction<CopyOnWriteStateMap<K, A>> createMapPerTsFunction;
     private Function<K, A> createAccFunction;
 
     @SuppressWarnings("unchecked")
@@ -135,6 +149,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             requireNonNull(aggrOp.combineFn(), "AggregateOperation.combineFn is required for sliding windows");
         }
         this.winPolicy = winPolicy;
+        this.tsToKeyToAcc = new FrameRingBuffer<>(winPolicy.frameSize(), winPolicy.frameOffset());
         this.frameTimestampFns = (List<ToLongFunction<Object>>) frameTimestampFns;
         this.keyFns = (List<Function<Object, ? extends K>>) keyFns;
         this.aggrOp = aggrOp;
@@ -149,7 +164,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
 
         createMapPerTsFunction = x -> {
             lazyIncrement(totalFrames);
-            return new HashMap<>();
+            return new CopyOnWriteStateMap<>(stateStoreSupplier.get(), this::copyAcc);
         };
         createAccFunction = k -> {
             lazyIncrement(totalKeysInFrames);
@@ -160,6 +175,10 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     @Override
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
+        stateStoreSupplier = KeyedStateStore.keyedStateStoreSupplier(context);
+        if (isLastStage && context.snapshottingEnabled() && context.jobConfig().isIncrementalSnapshotsEnabled()) {
+            tsToDirtyKeys = new HashMap<>();
+        }
     }
 
     @Override
@@ -184,6 +203,9 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 .computeIfAbsent(key, createAccFunction);
         aggrOp.accumulateFn(ordinal).accept(acc, item);
         topTs = max(topTs, frameTs);
+        if (tsToDirtyKeys != null) {
+            tsToDirtyKeys.computeIfAbsent(frameTs, x -> new HashSet<>()).add(key);
+        }
         return true;
     }
 
@@ -203,19 +225,102 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return flushBuffers();
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(tsToKeyToAcc.entrySet())
-                    .<Entry>flatMap(e -> traverseIterable(e.getValue().entrySet())
-                            .map(e2 -> entry(new SnapshotKey(e.getKey(), e2.getKey()), e2.getValue()))
-                    )
+            snapshotTraverser = (incrementalSnapshot ? dirtyEntriesTraverser() : allEntriesTraverser())
                     .append(entry(broadcastKey(Keys.NEXT_WIN_TO_EMIT), nextWinToEmit))
                     .onFirstNull(() -> {
                         logFine(getLogger(), "Saved nextWinToEmit: %s", nextWinToEmit);
                         snapshotTraverser = null;
+                        if (tsToDirtyKeys != null) {
+                            tsToDirtyKeys.clear();
+                        }
                     });
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Override
+    public void beforeSaveToSnapshot(boolean incremental) {
+        incrementalSnapshot = incremental && tsToDirtyKeys != null;
+    }
+
+    private Traverser<Entry<Object, Object>> allEntriesTraverser() {
+        return traverseIterable(tsToKeyToAcc)
+                .flatMap(e -> traverseIterable(e.getValue())
+                        .map(e2 -> entry(new SnapshotKey(e.getKey(), e2.getKey()), e2.getValue())));
+    }
+
+    private Traverser<Entry<Object, Object>> dirtyEntriesTraverser() {
+        return dirtyEntriesTraverser(tsToDirtyKeys, tsToKeyToAcc, CopyOnWriteStateMap::get);
+    }
+
+    private Traverser<Entry<Object, Object>> dirtyEntriesTraverser(
+            Map<Long, Set<K>> dirtyKeys,
+            FrameRingBuffer<CopyOnWriteStateMap<K, A>> frames,
+            BiFunction<CopyOnWriteStateMap<K, A>, K, A> getAccFn
+    ) {
+        return traverseIterable(dirtyKeys.entrySet())
+                .flatMap(e -> {
+                    CopyOnWriteStateMap<K, A> keyToAcc = frames.get(e.getKey());
+                    return traverseIterable(e.getValue())
+                            .map(key -> {
+                                A acc = keyToAcc != null ? getAccFn.apply(keyToAcc, key) : null;
+                                return entry(new SnapshotKey(e.getKey(), key), acc != null ? acc : TOMBSTONE);
+                            });
+                });
+    }
+
+    @Override
+    public Traverser<Entry<Object, Object>> takeSnapshotCopy() {
+        // The first stage flushes its frames instead of saving them. We need
+        // the combineFn to copy the accumulators.
+        if (!isLastStage || flushTraverser != null || combineFn == null) {
+            return null;
+        }
+        FrameRingBuffer<CopyOnWriteStateMap<K, A>> frames = tsToKeyToAcc.copy();
+        for (Entry<Long, CopyOnWriteStateMap<K, A>> frame : frames) {
+            frame.getValue().takeCopy();
+        }
+        copiedFrames = frames;
+        Traverser<Entry<Object, Object>> entries;
+        if (incrementalSnapshot) {
+            Map<Long, Set<K>> dirtyKeys = tsToDirtyKeys;
+            tsToDirtyKeys = new HashMap<>();
+            entries = dirtyEntriesTraverser(dirtyKeys, frames, CopyOnWriteStateMap::copiedValue);
+        } else {
+            if (tsToDirtyKeys != null) {
+                tsToDirtyKeys.clear();
+            }
+            entries = traverseIterable(frames)
+                    .flatMap(e -> e.getValue().traverseCopy()
+                            .map(e2 -> entry(new SnapshotKey(e.getKey(), e2.getKey()), e2.getValue())));
+        }
+        long savedNextWinToEmit = nextWinToEmit;
+        return entries
+                .append(entry(broadcastKey(Keys.NEXT_WIN_TO_EMIT), savedNextWinToEmit))
+                .onFirstNull(() -> {
+                    logFine(getLogger(), "Saved nextWinToEmit: %s", savedNextWinToEmit);
+                    releaseCopiedFrames();
+                });
+    }
+
+    private void releaseCopiedFrames() {
+        for (Entry<Long, CopyOnWriteStateMap<K, A>> frame : copiedFrames) {
+            frame.getValue().releaseCopy();
+            // close the frames that were evicted while the copy was being saved
+            if (tsToKeyToAcc.get(frame.getKey()) != frame.getValue()) {
+                frame.getValue().close();
+            }
+        }
+        copiedFrames = null;
+    }
+
+    private A copyAcc(A acc) {
+        assert combineFn != null : "combineFn == null";
+        A copy = aggrOp.createFn().get();
+        combineFn.accept(copy, acc);
+        return copy;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
@@ -257,6 +362,17 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         return true;
     }
 
+    @Override
+    public void close() {
+        if (copiedFrames != null) {
+            // the copy won't be saved, this closes the evicted frames in it
+            releaseCopiedFrames();
+        }
+        for (Entry<Long, CopyOnWriteStateMap<K, A>> frame : tsToKeyToAcc) {
+            frame.getValue().close();
+        }
+    }
+
     private Traverser<Object> windowTraverserAndEvictor(long wm) {
         long rangeStart;
         if (nextWinToEmit != Long.MIN_VALUE) {
@@ -273,26 +389,18 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             // initialized using the "add leading/deduct trailing" approach because we
             // start from a window that covers at most one existing frame -- the lowest
             // one on record.
-            long bottomTs = tsToKeyToAcc
-                    .keySet().stream()
-                    .min(naturalOrder())
-                    .orElseThrow(() -> new AssertionError("Failed to find the min key in a non-empty map"));
-            rangeStart = min(bottomTs, winPolicy.floorFrameTs(wm));
-        }
-        return traverseStream(range(rangeStart, wm, winPolicy.frameSize()).boxed())
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
-                        .map(e -> mapToOutputFn.apply(
-                                winEnd - winPolicy.windowSize(), winEnd,
-                                e.getKey(), aggrOp.finishFn().apply(e.getValue())))
-                        .onFirstNull(() -> completeWindow(winEnd)));
+            rangeStart = min(tsToKeyToAcc.bottomTs(), winPolicy.floorFrameTs(wm));
+        }
+        return new WindowTraverser(rangeStart, wm);
     }
 
-    private Map<K, A> computeWindow(long frameTs) {
+    private Iterable<Entry<K, A>> computeWindow(long frameTs) {
         if (winPolicy.isTumbling()) {
-            return tsToKeyToAcc.getOrDefault(frameTs, emptyMap());
+            CopyOnWriteStateMap<K, A> frame = tsToKeyToAcc.get(frameTs);
+            return frame != null ? frame : emptyList();
         }
         if (aggrOp.deductFn() == null) {
-            return recomputeWindow(frameTs);
+            return recomputeWindow(frameTs).entrySet();
         }
         if (slidingWindow == null) {
             slidingWindow = recomputeWindow(frameTs);
@@ -300,7 +408,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             // add leading-edge frame
             patchSlidingWindow(aggrOp.combineFn(), tsToKeyToAcc.get(frameTs));
         }
-        return slidingWindow;
+        return slidingWindow.entrySet();
     }
 
     private Map<K, A> recomputeWindow(long frameTs) {
@@ -310,7 +418,11 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
              ts += winPolicy.frameSize()
         ) {
             assert combineFn != null : "combineFn == null";
-            for (Entry<K, A> entry : tsToKeyToAcc.getOrDefault(ts, emptyMap()).entrySet()) {
+            CopyOnWriteStateMap<K, A> frame = tsToKeyToAcc.get(ts);
+            if (frame == null) {
+                continue;
+            }
+            for (Entry<K, A> entry : frame) {
                 combineFn.accept(
                         window.computeIfAbsent(entry.getKey(), k -> aggrOp.createFn().get()),
                         entry.getValue());
@@ -319,11 +431,11 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         return window;
     }
 
-    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, Map<K, A> patchingFrame) {
+    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, CopyOnWriteStateMap<K, A> patchingFrame) {
         if (patchingFrame == null) {
             return;
         }
-        for (Entry<K, A> e : patchingFrame.entrySet()) {
+        for (Entry<K, A> e : patchingFrame) {
             slidingWindow.compute(e.getKey(), (k, acc) -> {
                 A result = acc != null ? acc : aggrOp.createFn().get();
                 patchOp.accept(result, e.getValue());
@@ -334,18 +446,35 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
 
     private void completeWindow(long frameTs) {
         long frameToEvict = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
-        Map<K, A> evictedFrame = tsToKeyToAcc.remove(frameToEvict);
+        CopyOnWriteStateMap<K, A> evictedFrame = tsToKeyToAcc.remove(frameToEvict);
         if (evictedFrame != null) {
             lazyAdd(totalKeysInFrames, -evictedFrame.size());
             lazyAdd(totalFrames, -1);
+            if (tsToDirtyKeys != null) {
+                Set<K> dirtyKeys = tsToDirtyKeys.computeIfAbsent(frameToEvict, x -> new HashSet<>());
+                for (Entry<K, A> e : evictedFrame) {
+                    dirtyKeys.add(e.getKey());
+                }
+            }
             if (!winPolicy.isTumbling() && aggrOp.deductFn() != null) {
                 // deduct trailing-edge frame
                 patchSlidingWindow(aggrOp.deductFn(), evictedFrame);
             }
+            // a frame in the copy being saved is closed when the copy is released
+            if (copiedFrames == null || copiedFrames.get(frameToEvict) != evictedFrame) {
+                evictedFrame.close();
+            }
+        }
+        assert keysInFrames() == totalKeysInFrames.get()
+                : "totalKeysInFrames mismatch, expected=" + keysInFrames() + ", actual=" + totalKeysInFrames.get();
+    }
+
+    private long keysInFrames() {
+        long count = 0;
+        for (Entry<Long, CopyOnWriteStateMap<K, A>> frame : tsToKeyToAcc) {
+            count += frame.getValue().size();
         }
-        assert tsToKeyToAcc.values().stream().mapToInt(Map::size).sum() == totalKeysInFrames.get()
-                : "totalKeysInFrames mismatch, expected=" + tsToKeyToAcc.values().stream().mapToInt(Map::size).sum()
-                + ", actual=" + totalKeysInFrames.get();
+        return count;
     }
 
     private boolean flushBuffers() {
@@ -360,13 +489,42 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     }
 
     /**
-     * Returns a stream of {@code long}s:
-     * {@code for (long i = start; i <= end; i += step) yield i;}
+     * Emits the windows ending at {@code start}, {@code start + frameSize},
+     * ... up to {@code end}, completing each of them after its last item
+     * is emitted. Equivalent to a flat-mapping traverser over the range
+     * of window ends, but without boxing them.
      */
-    private static LongStream range(long start, long end, long step) {
-        return start > end
-                ? LongStream.empty()
-                : LongStream.iterate(start, n -> n + step).limit(1 + (end - start) / step);
+    private final class WindowTraverser implements Traverser<Object> {
+        private long winEnd;
+        private long remainingWindows;
+        private Iterator<Entry<K, A>> window;
+
+        WindowTraverser(long start, long end) {
+            this.winEnd = start;
+            this.remainingWindows = start > end ? 0 : 1 + (end - start) / winPolicy.frameSize();
+        }
+
+        @Override
+        public Object next() {
+            while (remainingWindows > 0) {
+                if (window == null) {
+                    window = computeWindow(winEnd).iterator();
+                }
+                while (window.hasNext()) {
+                    Entry<K, A> e = window.next();
+                    OUT result = mapToOutputFn.apply(winEnd - winPolicy.windowSize(), winEnd,
+                            e.getKey(), aggrOp.finishFn().apply(e.getValue()));
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                window = null;
+                completeWindow(winEnd);
+                winEnd += winPolicy.frameSize();
+                remainingWindows--;
+            }
+            return null;
+        }
     }
 
     // package-visible for test
@@ -31,6 +31,15 @@ public interface AsyncSnapshotWriter {
 
     boolean hasPendingAsyncOps();
 
+    /**
+     * Sets the action to run after each async write completes. It's run on
+     * the thread that completed the write, so that the caller waiting for
+     * the {@linkplain #hasPendingAsyncOps() pending writes} or for a
+     * successful {@link #offer} doesn't have to poll.
+     */
+    default void setAsyncOpDoneAction(Runnable action) {
+    }
+
     /**
      * @return any error occurred during writing to underlying map. Error is
      * reported only once, next call will return {@code null} unless another
@@ -41,6 +50,22 @@ public interface AsyncSnapshotWriter {
     boolean isEmpty();
 
     long getTotalPayloadBytes();
+    long getTotalStoredBytes();
     long getTotalKeys();
     long getTotalChunks();
+
+    /**
+     * Returns whether the written chunks are {@linkplain
+     * AsyncSnapshotWriterImpl.SnapshotDataKey#isChained() chained}.
+     */
+    default boolean isChained() {
+        return false;
+    }
+
+    /**
+     * Releases the resources held by the writer. Called when the tasklet
+     * using it is done, also if the job failed or was cancelled.
+     */
+    default void close() {
+    }
 }
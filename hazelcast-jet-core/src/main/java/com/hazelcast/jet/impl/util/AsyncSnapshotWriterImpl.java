@@ -18,12 +18,13 @@ package com.hazelcast.jet.impl.util;
 
 import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
-import com.hazelcast.core.ICompletableFuture;
-import com.hazelcast.core.IMap;
 import com.hazelcast.core.PartitionAware;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.internal.serialization.impl.SerializationConstants;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
+import com.hazelcast.jet.config.PacketCodec;
 import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.SnapshotStore;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
 import com.hazelcast.logging.ILogger;
@@ -47,11 +48,28 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+/**
+ * Writes the snapshot entries to the {@link SnapshotStore} in chunks. A chunk
+ * is a serialized {@code byte[]}, its first byte is the codec of the rest:
+ * <ul>
+ *     <li>{@link #CHUNK_CODEC_NONE}: the entries follow, ended by the
+ *     {@link SnapshotDataValueTerminator}
+ *     <li>{@link #CHUNK_CODEC_DEFLATE}: the length of the uncompressed
+ *     entries and terminator follows as a big-endian int, then the entries
+ *     and terminator compressed with {@link DeflaterPacketCodec}
+ * </ul>
+ * A chunk is compressed only if compression is enabled and the compressed
+ * chunk is shorter.
+ */
 public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
 
+    public static final byte CHUNK_CODEC_NONE = 0;
+    public static final byte CHUNK_CODEC_DEFLATE = 1;
+
     private static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
 
-    final int usableChunkSize; // this includes the serialization header for byte[], but not the terminator
+    // this includes the serialization header for byte[] and the codec, but not the terminator
+    final int usableChunkSize;
     final byte[] serializedByteArrayHeader = new byte[3 * Bits.INT_SIZE_IN_BYTES];
     final byte[] valueTerminator;
     final AtomicInteger numConcurrentAsyncOps;
@@ -62,20 +80,25 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     private final int[] partitionKeys;
     private int partitionSequence;
     private final ILogger logger;
-    private final NodeEngine nodeEngine;
     private final boolean useBigEndian;
     private final SnapshotContext snapshotContext;
     private final String vertexName;
+    private final boolean isChained;
     private final int memberCount;
-    private IMap currentMap;
+    private final SnapshotStore snapshotStore;
+    private final PacketCodec codec;
+    private byte[] compressBuffer = new byte[0];
+    private String currentMapName;
     private long currentSnapshotId;
     private final AtomicReference<Throwable> firstError = new AtomicReference<>();
     private final AtomicInteger numActiveFlushes = new AtomicInteger();
+    private volatile Runnable asyncOpDoneAction = () -> { };
 
     // stats
     private long totalKeys;
     private long totalChunks;
     private long totalPayloadBytes;
+    private long totalStoredBytes;
 
     private final ExecutionCallback<Object> callback = new ExecutionCallback<Object>() {
         @Override
@@ -83,6 +106,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             assert response == null : "put operation overwrote a previous value: " + response;
             numActiveFlushes.decrementAndGet();
             numConcurrentAsyncOps.decrementAndGet();
+            asyncOpDoneAction.run();
         }
 
         @Override
@@ -91,23 +115,40 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             firstError.compareAndSet(null, t);
             numActiveFlushes.decrementAndGet();
             numConcurrentAsyncOps.decrementAndGet();
+            asyncOpDoneAction.run();
         }
     };
 
+    /**
+     * @param isChained whether the processors of the vertex save incremental
+     *                  snapshots, so that the data of each snapshot must be
+     *                  restored together with the data of the previous ones,
+     *                  see {@link SnapshotDataKey#isChained()}
+     * @param isCompressed whether the chunks should be compressed
+     */
     public AsyncSnapshotWriterImpl(NodeEngine nodeEngine, SnapshotContext snapshotContext, String vertexName,
-                                   int memberIndex, int memberCount) {
-        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount);
+                                   int memberIndex, int memberCount, boolean isChained, boolean isCompressed) {
+        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount, isChained,
+                isCompressed);
     }
 
     // for test
     AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext,
                             String vertexName, int memberIndex, int memberCount) {
-        this.nodeEngine = nodeEngine;
+        this(chunkSize, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount, false, false);
+    }
+
+    // for test
+    @SuppressWarnings("checkstyle:ExecutableStatementCount")
+    AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext, String vertexName,
+                            int memberIndex, int memberCount, boolean isChained, boolean isCompressed) {
         this.partitionService = nodeEngine.getPartitionService();
         this.logger = nodeEngine.getLogger(getClass());
         this.snapshotContext = snapshotContext;
         this.vertexName = vertexName;
+        this.isChained = isChained;
         this.memberCount = memberCount;
+        this.codec = isCompressed ? new DeflaterPacketCodec() : null;
         currentSnapshotId = snapshotContext.currentSnapshotId();
 
         useBigEndian = !nodeEngine.getHazelcastInstance().getConfig().getSerializationConfig().isUseNativeByteOrder()
@@ -119,7 +160,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         buffers = new CustomByteArrayOutputStream[partitionService.getPartitionCount()];
         for (int i = 0; i < buffers.length; i++) {
             buffers[i] = new CustomByteArrayOutputStream(chunkSize);
-            buffers[i].write(serializedByteArrayHeader, 0, serializedByteArrayHeader.length);
+            writeChunkHeader(buffers[i]);
         }
 
         JetService jetService = nodeEngine.getService(JetService.SERVICE_NAME);
@@ -127,6 +168,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         this.partitionSequence = memberIndex;
 
         this.numConcurrentAsyncOps = jetService.numConcurrentAsyncOps();
+        this.snapshotStore = jetService.getSnapshotStore();
 
         byte[] valueTerminatorWithHeader = nodeEngine.getSerializationService().toData(
                 SnapshotDataValueTerminator.INSTANCE).toByteArray();
@@ -135,6 +177,11 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         usableChunkSize = chunkSize - valueTerminator.length;
     }
 
+    private void writeChunkHeader(CustomByteArrayOutputStream buffer) {
+        buffer.write(serializedByteArrayHeader, 0, serializedByteArrayHeader.length);
+        buffer.write(CHUNK_CODEC_NONE);
+    }
+
     @Override
     @CheckReturnValue
     public boolean offer(Entry<? extends Data, ? extends Data> entry) {
@@ -145,21 +192,20 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         // since it will grow beyond maximum capacity and never shrink again.
         if (length > usableChunkSize) {
             return putAsyncToMap(partitionId, () -> {
-                byte[] data = new byte[serializedByteArrayHeader.length + length + valueTerminator.length];
-                int offset = 0;
-                System.arraycopy(serializedByteArrayHeader, 0, data, offset, serializedByteArrayHeader.length);
-                offset += serializedByteArrayHeader.length - Bits.INT_SIZE_IN_BYTES;
-
-                Bits.writeInt(data, offset, length + valueTerminator.length, useBigEndian);
-                offset += Bits.INT_SIZE_IN_BYTES;
+                byte[] data = new byte[serializedByteArrayHeader.length + 1 + length + valueTerminator.length];
+                System.arraycopy(serializedByteArrayHeader, 0, data, 0, serializedByteArrayHeader.length);
+                int offset = serializedByteArrayHeader.length;
+                data[offset++] = CHUNK_CODEC_NONE;
 
                 copyWithoutHeader(entry.getKey(), data, offset);
                 offset += entry.getKey().totalSize() - HeapData.TYPE_OFFSET;
 
                 copyWithoutHeader(entry.getValue(), data, offset);
-                System.arraycopy(valueTerminator, 0, data, length, valueTerminator.length);
+                offset += entry.getValue().totalSize() - HeapData.TYPE_OFFSET;
+                System.arraycopy(valueTerminator, 0, data, offset, valueTerminator.length);
 
-                return new HeapData(data);
+                totalKeys++;
+                return new HeapData(toChunk(data));
             });
         }
 
@@ -196,18 +242,43 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     }
 
     private boolean containsOnlyHeader(CustomByteArrayOutputStream buffer) {
-        return buffer.size() == serializedByteArrayHeader.length;
+        return buffer.size() == serializedByteArrayHeader.length + 1;
     }
 
     private Data getBufferContentsAndClear(CustomByteArrayOutputStream buffer) {
         buffer.write(valueTerminator, 0, valueTerminator.length);
         final byte[] data = buffer.toByteArray();
-        updateSerializedBytesLength(data);
-        totalPayloadBytes += buffer.size;
-        totalChunks++;
         buffer.reset();
-        buffer.write(serializedByteArrayHeader, 0, serializedByteArrayHeader.length);
-        return new HeapData(data);
+        writeChunkHeader(buffer);
+        return new HeapData(toChunk(data));
+    }
+
+    /**
+     * Compresses the uncompressed chunk in {@code data}, if enabled and
+     * if it makes it shorter, and updates the array length in the header.
+     */
+    private byte[] toChunk(byte[] data) {
+        totalPayloadBytes += data.length;
+        totalChunks++;
+        int payloadOffset = serializedByteArrayHeader.length + 1;
+        int compressedOffset = payloadOffset + Bits.INT_SIZE_IN_BYTES;
+        int maxCompressedLength = data.length - 1 - compressedOffset;
+        if (codec != null && maxCompressedLength > 0) {
+            if (compressBuffer.length < data.length) {
+                compressBuffer = new byte[data.length];
+            }
+            int compressedLength = codec.compress(data, payloadOffset, data.length - payloadOffset,
+                    compressBuffer, compressedOffset, maxCompressedLength);
+            if (compressedLength >= 0) {
+                System.arraycopy(data, 0, compressBuffer, 0, serializedByteArrayHeader.length);
+                compressBuffer[serializedByteArrayHeader.length] = CHUNK_CODEC_DEFLATE;
+                Bits.writeIntB(compressBuffer, payloadOffset, data.length - payloadOffset);
+                data = Arrays.copyOf(compressBuffer, compressedOffset + compressedLength);
+            }
+        }
+        updateSerializedBytesLength(data);
+        totalStoredBytes += data.length;
+        return data;
     }
 
     private void updateSerializedBytesLength(byte[] data) {
@@ -226,12 +297,11 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return false;
         }
         try {
-            // we put a Data instance to the map directly to avoid the serialization of the byte array
-            ICompletableFuture<Object> future = currentMap.putAsync(
-                    new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName, partitionSequence),
-                    dataSupplier.get());
+            snapshotStore.putAsync(currentMapName,
+                    new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName, partitionSequence,
+                            isChained),
+                    dataSupplier.get(), callback);
             partitionSequence += memberCount;
-            future.andThen(callback);
             numActiveFlushes.incrementAndGet();
         } catch (HazelcastInstanceNotActiveException ignored) {
             return false;
@@ -240,12 +310,11 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     }
 
     private boolean initCurrentMap() {
-        if (currentMap == null) {
-            String mapName = snapshotContext.currentMapName();
-            if (mapName == null) {
+        if (currentMapName == null) {
+            currentMapName = snapshotContext.currentMapName();
+            if (currentMapName == null) {
                 return false;
             }
-            currentMap = nodeEngine.getHazelcastInstance().getMap(mapName);
             this.currentSnapshotId = snapshotContext.currentSnapshotId();
         }
         return true;
@@ -272,17 +341,17 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         }
 
         // we're done
-        currentMap = null;
+        currentMapName = null;
         if (logger.isFineEnabled()) {
-            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d",
-                    vertexName, totalKeys, totalChunks, totalPayloadBytes));
+            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d, storedBytes=%,d",
+                    vertexName, totalKeys, totalChunks, totalPayloadBytes, totalStoredBytes));
         }
         return true;
     }
 
     @Override
     public void resetStats() {
-        totalKeys = totalChunks = totalPayloadBytes = 0;
+        totalKeys = totalChunks = totalPayloadBytes = totalStoredBytes = 0;
     }
 
     @Override
@@ -290,6 +359,11 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return numActiveFlushes.get() > 0;
     }
 
+    @Override
+    public void setAsyncOpDoneAction(Runnable action) {
+        this.asyncOpDoneAction = action;
+    }
+
     @Override
     public Throwable getError() {
         return firstError.getAndSet(null);
@@ -309,16 +383,22 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         private long snapshotId;
         private String vertexName;
         private int sequence;
+        private boolean isChained;
 
         // for deserialization
         public SnapshotDataKey() {
         }
 
-        SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence) {
+        public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence) {
+            this(partitionKey, snapshotId, vertexName, sequence, false);
+        }
+
+        public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence, boolean isChained) {
             this.partitionKey = partitionKey;
             this.snapshotId = snapshotId;
             this.vertexName = vertexName;
             this.sequence = sequence;
+            this.isChained = isChained;
         }
 
         @Override
@@ -334,6 +414,38 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return vertexName;
         }
 
+        /**
+         * Returns whether the chunk belongs to a vertex that saves incremental
+         * snapshots. The state of such a vertex is restored by merging the
+         * data of the full snapshot and of all the incremental snapshots
+         * taken after it, instead of using just the data of the restored
+         * snapshot.
+         */
+        public boolean isChained() {
+            return isChained;
+        }
+
+        /**
+         * Returns whether the chunk is a part of the data of the given
+         * snapshot: a chained chunk written by the snapshot or by one of
+         * the snapshots it's based on, or another chunk written by the
+         * snapshot itself.
+         */
+        public boolean isPartOf(long snapshotId, long baseSnapshotId) {
+            return isChained
+                    ? this.snapshotId >= baseSnapshotId && this.snapshotId <= snapshotId
+                    : this.snapshotId == snapshotId;
+        }
+
+        /**
+         * Returns whether the chunk is superseded by the given incremental
+         * snapshot: it isn't chained and was written by an earlier
+         * snapshot, so it isn't a part of the given snapshot's data.
+         */
+        public boolean isSupersededBy(long snapshotId) {
+            return !isChained && this.snapshotId < snapshotId;
+        }
+
         @Override
         public String toString() {
             return "SnapshotDataKey{" +
@@ -341,6 +453,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
                     ", snapshotId=" + snapshotId +
                     ", vertexName='" + vertexName + '\'' +
                     ", sequence=" + sequence +
+                    ", isChained=" + isChained +
                     '}';
         }
 
@@ -360,6 +473,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             out.writeLong(snapshotId);
             out.writeUTF(vertexName);
             out.writeInt(sequence);
+            out.writeBoolean(isChained);
         }
 
         @Override
@@ -368,6 +482,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             snapshotId = in.readLong();
             vertexName = in.readUTF();
             sequence = in.readInt();
+            isChained = in.readBoolean();
         }
 
         @Override
@@ -382,12 +497,13 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return partitionKey == that.partitionKey &&
                     snapshotId == that.snapshotId &&
                     sequence == that.sequence &&
+                    isChained == that.isChained &&
                     Objects.equals(vertexName, that.vertexName);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(partitionKey, snapshotId, vertexName, sequence);
+            return Objects.hash(partitionKey, snapshotId, vertexName, sequence, isChained);
         }
     }
 
@@ -416,6 +532,40 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         }
     }
 
+    /**
+     * The snapshot value of a key removed since the previous snapshot, saved
+     * in incremental snapshots.
+     */
+    public static final class SnapshotDataValueTombstone implements IdentifiedDataSerializable {
+
+        public static final IdentifiedDataSerializable INSTANCE = new SnapshotDataValueTombstone();
+
+        private SnapshotDataValueTombstone() { }
+
+        @Override
+        public int getFactoryId() {
+            return JetInitDataSerializerHook.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return JetInitDataSerializerHook.ASYNC_SNAPSHOT_WRITER_SNAPSHOT_DATA_VALUE_TOMBSTONE;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) {
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) {
+        }
+
+        @Override
+        public String toString() {
+            return "TOMBSTONE";
+        }
+    }
+
     /**
      * Non-synchronized variant of {@code java.io.ByteArrayOutputStream} with capacity limit.
      */
@@ -482,6 +632,11 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return totalPayloadBytes;
     }
 
+    @Override
+    public long getTotalStoredBytes() {
+        return totalStoredBytes;
+    }
+
     @Override
     public long getTotalKeys() {
         return totalKeys;
@@ -491,4 +646,16 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     public long getTotalChunks() {
         return totalChunks;
     }
+
+    @Override
+    public boolean isChained() {
+        return isChained;
+    }
+
+    @Override
+    public void close() {
+        if (codec != null) {
+            codec.close();
+        }
+    }
 }
@@ -20,6 +20,7 @@ import com.hazelcast.jet.JetException;
 
 import java.util.Arrays;
 
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.util.Util.subtractClamped;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
 import static com.hazelcast.util.Preconditions.checkTrue;
@@ -67,14 +68,24 @@ import static com.hazelcast.util.Preconditions.checkTrue;
  *     #toQueueIndex( int) toQueueIndex(i)}.
  * </li><li>
  *     Before draining the queue check the result of {@link
- *     #shouldStopDraining(int, boolean) shouldStopDraining(drainOrder,
- *     madeProgress)} to see whether to exit the loop.
+ *     #shouldStopDraining(int, boolean) shouldStopDraining(queueIndex,
+ *     madeProgress)} to see whether to skip it.
  * </li><li>
  *     Call {@link #observeWm(int, long) observeWm(queueIndex, wmValue)}
  *     for every watermark item received from any queue. If this method
  *     returns {@code true}, it means that the draining order was changed and
  *     the draining loop should exit.
+ * </li><li>
+ *     Call {@link #queueDone(int) queueDone(queueIndex)} when a queue is
+ *     done.
  * </li></ol>
+ * An {@linkplain com.hazelcast.jet.impl.execution.WatermarkCoalescer#IDLE_MESSAGE
+ * idle} or done queue doesn't hold back the other queues: it is moved to
+ * the end of the draining order and is never refused draining. An idle
+ * queue rejoins the draining order with the next watermark it receives.
+ * A queue that hasn't received any watermark yet doesn't hold back the
+ * other queues either: the skew is computed only among the queues that
+ * already have one.
  */
 public class SkewReductionPolicy {
 
@@ -130,7 +141,12 @@ public class SkewReductionPolicy {
      * @return {@code true} if the queues were reordered by this watermark
      */
     public boolean observeWm(int queueIndex, final long wmValue) {
-        if (queueWms[queueIndex] >= wmValue) {
+        if (queueWms[queueIndex] == IDLE_MESSAGE.timestamp()) {
+            // the queue is idle, any watermark is accepted
+            if (wmValue == IDLE_MESSAGE.timestamp()) {
+                return false;
+            }
+        } else if (queueWms[queueIndex] >= wmValue) {
             // this is possible if force-advancing the watermark because we increase
             // the queueWmValue without receiving watermark from that queue
             if (!forceAdvanceWm) {
@@ -145,6 +161,17 @@ public class SkewReductionPolicy {
         return didReorder;
     }
 
+    /**
+     * Called to report that the queue at {@code queueIndex} is done. From now
+     * on the queue doesn't affect the draining of the other queues.
+     */
+    public void queueDone(int queueIndex) {
+        if (queueWms[queueIndex] != IDLE_MESSAGE.timestamp()) {
+            adjustDrainingOrder(queueIndex, IDLE_MESSAGE.timestamp());
+            queueWms[queueIndex] = IDLE_MESSAGE.timestamp();
+        }
+    }
+
     private void forceAdvanceWmIfConfigured() {
         if (!forceAdvanceWm) {
             return;
@@ -160,7 +187,8 @@ public class SkewReductionPolicy {
      * class and consults this method before going on to drain the next queue.
      * The method determines the skew of the queue the loop is about to drain:
      * it is the difference between its watermark and the bottom watermark
-     * (i.e., that of the first queue in the draining order). The policy will
+     * (i.e., that of the first queue in the draining order that already
+     * received a watermark). The policy will
      * signal to stop draining if:
      * <ol><li>
      *     some data was already drained and the queue has exceeded the
@@ -170,12 +198,15 @@ public class SkewReductionPolicy {
      *     configured policy is not to force-advance the watermark.
      * </li></ol>
      *
-     * @param queueIndex the current position in the draining order
+     * @param queueIndex the index of the queue about to be drained
      * @param madeProgress whether any queue was drained so far
-     * @return {@code false} if the draining should now stop; {@code true} otherwise
+     * @return {@code true} if the draining should now stop; {@code false} otherwise
      */
     public boolean shouldStopDraining(int queueIndex, boolean madeProgress) {
-        long skew = subtractClamped(queueWms[queueIndex], queueWms[drainOrderToQIdx[0]]);
+        if (queueWms[queueIndex] == IDLE_MESSAGE.timestamp() || queueWms[queueIndex] == Long.MIN_VALUE) {
+            return false;
+        }
+        long skew = subtractClamped(queueWms[queueIndex], reportedBottomWm());
         return (madeProgress && skew > priorityDrainingThreshold) || (!forceAdvanceWm && skew > maxSkew);
     }
 
@@ -183,25 +214,52 @@ public class SkewReductionPolicy {
         return queueWms[drainOrderToQIdx[0]];
     }
 
+    /**
+     * Returns the bottom watermark among the queues that received one. The
+     * queues without a watermark are at the start of the draining order,
+     * skip them.
+     */
+    private long reportedBottomWm() {
+        for (int qIdx : drainOrderToQIdx) {
+            if (queueWms[qIdx] != Long.MIN_VALUE) {
+                return queueWms[qIdx];
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
     private long topObservedWm() {
-        return queueWms[drainOrderToQIdx[drainOrderToQIdx.length - 1]];
+        // idle and done queues are at the end of the draining order, skip them
+        for (int i = drainOrderToQIdx.length - 1; i >= 0; i--) {
+            long wm = queueWms[drainOrderToQIdx[i]];
+            if (wm != IDLE_MESSAGE.timestamp()) {
+                return wm;
+            }
+        }
+        return IDLE_MESSAGE.timestamp();
     }
 
     /**
-     * Reacts to the advancement of a queue's watermark by repositioning
-     * it in the drain order, so as to keep the drain order sorted by
-     * queue watermark.
+     * Reacts to the change of a queue's watermark by repositioning it in
+     * the drain order, so as to keep the drain order sorted by queue
+     * watermark. The watermark only decreases when an idle queue becomes
+     * active again.
      *
      * @return whether the queue had to be repositioned
      */
     private boolean adjustDrainingOrder(int queueIndex, long wmValue) {
         int currPos = findCurrentDrainPos(queueIndex);
-        int newPos = findNewDrainPos(currPos, wmValue);
+        int newPos = wmValue > queueWms[queueIndex]
+                ? findNewDrainPos(currPos, wmValue)
+                : findNewDrainPosBackwards(currPos, wmValue);
         if (newPos == currPos) {
             return false;
         }
-        assert newPos > currPos : "newPos < currPos";
-        System.arraycopy(drainOrderToQIdx, currPos + 1, drainOrderToQIdx, currPos, newPos - currPos);
+        if (newPos > currPos) {
+            System.arraycopy(drainOrderToQIdx, currPos + 1, drainOrderToQIdx, currPos, newPos - currPos);
+        } else {
+            System.arraycopy(drainOrderToQIdx, newPos, drainOrderToQIdx, newPos + 1, currPos - newPos);
+        }
         drainOrderToQIdx[newPos] = queueIndex;
         return true;
     }
@@ -226,4 +284,15 @@ public class SkewReductionPolicy {
         // the new position is before the greater-or-equal item
         return i - 1;
     }
+
+    private int findNewDrainPosBackwards(int currPos, long queueWm) {
+        int i = currPos - 1;
+        for (; i >= 0; i--) {
+            if (queueWms[drainOrderToQIdx[i]] <= queueWm) {
+                break;
+            }
+        }
+        // the new position is after the less-or-equal item
+        return i + 1;
+    }
 }
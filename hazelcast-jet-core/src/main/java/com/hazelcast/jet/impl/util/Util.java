@@ -214,8 +214,12 @@ public final class Util {
 
     @Nonnull
     public static BufferObjectDataOutput createObjectDataOutput(@Nonnull NodeEngine engine) {
-        return ((InternalSerializationService) engine.getSerializationService())
-                .createObjectDataOutput(BUFFER_SIZE);
+        return createObjectDataOutput((InternalSerializationService) engine.getSerializationService());
+    }
+
+    @Nonnull
+    public static BufferObjectDataOutput createObjectDataOutput(@Nonnull InternalSerializationService service) {
+        return service.createObjectDataOutput(BUFFER_SIZE);
     }
 
     @Nonnull
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.jet.IMapJet;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.Sink;
+import com.hazelcast.jet.pipeline.SinkBuilder;
+import com.hazelcast.jet.pipeline.Sinks;
+import com.hazelcast.jet.pipeline.SourceBuilder;
+import com.hazelcast.jet.pipeline.SourceBuilder.TimestampedSourceBuffer;
+import com.hazelcast.jet.pipeline.Sources;
+import com.hazelcast.jet.pipeline.StreamSource;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.NightlyTest;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.JobStatus.RUNNING;
+import static com.hazelcast.jet.pipeline.JoinClause.joinMapEntries;
+import static com.hazelcast.jet.pipeline.WindowDefinition.sliding;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the end-to-end latency and the sustained throughput of typical
+ * streaming pipelines running on a cluster of Jet members inside this JVM.
+ * <p>
+ * A synthetic source emits events at a fixed total rate. Each event
+ * carries the time at which it was scheduled to be emitted and the sink
+ * records the difference between that time and the time it observed the
+ * result, so a source falling behind its schedule shows up as latency
+ * instead of being hidden. For window results the latency is measured
+ * from the end of the window. The latencies go to an HdrHistogram; the
+ * percentiles and the achieved event rate are logged at the end of each
+ * test.
+ * <p>
+ * The parameters can be changed with system properties:
+ * {@code jet.benchmark.memberCount}, {@code jet.benchmark.eventsPerSecond},
+ * {@code jet.benchmark.keyCount}, {@code jet.benchmark.warmupSeconds} and
+ * {@code jet.benchmark.measurementSeconds}.
+ */
+@Category(NightlyTest.class)
+@RunWith(HazelcastSerialClassRunner.class)
+public class EndToEndLatencyTest extends JetTestSupport {
+
+    private static final int MEMBER_COUNT = Integer.getInteger("jet.benchmark.memberCount", 2);
+    private static final int EVENTS_PER_SECOND = Integer.getInteger("jet.benchmark.eventsPerSecond", 100_000);
+    private static final int KEY_COUNT = Integer.getInteger("jet.benchmark.keyCount", 10_000);
+    private static final int WARMUP_SECONDS = Integer.getInteger("jet.benchmark.warmupSeconds", 10);
+    private static final int MEASUREMENT_SECONDS = Integer.getInteger("jet.benchmark.measurementSeconds", 30);
+
+    private static final long WINDOW_SIZE_MILLIS = 1000;
+    private static final long SLIDE_BY_MILLIS = 100;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final String ENRICHMENT_MAP = "enrichment";
+    private static final String SINK_MAP = "sink";
+
+    // The members share this JVM, so the time origin and the recorder are
+    // common to all sources and sinks
+    private static final long TIME_ORIGIN_NANOS = System.nanoTime();
+    private static final Recorder LATENCY_RECORDER = new Recorder(3);
+    private static final AtomicLong EMITTED_COUNT = new AtomicLong();
+
+    private JetInstance jet;
+
+    @Before
+    public void setUp() {
+        jet = createJetMembers(new JetConfig(), MEMBER_COUNT)[0];
+        LATENCY_RECORDER.reset();
+        EMITTED_COUNT.set(0);
+    }
+
+    @Test
+    public void windowAggregation() {
+        Pipeline p = Pipeline.create();
+        p.drawFrom(eventSource())
+         .groupingKey(Event::key)
+         .window(sliding(WINDOW_SIZE_MILLIS, SLIDE_BY_MILLIS))
+         .aggregate(counting())
+         .drainTo(latencySink((TimestampedEntry<Long, Long> e) -> MILLISECONDS.toNanos(e.getTimestamp())));
+
+        runAndReport(p, "window aggregation");
+    }
+
+    @Test
+    public void hashJoinEnrichment() {
+        IMapJet<Long, String> enrichmentMap = jet.getMap(ENRICHMENT_MAP);
+        Map<Long, String> enrichment = new HashMap<>();
+        for (long i = 0; i < KEY_COUNT; i++) {
+            enrichment.put(i, "name-" + i);
+        }
+        enrichmentMap.putAll(enrichment);
+
+        Pipeline p = Pipeline.create();
+        p.drawFrom(eventSource())
+         .hashJoin(p.drawFrom(Sources.<Long, String>map(ENRICHMENT_MAP)), joinMapEntries(Event::key),
+                 (event, name) -> event)
+         .drainTo(latencySink(Event::timeNanos));
+
+        runAndReport(p, "hash-join enrichment");
+    }
+
+    @Test
+    public void mapSink() {
+        // the latency includes the delivery of the map event to the listener
+        jet.getMap(SINK_MAP).addEntryListener(new LatencyRecordingListener(), true);
+
+        Pipeline p = Pipeline.create();
+        p.drawFrom(eventSource())
+         .map(event -> entry(event.key(), event.timeNanos()))
+         .drainTo(Sinks.map(SINK_MAP));
+
+        runAndReport(p, "IMap sink");
+    }
+
+    private void runAndReport(Pipeline p, String pipelineName) {
+        Job job = jet.newJob(p);
+        assertJobStatusEventually(job, RUNNING);
+        sleepSeconds(WARMUP_SECONDS);
+
+        LATENCY_RECORDER.reset();
+        long emittedAtStart = EMITTED_COUNT.get();
+        long start = System.nanoTime();
+        sleepSeconds(MEASUREMENT_SECONDS);
+        Histogram histogram = LATENCY_RECORDER.getIntervalHistogram();
+        double elapsedSeconds = (System.nanoTime() - start) / (double) SECONDS.toNanos(1);
+        long emitted = EMITTED_COUNT.get() - emittedAtStart;
+        job.cancel();
+
+        logger.info(String.format("%s on %d members: target %,d events/s, achieved %,.0f events/s; latency ms:"
+                        + " p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f p99.99=%.3f max=%.3f (%,d samples)",
+                pipelineName, MEMBER_COUNT, EVENTS_PER_SECOND, emitted / elapsedSeconds,
+                toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(90)),
+                toMillis(histogram.getValueAtPercentile(99)), toMillis(histogram.getValueAtPercentile(99.9)),
+                toMillis(histogram.getValueAtPercentile(99.99)), toMillis(histogram.getMaxValue()),
+                histogram.getTotalCount()));
+        assertTrue("No latency was recorded", histogram.getTotalCount() > 0);
+    }
+
+    private static StreamSource<Event> eventSource() {
+        return SourceBuilder.timestampedStream("events", EventGenerator::new)
+                            .fillBufferFn(EventGenerator::fillBuffer)
+                            .distributed(1)
+                            .build();
+    }
+
+    private static <T> Sink<T> latencySink(DistributedToLongFunction<? super T> originNanosFn) {
+        return SinkBuilder.sinkBuilder("latency", ctx -> LATENCY_RECORDER)
+                          .<T>receiveFn((recorder, item) -> recordLatency(originNanosFn.applyAsLong(item)))
+                          .build();
+    }
+
+    private static void recordLatency(long originNanos) {
+        LATENCY_RECORDER.recordValue(Math.max(0, now() - originNanos));
+    }
+
+    private static long now() {
+        return System.nanoTime() - TIME_ORIGIN_NANOS;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) MILLISECONDS.toNanos(1);
+    }
+
+    static final class Event implements Serializable {
+        private final long seq;
+        private final long timeNanos;
+
+        Event(long seq, long timeNanos) {
+            this.seq = seq;
+            this.timeNanos = timeNanos;
+        }
+
+        long key() {
+            return seq % KEY_COUNT;
+        }
+
+        long timeNanos() {
+            return timeNanos;
+        }
+    }
+
+    /**
+     * Emits this processor's share of the events, each one at its scheduled
+     * time. If it falls behind, it catches up by emitting the overdue events
+     * with their original times.
+     */
+    private static final class EventGenerator {
+        private final long periodNanos;
+        private final long seqStride;
+        private long seq;
+        private long nextEventNanos;
+
+        EventGenerator(Processor.Context context) {
+            seqStride = context.totalParallelism();
+            periodNanos = SECONDS.toNanos(1) * seqStride / EVENTS_PER_SECOND;
+            seq = context.globalProcessorIndex();
+            nextEventNanos = now();
+        }
+
+        void fillBuffer(TimestampedSourceBuffer<Event> buffer) {
+            long now = now();
+            int count = 0;
+            for (; count < MAX_BATCH_SIZE && nextEventNanos <= now; count++) {
+                buffer.add(new Event(seq, nextEventNanos), NANOSECONDS.toMillis(nextEventNanos));
+                seq += seqStride;
+                nextEventNanos += periodNanos;
+            }
+            if (count == 0) {
+                LockSupport.parkNanos(min(nextEventNanos - now, MILLISECONDS.toNanos(1)));
+            }
+            EMITTED_COUNT.addAndGet(count);
+        }
+    }
+
+    private static final class LatencyRecordingListener
+            implements EntryAddedListener<Long, Long>, EntryUpdatedListener<Long, Long> {
+
+        @Override
+        public void entryAdded(EntryEvent<Long, Long> event) {
+            recordLatency(event.getValue());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<Long, Long> event) {
+            recordLatency(event.getValue());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.config;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class DeflaterPacketCodecTest {
+
+    private final DeflaterPacketCodec codec = new DeflaterPacketCodec();
+
+    @After
+    public void after() {
+        codec.close();
+    }
+
+    @Test
+    public void when_compressibleData_then_roundTrips() {
+        // Given
+        byte[] data = new byte[1000];
+        Arrays.fill(data, 10, 990, (byte) 'a');
+        byte[] compressed = new byte[1000];
+
+        // When
+        int compressedLength = codec.compress(data, 10, 980, compressed, 5, 500);
+
+        // Then
+        assertTrue("compressedLength=" + compressedLength, compressedLength > 0 && compressedLength <= 500);
+        byte[] decompressed = new byte[1000];
+        codec.decompress(compressed, 5, compressedLength, decompressed, 980);
+        assertArrayEquals(Arrays.copyOfRange(data, 10, 990), Arrays.copyOf(decompressed, 980));
+    }
+
+    @Test
+    public void when_compressedDataLongerThanMaxLength_then_minusOne() {
+        // Given
+        byte[] data = new byte[1000];
+        new Random(42).nextBytes(data);
+
+        // When
+        int compressedLength = codec.compress(data, 0, data.length, new byte[1000], 0, 999);
+
+        // Then
+        assertEquals(-1, compressedLength);
+    }
+
+    @Test
+    public void when_compressRepeatedly_then_independentResults() {
+        byte[] data1 = new byte[100];
+        byte[] data2 = new byte[200];
+        Arrays.fill(data2, (byte) 1);
+        byte[] compressed1 = new byte[100];
+        byte[] compressed2 = new byte[200];
+
+        int length1 = codec.compress(data1, 0, data1.length, compressed1, 0, compressed1.length);
+        int length2 = codec.compress(data2, 0, data2.length, compressed2, 0, compressed2.length);
+
+        byte[] decompressed = new byte[200];
+        codec.decompress(compressed2, 0, length2, decompressed, data2.length);
+        assertArrayEquals(data2, decompressed);
+        codec.decompress(compressed1, 0, length1, decompressed, data1.length);
+        assertArrayEquals(data1, Arrays.copyOf(decompressed, data1.length));
+    }
+
+    @Test(expected = JetException.class)
+    public void when_corruptedData_then_exception() {
+        byte[] data = new byte[100];
+        byte[] compressed = new byte[100];
+        int length = codec.compress(data, 0, data.length, compressed, 0, compressed.length);
+
+        codec.decompress(compressed, 0, length, new byte[200], 50);
+    }
+}
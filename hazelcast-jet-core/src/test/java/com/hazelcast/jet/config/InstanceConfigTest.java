@@ -23,6 +23,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
 public class InstanceConfigTest {
@@ -88,4 +89,34 @@ public class InstanceConfigTest {
         // Then
         assertEquals(123L, config.getScaleUpDelayMillis());
     }
+
+    @Test
+    public void when_workStealingEnabled_then_returnsEnabled() {
+        // When
+        InstanceConfig config = new InstanceConfig();
+        config.setWorkStealingEnabled(true);
+
+        // Then
+        assertTrue(config.isWorkStealingEnabled());
+    }
+
+    @Test
+    public void when_eventDrivenWakeupEnabled_then_returnsEnabled() {
+        // When
+        InstanceConfig config = new InstanceConfig();
+        config.setEventDrivenWakeupEnabled(true);
+
+        // Then
+        assertTrue(config.isEventDrivenWakeupEnabled());
+    }
+
+    @Test
+    public void when_snapshotDirectorySet_then_returnsDirectory() {
+        // When
+        InstanceConfig config = new InstanceConfig();
+        config.setSnapshotDirectory("/tmp/jet-snapshots");
+
+        // Then
+        assertEquals("/tmp/jet-snapshots", config.getSnapshotDirectory());
+    }
 }
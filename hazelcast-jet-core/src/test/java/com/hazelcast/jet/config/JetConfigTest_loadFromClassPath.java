@@ -53,6 +53,9 @@ public class JetConfigTest_loadFromClassPath {
         properties.setProperty("flow.control.period", "456");
         properties.setProperty("backup.count", "6");
         properties.setProperty("scale.up.delay.millis", "1234");
+        properties.setProperty("work.stealing.enabled", "true");
+        properties.setProperty("event.driven.wakeup.enabled", "true");
+        properties.setProperty("snapshot.directory", "/tmp/jet-snapshots");
 
         properties.setProperty("metrics.enabled", "false");
         properties.setProperty("metrics.jmxEnabled", "false");
@@ -65,6 +68,9 @@ public class JetConfigTest_loadFromClassPath {
         assertEquals(456, config.getInstanceConfig().getFlowControlPeriodMs());
         assertEquals(6, config.getInstanceConfig().getBackupCount());
         assertEquals(1234, config.getInstanceConfig().getScaleUpDelayMillis());
+        assertTrue(config.getInstanceConfig().isWorkStealingEnabled());
+        assertTrue(config.getInstanceConfig().isEventDrivenWakeupEnabled());
+        assertEquals("/tmp/jet-snapshots", config.getInstanceConfig().getSnapshotDirectory());
 
         MetricsConfig metricsConfig = config.getMetricsConfig();
         assertFalse(metricsConfig.isEnabled());
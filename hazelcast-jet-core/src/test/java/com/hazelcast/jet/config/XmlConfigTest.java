@@ -144,6 +144,9 @@ public class XmlConfigTest {
         properties.put("flow.control.period", "50");
         properties.put("backup.count", "2");
         properties.put("scale.up.delay.millis", "1234");
+        properties.put("work.stealing.enabled", "true");
+        properties.put("event.driven.wakeup.enabled", "true");
+        properties.put("snapshot.directory", "/tmp/jet-snapshots");
         properties.put("metrics.enabled", "false");
         properties.put("metrics.jmxEnabled", "false");
         properties.put("metrics.retention", "124");
@@ -189,7 +192,12 @@ public class XmlConfigTest {
         EdgeConfig edgeConfig = jetConfig.getDefaultEdgeConfig();
         assertEquals("queueSize", 999, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 997, edgeConfig.getPacketSizeLimit());
+        assertEquals("packetLingerTimeMicros", 250, edgeConfig.getPacketLingerTimeMicros());
         assertEquals("receiveWindowMultiplier", 996, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue("skewReductionEnabled", edgeConfig.isSkewReductionEnabled());
+        assertEquals("priorityDrainingThreshold", 995, edgeConfig.getPriorityDrainingThreshold());
+        assertEquals("maxWatermarkSkew", 994, edgeConfig.getMaxWatermarkSkew());
+        assertTrue("packetCompressionEnabled", edgeConfig.isPacketCompressionEnabled());
     }
 
     private static void assertConfig(JetConfig jetConfig) {
@@ -197,6 +205,9 @@ public class XmlConfigTest {
         assertEquals("backupCount", 2, jetConfig.getInstanceConfig().getBackupCount());
         assertEquals("flowControlMs", 50, jetConfig.getInstanceConfig().getFlowControlPeriodMs());
         assertEquals("scaleUpDelayMillis", 1234, jetConfig.getInstanceConfig().getScaleUpDelayMillis());
+        assertTrue("workStealingEnabled", jetConfig.getInstanceConfig().isWorkStealingEnabled());
+        assertTrue("eventDrivenWakeupEnabled", jetConfig.getInstanceConfig().isEventDrivenWakeupEnabled());
+        assertEquals("snapshotDirectory", "/tmp/jet-snapshots", jetConfig.getInstanceConfig().getSnapshotDirectory());
 
         assertEquals("value1", jetConfig.getProperties().getProperty("property1"));
         assertEquals("value2", jetConfig.getProperties().getProperty("property2"));
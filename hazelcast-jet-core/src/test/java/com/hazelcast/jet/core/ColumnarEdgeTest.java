@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.core;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.core.processor.SinkProcessors;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class ColumnarEdgeTest extends JetTestSupport {
+
+    private static final int ITEM_COUNT = 10_000;
+
+    private JetInstance instance;
+
+    @Before
+    public void before() {
+        instance = createJetMembers(new JetConfig(), 2)[0];
+    }
+
+    @Test
+    public void when_columnarEdge_then_allItemsReceived() {
+        when_columnarEdge_then_allItemsReceived("sink", new EdgeConfig());
+    }
+
+    @Test
+    public void when_columnarEdgeWithCompression_then_allItemsReceived() {
+        when_columnarEdge_then_allItemsReceived("compressedSink", new EdgeConfig().setPacketCompressionEnabled(true));
+    }
+
+    private void when_columnarEdge_then_allItemsReceived(String sinkName, EdgeConfig edgeConfig) {
+        // Given
+        List<Integer> input = range(0, ITEM_COUNT).boxed().collect(toList());
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(input));
+        Vertex map = dag.newVertex("map", Processors.mapP(ColumnarEdgeTest::toItem));
+        Vertex sink = dag.newVertex("sink", SinkProcessors.writeListP(sinkName)).localParallelism(1);
+        dag.edge(between(source, map));
+        dag.edge(between(map, sink)
+                .partitioned(wholeItem())
+                .distributed()
+                .columnar()
+                .setConfig(edgeConfig));
+
+        // When
+        instance.newJob(dag).join();
+
+        // Then
+        List<String> expected = new ArrayList<>();
+        for (Integer i : input) {
+            expected.add(String.valueOf(toItem(i)));
+            expected.add(String.valueOf(toItem(i)));
+        }
+        expected.sort(null);
+        List<String> actual = instance.getHazelcastInstance().getList(sinkName).stream()
+                                      .map(String::valueOf)
+                                      .sorted()
+                                      .collect(toList());
+        assertEquals(expected, actual);
+    }
+
+    // runs of entries and tuples, interleaved with items sent one by one
+    private static Object toItem(int i) {
+        return i % 1000 == 0 ? "item-" + i
+                : i % 2000 < 1000 ? entry("key-" + i % 100, (long) i)
+                : tuple2(i, i % 3 == 0 ? null : "value-" + i % 10);
+    }
+}
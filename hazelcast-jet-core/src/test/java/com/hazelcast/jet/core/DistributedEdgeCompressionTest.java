@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.core;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.PacketCodec;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.processor.SinkProcessors;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class DistributedEdgeCompressionTest extends JetTestSupport {
+
+    private static final int ITEM_COUNT = 10_000;
+
+    private static final AtomicInteger compressedCount = new AtomicInteger();
+    private static final AtomicInteger decompressedCount = new AtomicInteger();
+
+    private JetInstance instance;
+
+    @Before
+    public void before() {
+        instance = createJetMembers(new JetConfig(), 2)[0];
+    }
+
+    @Test
+    public void when_compressionEnabled_then_allItemsReceived() {
+        // Given
+        List<String> items = range(0, ITEM_COUNT).mapToObj(i -> "item-" + i).collect(toList());
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(items));
+        Vertex sink = dag.newVertex("sink", SinkProcessors.writeListP("sink")).localParallelism(1);
+        dag.edge(between(source, sink)
+                .partitioned(wholeItem())
+                .distributed()
+                .setConfig(new EdgeConfig()
+                        .setPacketCompressionEnabled(true)
+                        .setPacketCodecSupplier(CountingCodec::new)));
+
+        // When
+        instance.newJob(dag).join();
+
+        // Then
+        List<Object> expected = new ArrayList<>(items);
+        expected.addAll(items);
+        expected.sort(null);
+        List<Object> actual = new ArrayList<>(instance.getHazelcastInstance().getList("sink"));
+        actual.sort(null);
+        assertEquals(expected, actual);
+        assertTrue("compressedCount=" + compressedCount.get(), compressedCount.get() > 0);
+        assertEquals(compressedCount.get(), decompressedCount.get());
+    }
+
+    private static class CountingCodec implements PacketCodec {
+        private final DeflaterPacketCodec delegate = new DeflaterPacketCodec();
+
+        @Override
+        public int compress(@Nonnull byte[] src, int srcOffset, int length,
+                            @Nonnull byte[] dest, int destOffset, int maxLength) {
+            int result = delegate.compress(src, srcOffset, length, dest, destOffset, maxLength);
+            if (result >= 0) {
+                compressedCount.incrementAndGet();
+            }
+            return result;
+        }
+
+        @Override
+        public void decompress(
+                @Nonnull byte[] src, int srcOffset, int length, @Nonnull byte[] dest, int uncompressedLength
+        ) {
+            decompressedCount.incrementAndGet();
+            delegate.decompress(src, srcOffset, length, dest, uncompressedLength);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -175,4 +175,10 @@ public class EdgeTest {
         final Edge e = Edge.from(a).distributed();
         assertTrue(e.isDistributed());
     }
+
+    @Test
+    public void whenColumnarSet_thenIsColumnar() {
+        final Edge e = Edge.from(a).distributed().columnar();
+        assertTrue(e.isColumnar());
+    }
 }
@@ -102,15 +102,21 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
 
     @Test
     public void when_nodeDown_then_jobRestartsFromSnapshot_singleStage() throws Exception {
-        when_nodeDown_then_jobRestartsFromSnapshot(false);
+        when_nodeDown_then_jobRestartsFromSnapshot(false, false);
     }
 
     @Test
     public void when_nodeDown_then_jobRestartsFromSnapshot_twoStage() throws Exception {
-        when_nodeDown_then_jobRestartsFromSnapshot(true);
+        when_nodeDown_then_jobRestartsFromSnapshot(true, false);
     }
 
-    private void when_nodeDown_then_jobRestartsFromSnapshot(boolean twoStage) throws Exception {
+    @Test
+    public void when_nodeDown_then_jobRestartsFromIncrementalSnapshot_singleStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(false, true);
+    }
+
+    private void when_nodeDown_then_jobRestartsFromSnapshot(boolean twoStage, boolean incremental)
+            throws Exception {
         /* Design of this test:
 
         It uses a random partitioned generator of source events. The events are
@@ -199,6 +205,8 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
         JobConfig config = new JobConfig();
         config.setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE);
         config.setSnapshotIntervalMillis(1200);
+        config.setIncrementalSnapshotsEnabled(incremental);
+        config.setFullSnapshotInterval(3);
         Job job = instance1.newJob(dag, config);
 
         JobRepository jobRepository = new JobRepository(instance1);
@@ -206,6 +214,13 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
 
         waitForFirstSnapshot(jobRepository, job.getId(), timeout);
         waitForNextSnapshot(jobRepository, job.getId(), timeout);
+        if (incremental) {
+            // make sure we restore from an incremental snapshot
+            assertTrueEventually(() -> {
+                JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+                assertTrue("not incremental", record.baseSnapshotId() < record.snapshotId());
+            }, timeout);
+        }
         // wait a little more to emit something, so that it will be overwritten in the sink map
         Thread.sleep(300);
 
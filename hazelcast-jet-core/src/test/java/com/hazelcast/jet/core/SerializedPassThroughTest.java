@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.core;
+
+import com.hazelcast.cache.ICache;
+import com.hazelcast.config.CacheSimpleConfig;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.PartitioningStrategyConfig;
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.processor.SinkProcessors;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.partition.strategy.StringPartitioningStrategy;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SerializedPassThroughTest extends JetTestSupport {
+
+    private static final int ITEM_COUNT = 1_000;
+
+    private static final AtomicInteger serializedCount = new AtomicInteger();
+    private static final AtomicInteger deserializedCount = new AtomicInteger();
+    private static final AtomicInteger sum = new AtomicInteger();
+
+    private JetInstance instance;
+
+    @Before
+    public void before() {
+        JetConfig config = new JetConfig();
+        config.getHazelcastConfig().addMapConfig(new MapConfig("partitioned*")
+                .setPartitioningStrategyConfig(
+                        new PartitioningStrategyConfig(StringPartitioningStrategy.class.getName())));
+        config.getHazelcastConfig().addCacheConfig(new CacheSimpleConfig().setName("cache"));
+        config.getHazelcastConfig().addCacheConfig(new CacheSimpleConfig().setName("typedCache")
+                .setKeyType(String.class.getName())
+                .setValueType(Integer.class.getName()));
+        instance = createJetMembers(config, 2)[0];
+    }
+
+    @Test
+    public void when_distributedEdgeToMapSink_then_allEntriesWritten() {
+        when_distributedEdgeToMapSink_then_allEntriesWritten("map", i -> "key" + i);
+    }
+
+    @Test
+    public void when_distributedEdgeToMapSinkWithPartitioningStrategy_then_allEntriesWritten() {
+        when_distributedEdgeToMapSink_then_allEntriesWritten("partitionedMap", i -> "key" + i + "@" + (i % 10));
+    }
+
+    private void when_distributedEdgeToMapSink_then_allEntriesWritten(String mapName, KeyFn keyFn) {
+        // Given
+        List<Entry<String, Integer>> items = range(0, ITEM_COUNT).mapToObj(i -> entry(keyFn.key(i), i))
+                                                                .collect(toList());
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(items));
+        Vertex sink = dag.newVertex("sink", SinkProcessors.writeMapP(mapName));
+        dag.edge(between(source, sink).partitioned(entryKey()).distributed());
+
+        // When
+        instance.newJob(dag).join();
+
+        // Then
+        IMap<String, Integer> map = instance.getHazelcastInstance().getMap(mapName);
+        assertEquals(ITEM_COUNT, map.size());
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            assertEquals(Integer.valueOf(i), map.get(keyFn.key(i)));
+        }
+    }
+
+    @Test
+    public void when_distributedEdgeToCacheSink_then_allEntriesWritten() {
+        when_distributedEdgeToCacheSink_then_allEntriesWritten("cache");
+    }
+
+    @Test
+    public void when_distributedEdgeToCacheSinkWithTypes_then_allEntriesWritten() {
+        when_distributedEdgeToCacheSink_then_allEntriesWritten("typedCache");
+    }
+
+    private void when_distributedEdgeToCacheSink_then_allEntriesWritten(String cacheName) {
+        // Given
+        List<Entry<String, Integer>> items = range(0, ITEM_COUNT).mapToObj(i -> entry("key" + i, i))
+                                                                .collect(toList());
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(items));
+        Vertex sink = dag.newVertex("sink", SinkProcessors.writeCacheP(cacheName));
+        dag.edge(between(source, sink).partitioned(entryKey()).distributed());
+
+        // When
+        instance.newJob(dag).join();
+
+        // Then
+        ICache<String, Integer> cache = instance.getCacheManager().getCache(cacheName);
+        assertEquals(ITEM_COUNT, cache.size());
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            assertEquals(Integer.valueOf(i), cache.get("key" + i));
+        }
+    }
+
+    @Test
+    public void when_processorAcceptsSerializedInput_then_remoteItemsReceivedSerialized() {
+        // Given
+        List<Integer> items = range(0, ITEM_COUNT).boxed().collect(toList());
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(items));
+        Vertex sink = dag.newVertex("sink", SerializedInputSinkP::new);
+        dag.edge(between(source, sink).partitioned(wholeItem()).distributed());
+
+        // When
+        instance.newJob(dag).join();
+
+        // Then
+        // each member emits all the items, half of them go to the other member
+        assertEquals(2 * ITEM_COUNT, serializedCount.get() + deserializedCount.get());
+        assertTrue("serializedCount=" + serializedCount.get(), serializedCount.get() > 0);
+        assertTrue("deserializedCount=" + deserializedCount.get(), deserializedCount.get() > 0);
+        assertEquals(ITEM_COUNT * (ITEM_COUNT - 1), sum.get());
+    }
+
+    private interface KeyFn {
+        String key(int i);
+    }
+
+    private static class SerializedInputSinkP extends AbstractProcessor {
+        private SerializationService serializationService;
+
+        @Override
+        protected void init(@Nonnull Context context) {
+            serializationService = getNodeEngineImpl(context.jetInstance()).getSerializationService();
+        }
+
+        @Override
+        public boolean acceptsSerializedInput(int ordinal) {
+            return true;
+        }
+
+        @Override
+        protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+            if (item instanceof Data) {
+                serializedCount.incrementAndGet();
+                item = serializationService.toObject(item);
+            } else {
+                deserializedCount.incrementAndGet();
+            }
+            sum.addAndGet((Integer) item);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.ExplodeSnapshotP.RestoredEntry;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.nio.Bits;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CHUNK_CODEC_DEFLATE;
+import static com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CHUNK_CODEC_NONE;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ExplodeSnapshotPTest extends JetTestSupport {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private JetInstance instance;
+    private InternalSerializationService serializationService;
+
+    @Before
+    public void before() {
+        instance = createJetMember();
+        serializationService = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).getSerializationService();
+    }
+
+    @Test
+    public void when_uncompressedChunk_then_entriesEmitted() {
+        test(false);
+    }
+
+    @Test
+    public void when_compressedChunk_then_entriesEmitted() {
+        test(true);
+    }
+
+    @Test
+    public void when_unknownChunkCodec_then_fail() {
+        // Given
+        byte[] chunk = chunk(false, "k1", "v1");
+        chunk[0] = 42;
+
+        // Then
+        exception.expect(JetException.class);
+        exception.expectMessage("Unknown snapshot chunk codec: 42");
+
+        // When
+        verifyProcessor(() -> new ExplodeSnapshotP(singletonMap("vertex", 0), 1, 1))
+                .jetInstance(instance)
+                .disableSnapshots()
+                .input(singletonList(entry(new SnapshotDataKey(0, 1, "vertex", 0), chunk)))
+                .expectOutput(emptyList());
+    }
+
+    @Test
+    public void when_entriesEmitted_then_taggedWithChunkPartition() {
+        // Given
+        SnapshotDataKey chunkKey = new SnapshotDataKey(0, 1, "vertex", 0);
+        int partitionId = instance.getHazelcastInstance().getPartitionService()
+                                  .getPartition(chunkKey.getPartitionKey()).getPartitionId();
+
+        // When
+        verifyProcessor(() -> new ExplodeSnapshotP(singletonMap("vertex", 0), 1, 1))
+                .jetInstance(instance)
+                .disableSnapshots()
+                .input(singletonList(entry(chunkKey, chunk(false, "k1", "v1", "k2", "v2"))))
+                .outputChecker((expected, actual) -> {
+                    // Then
+                    for (Object item : actual) {
+                        assertEquals(partitionId, ((RestoredEntry) item).partitionId());
+                        assertEquals(partitionId, ExplodeSnapshotP.partitionOf(item, 271));
+                    }
+                    return expected.equals(actual);
+                })
+                .expectOutput(Arrays.asList(entry("k1", "v1"), entry("k2", "v2")));
+    }
+
+    private void test(boolean compressed) {
+        byte[] chunk = chunk(compressed, "k1", "v1", "k2", "v2");
+        verifyProcessor(() -> new ExplodeSnapshotP(singletonMap("vertex", 0), 1, 1))
+                .jetInstance(instance)
+                .disableSnapshots()
+                .input(singletonList(entry(new SnapshotDataKey(0, 1, "vertex", 0), chunk)))
+                .expectOutput(Arrays.asList(entry("k1", "v1"), entry("k2", "v2")));
+    }
+
+    private byte[] chunk(boolean compressed, Object... keysAndValues) {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        for (Object o : keysAndValues) {
+            writeWithoutHeader(o, entries);
+        }
+        writeWithoutHeader(SnapshotDataValueTerminator.INSTANCE, entries);
+        byte[] raw = entries.toByteArray();
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        if (compressed) {
+            byte[] compressedBytes = new byte[raw.length];
+            int length = new DeflaterPacketCodec().compress(raw, 0, raw.length, compressedBytes, 0, raw.length);
+            byte[] header = new byte[1 + Bits.INT_SIZE_IN_BYTES];
+            header[0] = CHUNK_CODEC_DEFLATE;
+            Bits.writeIntB(header, 1, raw.length);
+            chunk.write(header, 0, header.length);
+            chunk.write(compressedBytes, 0, length);
+        } else {
+            chunk.write(CHUNK_CODEC_NONE);
+            chunk.write(raw, 0, raw.length);
+        }
+        return chunk.toByteArray();
+    }
+
+    private void writeWithoutHeader(Object o, ByteArrayOutputStream os) {
+        byte[] bytes = serializationService.toData(o).toByteArray();
+        os.write(bytes, HeapData.TYPE_OFFSET, bytes.length - HeapData.TYPE_OFFSET);
+    }
+}
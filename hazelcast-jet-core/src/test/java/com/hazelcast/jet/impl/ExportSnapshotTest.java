@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.JobStatus.RUNNING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ExportSnapshotTest extends JetTestSupport {
+
+    private static final int COUNT = 100;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private JetInstance instance;
+    private JobRepository jobRepository;
+
+    @Before
+    public void before() {
+        instance = createJetMember();
+        jobRepository = new JobRepository(instance);
+        CountingP.restoredCount = -1;
+    }
+
+    @Test
+    public void when_exportSnapshot_then_newJobStartsFromIt() {
+        // Given
+        Job job = instance.newJob(dag(), new JobConfig()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setSnapshotIntervalMillis(100));
+        assertTrueEventually(() -> assertEquals(COUNT, lastSnapshotCount(job)));
+
+        // When
+        job.exportSnapshot("exported");
+        job.cancel();
+
+        // Then
+        ExportedSnapshotRecord record = jobRepository.getExportedSnapshotRecord("exported");
+        assertNotNull(record);
+        assertEquals(job.getId(), record.jobId());
+
+        // When
+        Job newJob = instance.newJob(dag(), new JobConfig().setInitialSnapshotName("exported"));
+
+        // Then
+        assertJobStatusEventually(newJob, RUNNING);
+        assertTrueEventually(() -> assertEquals(COUNT, CountingP.restoredCount));
+        newJob.cancel();
+    }
+
+    @Test
+    public void when_noSnapshot_then_exportFails() {
+        // Given
+        Job job = instance.newJob(dag(), new JobConfig());
+        assertJobStatusEventually(job, RUNNING);
+
+        // Then
+        exception.expectMessage("has no successful snapshot to export");
+
+        // When
+        job.exportSnapshot("exported");
+    }
+
+    @Test
+    public void when_initialSnapshotMissing_then_jobFails() {
+        // When
+        Job job = instance.newJob(dag(), new JobConfig().setInitialSnapshotName("missing"));
+
+        // Then
+        exception.expectMessage("Exported snapshot 'missing' not found");
+        job.join();
+    }
+
+    private long lastSnapshotCount(Job job) {
+        JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+        return record != null && record.snapshotId() >= 0 ? CountingP.savedCount : -1;
+    }
+
+    private static DAG dag() {
+        DAG dag = new DAG();
+        dag.newVertex("counter", CountingP::new).localParallelism(1);
+        return dag;
+    }
+
+    /**
+     * Counts to {@link #COUNT} and then waits forever, saves the count to
+     * the snapshot.
+     */
+    private static final class CountingP extends AbstractProcessor {
+
+        static volatile int savedCount;
+        static volatile int restoredCount;
+
+        private int count;
+
+        @Override
+        public boolean complete() {
+            if (count < COUNT) {
+                count++;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean saveToSnapshot() {
+            if (!tryEmitToSnapshot("count", count)) {
+                return false;
+            }
+            savedCount = count;
+            return true;
+        }
+
+        @Override
+        protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
+            count = (Integer) value;
+            restoredCount = count;
+        }
+    }
+}
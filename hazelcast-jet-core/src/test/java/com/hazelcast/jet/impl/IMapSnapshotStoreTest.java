@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.hazelcast.jet.impl.JobRepository.snapshotDataMapName;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class IMapSnapshotStoreTest extends JetTestSupport {
+
+    private static final String MAP_NAME = snapshotDataMapName(1, 0);
+
+    private IMap<SnapshotDataKey, Object> map;
+    private IMapSnapshotStore store;
+
+    @Before
+    public void before() {
+        JetInstance instance = createJetMember();
+        map = instance.getMap(MAP_NAME);
+        store = new IMapSnapshotStore(instance.getHazelcastInstance());
+    }
+
+    @Test
+    public void when_deleteSupersededAfterEachIncrementalSnapshot_then_fullStateNotPiledUp() {
+        Set<SnapshotDataKey> chainedKeys = new HashSet<>();
+        for (int snapshotId = 1; snapshotId <= 5; snapshotId++) {
+            // When
+            SnapshotDataKey fullStateKey = new SnapshotDataKey(1, snapshotId, "full", 0);
+            SnapshotDataKey chainedKey = new SnapshotDataKey(1, snapshotId, "chained", 0, true);
+            map.put(fullStateKey, new byte[] {1});
+            map.put(chainedKey, new byte[] {2});
+            chainedKeys.add(chainedKey);
+            store.deleteSuperseded(MAP_NAME, snapshotId);
+
+            // Then
+            Set<SnapshotDataKey> expected = new HashSet<>(chainedKeys);
+            expected.add(fullStateKey);
+            assertEquals(expected, map.keySet());
+        }
+    }
+}
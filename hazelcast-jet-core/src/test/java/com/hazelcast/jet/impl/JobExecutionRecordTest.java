@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class JobExecutionRecordTest {
+
+    @Test
+    public void when_incrementalSnapshots_then_chainedChunksOfBaseCounted() {
+        JobExecutionRecord r = new JobExecutionRecord(1, 1, false);
+
+        // full snapshot: 10 chunks, 4 of them chained
+        r.startNewSnapshot();
+        r.ongoingSnapshotDone(0, 0, 0, 10, 4, null, false);
+        assertEquals(10, r.snapshotStats().numChunksWithBase());
+
+        // incremental snapshot: 8 chunks, 3 of them chained
+        r.startNewSnapshot();
+        r.ongoingSnapshotDone(0, 0, 0, 8, 3, null, true);
+        assertEquals(4 + 3 + 5, r.snapshotStats().numChunksWithBase());
+
+        // a failed snapshot doesn't change the stats
+        r.startNewSnapshot();
+        r.ongoingSnapshotDone(0, 0, 0, 6, 2, "failure", true);
+        assertEquals(4 + 3 + 5, r.snapshotStats().numChunksWithBase());
+
+        // a full snapshot starts a new chain
+        r.startNewSnapshot();
+        r.ongoingSnapshotDone(0, 0, 0, 6, 2, null, false);
+        assertEquals(6, r.snapshotStats().numChunksWithBase());
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static com.hazelcast.jet.impl.JobRepository.snapshotDataMapName;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class LocalDiskSnapshotStoreTest extends JetTestSupport {
+
+    private static final String MAP_NAME = snapshotDataMapName(1, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JetInstance instance1;
+    private JetInstance instance2;
+    private LocalDiskSnapshotStore store1;
+    private LocalDiskSnapshotStore store2;
+
+    @Before
+    public void before() {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig()
+              .setSnapshotDirectory(folder.getRoot().getAbsolutePath())
+              .setBackupCount(1);
+        instance1 = createJetMember(config);
+        instance2 = createJetMember(config);
+        store1 = snapshotStore(instance1);
+        store2 = snapshotStore(instance2);
+    }
+
+    @After
+    public void after() {
+        shutdownFactory();
+    }
+
+    @Test
+    public void when_putAsync_then_storedOnOriginAndReplicaAndReadOnOrigin() throws Exception {
+        // Given
+        SnapshotDataKey key = new SnapshotDataKey(1, 2, "vertex", 0);
+        byte[] chunk = {1, 2, 3};
+
+        // When
+        putAndWait(key, chunk);
+
+        // Then
+        assertEquals(1, store1.localChunkFiles(MAP_NAME).size());
+        assertEquals(1, store2.localChunkFiles(MAP_NAME).size());
+        assertRead(instance1, store1, key, chunk);
+        assertRead(instance2, store2, MAP_NAME, emptyList());
+    }
+
+    @Test
+    public void when_read_then_eachChunkReadOnceOnMemberStoringIt() throws Exception {
+        // Given
+        SnapshotDataKey key1 = new SnapshotDataKey(1, 2, "vertex", 0);
+        SnapshotDataKey key2 = new SnapshotDataKey(2, 2, "vertex", 0);
+        SnapshotDataKey key3 = new SnapshotDataKey(3, 2, "vertex", 0);
+        putAndWait(store1, instance1, key1, new byte[] {1});
+        putAndWait(store1, instance1, key2, new byte[] {2});
+        putAndWait(store2, instance2, key3, new byte[] {3});
+
+        // Then
+        assertRead(instance1, store1, MAP_NAME, asList(entry(key1, new byte[] {1}), entry(key2, new byte[] {2})));
+        assertRead(instance2, store2, MAP_NAME, singletonList(entry(key3, new byte[] {3})));
+
+        // When
+        instance1.shutdown();
+        assertClusterSizeEventually(1, instance2.getHazelcastInstance());
+
+        // Then
+        assertRead(instance2, store2, MAP_NAME, asList(entry(key1, new byte[] {1}), entry(key2, new byte[] {2}),
+                entry(key3, new byte[] {3})));
+    }
+
+    @Test
+    public void when_clear_then_filesDeletedOnAllMembers() throws Exception {
+        // Given
+        putAndWait(new SnapshotDataKey(1, 2, "vertex", 0), new byte[] {1});
+
+        // When
+        store2.clear(MAP_NAME, 2);
+
+        // Then
+        assertTrue(store1.localChunkFiles(MAP_NAME).isEmpty());
+        assertTrue(store2.localChunkFiles(MAP_NAME).isEmpty());
+
+        // When
+        SnapshotDataKey key = new SnapshotDataKey(1, 3, "vertex", 0);
+        putAndWait(key, new byte[] {2});
+
+        // Then
+        assertRead(instance1, store1, key, new byte[] {2});
+    }
+
+    @Test
+    public void when_chunkOfDeletedSnapshotAppendedLate_then_rejected() throws Exception {
+        // Given
+        SnapshotDataKey key = new SnapshotDataKey(1, 2, "vertex", 0);
+        putAndWait(key, new byte[] {1});
+        store1.clear(MAP_NAME, 2);
+
+        // When
+        byte[] keyBytes = serializationService(instance1).toData(key).toByteArray();
+        CompletableFuture<Void> future = store2.appendAsync(MAP_NAME, 2, false, "origin", null, keyBytes,
+                new byte[] {1});
+
+        // Then
+        try {
+            future.get();
+            fail("append didn't fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.toString(), peel(e) instanceof JetException);
+        }
+        assertTrue(store2.localChunkFiles(MAP_NAME).isEmpty());
+    }
+
+    @Test
+    public void when_clear_then_filesOfDepartedMemberDeleted() throws Exception {
+        // Given
+        File departedMemberDirectory = new File(folder.getRoot(), UUID.randomUUID().toString());
+        File departedMapDirectory = new File(departedMemberDirectory, MAP_NAME);
+        File otherMapDirectory = new File(departedMemberDirectory, snapshotDataMapName(1, 1));
+        assertTrue(departedMapDirectory.mkdirs());
+        assertTrue(otherMapDirectory.mkdirs());
+        assertTrue(new File(departedMapDirectory, "origin.chunks").createNewFile());
+        putAndWait(new SnapshotDataKey(1, 2, "vertex", 0), new byte[] {1});
+
+        // When
+        store1.clear(MAP_NAME, 2);
+
+        // Then
+        assertFalse(departedMapDirectory.exists());
+        assertTrue(otherMapDirectory.exists());
+
+        // When
+        store1.clear(snapshotDataMapName(1, 1), 2);
+
+        // Then
+        assertFalse(departedMemberDirectory.exists());
+    }
+
+    @Test
+    public void when_deleteSupersededAfterEachIncrementalSnapshot_then_fullStateNotPiledUp() throws Exception {
+        // Given
+        List<Entry<SnapshotDataKey, byte[]>> chainedChunks = new ArrayList<>();
+        for (int snapshotId = 1; snapshotId <= 5; snapshotId++) {
+            // When
+            SnapshotDataKey fullStateKey = new SnapshotDataKey(1, snapshotId, "full", 0);
+            SnapshotDataKey chainedKey = new SnapshotDataKey(1, snapshotId, "chained", 0, true);
+            putAndWait(fullStateKey, new byte[] {(byte) snapshotId});
+            putAndWait(chainedKey, new byte[] {(byte) -snapshotId});
+            chainedChunks.add(entry(chainedKey, new byte[] {(byte) -snapshotId}));
+            store1.deleteSuperseded(MAP_NAME, snapshotId);
+
+            // Then
+            List<Entry<SnapshotDataKey, byte[]>> expected = new ArrayList<>(chainedChunks);
+            expected.add(entry(fullStateKey, new byte[] {(byte) snapshotId}));
+            assertRead(instance1, store1, MAP_NAME, expected);
+            // the chained chunks and the full state of the last snapshot
+            assertEquals(2, store1.localChunkFiles(MAP_NAME).size());
+            assertEquals(2, store2.localChunkFiles(MAP_NAME).size());
+        }
+
+        // When
+        instance1.shutdown();
+        assertClusterSizeEventually(1, instance2.getHazelcastInstance());
+
+        // Then
+        List<Entry<SnapshotDataKey, byte[]>> expected = new ArrayList<>(chainedChunks);
+        expected.add(entry(new SnapshotDataKey(1, 5, "full", 0), new byte[] {5}));
+        assertRead(instance2, store2, MAP_NAME, expected);
+    }
+
+    @Test
+    public void when_incompleteRecordAtEnd_then_ignored() throws Exception {
+        // Given
+        SnapshotDataKey key = new SnapshotDataKey(1, 2, "vertex", 0);
+        putAndWait(key, new byte[] {1});
+        List<File> files = store1.localChunkFiles(MAP_NAME);
+        assertEquals(1, files.size());
+
+        // When
+        try (FileOutputStream out = new FileOutputStream(files.get(0), true)) {
+            out.write(new byte[] {0, 0, 0, 100, 1, 2});
+        }
+
+        // Then
+        assertRead(instance1, store1, key, new byte[] {1});
+    }
+
+    @Test
+    public void when_copyLocal_then_filteredChunksCopiedWithReplicas() throws Exception {
+        // Given
+        String targetMapName = JobRepository.exportedSnapshotMapName("exported");
+        SnapshotDataKey key = new SnapshotDataKey(1, 2, "vertex", 0);
+        putAndWait(key, new byte[] {1});
+        putAndWait(new SnapshotDataKey(1, 3, "vertex", 0), new byte[] {2});
+
+        // When
+        store1.copyLocal(MAP_NAME, targetMapName, k -> k.snapshotId() == 2);
+        store2.copyLocal(MAP_NAME, targetMapName, k -> k.snapshotId() == 2);
+
+        // Then
+        assertRead(instance1, store1, targetMapName, key, new byte[] {1});
+        assertRead(instance2, store2, targetMapName, emptyList());
+        assertEquals(1, store2.localChunkFiles(targetMapName).size());
+
+        // When
+        instance1.shutdown();
+        assertClusterSizeEventually(1, instance2.getHazelcastInstance());
+
+        // Then
+        assertRead(instance2, store2, targetMapName, key, new byte[] {1});
+    }
+
+    private void putAndWait(SnapshotDataKey key, byte[] chunk) throws Exception {
+        putAndWait(store1, instance1, key, chunk);
+    }
+
+    private static void putAndWait(LocalDiskSnapshotStore store, JetInstance instance, SnapshotDataKey key,
+                                   byte[] chunk) throws Exception {
+        Data data = serializationService(instance).toData(chunk);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        store.putAsync(MAP_NAME, key, data, new ExecutionCallback<Object>() {
+            @Override
+            public void onResponse(Object response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        assertEquals(null, future.get());
+    }
+
+    private static void assertRead(JetInstance instance, LocalDiskSnapshotStore store, SnapshotDataKey key,
+                                   byte[] chunk) {
+        assertRead(instance, store, MAP_NAME, key, chunk);
+    }
+
+    private static void assertRead(JetInstance instance, LocalDiskSnapshotStore store, String mapName,
+                                   SnapshotDataKey key, byte[] chunk) {
+        assertRead(instance, store, mapName, singletonList(entry(key, chunk)));
+    }
+
+    /**
+     * Asserts that the member reads exactly the given chunks, in any order.
+     */
+    private static void assertRead(JetInstance instance, LocalDiskSnapshotStore store, String mapName,
+                                   List<Entry<SnapshotDataKey, byte[]>> chunks) {
+        verifyProcessor(store.readP(mapName))
+                .jetInstance(instance)
+                .disableSnapshots()
+                .disableLogging()
+                .outputChecker((expected, actual) -> {
+                    assertEquals(expected.size(), actual.size());
+                    Map<Object, byte[]> actualChunks = new HashMap<>();
+                    for (Object item : actual) {
+                        Entry<?, byte[]> actualEntry = (Entry<?, byte[]>) item;
+                        assertNull("chunk read twice", actualChunks.put(actualEntry.getKey(), actualEntry.getValue()));
+                    }
+                    for (Object item : expected) {
+                        Entry<?, byte[]> expectedEntry = (Entry<?, byte[]>) item;
+                        assertArrayEquals(expectedEntry.getValue(), actualChunks.get(expectedEntry.getKey()));
+                    }
+                    return true;
+                })
+                .expectOutput(new ArrayList<>(chunks));
+    }
+
+    private static SerializationService serializationService(JetInstance instance) {
+        return ((HazelcastInstanceImpl) instance.getHazelcastInstance()).getSerializationService();
+    }
+
+    private static LocalDiskSnapshotStore snapshotStore(JetInstance instance) {
+        JetService service = ((HazelcastInstanceImpl) instance.getHazelcastInstance())
+                .node.nodeEngine.getService(JetService.SERVICE_NAME);
+        assertFalse(service.getSnapshotStore() instanceof IMapSnapshotStore);
+        return (LocalDiskSnapshotStore) service.getSnapshotStore();
+    }
+}
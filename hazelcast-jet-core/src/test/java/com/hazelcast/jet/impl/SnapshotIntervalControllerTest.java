@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SnapshotIntervalControllerTest {
+
+    @Test
+    public void when_notAdaptive_then_configuredIntervalUsed() {
+        // Given
+        SnapshotIntervalController controller =
+                new SnapshotIntervalController(new JobConfig().setSnapshotIntervalMillis(1234));
+
+        // When
+        controller.snapshotCompleted(10_000, 1_000_000);
+
+        // Then
+        assertFalse(controller.isAdaptive());
+        assertEquals(1234, controller.intervalMillis());
+    }
+
+    @Test
+    public void when_adaptive_then_initialIntervalBounded() {
+        SnapshotIntervalController controller = new SnapshotIntervalController(new JobConfig()
+                .setMaxSnapshotOverhead(0.1)
+                .setSnapshotIntervalMillis(0)
+                .setMinSnapshotIntervalMillis(500));
+
+        assertTrue(controller.isAdaptive());
+        assertEquals(500, controller.intervalMillis());
+    }
+
+    @Test
+    public void when_snapshotCompleted_then_overheadKeptBelowFraction() {
+        // Given
+        SnapshotIntervalController controller = new SnapshotIntervalController(new JobConfig()
+                .setMaxSnapshotOverhead(0.2)
+                .setMinSnapshotIntervalMillis(0));
+
+        // When
+        controller.snapshotCompleted(1000, 1_000_000);
+
+        // Then
+        // 1000ms of 5000ms is spent in the snapshot
+        assertEquals(4000, controller.intervalMillis());
+    }
+
+    @Test
+    public void when_stateGrows_then_intervalGrows() {
+        // Given
+        SnapshotIntervalController controller = new SnapshotIntervalController(new JobConfig()
+                .setMaxSnapshotOverhead(0.5)
+                .setMinSnapshotIntervalMillis(0));
+        controller.snapshotCompleted(1000, 1_000_000);
+
+        // When
+        // the same rate, twice the size
+        controller.snapshotCompleted(2000, 2_000_000);
+
+        // Then
+        assertEquals(2000, controller.intervalMillis());
+    }
+
+    @Test
+    public void when_rateFluctuates_then_averaged() {
+        // Given
+        SnapshotIntervalController controller = new SnapshotIntervalController(new JobConfig()
+                .setMaxSnapshotOverhead(0.5)
+                .setMinSnapshotIntervalMillis(0));
+        controller.snapshotCompleted(1000, 1_000_000);
+
+        // When
+        // a single snapshot 3 times slower, e.g. due to a GC pause
+        controller.snapshotCompleted(3000, 1_000_000);
+
+        // Then
+        // the averaged rate is 2/3 of the first one
+        assertEquals(1500, controller.intervalMillis());
+    }
+
+    @Test
+    public void when_emptySnapshot_then_durationUsed() {
+        SnapshotIntervalController controller = new SnapshotIntervalController(new JobConfig()
+                .setMaxSnapshotOverhead(0.5)
+                .setMinSnapshotIntervalMillis(0));
+
+        controller.snapshotCompleted(300, 0);
+
+        assertEquals(300, controller.intervalMillis());
+    }
+
+    @Test
+    public void when_intervalOutOfBounds_then_bounded() {
+        // Given
+        SnapshotIntervalController controller = new SnapshotIntervalController(new JobConfig()
+                .setMaxSnapshotOverhead(0.01)
+                .setMinSnapshotIntervalMillis(2000)
+                .setMaxSnapshotIntervalMillis(60_000));
+
+        // When-Then
+        controller.snapshotCompleted(10, 1000);
+        assertEquals(2000, controller.intervalMillis());
+
+        controller.snapshotCompleted(10_000, 1_000_000);
+        assertEquals(60_000, controller.intervalMillis());
+    }
+}
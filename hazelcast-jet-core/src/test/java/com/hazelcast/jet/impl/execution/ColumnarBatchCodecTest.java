@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.datamodel.TimestampedItem;
+import com.hazelcast.jet.datamodel.WindowResult;
+import com.hazelcast.jet.impl.execution.ColumnarBatchCodec.Shape;
+import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
+import static com.hazelcast.jet.datamodel.Tuple4.tuple4;
+import static com.hazelcast.jet.datamodel.Tuple5.tuple5;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class ColumnarBatchCodecTest {
+
+    private final InternalSerializationService serService = new DefaultSerializationServiceBuilder().build();
+    private final ColumnarBatchCodec codec = new ColumnarBatchCodec();
+
+    @Test
+    public void when_shapeOf_then_onlyExactTypesSupported() {
+        assertEquals(Shape.ENTRY, ColumnarBatchCodec.shapeOf(entry(1, 2)));
+        assertEquals(Shape.TUPLE2, ColumnarBatchCodec.shapeOf(tuple2(1, 2)));
+        assertEquals(Shape.TIMESTAMPED_ENTRY, ColumnarBatchCodec.shapeOf(new TimestampedEntry<>(1, 2, 3)));
+        assertNull(ColumnarBatchCodec.shapeOf("a"));
+        assertNull(ColumnarBatchCodec.shapeOf(new SimpleEntry<>(1, 2)));
+    }
+
+    @Test
+    public void when_allShapes_then_roundTrip() throws IOException {
+        assertRoundTrip(asList(entry("a", 1L), entry("b", 2L), entry("a", 3L)));
+        assertRoundTrip(asList(tuple2(1, 1.5), tuple2(2, 2.5)));
+        assertRoundTrip(asList(tuple3("a", 1, 2L), tuple3("a", 2, 3L)));
+        assertRoundTrip(asList(tuple4("a", 1, 2L, 3.0), tuple4("b", 2, 3L, 4.0)));
+        assertRoundTrip(asList(tuple5("a", 1, 2L, 3.0, "x"), tuple5("b", 2, 3L, 4.0, "y")));
+        assertRoundTrip(asList(new TimestampedItem<>(1, "a"), new TimestampedItem<>(2, "b")));
+        assertRoundTrip(asList(new TimestampedEntry<>(1, "k", 1L), new TimestampedEntry<>(2, "k", 2L)));
+        assertRoundTrip(asList(new WindowResult<>(0, 10, "k", 1L), new WindowResult<>(10, 20, "k", 2L)));
+    }
+
+    @Test
+    public void when_mixedTypesAndNulls_then_roundTrip() throws IOException {
+        assertRoundTrip(asList(entry("a", 1L), entry(1, null), entry(null, "b"), entry(2.0, asList(1, 2))));
+    }
+
+    @Test
+    public void when_largeDictionary_then_roundTrip() throws IOException {
+        assertRoundTrip(range(0, 300).mapToObj(i -> entry("key-" + i, i)).collect(toList()));
+        assertRoundTrip(range(0, 70_000).mapToObj(i -> entry("key-" + i, i)).collect(toList()));
+    }
+
+    @Test
+    public void when_repeatedStringsAndLongs_then_smallerThanRowWise() throws IOException {
+        // Given
+        List<Object> items = range(0, 1000).mapToObj(i -> entry("key-" + i % 10, (long) i)).collect(toList());
+
+        // When
+        byte[] columnar = write(items);
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        for (Object item : items) {
+            out.writeObject(item);
+            out.writeInt(0);
+        }
+
+        // Then
+        assertTrue("columnar=" + columnar.length + ", rowWise=" + out.position(),
+                columnar.length * 2 < out.position());
+    }
+
+    private void assertRoundTrip(List<Object> items) throws IOException {
+        // When
+        byte[] bytes = write(items);
+        BufferObjectDataInput in = serService.createObjectDataInput(bytes);
+        Object[] result = codec.readBatch(in, items.size());
+
+        // Then
+        assertEquals(items, Arrays.asList(result).subList(0, items.size()));
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getClass(), result[i].getClass());
+            assertEquals(i, codec.partitionIds()[i]);
+        }
+        assertEquals(bytes.length, in.position());
+    }
+
+    private byte[] write(List<Object> items) throws IOException {
+        List<ObjectWithPartitionId> batch = range(0, items.size())
+                .mapToObj(i -> new ObjectWithPartitionId(items.get(i), i))
+                .collect(toList());
+        BufferObjectDataOutput out = serService.createObjectDataOutput();
+        codec.writeBatch(out, ColumnarBatchCodec.shapeOf(items.get(0)), batch);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.util.SkewReductionPolicy;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class ConcurrentInboundEdgeStreamTest_SkewReduction {
+
+    private static final Object senderGone = new Object();
+
+    private OneToOneConcurrentArrayQueue<Object> q1;
+    private OneToOneConcurrentArrayQueue<Object> q2;
+    private ConcurrentInboundEdgeStream stream;
+
+    @Test
+    public void when_queueAheadOfPriorityDrainingThreshold_then_drainedOnlyIfLaggingQueueEmpty() {
+        // Given
+        createStream(Long.MAX_VALUE, 0);
+        observeWms(10, 5);
+
+        // When
+        q1.addAll(asList("a1", "a2"));
+        q2.add("b1");
+
+        // Then
+        assertEquals(singletonList("b1"), drain());
+        assertEquals(asList("a1", "a2"), drain());
+    }
+
+    @Test
+    public void when_queueAheadOfMaxSkew_then_notDrainedUntilLaggingQueueCatchesUp() {
+        // Given
+        createStream(3, 0);
+        observeWms(10, 5);
+
+        // When
+        q1.add("a1");
+
+        // Then
+        assertEquals(emptyDrain(), drain());
+        q2.add(new Watermark(8));
+        assertEquals(singletonList(new Watermark(8)), drain());
+        assertEquals(singletonList("a1"), drain());
+    }
+
+    @Test
+    public void when_laggingQueueIdle_then_queueAheadDrained() {
+        // Given
+        createStream(3, 0);
+        observeWms(10, 5);
+        q1.add("a1");
+        assertEquals(emptyDrain(), drain());
+
+        // When
+        q2.add(IDLE_MESSAGE);
+        drain();
+
+        // Then
+        assertEquals(singletonList("a1"), drain());
+    }
+
+    @Test
+    public void when_laggingQueueWaitsForBarrierFromQueueAhead_then_queueAheadDrainedUpToBarrier() {
+        // Given
+        createStream(3, 0, true);
+        observeWms(10, 5);
+        q2.addAll(asList("b1", barrier(0), "b2"));
+        assertEquals(singletonList("b1"), drain());
+
+        // When
+        q1.addAll(asList("a1", barrier(0), "a2"));
+
+        // Then
+        assertEquals(asList("a1", barrier(0)), drain());
+        assertEquals(singletonList("b2"), drain());
+        assertEquals(emptyDrain(), drain());
+    }
+
+    @Test
+    public void when_queueWithoutWm_then_doesNotHoldBackOthers() {
+        // Given
+        createStream(3, 0);
+
+        q1.add(new Watermark(10));
+        assertEquals(emptyDrain(), drain());
+
+        // When
+        q1.add("a1");
+        q2.add("b1");
+
+        // Then
+        assertEquals(asList("b1", "a1"), drain());
+    }
+
+    private void createStream(long maxSkew, long priorityDrainingThreshold) {
+        createStream(maxSkew, priorityDrainingThreshold, false);
+    }
+
+    private void createStream(long maxSkew, long priorityDrainingThreshold, boolean waitForAllBarriers) {
+        q1 = new OneToOneConcurrentArrayQueue<>(128);
+        q2 = new OneToOneConcurrentArrayQueue<>(128);
+        //noinspection unchecked
+        ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(senderGone, q1, q2);
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, waitForAllBarriers, -1,
+                new SkewReductionPolicy(2, maxSkew, priorityDrainingThreshold, false), "cies");
+    }
+
+    private void observeWms(long wm1, long wm2) {
+        q1.add(new Watermark(wm1));
+        q2.add(new Watermark(wm2));
+        while (!q1.isEmpty() || !q2.isEmpty()) {
+            drain();
+        }
+    }
+
+    private List<Object> drain() {
+        List<Object> list = new ArrayList<>();
+        stream.drainTo(list::add);
+        return list;
+    }
+
+    private static SnapshotBarrier barrier(long snapshotId) {
+        return new SnapshotBarrier(snapshotId, false);
+    }
+
+    private static List<Object> emptyDrain() {
+        return new ArrayList<>();
+    }
+}
@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
@@ -251,6 +252,77 @@ public class ConcurrentInboundEdgeStreamTest_WmRetainDisabled {
         drainAndAssert(MADE_PROGRESS, wm(1));
     }
 
+    @Test
+    public void when_unalignedSnapshots_then_barrierForwardedFromFirstQueue() {
+        stream.enableUnalignedSnapshots(null);
+
+        add(q1, 1, barrier(0), 2);
+        add(q2, 3);
+        drainAndAssert(MADE_PROGRESS, 1, barrier(0));
+        drainAndAssert(MADE_PROGRESS, 2, 3);
+        assertInFlight(false, entry(3, -1));
+
+        add(q2, 4, barrier(0), 5);
+        drainAndAssert(MADE_PROGRESS, 4);
+        drainAndAssert(MADE_PROGRESS, 5);
+        assertInFlight(true, entry(4, -1));
+    }
+
+    @Test
+    public void when_unalignedSnapshotsAndRecordingStarted_then_allQueuesRecordedUntilBarrier() {
+        stream.enableUnalignedSnapshots(item -> (Integer) item * 10);
+        stream.startInFlightRecording(0);
+
+        add(q1, 1);
+        add(q2, 2);
+        drainAndAssert(MADE_PROGRESS, 1, 2);
+
+        add(q1, barrier(0), 3);
+        drainAndAssert(MADE_PROGRESS, barrier(0));
+
+        add(q2, barrier(0));
+        drainAndAssert(MADE_PROGRESS, 3);
+        assertInFlight(true, entry(1, 10), entry(2, 20));
+    }
+
+    @Test
+    public void when_unalignedSnapshotsAndBarrierReceivedFromAll_then_recordingNotStarted() {
+        stream.enableUnalignedSnapshots(null);
+
+        add(q1, barrier(0));
+        add(q2, barrier(0));
+        drainAndAssert(MADE_PROGRESS, barrier(0));
+        drainAndAssert(MADE_PROGRESS);
+
+        stream.startInFlightRecording(0);
+        add(q1, 1);
+        drainAndAssert(MADE_PROGRESS, 1);
+        assertInFlight(true);
+    }
+
+    @Test
+    public void when_unalignedSnapshotsAndTerminalBarrier_then_waitForBarrier() {
+        stream.enableUnalignedSnapshots(null);
+        SnapshotBarrier terminalBarrier = new SnapshotBarrier(0, true);
+
+        add(q1, terminalBarrier, 2);
+        add(q2, 1);
+        drainAndAssert(MADE_PROGRESS, 1);
+        drainAndAssert(NO_PROGRESS);
+
+        add(q2, terminalBarrier);
+        drainAndAssert(MADE_PROGRESS, terminalBarrier);
+        drainAndAssert(MADE_PROGRESS, 2);
+        assertInFlight(true);
+    }
+
+    private void assertInFlight(boolean expectedComplete, Object... expectedEntries) {
+        List<Object> list = new ArrayList<>();
+        assertEquals("complete", expectedComplete,
+                stream.drainInFlightItems((item, partitionKey) -> list.add(entry(item, partitionKey))));
+        assertEquals(Arrays.asList(expectedEntries), list);
+    }
+
     private void drainAndAssert(ProgressState expectedState, Object... expectedItems) {
         List<Object> list = new ArrayList<>();
         assertEquals("progressState", expectedState, stream.drainTo(list::add));
@@ -17,11 +17,14 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Inbox;
 import com.hazelcast.jet.core.Outbox;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.impl.processor.CopyOnWriteSnapshotSupport;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.serialization.SerializationService;
@@ -41,6 +44,8 @@ import java.util.Queue;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
+import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
@@ -49,8 +54,10 @@ import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -190,6 +197,174 @@ public class ProcessorTaskletTest_Snapshots {
         assertEquals(asList(ssEntry1.getValue(), ssEntry2.getValue(), barrier(0), DONE_ITEM), getSnapshotBufferValues());
     }
 
+    @Test
+    public void when_unalignedSnapshot_then_inFlightItemsSavedBeforeBarrier() {
+        // Given
+        OneToOneConcurrentArrayQueue<Object> q1 = new OneToOneConcurrentArrayQueue<>(128);
+        OneToOneConcurrentArrayQueue<Object> q2 = new OneToOneConcurrentArrayQueue<>(128);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        outstreams.add(outstream1);
+        q1.addAll(asList(0, 1, barrier(0), 2));
+        q2.add(3);
+        Tasklet tasklet = createUnalignedTasklet(q1, q2);
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0), 3, 2), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 3), getSnapshotBufferValues());
+        assertEquals(new InFlightItemKey(0, 0, 1, 0), getSnapshotBufferKeys().get(2));
+
+        // When
+        q2.addAll(asList(4, barrier(0), 5));
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0), 3, 2, 4, 5), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 3, 4, barrier(0)), getSnapshotBufferValues());
+    }
+
+    @Test
+    public void when_unalignedSnapshotAndOrdinalWithTwoQueues_then_inFlightItemsSavedBeforeBarrier() {
+        // Given
+        OneToOneConcurrentArrayQueue<Object> q1 = new OneToOneConcurrentArrayQueue<>(128);
+        OneToOneConcurrentArrayQueue<Object> q2 = new OneToOneConcurrentArrayQueue<>(128);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        outstreams.add(outstream1);
+        q1.addAll(asList(0, 1, barrier(0), 2));
+        q2.add(3);
+        ConcurrentInboundEdgeStream stream = new ConcurrentInboundEdgeStream(concurrentConveyor(null, q1, q2),
+                0, 0, false, -1, "cies");
+        stream.enableUnalignedSnapshots(null);
+        Tasklet tasklet = createUnalignedTasklet(singletonList(stream));
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0), 2, 3), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 3), getSnapshotBufferValues());
+        assertEquals(new InFlightItemKey(0, 0, 0, 0), getSnapshotBufferKeys().get(2));
+        assertTrue(stream.isRecordingInFlight());
+
+        // When
+        q2.addAll(asList(4, barrier(0), 5));
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0), 2, 3, 4, 5), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 3, 4, barrier(0)), getSnapshotBufferValues());
+        assertFalse(stream.isRecordingInFlight());
+    }
+
+    @Test
+    public void when_inFlightItemsRestored_then_processedAfterRestore() {
+        // Given
+        Entry<String, String> ssEntry1 = entry("k1", "v1");
+        Entry<InFlightItemKey, Integer> inFlightEntry = entry(new InFlightItemKey(0, 0, 1, 0), 3);
+        MockInboundStream instream1 = new MockInboundStream(Integer.MIN_VALUE,
+                asList(ssEntry1, inFlightEntry, DONE_ITEM), 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, asList(4, DONE_ITEM), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(asList("finishRestore", 3, 4, DONE_ITEM), outstream1.getBuffer());
+        assertEquals(asList(1, 1), processor.processedOrdinals);
+    }
+
+    @Test
+    public void when_inFlightItemsRestoredShuffled_then_replayedInReceivedOrder() {
+        // Given
+        MockInboundStream instream1 = new MockInboundStream(Integer.MIN_VALUE, asList(
+                entry(new InFlightItemKey(0, 1, 1, 0), "p1-o1-s0"),
+                entry(new InFlightItemKey(0, 0, 1, 2), "p0-o1-s2"),
+                entry(new InFlightItemKey(0, 1, 0, 1), "p1-o0-s1"),
+                entry("k1", "v1"),
+                entry(new InFlightItemKey(0, 0, 1, 1), "p0-o1-s1"),
+                entry(new InFlightItemKey(0, 0, 0, 0), "p0-o0-s0"),
+                entry(new InFlightItemKey(0, 1, 1, 2), "p1-o1-s2"),
+                DONE_ITEM), 4);
+        MockInboundStream instream2 = new MockInboundStream(0, asList(4, DONE_ITEM), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(asList("finishRestore", "p0-o0-s0", "p1-o0-s1", "p0-o1-s1", "p0-o1-s2", "p1-o1-s0", "p1-o1-s2",
+                4, DONE_ITEM), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 1), processor.processedOrdinals);
+    }
+
+    @Test
+    public void when_copyOnWriteSnapshot_then_itemsProcessedWhileSaving() {
+        // Given
+        List<Object> input = asList(0, 1, barrier(0), 2, 3);
+        MockInboundStream instream1 = new MockInboundStream(0, input, input.size());
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+        snapshotCollector = new MockOutboundCollector(1);
+        processor = new CopyOnWriteProcessor();
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0), 2, 3), outstream1.getBuffer());
+        assertEquals(singletonList(0), getSnapshotBufferValues());
+
+        // When
+        List<Object> snapshotValues = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            snapshotValues.addAll(getSnapshotBufferValues());
+            snapshotCollector.getBuffer().clear();
+            callUntil(tasklet, NO_PROGRESS);
+        }
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0)), snapshotValues);
+        assertEquals(emptyList(), getSnapshotBufferValues());
+    }
+
+    private ProcessorTasklet createUnalignedTasklet(OneToOneConcurrentArrayQueue<Object> q1,
+                                                    OneToOneConcurrentArrayQueue<Object> q2) {
+        List<InboundEdgeStream> streams = new ArrayList<>();
+        for (OneToOneConcurrentArrayQueue<Object> q : asList(q1, q2)) {
+            ConcurrentInboundEdgeStream stream = new ConcurrentInboundEdgeStream(concurrentConveyor(null, q),
+                    streams.size(), 0, false, -1, "cies" + streams.size());
+            stream.enableUnalignedSnapshots(null);
+            streams.add(stream);
+        }
+        return createUnalignedTasklet(streams);
+    }
+
+    private ProcessorTasklet createUnalignedTasklet(List<InboundEdgeStream> streams) {
+        snapshotContext = new SnapshotContext(mock(ILogger.class), 1, "test job", -1, EXACTLY_ONCE);
+        snapshotContext.initTaskletCount(1, 0);
+        final ProcessorTasklet t = new ProcessorTasklet(context, serializationService, processor, streams, outstreams,
+                snapshotContext, snapshotCollector, -1, null, true);
+        t.init();
+        return t;
+    }
+
     private ProcessorTasklet createTasklet(ProcessingGuarantee guarantee) {
         for (int i = 0; i < instreams.size(); i++) {
             instreams.get(i).setOrdinal(i);
@@ -197,7 +372,7 @@ public class ProcessorTaskletTest_Snapshots {
         snapshotContext = new SnapshotContext(mock(ILogger.class), 1, "test job", -1, guarantee);
         snapshotContext.initTaskletCount(1, 0);
         final ProcessorTasklet t = new ProcessorTasklet(context, serializationService, processor, instreams, outstreams,
-                snapshotContext, snapshotCollector, -1);
+                snapshotContext, snapshotCollector, -1, null);
         t.init();
         return t;
     }
@@ -208,6 +383,12 @@ public class ProcessorTaskletTest_Snapshots {
                                 .collect(Collectors.toList());
     }
 
+    private List<Object> getSnapshotBufferKeys() {
+        return snapshotCollector.getBuffer().stream()
+                                .map(e -> (e instanceof Map.Entry) ? serializationService.toObject(((Entry) e).getKey()) : e)
+                                .collect(Collectors.toList());
+    }
+
     private Object deserializeEntryValue(Entry e) {
         return serializationService.toObject(e.getValue());
     }
@@ -227,15 +408,26 @@ public class ProcessorTaskletTest_Snapshots {
         return new SnapshotBarrier(snapshotId, false);
     }
 
+    private static class CopyOnWriteProcessor extends SnapshottableProcessor implements CopyOnWriteSnapshotSupport {
+
+        @Override
+        public Traverser<Entry<?, ?>> takeSnapshotCopy() {
+            List<Entry<?, ?>> copy = new ArrayList<>(snapshotQueue);
+            snapshotQueue.clear();
+            return traverseIterable(copy);
+        }
+    }
+
     private static class SnapshottableProcessor implements Processor {
 
         int nullaryProcessCallCountdown;
         int itemsToEmitInComplete;
         int completedCount;
         boolean offerSucceeded = true;
+        List<Integer> processedOrdinals = new ArrayList<>();
         private Outbox outbox;
 
-        private Queue<Map.Entry> snapshotQueue = new ArrayDeque<>();
+        Queue<Entry<?, ?>> snapshotQueue = new ArrayDeque<>();
 
         @Override
         public void init(@Nonnull Outbox outbox, @Nonnull Context context) {
@@ -244,6 +436,7 @@ public class ProcessorTaskletTest_Snapshots {
 
         @Override
         public void process(int ordinal, @Nonnull Inbox inbox) {
+            processedOrdinals.add(ordinal);
             for (Object item; (item = inbox.peek()) != null; ) {
                 if (!outbox.offer(item)) {
                     return;
@@ -285,7 +478,7 @@ public class ProcessorTaskletTest_Snapshots {
             if (!finishOffering()) {
                 return false;
             }
-            for (Map.Entry item; (item = snapshotQueue.peek()) != null; ) {
+            for (Entry<?, ?> item; (item = snapshotQueue.peek()) != null; ) {
                 if (!outbox.offerToSnapshot(item.getKey(), item.getValue())) {
                     return false;
                 } else {
@@ -299,7 +492,7 @@ public class ProcessorTaskletTest_Snapshots {
         @Override
         public void restoreFromSnapshot(@Nonnull Inbox inbox) {
             for (Object o; (o = inbox.poll()) != null; ) {
-                snapshotQueue.offer((Entry) o);
+                snapshotQueue.offer((Entry<?, ?>) o);
             }
         }
 
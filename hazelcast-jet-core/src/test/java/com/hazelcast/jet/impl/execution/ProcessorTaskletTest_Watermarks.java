@@ -287,7 +287,7 @@ public class ProcessorTaskletTest_Watermarks {
         SnapshotContext snapshotContext = new SnapshotContext(mock(ILogger.class), 1, "test job", -1, EXACTLY_ONCE);
         snapshotContext.initTaskletCount(1, 0);
         final ProcessorTasklet t = new ProcessorTasklet(context, new DefaultSerializationServiceBuilder().build(),
-                processor, instreams, outstreams, snapshotContext, snapshotCollector, maxWatermarkRetainMillis);
+                processor, instreams, outstreams, snapshotContext, snapshotCollector, maxWatermarkRetainMillis, null);
         t.init();
         return t;
     }
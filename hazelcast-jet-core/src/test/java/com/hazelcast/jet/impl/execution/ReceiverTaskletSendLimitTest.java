@@ -16,6 +16,11 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.logging.ILogger;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +35,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 @RunWith(HazelcastParallelClassRunner.class)
 public class ReceiverTaskletSendLimitTest {
@@ -43,7 +49,8 @@ public class ReceiverTaskletSendLimitTest {
 
     @Before
     public void before() {
-        tasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS);
+        tasklet = new ReceiverTasklet(null, new DefaultSerializationServiceBuilder().build(), RWIN_MULTIPLIER,
+                FLOW_CONTROL_PERIOD_MS, null, false, false, null);
     }
 
     @Test
@@ -135,4 +142,26 @@ public class ReceiverTaskletSendLimitTest {
         final long rwin = seqLimitAfterRecover - ackedSeqCompressed;
         assertTrue(rwin >= RWIN_MULTIPLIER * ackedSeqsPerIterCompressed);
     }
+
+    @Test
+    public void when_registerFlowControlMetrics_then_gaugesReadFlowControlState() {
+        // Given
+        MetricsRegistryImpl registry = new MetricsRegistryImpl(mock(ILogger.class), ProbeLevel.INFO);
+        tasklet.registerFlowControlMetrics(registry.newProbeBuilder().withTag("module", "jet"));
+
+        // When
+        tasklet.ackItem(5L << COMPRESSED_SEQ_UNIT_LOG2);
+        tasklet.setNumWaitingInInbox(3);
+
+        // Then
+        assertEquals(5L << COMPRESSED_SEQ_UNIT_LOG2, read(registry, "[module=jet,unit=bytes,metric=ackedSeq]"));
+        assertEquals((long) INITIAL_RECEIVE_WINDOW_COMPRESSED << COMPRESSED_SEQ_UNIT_LOG2,
+                read(registry, "[module=jet,unit=bytes,metric=receiveWindow]"));
+        assertEquals(3, read(registry, "[module=jet,unit=count,metric=inboxSize]"));
+    }
+
+    private static long read(MetricsRegistryImpl registry, String name) {
+        LongGauge gauge = registry.newLongGauge(name);
+        return gauge.read();
+    }
 }
@@ -18,15 +18,24 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
 import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_HEADER_SIZE;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 
 @RunWith(HazelcastParallelClassRunner.class)
@@ -39,8 +48,8 @@ public class ReceiverTaskletTest {
     @Before
     public void before() {
         collector = new MockOutboundCollector(2);
-        t = new ReceiverTasklet(collector, 3, 100);
         serService = new DefaultSerializationServiceBuilder().build();
+        t = new ReceiverTasklet(collector, serService, 3, 100, null, false, false, null);
     }
 
     @Test
@@ -50,13 +59,143 @@ public class ReceiverTaskletTest {
         assertEquals(asList(1, 2), collector.getBuffer());
     }
 
+    @Test
+    public void when_receiveCompressedPackets_then_emitObjects() throws IOException {
+        // Given
+        List<Object> items = nCopies(20, "a");
+        collector = new MockOutboundCollector(2 * items.size());
+        t = new ReceiverTasklet(collector, serService, 3, 100, new DeflaterPacketCodec(), false, false, null);
+        byte[] packet = compressedPacket(items);
+
+        // When
+        t.receiveStreamPacket(packet);
+        t.receiveStreamPacket(packet);
+        t.call();
+
+        // Then
+        List<Object> expected = new ArrayList<>(items);
+        expected.addAll(items);
+        assertEquals(expected, collector.getBuffer());
+        assertEquals(2 * packet.length, t.getBytesInCounter().get());
+    }
+
+    @Test
+    public void when_receiveUncompressedPacketWithCodec_then_emitObjects() throws IOException {
+        // Given
+        t = new ReceiverTasklet(collector, serService, 3, 100, new DeflaterPacketCodec(), false, false, null);
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.write(new byte[STREAM_PACKET_HEADER_SIZE]);
+        out.writeInt(-1);
+        writeBody(out, 1, 2);
+
+        // When
+        t.receiveStreamPacket(out.toByteArray());
+        t.call();
+
+        // Then
+        assertEquals(asList(1, 2), collector.getBuffer());
+    }
+
+    @Test
+    public void when_serializedPassThrough_then_emitDataAndEntriesWithDataAsIs() throws IOException {
+        // Given
+        t = new ReceiverTasklet(collector, serService, 3, 100, null, true, false, null);
+        Data data = serService.toData("a");
+        Data key = serService.toData("k");
+        Data value = serService.toData("v");
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.write(new byte[STREAM_PACKET_HEADER_SIZE]);
+        out.writeInt(2);
+        out.writeByte(ReceiverTasklet.ITEM_DATA);
+        out.writeData(data);
+        out.writeInt(1);
+        out.writeByte(ReceiverTasklet.ITEM_ENTRY);
+        out.writeData(key);
+        out.writeData(value);
+        out.writeInt(2);
+
+        // When
+        t.receiveStreamPacket(out.toByteArray());
+        t.call();
+
+        // Then
+        assertEquals(asList(data, entry(key, value)), collector.getBuffer());
+    }
+
+    @Test
+    public void when_senderCloseToLimitAndInboxDrained_then_ackImmediately() throws IOException {
+        // Given
+        List<Integer> acks = new ArrayList<>();
+        collector = new MockOutboundCollector(10);
+        t = new ReceiverTasklet(collector, serService, 3, 100, null, false, false, acks::add);
+
+        // When
+        pushObjects(1, 2);
+        t.call();
+        t.call();
+
+        // Then
+        assertEquals(asList(1, 2), collector.getBuffer());
+        assertEquals(singletonList(ReceiverTasklet.INITIAL_RECEIVE_WINDOW_COMPRESSED), acks);
+    }
+
+    @Test
+    public void when_itemsWaitingInInbox_then_noImmediateAck() throws IOException {
+        // Given
+        List<Integer> acks = new ArrayList<>();
+        t = new ReceiverTasklet(collector, serService, 3, 100, null, false, false, acks::add);
+
+        // When
+        pushObjects(1, 2, 3);
+        t.call();
+
+        // Then
+        assertEquals(asList(1, 2), collector.getBuffer());
+        assertEquals(emptyList(), acks);
+    }
+
+    @Test
+    public void when_senderFarFromLimit_then_noImmediateAck() throws IOException {
+        // Given
+        List<Integer> acks = new ArrayList<>();
+        t = new ReceiverTasklet(collector, serService, 3, 100, null, false, false, acks::add);
+        t.updateAndGetSendSeqLimitCompressed();
+
+        // When
+        pushObjects(1, 2);
+        t.call();
+
+        // Then
+        assertEquals(asList(1, 2), collector.getBuffer());
+        assertEquals(emptyList(), acks);
+    }
+
     private void pushObjects(Object... objs) throws IOException {
         final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.write(new byte[STREAM_PACKET_HEADER_SIZE]);
+        writeBody(out, objs);
+        t.receiveStreamPacket(out.toByteArray());
+    }
+
+    private byte[] compressedPacket(List<Object> items) throws IOException {
+        final BufferObjectDataOutput bodyOut = serService.createObjectDataOutput();
+        writeBody(bodyOut, items.toArray());
+        byte[] body = bodyOut.toByteArray();
+        byte[] compressed = new byte[body.length];
+        int compressedLength = new DeflaterPacketCodec().compress(body, 0, body.length, compressed, 0, body.length);
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.write(new byte[STREAM_PACKET_HEADER_SIZE]);
+        out.writeInt(body.length);
+        out.writeInt(compressedLength);
+        out.write(compressed, 0, compressedLength);
+        return out.toByteArray();
+    }
+
+    private static void writeBody(BufferObjectDataOutput out, Object... objs) throws IOException {
         out.writeInt(objs.length);
         for (Object obj : objs) {
             out.writeObject(obj);
             out.writeInt(Math.abs(obj.hashCode())); // partition id
         }
-        t.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()));
     }
 }
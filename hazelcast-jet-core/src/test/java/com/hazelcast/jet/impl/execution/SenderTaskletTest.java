@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.decompressSeq;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SenderTaskletTest {
+
+    private static final int ITEM_COUNT = 10_000;
+
+    private NodeEngineImpl nodeEngine;
+    private MockInboundStream inboundStream;
+    private SenderTasklet tasklet;
+    private MetricsRegistryImpl registry;
+
+    @Before
+    public void before() throws Exception {
+        nodeEngine = mock(NodeEngineImpl.class, RETURNS_DEEP_STUBS);
+        when(nodeEngine.getSerializationService()).thenReturn(new DefaultSerializationServiceBuilder().build());
+        when(nodeEngine.getNode().getConnectionManager().getConnection(any(Address.class)))
+                .thenReturn(mock(Connection.class));
+        inboundStream = new MockInboundStream(0, nCopies(ITEM_COUNT, "item"), ITEM_COUNT);
+        tasklet = new SenderTasklet(inboundStream, nodeEngine, new Address("localhost", 5701), 1, 1, 1 << 20);
+        registry = new MetricsRegistryImpl(mock(ILogger.class), ProbeLevel.INFO);
+        tasklet.registerFlowControlMetrics(registry.newProbeBuilder().withTag("module", "jet"));
+    }
+
+    @Test
+    public void when_sendWindowExhausted_then_blockedTimeCounted() throws Exception {
+        // When
+        tasklet.call();
+        tasklet.call();
+        long sentSeq = read("[module=jet,unit=bytes,metric=sentSeq]");
+        long blockedNanos1 = tasklet.flowControlBlockedNanos();
+        Thread.sleep(10);
+        long blockedNanos2 = tasklet.flowControlBlockedNanos();
+
+        // Then
+        assertTrue("sentSeq=" + sentSeq, sentSeq > 0);
+        assertEquals(0, read("[module=jet,unit=bytes,metric=sendSeqLimit]"));
+        assertTrue(blockedNanos2 - blockedNanos1 >= MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void when_sendWindowOpened_then_blockedTimeStopsGrowing() throws Exception {
+        // Given
+        tasklet.call();
+        tasklet.call();
+        Thread.sleep(10);
+
+        // When
+        tasklet.setSendSeqLimitCompressed(Integer.MAX_VALUE);
+        while (!inboundStream.remainingItems().isEmpty() || tasklet.getItemsOutCounter().get() < ITEM_COUNT) {
+            tasklet.call();
+        }
+        long blockedNanos = tasklet.flowControlBlockedNanos();
+        long blockedMillis = read("[module=jet,unit=ms,metric=flowControlBlockedTime]");
+        Thread.sleep(10);
+
+        // Then
+        assertTrue("blockedNanos=" + blockedNanos, blockedNanos >= MILLISECONDS.toNanos(10));
+        assertEquals(NANOSECONDS.toMillis(blockedNanos), blockedMillis);
+        assertEquals(blockedNanos, tasklet.flowControlBlockedNanos());
+    }
+
+    @Test
+    public void when_lowerLimitArrivesLater_then_ignored() {
+        // When
+        tasklet.setSendSeqLimitCompressed(1000);
+        tasklet.setSendSeqLimitCompressed(10);
+
+        // Then
+        assertEquals(decompressSeq(1000), read("[module=jet,unit=bytes,metric=sendSeqLimit]"));
+
+        // When
+        tasklet.setSendSeqLimitCompressed(2000);
+
+        // Then
+        assertEquals(decompressSeq(2000), read("[module=jet,unit=bytes,metric=sendSeqLimit]"));
+    }
+
+    @Test
+    public void when_limitWrapsAround_then_raised() {
+        // When
+        tasklet.setSendSeqLimitCompressed(Integer.MAX_VALUE);
+        tasklet.setSendSeqLimitCompressed(Integer.MIN_VALUE);
+
+        // Then
+        assertEquals(decompressSeq(Integer.MIN_VALUE), read("[module=jet,unit=bytes,metric=sendSeqLimit]"));
+    }
+
+    @Test
+    public void when_lingerTimeSetAndFewItems_then_sentAfterLingerTime() throws Exception {
+        // Given
+        MockInboundStream stream = new MockInboundStream(0, nCopies(3, "item"), 3);
+        SenderTasklet lingeringTasklet = newLingeringTasklet(stream, MILLISECONDS.toNanos(50));
+
+        // When
+        lingeringTasklet.call();
+        lingeringTasklet.call();
+
+        // Then
+        assertEquals(0, lingeringTasklet.getPacketsOutCounter().get());
+        Thread.sleep(60);
+        lingeringTasklet.call();
+        assertEquals(1, lingeringTasklet.getPacketsOutCounter().get());
+        assertEquals(3, lingeringTasklet.getItemsOutCounter().get());
+    }
+
+    @Test
+    public void when_lingerTimeSetAndContinuousInput_then_lingersInEveryPeriod() throws Exception {
+        // Given
+        long lingerMillis = 20;
+        MockInboundStream stream = new MockInboundStream(0, emptyList(), 1);
+        SenderTasklet lingeringTasklet = newLingeringTasklet(stream, MILLISECONDS.toNanos(lingerMillis));
+        lingeringTasklet.registerFlowControlMetrics(registry.newProbeBuilder().withTag("module", "jet"));
+
+        // When
+        long start = System.nanoTime();
+        int itemCount = 0;
+        while (NANOSECONDS.toMillis(System.nanoTime() - start) < 10 * lingerMillis) {
+            stream.push("item");
+            itemCount++;
+            lingeringTasklet.call();
+            Thread.sleep(1);
+        }
+        long elapsedMillis = NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        long packets = lingeringTasklet.getPacketsOutCounter().get();
+        assertTrue("packets=" + packets, packets >= 2);
+        assertTrue("packets=" + packets + ", elapsedMillis=" + elapsedMillis,
+                packets <= elapsedMillis / lingerMillis + 1);
+        long itemsOut = lingeringTasklet.getItemsOutCounter().get();
+        assertTrue("itemsOut=" + itemsOut + ", itemCount=" + itemCount, itemsOut > packets);
+        assertEquals(0, read("[module=jet,unit=ms,metric=flowControlBlockedTime]"));
+    }
+
+    @Test
+    public void when_lingerTimeSetAndInboxFull_then_sentImmediately() throws Exception {
+        // Given
+        MockInboundStream stream = new MockInboundStream(0, nCopies(ITEM_COUNT, "item"), ITEM_COUNT);
+        SenderTasklet lingeringTasklet = newLingeringTasklet(stream, HOURS.toNanos(1));
+
+        // When
+        lingeringTasklet.call();
+
+        // Then
+        assertEquals(1, lingeringTasklet.getPacketsOutCounter().get());
+    }
+
+    @Test
+    public void when_lingerTimeSetAndStreamDone_then_sentImmediately() throws Exception {
+        // Given
+        MockInboundStream stream = new MockInboundStream(0, asList("item", "item", DONE_ITEM), 3);
+        SenderTasklet lingeringTasklet = newLingeringTasklet(stream, HOURS.toNanos(1));
+
+        // When
+        lingeringTasklet.call();
+
+        // Then
+        assertEquals(1, lingeringTasklet.getPacketsOutCounter().get());
+        assertEquals(3, lingeringTasklet.getItemsOutCounter().get());
+    }
+
+    @Test
+    public void when_noLingerTime_then_sentImmediately() {
+        // Given
+        MockInboundStream stream = new MockInboundStream(0, nCopies(3, "item"), 3);
+        SenderTasklet nonLingeringTasklet = newLingeringTasklet(stream, 0);
+
+        // When
+        nonLingeringTasklet.call();
+
+        // Then
+        assertEquals(1, nonLingeringTasklet.getPacketsOutCounter().get());
+    }
+
+    @Test
+    public void when_columnarItemsLargerThanEstimated_then_batchStopsAtSendLimit() throws Exception {
+        // Given
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(tuple2(i, String.format("%01000d", i)));
+        }
+        MockInboundStream stream = new MockInboundStream(0, items, items.size());
+        SenderTasklet columnarTasklet = new SenderTasklet(stream, nodeEngine, new Address("localhost", 5701), 1, 1,
+                1 << 20, null, false, true, 0);
+        columnarTasklet.registerFlowControlMetrics(registry.newProbeBuilder().withTag("module", "columnar"));
+
+        // When
+        columnarTasklet.call();
+
+        // Then
+        long sentSeq = read("[module=columnar,unit=bytes,metric=sentSeq]");
+        long itemsOut = columnarTasklet.getItemsOutCounter().get();
+        assertTrue("itemsOut=" + itemsOut, itemsOut > 0 && itemsOut < items.size());
+        // only the last item may go past the limit
+        long itemWeight = sentSeq / itemsOut;
+        assertTrue("sentSeq=" + sentSeq, sentSeq - itemWeight < decompressSeq(1));
+
+        // When
+        columnarTasklet.setSendSeqLimitCompressed(Integer.MAX_VALUE);
+        while (columnarTasklet.getItemsOutCounter().get() < items.size()) {
+            columnarTasklet.call();
+        }
+
+        // Then
+        assertEquals(items.size(), columnarTasklet.getItemsOutCounter().get());
+    }
+
+    private SenderTasklet newLingeringTasklet(MockInboundStream stream, long lingerNanos) {
+        try {
+            SenderTasklet t = new SenderTasklet(stream, nodeEngine, new Address("localhost", 5701), 1, 1, 1 << 10,
+                    null, false, false, lingerNanos);
+            t.setSendSeqLimitCompressed(Integer.MAX_VALUE);
+            return t;
+        } catch (UnknownHostException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private long read(String name) {
+        LongGauge gauge = registry.newLongGauge(name);
+        return gauge.read();
+    }
+}
@@ -59,7 +59,7 @@ public class SnapshotContextSimpleTest {
         CompletableFuture<SnapshotOperationResult> future = ssContext.startNewSnapshot(10, 0, false);
 
         /// When
-        ssContext.snapshotDoneForTasklet(1, 1, 1);
+        ssContext.snapshotDoneForTasklet(1, 1, 1, 1, 0);
         assertTrue(future.isDone());
         ssContext.cancel();
 
@@ -74,7 +74,7 @@ public class SnapshotContextSimpleTest {
         CompletableFuture<SnapshotOperationResult> future = ssContext.startNewSnapshot(10, 0, false);
 
         // When
-        ssContext.snapshotDoneForTasklet(1, 1, 1);
+        ssContext.snapshotDoneForTasklet(1, 1, 1, 1, 0);
         assertFalse(future.isDone());
         ssContext.cancel();
 
@@ -91,12 +91,12 @@ public class SnapshotContextSimpleTest {
         CompletableFuture<SnapshotOperationResult> future = ssContext.startNewSnapshot(10, 0, false);
 
         // When
-        ssContext.snapshotDoneForTasklet(1, 1, 1);
+        ssContext.snapshotDoneForTasklet(1, 1, 1, 1, 0);
         assertFalse(future.isDone());
         ssContext.cancel();
 
         // Then
-        ssContext.snapshotDoneForTasklet(1, 1, 1);
+        ssContext.snapshotDoneForTasklet(1, 1, 1, 1, 0);
     }
 
     @Test
@@ -86,11 +86,11 @@ public class SnapshotContextTest {
         }
 
         if (taskletDone == TaskletDone.NOT_DONE) {
-            ssContext.snapshotDoneForTasklet(0, 0, 0);
+            ssContext.snapshotDoneForTasklet(0, 0, 0, 0, 0);
         } else if (taskletDone == TaskletDone.DONE_BEFORE_CURRENT_SNAPSHOT) {
             ssContext.taskletDone(9, numHigherPriority > 0);
         } else if (taskletDone == TaskletDone.DONE_AFTER_CURRENT_SNAPSHOT) {
-            ssContext.snapshotDoneForTasklet(0, 0, 0);
+            ssContext.snapshotDoneForTasklet(0, 0, 0, 0, 0);
             ssContext.taskletDone(10, numHigherPriority > 0);
         }
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.impl.execution.TaskletCallStats.BUCKET_COUNT;
+import static com.hazelcast.jet.impl.execution.TaskletCallStats.bucketIndex;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class TaskletCallStatsTest {
+
+    @Test
+    public void when_bucketIndex_then_powerOfTwoMicros() {
+        assertEquals(0, bucketIndex(0));
+        assertEquals(0, bucketIndex(999));
+        assertEquals(1, bucketIndex(MICROSECONDS.toNanos(1)));
+        assertEquals(2, bucketIndex(MICROSECONDS.toNanos(2)));
+        assertEquals(2, bucketIndex(MICROSECONDS.toNanos(3)));
+        assertEquals(3, bucketIndex(MICROSECONDS.toNanos(4)));
+        assertEquals(BUCKET_COUNT - 1, bucketIndex(SECONDS.toNanos(10)));
+        assertEquals(BUCKET_COUNT - 1, bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void when_record_then_countsUpdated() {
+        // Given
+        TaskletCallStats stats = new TaskletCallStats();
+
+        // When
+        stats.record(500);
+        stats.record(MICROSECONDS.toNanos(3));
+        stats.record(MICROSECONDS.toNanos(3));
+
+        // Then
+        assertEquals(3, stats.callCount());
+        assertEquals(500 + 2 * MICROSECONDS.toNanos(3), stats.busyNanos());
+        assertEquals(1, stats.bucketCount(0));
+        assertEquals(0, stats.bucketCount(1));
+        assertEquals(2, stats.bucketCount(2));
+    }
+
+    @Test
+    public void when_registerMetrics_then_gaugesReadStats() {
+        // Given
+        MetricsRegistryImpl registry = new MetricsRegistryImpl(mock(ILogger.class), ProbeLevel.INFO);
+        TaskletCallStats stats = new TaskletCallStats();
+        Object source = new Object();
+        stats.registerMetrics(source, registry.newProbeBuilder().withTag("module", "jet"));
+
+        // When
+        stats.record(MICROSECONDS.toNanos(3));
+        stats.record(MILLISECONDS.toNanos(2));
+
+        // Then
+        assertEquals(2, read(registry, "[module=jet,unit=count,metric=callCount]"));
+        assertEquals(2, read(registry, "[module=jet,unit=ms,metric=busyTime]"));
+        assertEquals(1, read(registry, "[module=jet,bucket=4,unit=count,metric=callDuration]"));
+        assertEquals(0, read(registry, "[module=jet,bucket=inf,unit=count,metric=callDuration]"));
+    }
+
+    private static long read(MetricsRegistryImpl registry, String name) {
+        LongGauge gauge = registry.newLongGauge(name);
+        return gauge.read();
+    }
+}
@@ -17,8 +17,11 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.util.ProgressState;
@@ -36,15 +39,21 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Stream;
 
+import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
+import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
@@ -52,6 +61,10 @@ import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.synchronizedList;
+import static java.util.concurrent.ConcurrentHashMap.newKeySet;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -71,10 +84,11 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
 
     private TaskletExecutionService es;
     private ClassLoader classLoaderMock;
+    private NodeEngineImpl neMock;
 
     @Before
     public void before() {
-        NodeEngineImpl neMock = mock(NodeEngineImpl.class);
+        neMock = mock(NodeEngineImpl.class);
         HazelcastInstance hzMock = mock(HazelcastInstance.class);
         LoggingService loggingService = mock(LoggingService.class);
         Mockito.when(hzMock.getName()).thenReturn("test-hz-instance");
@@ -84,7 +98,7 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         Mockito.when(neMock.getMetricsRegistry()).thenReturn(metricsRegistry);
         Mockito.when(loggingService.getLogger(TaskletExecutionService.class))
                .thenReturn(Logger.getLogger(TaskletExecutionService.class));
-        es = new TaskletExecutionService(neMock, THREAD_COUNT);
+        es = new TaskletExecutionService(neMock, new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT));
         classLoaderMock = mock(ClassLoader.class);
     }
 
@@ -198,6 +212,83 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         tasklets.forEach(MockTasklet::assertDone);
     }
 
+    @Test
+    public void when_workStealingEnabledAndLoadSkewed_then_busyTaskletMigrated() {
+        // Given
+        es.shutdown(false);
+        es = new TaskletExecutionService(neMock, new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                                      .setWorkStealingEnabled(true));
+        // tasklets are assigned round-robin, so both busy tasklets land on the first worker
+        final List<MockTasklet> tasklets = Stream.generate(() -> new MockTasklet().callsBeforeDone(0))
+                                                 .limit(2 * THREAD_COUNT).collect(toList());
+        tasklets.set(0, new MockTasklet().busySpinning(1_000_000).callsBeforeDone(600));
+        tasklets.set(THREAD_COUNT, new MockTasklet().busySpinning(1_000_000).callsBeforeDone(600));
+
+        // When
+        executeAndJoin(tasklets);
+
+        // Then
+        tasklets.forEach(MockTasklet::assertDone);
+        Set<Thread> busyTaskletThreads = new HashSet<>(tasklets.get(0).callingThreads);
+        busyTaskletThreads.addAll(tasklets.get(THREAD_COUNT).callingThreads);
+        assertTrue("the busy tasklets ran only on " + busyTaskletThreads, busyTaskletThreads.size() > 1);
+    }
+
+    @Test
+    public void when_eventDrivenWakeupEnabledAndInputSignalled_then_allComplete() throws Exception {
+        // Given
+        es.shutdown(false);
+        es = new TaskletExecutionService(neMock, new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                                      .setEventDrivenWakeupEnabled(true));
+        final List<SignalledTasklet> tasklets = Stream.generate(() -> new SignalledTasklet(20))
+                                                      .limit(THREAD_COUNT).collect(toList());
+
+        // When
+        CompletableFuture<Void> f = es.beginExecute(tasklets, cancellationFuture, classLoaderMock);
+        for (int i = 0; i < 20; i++) {
+            Thread.sleep(5);
+            for (SignalledTasklet t : tasklets) {
+                t.available.incrementAndGet();
+                t.workSignal.signal();
+            }
+        }
+
+        // Then
+        f.get(10, SECONDS);
+    }
+
+    @Test
+    public void when_eventDrivenWakeupEnabledAndOutputBackpressured_then_producerWokenWhenSpaceFreed()
+            throws Exception {
+        // Given
+        es.shutdown(false);
+        es = new TaskletExecutionService(neMock, new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                                      .setEventDrivenWakeupEnabled(true));
+        int rounds = 21;
+        OneToOneConcurrentArrayQueue<Object> queue = new OneToOneConcurrentArrayQueue<>(4);
+        ConcurrentConveyor<Object> conveyor = concurrentConveyor(null, queue);
+        GatedConsumerTasklet consumer = new GatedConsumerTasklet(conveyor);
+        BackpressuredProducerTasklet producer = new BackpressuredProducerTasklet(
+                new ConveyorCollector(conveyor, 0, null, consumer.workSignal), consumer, rounds * queue.capacity());
+        consumer.stream.setProducerSignals(new WorkSignal[] {producer.workSignal});
+
+        // When
+        CompletableFuture<Void> f = es.beginExecute(asList(producer, consumer), cancellationFuture, classLoaderMock);
+        for (int i = 0; i <= rounds; i++) {
+            // let the producer fill the queue and back off to the longest park
+            Thread.sleep(20);
+            consumer.permits.incrementAndGet();
+            consumer.workSignal.signal();
+        }
+        f.get(10, SECONDS);
+
+        // Then
+        List<Long> latencies = producer.wakeUpLatencies.stream().sorted().collect(toList());
+        assertEquals(rounds, latencies.size());
+        long medianLatencyMs = NANOSECONDS.toMillis(latencies.get(rounds / 2));
+        assertTrue("producer woken up after " + medianLatencyMs + "ms", medianLatencyMs < 2);
+    }
+
     @Test
     public void when_nonBlockingTaskletIsCancelled_then_completesEarly() throws Exception {
         // Given
@@ -359,6 +450,9 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         boolean callFails;
         int callsBeforeDone;
 
+        final Set<Thread> callingThreads = newKeySet();
+
+        private long busyNanosPerCall;
         private boolean willMakeProgress = true;
         private boolean isSleeping;
         private CountDownLatch latch;
@@ -371,6 +465,7 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         @Nonnull
         @Override
         public ProgressState call() {
+            callingThreads.add(Thread.currentThread());
             if (callFails) {
                 throw new RuntimeException("mock call failure");
             }
@@ -388,6 +483,12 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
                     throw sneakyThrow(e);
                 }
             }
+            if (busyNanosPerCall > 0) {
+                long start = System.nanoTime();
+                while (System.nanoTime() - start < busyNanosPerCall) {
+                    // busy spin
+                }
+            }
             willMakeProgress = !willMakeProgress;
             return callsBeforeDone-- == 0 ? DONE
                     : willMakeProgress ? MADE_PROGRESS
@@ -427,6 +528,11 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
             return this;
         }
 
+        MockTasklet busySpinning(long nanosPerCall) {
+            busyNanosPerCall = nanosPerCall;
+            return this;
+        }
+
         MockTasklet callsBeforeDone(int count) {
             callsBeforeDone = count;
             return this;
@@ -441,6 +547,106 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         }
     }
 
+    private static class SignalledTasklet implements Tasklet {
+
+        final AtomicInteger available = new AtomicInteger();
+        final WorkSignal workSignal = new WorkSignal();
+        private int remaining;
+
+        SignalledTasklet(int itemCount) {
+            this.remaining = itemCount;
+        }
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            int count = available.getAndSet(0);
+            remaining -= count;
+            return remaining == 0 ? DONE : count > 0 ? MADE_PROGRESS : NO_PROGRESS;
+        }
+
+        @Override
+        public WorkSignal workSignal() {
+            return workSignal;
+        }
+    }
+
+    /**
+     * Offers items to the consumer's queue, recording how long after the
+     * consumer freed up the full queue the offer succeeds.
+     */
+    private static class BackpressuredProducerTasklet implements Tasklet {
+
+        final WorkSignal workSignal = new WorkSignal();
+        final List<Long> wakeUpLatencies = synchronizedList(new ArrayList<>());
+        private final OutboundCollector collector;
+        private final GatedConsumerTasklet consumer;
+        private final int itemCount;
+        private int sentCount;
+        private boolean blocked;
+
+        BackpressuredProducerTasklet(OutboundCollector collector, GatedConsumerTasklet consumer, int itemCount) {
+            this.collector = collector;
+            this.consumer = consumer;
+            this.itemCount = itemCount;
+        }
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            boolean madeProgress = false;
+            for (; sentCount <= itemCount; sentCount++) {
+                Object item = sentCount < itemCount ? sentCount : DONE_ITEM;
+                if (!collector.offer(item).isDone()) {
+                    blocked = true;
+                    return madeProgress ? MADE_PROGRESS : NO_PROGRESS;
+                }
+                if (blocked) {
+                    wakeUpLatencies.add(System.nanoTime() - consumer.lastDrainNanos);
+                    blocked = false;
+                }
+                madeProgress = true;
+            }
+            return DONE;
+        }
+
+        @Override
+        public WorkSignal workSignal() {
+            return workSignal;
+        }
+    }
+
+    /**
+     * Drains the queue only when given a permit.
+     */
+    private static class GatedConsumerTasklet implements Tasklet {
+
+        final WorkSignal workSignal = new WorkSignal();
+        final AtomicInteger permits = new AtomicInteger();
+        final ConcurrentInboundEdgeStream stream;
+        volatile long lastDrainNanos;
+
+        GatedConsumerTasklet(ConcurrentConveyor<Object> conveyor) {
+            stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, -1, "gated");
+        }
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            if (permits.get() == 0) {
+                return NO_PROGRESS;
+            }
+            permits.decrementAndGet();
+            lastDrainNanos = System.nanoTime();
+            return stream.drainTo(o -> true);
+        }
+
+        @Override
+        public WorkSignal workSignal() {
+            return workSignal;
+        }
+    }
+
     private static class TaskletAssertingThreadLocal implements Tasklet {
 
         private static ThreadLocal<Integer> threadLocal = ThreadLocal.withInitial(() -> 0);
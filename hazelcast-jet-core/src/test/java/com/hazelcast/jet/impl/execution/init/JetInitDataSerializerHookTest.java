@@ -83,14 +83,14 @@ public class JetInitDataSerializerHookTest {
     private static JobExecutionRecord sampleJobExecutionRecord_whenSuccessfulSnapshot() {
         JobExecutionRecord r = new JobExecutionRecord(1, 2, true);
         r.startNewSnapshot();
-        r.ongoingSnapshotDone(10, 11, 12, null);
+        r.ongoingSnapshotDone(10, 9, 11, 12, 5, null, false);
         return r;
     }
 
     private static JobExecutionRecord sampleJobExecutionRecord_whenFailedSnapshot() {
         JobExecutionRecord r = new JobExecutionRecord(1, 2, true);
         r.startNewSnapshot();
-        r.ongoingSnapshotDone(10, 11, 12, "Failed");
+        r.ongoingSnapshotDone(10, 9, 11, 12, 5, "Failed", false);
         return r;
     }
 
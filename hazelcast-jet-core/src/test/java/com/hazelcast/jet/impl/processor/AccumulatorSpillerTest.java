@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.Util.entry;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class AccumulatorSpillerTest {
+
+    private final SerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private AccumulatorSpiller<Integer, LongAccumulator> spiller;
+
+    @After
+    public void after() {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    @Test
+    public void when_runsFitIntoBudget_then_accumulatorsCombined() {
+        testSpillAndMerge(1000);
+    }
+
+    @Test
+    public void when_runsExceedBudget_then_runsPartitionedAgain() {
+        testSpillAndMerge(5);
+    }
+
+    @Test
+    public void when_nothingSpilled_then_noRuns() {
+        // Given
+        spiller = new AccumulatorSpiller<>(serializationService, LongAccumulator::add, 10);
+
+        // When
+        assertTrue(spiller.mergeChunk());
+
+        // Then
+        assertFalse(spiller.hasSpilled());
+        assertEquals(null, spiller.pollMergedEntries());
+    }
+
+    private void testSpillAndMerge(long maxKeysInMemory) {
+        // Given
+        spiller = new AccumulatorSpiller<>(serializationService, LongAccumulator::add, maxKeysInMemory);
+
+        // When
+        // three overlapping spills of 2000 keys each, keys 0..3999
+        for (int spill = 0; spill < 3; spill++) {
+            int offset = spill * 1000;
+            spiller.startSpill(IntStream.range(offset, offset + 2000)
+                                        .mapToObj(key -> entry(key, new LongAccumulator(1)))
+                                        .collect(toList())
+                                        .iterator());
+            while (!spiller.spillChunk()) { }
+        }
+        Map<Integer, LongAccumulator> merged = new HashMap<>();
+        int runCount = 0;
+        for (Map<Integer, LongAccumulator> entries; ; ) {
+            while (!spiller.mergeChunk()) { }
+            if ((entries = spiller.pollMergedEntries()) == null) {
+                break;
+            }
+            runCount++;
+            // a run can exceed the budget only if it can't be partitioned further
+            assertTrue("run too large: " + entries.size(), entries.size() <= Math.max(maxKeysInMemory, 20));
+            for (Map.Entry<Integer, LongAccumulator> e : entries.entrySet()) {
+                assertEquals("duplicate key " + e.getKey(), null, merged.put(e.getKey(), e.getValue()));
+            }
+        }
+
+        // Then
+        assertTrue(spiller.hasSpilled());
+        assertTrue("runCount=" + runCount, runCount >= AccumulatorSpiller.PARTITION_COUNT);
+        assertEquals(4000, merged.size());
+        for (int key = 0; key < 4000; key++) {
+            long expected = key < 1000 || key >= 3000 ? 1 : 2;
+            assertEquals("key " + key, new LongAccumulator(expected), merged.get(key));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.function.DistributedFunction;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.Edge.from;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static com.hazelcast.jet.core.processor.SinkProcessors.writeListP;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+
+public class AccumulatorSpiller_IntegrationTest extends JetTestSupport {
+
+    @Test
+    public void when_budgetExceeded_then_groupingAndDistinctCorrect() {
+        // Given
+        JetInstance instance = createJetMember();
+        // 1000 keys, each occurring 3 times
+        List<Integer> items = IntStream.range(0, 3000).boxed().collect(toList());
+        DistributedFunction<Integer, Integer> keyFn = i -> i % 1000;
+
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(items));
+        Vertex group = dag.newVertex("group",
+                aggregateByKeyP(singletonList(keyFn), counting(), (k, count) -> entry(k, count)));
+        Vertex distinct = dag.newVertex("distinct", () -> new DistinctP<>(keyFn));
+        Vertex groupSink = dag.newVertex("groupSink", writeListP("group"));
+        Vertex distinctSink = dag.newVertex("distinctSink", writeListP("distinct"));
+        dag.edge(from(source, 0).to(group).partitioned(keyFn))
+           .edge(from(source, 1).to(distinct).partitioned(keyFn))
+           .edge(between(group, groupSink))
+           .edge(between(distinct, distinctSink));
+
+        // When
+        instance.newJob(dag, new JobConfig().setMaxGroupingKeysInMemory(20)).join();
+
+        // Then
+        Set<Entry<Integer, Long>> expectedGroups = IntStream.range(0, 1000).mapToObj(k -> entry(k, 3L))
+                                                            .collect(toSet());
+        assertEquals(expectedGroups, new HashSet<>(instance.<Entry<Integer, Long>>getList("group")));
+        List<Integer> distinctItems = instance.getList("distinct");
+        assertEquals(1000, distinctItems.size());
+        assertEquals(IntStream.range(0, 1000).boxed().collect(toSet()),
+                distinctItems.stream().map(i -> i % 1000).collect(toSet()));
+    }
+}
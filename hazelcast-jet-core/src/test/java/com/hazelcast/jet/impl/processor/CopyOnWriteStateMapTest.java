@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class CopyOnWriteStateMapTest {
+
+    private CopyOnWriteStateMap<String, List<Integer>> map;
+
+    @Before
+    public void before() {
+        map = new CopyOnWriteStateMap<>(ArrayList::new);
+    }
+
+    @Test
+    public void when_noCopy_then_behavesAsMap() {
+        // When
+        map.computeIfAbsent("a", k -> new ArrayList<>()).add(1);
+        map.put("b", list(2));
+        map.remove("b");
+
+        // Then
+        assertEquals(list(1), map.get("a"));
+        assertNull(map.get("b"));
+        assertEquals(1, map.size());
+        assertEquals(toMap("a", list(1)), toMap(map));
+    }
+
+    @Test
+    public void when_changedAfterCopy_then_copyHasOldValues() {
+        // Given
+        map.put("a", list(1));
+        map.put("b", list(2));
+        map.put("c", list(3));
+        map.takeCopy();
+
+        // When
+        map.getForUpdate("a").add(10);
+        map.put("b", list(20));
+        map.remove("c");
+        map.computeIfAbsent("d", k -> new ArrayList<>()).add(4);
+
+        // Then
+        assertEquals(toMap("a", list(1), "b", list(2), "c", list(3)), drain(map.traverseCopy()));
+        assertEquals(toMap("a", list(1, 10), "b", list(20), "d", list(4)), toMap(map));
+        assertEquals(3, map.size());
+        assertEquals(list(1), map.copiedValue("a"));
+        assertEquals(list(3), map.copiedValue("c"));
+        assertNull(map.copiedValue("d"));
+    }
+
+    @Test
+    public void when_removedAndAddedAfterCopy_then_copyHasOldValue() {
+        // Given
+        map.put("a", list(1));
+        map.takeCopy();
+
+        // When
+        map.remove("a");
+        map.put("a", list(2));
+
+        // Then
+        assertEquals(list(2), map.get("a"));
+        assertEquals(toMap("a", list(1)), drain(map.traverseCopy()));
+    }
+
+    @Test
+    public void when_copyReleased_then_changesMerged() {
+        // Given
+        map.put("a", list(1));
+        map.put("b", list(2));
+        map.takeCopy();
+        map.remove("a");
+        map.put("c", list(3));
+
+        // When
+        map.releaseCopy();
+        map.getForUpdate("b").add(20);
+
+        // Then
+        assertEquals(toMap("b", list(2, 20), "c", list(3)), toMap(map));
+
+        // When
+        map.takeCopy();
+
+        // Then
+        assertEquals(toMap("b", list(2, 20), "c", list(3)), drain(map.traverseCopy()));
+    }
+
+    @Test
+    public void when_readAfterCopy_then_valueNotCopied() {
+        // Given
+        List<Integer> value = list(1);
+        map.put("a", value);
+        map.takeCopy();
+
+        // When
+        map.get("a");
+
+        // Then
+        Entry<String, List<Integer>> e = map.traverseCopy().next();
+        assertTrue(e.getValue() == value);
+    }
+
+    private static Map<String, List<Integer>> drain(Traverser<Entry<String, List<Integer>>> traverser) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        for (Entry<String, List<Integer>> e; (e = traverser.next()) != null; ) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+
+    private static Map<String, List<Integer>> toMap(Iterable<Entry<String, List<Integer>>> entries) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        for (Entry<String, List<Integer>> e : entries) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<Integer>> toMap(Object... keysAndValues) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            result.put((String) keysAndValues[i], (List<Integer>) keysAndValues[i + 1]);
+        }
+        return result;
+    }
+
+    private static List<Integer> list(Integer... values) {
+        List<Integer> result = new ArrayList<>();
+        for (Integer v : values) {
+            result.add(v);
+        }
+        return result;
+    }
+}
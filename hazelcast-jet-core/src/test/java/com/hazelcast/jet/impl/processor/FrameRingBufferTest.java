@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.impl.processor.FrameRingBuffer.MAX_CAPACITY;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class FrameRingBufferTest {
+
+    private static final long FRAME_SIZE = 10;
+
+    private FrameRingBuffer<String> frames;
+    private Map<Long, String> expected;
+
+    @Before
+    public void before() {
+        // frame timestamps are ..., -7, 3, 13, ...
+        frames = new FrameRingBuffer<>(FRAME_SIZE, 3);
+        expected = new HashMap<>();
+    }
+
+    @Test
+    public void when_framesAddedAndRemoved_then_behavesAsMap() {
+        // When
+        for (long ts = -97; ts < 1000; ts += FRAME_SIZE) {
+            add(ts);
+        }
+        for (long ts = -97; ts < 500; ts += 2 * FRAME_SIZE) {
+            remove(ts);
+        }
+        remove(993);
+
+        // Then
+        assertFrames();
+        assertEquals(-87, frames.bottomTs());
+        assertNull(frames.get(-97));
+        assertNull(frames.remove(-97));
+    }
+
+    @Test
+    public void when_framesAddedOutOfOrder_then_iteratedInOrder() {
+        // When
+        add(53);
+        add(3);
+        add(-27);
+        add(133);
+
+        // Then
+        List<Long> timestamps = new ArrayList<>();
+        for (Entry<Long, String> e : frames) {
+            timestamps.add(e.getKey());
+        }
+        assertEquals(asList(-27L, 3L, 53L, 133L), timestamps);
+        assertEquals(-27, frames.bottomTs());
+    }
+
+    @Test
+    public void when_frameBeyondMaxCapacity_then_storedAndMigrated() {
+        // Given
+        long farTs = 3 + FRAME_SIZE * MAX_CAPACITY * 5;
+        add(3);
+        add(13);
+
+        // When
+        add(farTs);
+        add(farTs + FRAME_SIZE);
+
+        // Then
+        assertFrames();
+        assertEquals(3, frames.bottomTs());
+
+        // When
+        remove(3);
+        remove(13);
+
+        // Then
+        assertFrames();
+        assertEquals(farTs, frames.bottomTs());
+        assertSame(expected.get(farTs), frames.computeIfAbsent(farTs, ts -> "new"));
+        remove(farTs);
+        remove(farTs + FRAME_SIZE);
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test
+    public void when_copied_then_copyNotAffectedByChanges() {
+        // Given
+        add(3);
+        add(13);
+        Map<Long, String> expectedCopy = new HashMap<>(expected);
+
+        // When
+        FrameRingBuffer<String> copy = frames.copy();
+        remove(3);
+        add(23);
+
+        // Then
+        assertFrames();
+        assertEquals(expectedCopy, toMap(copy));
+    }
+
+    private void add(long ts) {
+        String frame = "frame" + ts;
+        assertSame(frame, frames.computeIfAbsent(ts, x -> frame));
+        expected.put(ts, frame);
+    }
+
+    private void remove(long ts) {
+        assertEquals(expected.remove(ts), frames.remove(ts));
+    }
+
+    private void assertFrames() {
+        assertEquals(expected, toMap(frames));
+        assertEquals(expected.size(), frames.size());
+        for (Entry<Long, String> e : expected.entrySet()) {
+            assertEquals(e.getValue(), frames.get(e.getKey()));
+        }
+    }
+
+    private static Map<Long, String> toMap(FrameRingBuffer<String> frames) {
+        Map<Long, String> result = new HashMap<>();
+        for (Entry<Long, String> e : frames) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+}
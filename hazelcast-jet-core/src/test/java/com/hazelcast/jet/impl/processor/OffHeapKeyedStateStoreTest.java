@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class OffHeapKeyedStateStoreTest {
+
+    private final SerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void when_manyKeysPut_then_allFound() {
+        // Given
+        OffHeapKeyedStateStore<String, Long> store = new OffHeapKeyedStateStore<>(serializationService);
+
+        // When
+        for (long i = 0; i < 10_000; i++) {
+            assertNull(store.put("key" + i, i));
+        }
+
+        // Then
+        assertEquals(10_000, store.size());
+        for (long i = 0; i < 10_000; i++) {
+            assertEquals(Long.valueOf(i), store.get("key" + i));
+        }
+        assertNull(store.get("missing"));
+        assertEquals(10_000, toMap(store).size());
+    }
+
+    @Test
+    public void when_valuesUpdated_then_changesWrittenBack() {
+        // Given
+        OffHeapKeyedStateStore<Integer, LongAccumulator> store = new OffHeapKeyedStateStore<>(serializationService, new OffHeapMemoryPool(4));
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            store.computeIfAbsent(i % 100, k -> new LongAccumulator()).add(i);
+        }
+
+        // Then
+        assertEquals(100, store.size());
+        Map<Integer, LongAccumulator> result = toMap(store);
+        for (int key = 0; key < 100; key++) {
+            assertEquals(new LongAccumulator(10 * key + 4500), result.get(key));
+            assertEquals(new LongAccumulator(10 * key + 4500), store.get(key));
+        }
+    }
+
+    @Test
+    public void when_keysRemoved_then_remainingKeysFound() {
+        // Given
+        OffHeapKeyedStateStore<Integer, Integer> store = new OffHeapKeyedStateStore<>(serializationService);
+        for (int i = 0; i < 1000; i++) {
+            store.put(i, i);
+        }
+
+        // When
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(Integer.valueOf(i), store.remove(i));
+        }
+
+        // Then
+        assertEquals(500, store.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), store.get(i));
+        }
+        assertNull(store.remove(0));
+    }
+
+    @Test
+    public void when_valuesGrow_then_recordsMoved() {
+        // Given
+        OffHeapKeyedStateStore<Integer, List<Integer>> store = new OffHeapKeyedStateStore<>(serializationService, new OffHeapMemoryPool(1));
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            for (int key = 0; key < 10; key++) {
+                store.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Then
+        Map<Integer, List<Integer>> result = toMap(store);
+        assertEquals(10, result.size());
+        for (List<Integer> value : result.values()) {
+            assertEquals(500, value.size());
+            assertEquals(Integer.valueOf(499), value.get(499));
+        }
+    }
+
+    @Test
+    public void when_manyKeysAddedAndRemoved_then_recordsCompacted() {
+        // Given
+        OffHeapKeyedStateStore<Integer, String> store = new OffHeapKeyedStateStore<>(serializationService);
+        String value = new String(new char[100]).replace('\0', 'x');
+        for (int i = 0; i < 10; i++) {
+            store.put(i, value);
+        }
+
+        // When
+        for (int i = 10; i < 10_000; i++) {
+            store.put(i, value);
+            store.remove(i);
+        }
+
+        // Then
+        // without compaction, the removed records would take more than 1 MB
+        assertTrue("usedBytes=" + store.usedBytes(), store.usedBytes() < 1 << 18);
+        assertEquals(10, store.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(value, store.get(i));
+        }
+    }
+
+    @Test
+    public void when_copyOnWriteMapOverStore_then_copyHasOldValues() {
+        // Given
+        CopyOnWriteStateMap<String, LongAccumulator> map = new CopyOnWriteStateMap<>(
+                new OffHeapKeyedStateStore<>(serializationService, new OffHeapMemoryPool(1)), acc -> new LongAccumulator(acc.get()));
+        map.computeIfAbsent("a", k -> new LongAccumulator()).add(1);
+        map.computeIfAbsent("b", k -> new LongAccumulator()).add(2);
+        map.takeCopy();
+
+        // When
+        map.getForUpdate("a").add(10);
+        map.remove("b");
+        map.computeIfAbsent("c", k -> new LongAccumulator()).add(3);
+
+        // Then
+        Map<String, LongAccumulator> copy = new HashMap<>();
+        Traverser<Entry<String, LongAccumulator>> traverser = map.traverseCopy();
+        for (Entry<String, LongAccumulator> e; (e = traverser.next()) != null; ) {
+            copy.put(e.getKey(), e.getValue());
+        }
+        Map<String, LongAccumulator> expectedCopy = new HashMap<>();
+        expectedCopy.put("a", new LongAccumulator(1));
+        expectedCopy.put("b", new LongAccumulator(2));
+        assertEquals(expectedCopy, copy);
+
+        // When
+        map.releaseCopy();
+        map.getForUpdate("a").add(100);
+
+        // Then
+        Map<String, LongAccumulator> expected = new HashMap<>();
+        expected.put("a", new LongAccumulator(111));
+        expected.put("c", new LongAccumulator(3));
+        assertEquals(expected, toMap(map));
+    }
+
+    @Test
+    public void when_storeClosed_then_buffersReusedByNextStore() {
+        // Given
+        OffHeapMemoryPool pool = new OffHeapMemoryPool(4);
+        OffHeapKeyedStateStore<Integer, Integer> store1 = new OffHeapKeyedStateStore<>(serializationService, pool);
+        for (int i = 0; i < 1000; i++) {
+            store1.put(i, i);
+        }
+        long allocatedBytes = pool.usedBytes() + pool.freeBytes();
+
+        // When
+        store1.close();
+
+        // Then
+        assertEquals(0, pool.usedBytes());
+        assertEquals(allocatedBytes, pool.freeBytes());
+
+        // When
+        OffHeapKeyedStateStore<Integer, Integer> store2 = new OffHeapKeyedStateStore<>(serializationService, pool);
+        for (int i = 0; i < 1000; i += 2) {
+            store2.put(i, -i);
+        }
+
+        // Then
+        // no new buffers were allocated
+        assertEquals(allocatedBytes, pool.usedBytes() + pool.freeBytes());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 ? Integer.valueOf(-i) : null, store2.get(i));
+        }
+    }
+
+    @Test
+    public void when_largeStoreClosed_then_poolRetainsBoundedMemory() {
+        // Given
+        OffHeapMemoryPool pool = new OffHeapMemoryPool(4);
+        OffHeapKeyedStateStore<Integer, String> store = new OffHeapKeyedStateStore<>(serializationService, pool);
+        String value = new String(new char[100]).replace('\0', 'x');
+        for (int i = 0; i < 20_000; i++) {
+            store.put(i, value);
+        }
+        assertTrue("usedBytes=" + pool.usedBytes(), pool.usedBytes() > 2 * OffHeapMemoryPool.MIN_RETAINED_BYTES);
+
+        // When
+        store.close();
+
+        // Then
+        assertEquals(0, pool.usedBytes());
+        assertTrue("freeBytes=" + pool.freeBytes(), pool.freeBytes() <= OffHeapMemoryPool.MIN_RETAINED_BYTES);
+    }
+
+    @Test
+    public void when_manyStoresUpdated_then_materializedValuesBoundedPerPool() {
+        // Given
+        OffHeapMemoryPool pool = new OffHeapMemoryPool(4);
+        List<OffHeapKeyedStateStore<Integer, LongAccumulator>> stores = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            stores.add(new OffHeapKeyedStateStore<>(serializationService, pool));
+        }
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            stores.get(i % 10).computeIfAbsent(i % 3, k -> new LongAccumulator()).add(1);
+            assertTrue("materializedCount=" + pool.materializedCount(), pool.materializedCount() <= 4);
+        }
+
+        // Then
+        for (int i = 0; i < 10; i++) {
+            Map<Integer, LongAccumulator> result = toMap(stores.get(i));
+            assertEquals(3, result.size());
+            long total = result.values().stream().mapToLong(LongAccumulator::get).sum();
+            assertEquals(100, total);
+        }
+
+        // When
+        stores.forEach(OffHeapKeyedStateStore::close);
+
+        // Then
+        assertEquals(0, pool.materializedCount());
+        assertEquals(0, pool.usedBytes());
+    }
+
+    private static <K, V> Map<K, V> toMap(Iterable<Entry<K, V>> entries) {
+        Map<K, V> result = new HashMap<>();
+        for (Entry<K, V> e : entries) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+}
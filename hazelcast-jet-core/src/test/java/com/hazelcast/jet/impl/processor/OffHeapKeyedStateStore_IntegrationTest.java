@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.Edge.from;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.tumblingWinPolicy;
+import static com.hazelcast.jet.core.TimestampKind.EVENT;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSessionWindowP;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static com.hazelcast.jet.core.processor.Processors.rollingAggregateP;
+import static com.hazelcast.jet.core.processor.SinkProcessors.writeListP;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class OffHeapKeyedStateStore_IntegrationTest extends JetTestSupport {
+
+    @Test
+    public void when_offHeapStateEnabled_then_keyedProcessorsAggregateCorrectly() {
+        // Given
+        JetInstance instance = createJetMember();
+        List<Integer> items = IntStream.range(0, 1000).boxed().collect(toList());
+        DistributedFunction<Integer, Integer> keyFn = i -> i % 10;
+        DistributedToLongFunction<Integer> timestampFn = i -> i;
+
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", ListSource.supplier(items));
+        Vertex group = dag.newVertex("group",
+                aggregateByKeyP(singletonList(keyFn), counting(), (k, count) -> entry(k, count)));
+        Vertex rolling = dag.newVertex("rolling",
+                rollingAggregateP(keyFn, counting(), (item, k, count) -> entry(k, count)));
+        Vertex sliding = dag.newVertex("sliding", aggregateToSlidingWindowP(singletonList(keyFn),
+                singletonList(timestampFn), EVENT, tumblingWinPolicy(1000), counting(),
+                (start, end, k, count) -> entry(k, count)));
+        Vertex session = dag.newVertex("session", aggregateToSessionWindowP(100,
+                singletonList(timestampFn), singletonList(keyFn), counting(),
+                (start, end, k, count) -> entry(k, count)));
+        dag.edge(from(source, 0).to(group).partitioned(keyFn))
+           .edge(from(source, 1).to(rolling).partitioned(keyFn))
+           .edge(from(source, 2).to(sliding).partitioned(keyFn))
+           .edge(from(source, 3).to(session).partitioned(keyFn));
+        for (Vertex v : new Vertex[] {group, rolling, sliding, session}) {
+            Vertex sink = dag.newVertex(v.getName() + "Sink", writeListP(v.getName()));
+            dag.edge(between(v, sink));
+        }
+
+        // When
+        instance.newJob(dag, new JobConfig().setOffHeapStateEnabled(true)).join();
+
+        // Then
+        Set<Entry<Integer, Long>> expected = IntStream.range(0, 10).mapToObj(k -> entry(k, 100L))
+                                                      .collect(Collectors.toSet());
+        assertEquals(expected, new HashSet<>(instance.<Entry<Integer, Long>>getList("group")));
+        assertEquals(expected, new HashSet<>(instance.<Entry<Integer, Long>>getList("sliding")));
+        assertEquals(expected, new HashSet<>(instance.<Entry<Integer, Long>>getList("session")));
+        List<Entry<Integer, Long>> rollingResults = instance.getList("rolling");
+        assertEquals(1000, rollingResults.size());
+        assertEquals(expected, rollingResults.stream().filter(e -> e.getValue() == 100L).collect(Collectors.toSet()));
+    }
+}
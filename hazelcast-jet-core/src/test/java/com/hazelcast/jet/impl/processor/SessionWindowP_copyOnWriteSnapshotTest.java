@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.aggregate.AggregateOperations;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.WindowResult;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.impl.processor.SessionWindowP.Keys;
+import com.hazelcast.jet.impl.processor.SessionWindowP.Windows;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.TOMBSTONE;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SessionWindowP_copyOnWriteSnapshotTest {
+
+    private static final int SESSION_TIMEOUT = 10;
+
+    private SessionWindowP<String, ?, Long, WindowResult<String, Long>> p;
+
+    private void init(boolean incrementalSnapshotsEnabled) throws Exception {
+        p = new SessionWindowP<>(
+                SESSION_TIMEOUT,
+                singletonList((DistributedToLongFunction<Entry<Object, Long>>) Entry::getValue),
+                singletonList(entryKey()),
+                AggregateOperations.counting(),
+                WindowResult::new);
+        TestProcessorContext context = new TestProcessorContext().setProcessingGuarantee(EXACTLY_ONCE);
+        context.setJobConfig(new JobConfig().setIncrementalSnapshotsEnabled(incrementalSnapshotsEnabled));
+        p.init(new TestOutbox(128), context);
+    }
+
+    @Test
+    public void when_windowsChangedAfterCopy_then_copyHasWindowsAtBarrier() throws Exception {
+        // Given
+        init(false);
+        p.tryProcess(0, entry("a", 0L));
+        p.beforeSaveToSnapshot(false);
+        Traverser<Entry<Object, Object>> copy = p.takeSnapshotCopy();
+
+        // When
+        p.tryProcess(0, entry("a", 5L));
+        p.tryProcess(0, entry("b", 5L));
+        assertTrue(p.tryProcessWatermark(new Watermark(30)));
+
+        // Then
+        Map<Object, Object> snapshot = drain(copy);
+        assertEquals(2, snapshot.size());
+        assertEquals(Long.MIN_VALUE, snapshot.get(broadcastKey(Keys.CURRENT_WATERMARK)));
+        String windows = snapshot.get("a").toString();
+        assertTrue(windows, windows.contains("a=LongAccumulator(1)"));
+        assertTrue(p.keyToWindows.isEmpty());
+        assertTrue(p.deadlineToKeys.isEmpty());
+    }
+
+    @Test
+    public void when_incrementalCopy_then_removedKeySavedAsTombstone() throws Exception {
+        // Given
+        init(true);
+        p.tryProcess(0, entry("a", 0L));
+        p.tryProcess(0, entry("b", 0L));
+        p.beforeSaveToSnapshot(false);
+        drain(p.takeSnapshotCopy());
+        p.tryProcess(0, entry("a", 1L));
+        p.beforeSaveToSnapshot(true);
+        Traverser<Entry<Object, Object>> copy = p.takeSnapshotCopy();
+
+        // When
+        assertTrue(p.tryProcessWatermark(new Watermark(30)));
+
+        // Then
+        Map<Object, Object> snapshot = drain(copy);
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.get("a") instanceof Windows);
+
+        // When
+        p.beforeSaveToSnapshot(true);
+        snapshot = drain(p.takeSnapshotCopy());
+
+        // Then
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put("a", TOMBSTONE);
+        expected.put("b", TOMBSTONE);
+        expected.put(broadcastKey(Keys.CURRENT_WATERMARK), 30L);
+        assertEquals(expected, snapshot);
+    }
+
+    private static Map<Object, Object> drain(Traverser<Entry<Object, Object>> traverser) {
+        Map<Object, Object> result = new HashMap<>();
+        for (Entry<Object, Object> e; (e = traverser.next()) != null; ) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008-2018, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.Keys;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static com.hazelcast.jet.impl.processor.IncrementalSnapshotSupport.TOMBSTONE;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category(ParallelTest.class)
+public class SlidingWindowP_copyOnWriteSnapshotTest {
+
+    private SlidingWindowP<String, ?, Long, ?> p;
+    private TestOutbox outbox;
+
+    private void init(boolean incrementalSnapshotsEnabled) throws Exception {
+        p = new SlidingWindowP<>(
+                singletonList(entryKey()),
+                singletonList((DistributedToLongFunction<Entry<?, Long>>) Entry::getValue),
+                SlidingWindowPolicy.tumblingWinPolicy(10),
+                counting(),
+                TimestampedEntry::fromWindowResult,
+                true);
+
+        outbox = new TestOutbox(new int[] {128}, 128);
+        TestProcessorContext context = new TestProcessorContext().setProcessingGuarantee(EXACTLY_ONCE);
+        context.setJobConfig(new JobConfig().setIncrementalSnapshotsEnabled(incrementalSnapshotsEnabled));
+        p.init(outbox, context);
+    }
+
+    @Test
+    public void when_itemsProcessedAfterCopy_then_copyHasStateAtBarrier() throws Exception {
+        // Given
+        init(false);
+        p.tryProcess(0, entry("a", 0L));
+        p.tryProcess(0, entry("b", 0L));
+        p.beforeSaveToSnapshot(false);
+        Traverser<Entry<Object, Object>> copy = p.takeSnapshotCopy();
+        assertNotNull(copy);
+
+        // When
+        p.tryProcess(0, entry("a", 0L));
+        p.tryProcess(0, entry("c", 0L));
+        p.tryProcess(0, entry("c", 10L));
+
+        // Then
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(new SnapshotKey(0, "a"), new LongAccumulator(1));
+        expected.put(new SnapshotKey(0, "b"), new LongAccumulator(1));
+        expected.put(broadcastKey(Keys.NEXT_WIN_TO_EMIT), Long.MIN_VALUE);
+        assertEquals(expected, drain(copy));
+        assertEquals(new LongAccumulator(2), p.tsToKeyToAcc.get(0L).get("a"));
+        assertEquals(3, p.tsToKeyToAcc.get(0L).size());
+    }
+
+    @Test
+    public void when_frameEvictedAfterCopy_then_copyHasFrame() throws Exception {
+        // Given
+        init(false);
+        p.tryProcess(0, entry("a", 0L));
+        p.beforeSaveToSnapshot(false);
+        Traverser<Entry<Object, Object>> copy = p.takeSnapshotCopy();
+
+        // When
+        assertTrue(p.tryProcessWatermark(new Watermark(10)));
+
+        // Then
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(new SnapshotKey(0, "a"), new LongAccumulator(1));
+        expected.put(broadcastKey(Keys.NEXT_WIN_TO_EMIT), Long.MIN_VALUE);
+        assertEquals(expected, drain(copy));
+        assertTrue(p.tsToKeyToAcc.isEmpty());
+    }
+
+    @Test
+    public void when_incrementalCopy_then_changesAfterBarrierInNextSnapshot() throws Exception {
+        // Given
+        init(true);
+        p.tryProcess(0, entry("a", 0L));
+        p.tryProcess(0, entry("b", 0L));
+        p.beforeSaveToSnapshot(false);
+        drain(p.takeSnapshotCopy());
+        p.tryProcess(0, entry("a", 0L));
+        p.beforeSaveToSnapshot(true);
+        Traverser<Entry<Object, Object>> copy = p.takeSnapshotCopy();
+
+        // When
+        p.tryProcess(0, entry("b", 0L));
+        assertTrue(p.tryProcessWatermark(new Watermark(10)));
+
+        // Then
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put(new SnapshotKey(0, "a"), new LongAccumulator(2));
+        expected.put(broadcastKey(Keys.NEXT_WIN_TO_EMIT), Long.MIN_VALUE);
+        assertEquals(expected, drain(copy));
+
+        // When
+        p.beforeSaveToSnapshot(true);
+        Map<Object, Object> nextSnapshot = drain(p.takeSnapshotCopy());
+
+        // Then
+        expected.clear();
+        expected.put(new SnapshotKey(0, "a"), TOMBSTONE);
+        expected.put(new SnapshotKey(0, "b"), TOMBSTONE);
+        expected.put(broadcastKey(Keys.NEXT_WIN_TO_EMIT), 20L);
+        assertEquals(expected, nextSnapshot);
+    }
+
+    private static Map<Object, Object> drain(Traverser<Entry<Object, Object>> traverser) {
+        Map<Object, Object> result = new HashMap<>();
+        for (Entry<Object, Object> e; (e = traverser.next()) != null; ) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+}
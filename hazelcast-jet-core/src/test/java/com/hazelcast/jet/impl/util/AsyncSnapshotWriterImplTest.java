@@ -23,12 +23,14 @@ import com.hazelcast.internal.partition.InternalPartitionService;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.DeflaterPacketCodec;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.impl.JetService;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CustomByteArrayOutputStream;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.impl.NodeEngineImpl;
@@ -55,6 +57,7 @@ import static java.util.stream.Stream.generate;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -68,6 +71,7 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
+    private JetInstance instance;
     private AsyncSnapshotWriterImpl writer;
     private IMap<SnapshotDataKey, byte[]> map;
     private InternalSerializationService serializationService;
@@ -83,7 +87,7 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
               .setEnabled(true)
               .setImplementation(new AsyncMapWriterTest.AlwaysFailingMapStore());
 
-        JetInstance instance = createJetMember(jetConfig);
+        instance = createJetMember(jetConfig);
         NodeEngineImpl nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
         serializationService = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).getSerializationService();
         partitionService = nodeEngine.getPartitionService();
@@ -123,7 +127,8 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
     public void when_chunkSizeWouldExceedLimit_then_flushedAutomatically() {
         // When
         Entry<Data, Data> entry = entry(serialize("k"), serialize("v"));
-        int entriesInChunk = (writer.usableChunkSize - writer.serializedByteArrayHeader.length) / serializedLength(entry);
+        int entriesInChunk = (writer.usableChunkSize - writer.serializedByteArrayHeader.length - 1)
+                / serializedLength(entry);
         assertTrue("entriesInChunk=" + entriesInChunk, entriesInChunk > 1 && entriesInChunk < 10);
 
         for (int i = 0; i < entriesInChunk; i++) {
@@ -185,7 +190,8 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
         // artificially increase number of async ops so that the writer cannot proceed
         writer.numConcurrentAsyncOps.set(JetService.MAX_PARALLEL_ASYNC_OPS);
         Entry<Data, Data> entry = entry(serialize("k"), serialize("v"));
-        int entriesInChunk = (writer.usableChunkSize - writer.serializedByteArrayHeader.length) / serializedLength(entry);
+        int entriesInChunk = (writer.usableChunkSize - writer.serializedByteArrayHeader.length - 1)
+                / serializedLength(entry);
         assertTrue("entriesInChunk=" + entriesInChunk, entriesInChunk > 1 && entriesInChunk < 10);
         for (int i = 0; i < entriesInChunk; i++) {
             assertTrue(writer.offer(entry));
@@ -237,6 +243,39 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
                 assertThat(String.valueOf(writer.getError()), CoreMatchers.containsString("Always failing store")), 10);
     }
 
+    @Test
+    public void when_compressionEnabled_then_chunkCompressed() throws Exception {
+        // Given
+        NodeEngineImpl nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
+        AsyncSnapshotWriterImpl compressingWriter =
+                new AsyncSnapshotWriterImpl(1024, nodeEngine, snapshotContext, "vertex", 0, 1, false, true);
+        Entry<Data, Data> entry = entry(serialize("k"), serialize(generate(() -> "a").limit(100).collect(joining())));
+
+        // When
+        assertTrue(compressingWriter.offer(entry));
+        assertTrue(compressingWriter.offer(entry));
+        assertTrue(compressingWriter.flushAndResetMap());
+
+        // Then
+        int partitionKey = compressingWriter.partitionKey(partitionService.getPartitionId("k"));
+        SnapshotDataKey mapKey = new SnapshotDataKey(partitionKey, 1, "vertex", 0);
+        assertTrueEventually(() -> assertNotNull(map.get(mapKey)), 3);
+        byte[] chunk = map.get(mapKey);
+        assertEquals(AsyncSnapshotWriterImpl.CHUNK_CODEC_DEFLATE, chunk[0]);
+        int uncompressedLength = Bits.readIntB(chunk, 1);
+        assertEquals(2 * serializedLength(entry) + compressingWriter.valueTerminator.length, uncompressedLength);
+        byte[] uncompressed = new byte[uncompressedLength];
+        new DeflaterPacketCodec().decompress(chunk, 1 + Bits.INT_SIZE_IN_BYTES,
+                chunk.length - 1 - Bits.INT_SIZE_IN_BYTES, uncompressed, uncompressedLength);
+        BufferObjectDataInput in = serializationService.createObjectDataInput(uncompressed);
+        for (int i = 0; i < 2; i++) {
+            assertEquals("k", in.readObject());
+            assertEquals(100, ((String) in.readObject()).length());
+        }
+        assertTrue(compressingWriter.getTotalStoredBytes() < compressingWriter.getTotalPayloadBytes());
+        assertTrueEventually(() -> assertFalse(compressingWriter.hasPendingAsyncOps()), 3);
+    }
+
     @Test
     public void test_serializeAndDeserialize() throws Exception {
         // This is the way we serialize and deserialize objects into the snapshot. We depend on some internals of IMDG:
@@ -269,7 +308,8 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
     private void assertTargetMapEntry(String key, int sequence, int entryLength) {
         int partitionKey = writer.partitionKey(partitionService.getPartitionId(key));
         SnapshotDataKey mapKey = new SnapshotDataKey(partitionKey, 1, "vertex", sequence);
-        int entryLengthWithTerminator = entryLength + writer.valueTerminator.length;
+        // the chunk starts with the codec
+        int entryLengthWithTerminator = 1 + entryLength + writer.valueTerminator.length;
         assertTrueEventually(() ->
                 assertEquals(entryLengthWithTerminator, map.get(mapKey).length), 3);
     }
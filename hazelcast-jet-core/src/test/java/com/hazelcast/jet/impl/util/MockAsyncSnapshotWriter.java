@@ -28,6 +28,7 @@ public class MockAsyncSnapshotWriter implements AsyncSnapshotWriter {
     public boolean ableToFlushRemaining = true;
     public boolean hasPendingFlushes;
     public Throwable failure;
+    public boolean closed;
 
     private final Deque<Entry<? extends Data, ? extends Data>> entries = new ArrayDeque<>();
     private boolean isFlushed = true;
@@ -83,6 +84,11 @@ public class MockAsyncSnapshotWriter implements AsyncSnapshotWriter {
         return 0;
     }
 
+    @Override
+    public long getTotalStoredBytes() {
+        return 0;
+    }
+
     @Override
     public long getTotalKeys() {
         return 0;
@@ -92,4 +98,9 @@ public class MockAsyncSnapshotWriter implements AsyncSnapshotWriter {
     public long getTotalChunks() {
         return 0;
     }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
 }
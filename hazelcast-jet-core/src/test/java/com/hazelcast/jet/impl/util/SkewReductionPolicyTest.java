@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -83,12 +84,13 @@ public class SkewReductionPolicyTest {
         // Given
         srp = new SkewReductionPolicy(2, Long.MAX_VALUE, 10, false);
         long[] wms = srp.queueWms;
+        srp.observeWm(1, Long.MIN_VALUE + 1);
 
         // When
         srp.observeWm(0, 10);
 
         // Then
-        assertEquals(Long.MIN_VALUE, wms[1]);
+        assertEquals(Long.MIN_VALUE + 1, wms[1]);
         assertFalse(srp.shouldStopDraining(0, false));
     }
 
@@ -97,12 +99,13 @@ public class SkewReductionPolicyTest {
         // Given
         srp = new SkewReductionPolicy(2, Long.MAX_VALUE - 1, 10, false);
         long[] wms = srp.queueWms;
+        srp.observeWm(1, Long.MIN_VALUE + 1);
 
         // When
         srp.observeWm(0, 10);
 
         // Then
-        assertEquals(Long.MIN_VALUE, wms[1]);
+        assertEquals(Long.MIN_VALUE + 1, wms[1]);
         assertTrue(srp.shouldStopDraining(0, false));
     }
 
@@ -126,12 +129,13 @@ public class SkewReductionPolicyTest {
         // Given
         srp = new SkewReductionPolicy(2, Long.MAX_VALUE, Long.MAX_VALUE, false);
         long[] wms = srp.queueWms;
+        srp.observeWm(1, Long.MIN_VALUE + 1);
 
         // When
         srp.observeWm(0, 10);
 
         // Then
-        assertEquals(Long.MIN_VALUE, wms[1]);
+        assertEquals(Long.MIN_VALUE + 1, wms[1]);
         assertFalse(srp.shouldStopDraining(0, true));
     }
 
@@ -140,16 +144,87 @@ public class SkewReductionPolicyTest {
         // Given
         srp = new SkewReductionPolicy(2, 20, 10, false);
         long[] wms = srp.queueWms;
+        srp.observeWm(1, Long.MIN_VALUE + 1);
 
         // When
         srp.observeWm(0, 10);
 
         // Then
-        assertEquals(Long.MIN_VALUE, wms[1]);
+        assertEquals(Long.MIN_VALUE + 1, wms[1]);
         assertTrue(srp.shouldStopDraining(0, true));
     }
 
 
+    @Test
+    public void when_queueWithoutWm_then_ignoredInSkew() {
+        // Given
+        srp = new SkewReductionPolicy(3, 10, 0, false);
+        srp.observeWm(0, 100);
+
+        // When
+        srp.observeWm(1, 105);
+
+        // Then
+        assertEquals(Long.MIN_VALUE, srp.queueWms[2]);
+        assertFalse(srp.shouldStopDraining(0, true));
+        assertTrue(srp.shouldStopDraining(1, true));
+        assertFalse(srp.shouldStopDraining(1, false));
+        assertFalse(srp.shouldStopDraining(2, true));
+    }
+
+    @Test
+    public void when_queueIdle_then_movedToEndAndNotStopped() {
+        // Given
+        srp = new SkewReductionPolicy(3, 10, 0, false);
+        srp.observeWm(0, 1);
+        srp.observeWm(1, 2);
+        srp.observeWm(2, 3);
+
+        // When
+        srp.observeWm(0, IDLE_MESSAGE.timestamp());
+
+        // Then
+        assertEquals(1, srp.toQueueIndex(0));
+        assertEquals(0, srp.toQueueIndex(2));
+        assertEquals(2, srp.bottomObservedWm());
+        assertFalse(srp.shouldStopDraining(0, true));
+    }
+
+    @Test
+    public void when_idleQueueReceivesWm_then_reorderedBack() {
+        // Given
+        srp = new SkewReductionPolicy(3, 10, 0, false);
+        srp.observeWm(0, 1);
+        srp.observeWm(1, 2);
+        srp.observeWm(2, 3);
+        srp.observeWm(0, IDLE_MESSAGE.timestamp());
+
+        // When
+        boolean reordered = srp.observeWm(0, 2);
+
+        // Then
+        assertTrue(reordered);
+        assertQueuesOrdered();
+        assertEquals(2, srp.toQueueIndex(2));
+        assertEquals(2, srp.bottomObservedWm());
+    }
+
+    @Test
+    public void when_queueDone_then_doesNotHoldBackOthers() {
+        // Given
+        srp = new SkewReductionPolicy(2, 10, 0, false);
+        srp.observeWm(0, 1);
+        srp.observeWm(1, 100);
+        assertTrue(srp.shouldStopDraining(1, false));
+
+        // When
+        srp.queueDone(0);
+
+        // Then
+        assertEquals(100, srp.bottomObservedWm());
+        assertFalse(srp.shouldStopDraining(1, true));
+    }
+
     private void assertQueuesOrdered() {
         long lastValue = Long.MIN_VALUE;
         for (int i = 1; i < srp.queueWms.length; i++) {
@@ -19,6 +19,8 @@ package com.hazelcast.jet.pipeline;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.ReplicatedMap;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.datamodel.ItemsByTag;
 import com.hazelcast.jet.datamodel.Tag;
@@ -49,6 +51,7 @@ import static com.hazelcast.jet.impl.pipeline.AbstractStage.transformOf;
 import static com.hazelcast.jet.pipeline.JoinClause.joinMapEntries;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.StreamSupport.stream;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -152,6 +155,61 @@ public class BatchStageTest extends PipelineTestSupport {
         assertEquals(toBag(expected), sinkToBag());
     }
 
+    @Test
+    public void mapFilterFlatMapChain() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        putToBatchSrcMap(input);
+
+        // When
+        BatchStage<String> mapped = srcStage
+                .map(i -> i * 2)
+                .filter(i -> i % 3 != 0)
+                .flatMap(i -> traverseIterable(asList(i + "A", i + "B")))
+                .filter(s -> !s.startsWith("1"))
+                .map(s -> s + "-" + s.length());
+
+        // Then
+        mapped.drainTo(sink);
+        execute();
+        List<String> expected = input.stream()
+                                     .map(i -> i * 2)
+                                     .filter(i -> i % 3 != 0)
+                                     .flatMap(i -> Stream.of(i + "A", i + "B"))
+                                     .filter(s -> !s.startsWith("1"))
+                                     .map(s -> s + "-" + s.length())
+                                     .collect(toList());
+        assertEquals(toBag(expected), sinkToBag());
+    }
+
+    @Test
+    public void when_statelessStageChain_then_fusedIntoOneVertex() {
+        // When
+        BatchStage<String> mapped = srcStage
+                .map(i -> i * 2)
+                .filter(i -> i % 3 != 0)
+                .flatMap(i -> traverseIterable(asList(i + "A", i + "B")));
+        mapped.drainTo(sink);
+
+        // Then
+        DAG dag = p.toDag();
+        List<String> vertexNames = stream(dag.spliterator(), false).map(Vertex::getName).collect(toList());
+        assertEquals(3, vertexNames.size());
+        assertTrue(vertexNames.toString(), vertexNames.contains("fused(map, filter, flat-map)"));
+    }
+
+    @Test
+    public void when_stageHasTwoDownstreams_then_notFused() {
+        // When
+        BatchStage<Integer> mapped = srcStage.map(i -> i * 2);
+        mapped.filter(i -> i % 3 != 0).drainTo(sinkList());
+        mapped.filter(i -> i % 3 == 0).drainTo(sinkList());
+
+        // Then
+        DAG dag = p.toDag();
+        assertEquals(6, stream(dag.spliterator(), false).count());
+    }
+
     @Test
     public void mapUsingContext() {
         // Given
@@ -96,11 +96,19 @@ public class TestApplicationContext {
         assertEquals(2, instanceConfig.getCooperativeThreadCount());
         assertEquals(200, instanceConfig.getFlowControlPeriodMs());
         assertEquals(1234, instanceConfig.getScaleUpDelayMillis());
+        assertTrue(instanceConfig.isWorkStealingEnabled());
+        assertTrue(instanceConfig.isEventDrivenWakeupEnabled());
+        assertEquals("/tmp/jet-snapshots", instanceConfig.getSnapshotDirectory());
 
         EdgeConfig edgeConfig = jetConfig.getDefaultEdgeConfig();
         assertEquals(8, edgeConfig.getQueueSize());
         assertEquals(3, edgeConfig.getPacketSizeLimit());
+        assertEquals(50, edgeConfig.getPacketLingerTimeMicros());
         assertEquals(5, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue(edgeConfig.isSkewReductionEnabled());
+        assertEquals(10, edgeConfig.getPriorityDrainingThreshold());
+        assertEquals(100, edgeConfig.getMaxWatermarkSkew());
+        assertTrue(edgeConfig.isPacketCompressionEnabled());
 
         assertEquals("bar", jetConfig.getProperties().getProperty("foo"));
 